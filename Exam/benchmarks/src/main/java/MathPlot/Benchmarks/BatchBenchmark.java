@@ -0,0 +1,68 @@
+package MathPlot.Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import MathPlot.Expressions.BatchEvaluator;
+import MathPlot.Expressions.BytecodeCompiler;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionCompiler;
+
+// Vectorized batch evaluation over an x grid versus a scalar loop on the compiled function
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector" })
+public class BatchBenchmark {
+    @Param({ "1000", "100000", "10000000" })
+    public int samples;
+
+    @Param({ "(x+1)*(x-2)/(x*x+1)-x*0.5", "sin(x)*2+x*x/3" })
+    public String expression;
+
+    private DoubleUnaryOperator scalar;
+    private BatchEvaluator batch;
+    private double[] xs;
+    private double[] out;
+
+    @Setup
+    public void setup() throws Exception {
+        final Expression tree = ExpressionCompiler.fromAOS(this.expression);
+        this.scalar = BytecodeCompiler.compile(tree);
+        this.batch = new BatchEvaluator(tree, this.scalar);
+
+        this.xs = new double[this.samples];
+        this.out = new double[this.samples];
+        for (int i = 0; i < this.samples; ++i) {
+            this.xs[i] = -10.0 + 20.0 * i / this.samples;
+        }
+    }
+
+    @Benchmark
+    public double[] scalar() {
+        for (int i = 0; i < this.samples; ++i) {
+            this.out[i] = this.scalar.applyAsDouble(this.xs[i]);
+        }
+        return this.out;
+    }
+
+    @Benchmark
+    public double[] batch() {
+        this.batch.evaluate(this.xs, this.out, this.samples);
+        return this.out;
+    }
+}
@@ -0,0 +1,67 @@
+package MathPlot.Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import MathPlot.Expressions.BytecodeCompiler;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionCompiler;
+
+// Tree interpreter versus the hidden class generated by BytecodeCompiler
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BytecodeBenchmark {
+    private static final int SAMPLES = 10000;
+
+    @Param({
+            "sin(x)*sin(x*2)+sin(x*3)*0.5",
+            "exp(x/10)+exp(0-x/10)*2",
+            "log(x*x+1)*log(x*x+2)",
+            "x^2+x^3*0.5+x^0.5"
+    })
+    public String expression;
+
+    private Expression tree;
+    private DoubleUnaryOperator compiled;
+
+    @Setup
+    public void setup() throws Exception {
+        this.tree = ExpressionCompiler.fromAOS(this.expression);
+        this.compiled = BytecodeCompiler.compile(this.tree);
+    }
+
+    @Benchmark
+    public void tree(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; ++i) {
+            bh.consume(this.tree.evaluate(sampleX(i)));
+        }
+    }
+
+    @Benchmark
+    public void bytecode(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; ++i) {
+            bh.consume(this.compiled.applyAsDouble(sampleX(i)));
+        }
+    }
+
+    private static double sampleX(int i) {
+        return -10.0 + 20.0 * i / SAMPLES;
+    }
+}
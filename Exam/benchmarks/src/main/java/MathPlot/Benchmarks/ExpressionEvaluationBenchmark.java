@@ -0,0 +1,81 @@
+package MathPlot.Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionCompiler;
+import MathPlot.Expressions.Function;
+import MathPlot.Expressions.Operator;
+import MathPlot.Parsers.AOS;
+
+// Re-parsing the AOS string for every sample versus evaluating the tree compiled once
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionEvaluationBenchmark {
+    private static final int SAMPLES = 1000;
+
+    @Param({ "1", "4", "16" })
+    public int depth;
+
+    private String text;
+    private Expression tree;
+    private AOS aos;
+
+    @Setup
+    public void setup() throws Exception {
+        this.text = Expressions.nested(this.depth);
+        this.tree = ExpressionCompiler.fromAOS(this.text);
+        this.aos = new AOS();
+    }
+
+    @Benchmark
+    public void stringReparse(Blackhole bh) throws Exception {
+        for (int i = 0; i < SAMPLES; ++i) {
+            bh.consume(evaluateByParsing(this.aos, this.text, sampleX(i)));
+        }
+    }
+
+    @Benchmark
+    public void treeEvaluate(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; ++i) {
+            bh.consume(this.tree.evaluate(sampleX(i)));
+        }
+    }
+
+    private static double sampleX(int i) {
+        return -10.0 + 20.0 * i / SAMPLES;
+    }
+
+    // What an evaluator built directly on AOS.Parts has to do: split substrings on every call
+    private static double evaluateByParsing(AOS aos, String s, double x) throws Exception {
+        final AOS.Parts parts = aos.parse(s);
+
+        if (parts.left == null) {
+            return parts.main.equalsIgnoreCase("x") ? x : Double.parseDouble(parts.main);
+        }
+
+        if (parts.right == null) {
+            return Function.fromSymbol(parts.main).apply(evaluateByParsing(aos, parts.left, x));
+        }
+
+        return Operator.fromSymbol(parts.main).apply(evaluateByParsing(aos, parts.left, x),
+                evaluateByParsing(aos, parts.right, x));
+    }
+}
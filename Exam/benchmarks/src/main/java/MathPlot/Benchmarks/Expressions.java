@@ -0,0 +1,41 @@
+package MathPlot.Benchmarks;
+
+// Generators for benchmark inputs
+final class Expressions {
+    private Expressions() {
+    }
+
+    // AOS text nesting 'depth' function calls, e.g. depth 2: x+cos(x+cos(x)*0.5)*0.5
+    static String nested(int depth) {
+        String expr = "x";
+        for (int i = 0; i < depth; ++i) {
+            expr = "x+cos(" + expr + ")*0.5";
+        }
+        return expr;
+    }
+
+    // AOS text of at least 'chars' characters, the same sum as flat()
+    static String flatOfLength(int chars) {
+        final String[] terms = { "x*0.5", "sin(x)*2", "x^2", "cos(x+1)/3" };
+
+        final StringBuilder sb = new StringBuilder("x");
+        for (int i = 0; sb.length() < chars; ++i) {
+            sb.append('+').append(terms[i % terms.length]);
+        }
+        return sb.toString();
+    }
+
+    // AOS text of roughly 'tokens' tokens: a long sum of small terms
+    static String flat(int tokens) {
+        final String[] terms = { "x*0.5", "sin(x)*2", "x^2", "cos(x+1)/3" };
+        final int[] termTokens = { 3, 6, 3, 8 };
+
+        final StringBuilder sb = new StringBuilder("x");
+        int count = 1;
+        for (int i = 0; count < tokens; ++i) {
+            sb.append('+').append(terms[i % terms.length]);
+            count += 1 + termTokens[i % terms.length];
+        }
+        return sb.toString();
+    }
+}
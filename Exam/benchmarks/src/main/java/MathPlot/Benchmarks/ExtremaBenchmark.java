@@ -0,0 +1,87 @@
+package MathPlot.Benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import MathPlot.Analysis.Extremum;
+import MathPlot.Analysis.RootFinder;
+import MathPlot.Expressions.BatchEvaluator;
+import MathPlot.Expressions.BytecodeCompiler;
+import MathPlot.Expressions.Derivative;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionCompiler;
+import MathPlot.Expressions.Simplifier;
+
+// Time to find the extrema of high-frequency curves over [-10, 10]: a dense scan comparing
+// neighbouring samples, located to within 2e-5, versus Newton on the derivative over a grid
+// of 2400 cells (4 per pixel of the default canvas), located to a few ulps
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector" })
+public class ExtremaBenchmark {
+    private static final double FROM = -10;
+    private static final double TO = 10;
+    private static final int DENSE_SAMPLES = 1_000_000;
+    private static final int CELLS = 2400;
+
+    @Param({ "sin(50*x)", "sin(20*x)*exp(0-x^2/50)", "cos(30*x)+0.5*sin(45*x)" })
+    public String expression;
+
+    private BatchEvaluator function;
+    private BatchEvaluator derivative;
+    private DoubleUnaryOperator secondDerivative;
+    private double[] xs;
+    private double[] ys;
+
+    @Setup
+    public void setup() throws Exception {
+        final Expression tree = Simplifier.simplify(ExpressionCompiler.fromAOS(this.expression));
+        final Expression d = Derivative.of(tree);
+
+        this.function = new BatchEvaluator(tree, BytecodeCompiler.compile(tree));
+        this.derivative = new BatchEvaluator(d, BytecodeCompiler.compile(d));
+        this.secondDerivative = BytecodeCompiler.compile(Derivative.of(d));
+
+        this.xs = new double[DENSE_SAMPLES];
+        this.ys = new double[DENSE_SAMPLES];
+    }
+
+    @Benchmark
+    public int denseScan() {
+        for (int i = 0; i < DENSE_SAMPLES; ++i) {
+            this.xs[i] = FROM + (TO - FROM) * i / (DENSE_SAMPLES - 1);
+        }
+        this.function.evaluate(this.xs, this.ys, DENSE_SAMPLES);
+
+        int found = 0;
+        for (int i = 1; i + 1 < DENSE_SAMPLES; ++i) {
+            final double before = this.ys[i] - this.ys[i - 1];
+            final double after = this.ys[i + 1] - this.ys[i];
+            if ((before > 0 && after <= 0) || (before < 0 && after >= 0)) {
+                ++found;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public List<Extremum> newton() {
+        return RootFinder.extrema(this.function, this.derivative, this.secondDerivative, FROM, TO, CELLS);
+    }
+}
@@ -0,0 +1,143 @@
+package MathPlot.Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import MathPlot.MathPlot;
+import MathPlot.Point;
+import MathPlot.Expressions.BatchEvaluator;
+import MathPlot.Expressions.BatchFunction;
+import MathPlot.Expressions.BytecodeCompiler;
+import MathPlot.Expressions.Derivative;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionCompiler;
+import MathPlot.Expressions.ExpressionPrinter;
+import MathPlot.Expressions.IntervalEvaluator;
+import MathPlot.Expressions.IntervalFunction;
+import MathPlot.Expressions.Simplifier;
+import MathPlot.Parsers.AOS;
+import MathPlot.Parsers.RPN;
+import MathPlot.Sampling.AdaptiveSampler;
+
+// The paths every plot goes through, on long flat sums and on deeply nested calls: parsing
+// both input formats, evaluating the compiled function, adaptive sampling drained through
+// Point.Iterator and the area for each AreaType. This is the suite RegressionCheck guards,
+// see the "regression" profile in pom.xml; keep benchmark and parameter names stable, as the
+// baseline is matched on them.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector" })
+public class HotPathBenchmark {
+    private static final Point VIEW_MIN = new Point(-10, -10);
+    private static final Point VIEW_MAX = new Point(10, 10);
+    private static final int PIXELS = 600;
+    private static final int SAMPLES = 1000;
+    private static final double STEP = 0.01;
+
+    public enum Shape {
+        // A sum of about 'size' tokens, see Expressions.flat()
+        Flat,
+        // 'size' function calls nested in one another, see Expressions.nested()
+        Nested
+    }
+
+    // Shape and size. The derivatives grow far faster than the depth, so the deepest nesting
+    // also covers MathPlot deriving the second one lazily and bounding what it compiles.
+    @Param({ "Flat:10", "Flat:100", "Flat:1000", "Nested:4", "Nested:16", "Nested:64", "Nested:128" })
+    public String input;
+
+    private String aosText;
+    private String rpnText;
+    private BatchFunction function;
+    private IntervalFunction bounds;
+    private MathPlot plot;
+    // Shifts the end of the area range, see area()
+    private long range;
+
+    @State(Scope.Benchmark)
+    public static class Area {
+        @Param({ "Rectangular", "Trapezoidal", "Simpson", "GaussKronrod" })
+        public MathPlot.AreaType type;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        final String[] parts = this.input.split(":");
+        final int size = Integer.parseInt(parts[1]);
+        this.aosText = switch (Shape.valueOf(parts[0])) {
+            case Flat -> Expressions.flat(size);
+            case Nested -> Expressions.nested(size);
+        };
+
+        // Compiled the way MathPlot compiles an expression
+        final Expression tree = ExpressionCompiler.fromAOS(this.aosText);
+        final Expression optimized = Simplifier.simplify(tree);
+        final Expression derivative = Derivative.of(optimized);
+        this.rpnText = ExpressionPrinter.toRPN(tree);
+        this.function = new BatchEvaluator(optimized, BytecodeCompiler.compile(optimized));
+        this.bounds = IntervalEvaluator.enclosure(optimized, derivative);
+
+        this.plot = new MathPlot();
+        this.plot.setExpression(this.aosText, MathPlot.ExpressionFormat.AOS);
+        if (this.plot.error() != null) {
+            throw new IllegalStateException(this.plot.error());
+        }
+    }
+
+    @Benchmark
+    public AOS.Parts aosParse() throws Exception {
+        return new AOS().parse(this.aosText);
+    }
+
+    @Benchmark
+    public int rpnParse() throws Exception {
+        return new RPN(this.rpnText).parse().size();
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole bh) {
+        for (int i = 0; i < SAMPLES; ++i) {
+            bh.consume(this.function.applyAsDouble(-10.0 + 20.0 * i / SAMPLES));
+        }
+    }
+
+    @Benchmark
+    public long sample() {
+        final Point.Iterator it = new AdaptiveSampler(this.function, this.bounds, VIEW_MIN.x(), VIEW_MAX.x(),
+                VIEW_MIN, VIEW_MAX, PIXELS, PIXELS);
+
+        long points = 0;
+        it.reset();
+        while (it.hasNext()) {
+            it.nextPoint();
+            if (!it.hasBreak()) {
+                ++points;
+            }
+        }
+        return points;
+    }
+
+    @Benchmark
+    public double area(Area area) {
+        // A range not integrated before, so the fixed-step rules do not find their samples in
+        // MathPlot's grid cache
+        this.range = (this.range + 1) % 1_000_000;
+        this.plot.setRange(VIEW_MIN.x(), VIEW_MAX.x() + this.range * 1e-9, STEP);
+        return this.plot.area(area.type);
+    }
+}
@@ -0,0 +1,71 @@
+package MathPlot.Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import MathPlot.Expressions.BinaryOperation;
+import MathPlot.Expressions.Constant;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.Function;
+import MathPlot.Expressions.FunctionCall;
+import MathPlot.Expressions.Operator;
+import MathPlot.Expressions.Variable;
+import MathPlot.Parsers.AOS;
+import MathPlot.Parsers.PrattParser;
+
+// Building the expression tree by recursive AOS substring splitting versus the single-pass
+// Pratt parser, on generated inputs of growing length
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xss16m" })
+public class ParserBenchmark {
+    @Param({ "100", "1000", "10000" })
+    public int tokens;
+
+    private String text;
+
+    @Setup
+    public void setup() {
+        this.text = Expressions.flat(this.tokens);
+    }
+
+    @Benchmark
+    public Expression substringSplitting() throws Exception {
+        return compileBySplitting(new AOS(), this.text);
+    }
+
+    @Benchmark
+    public Expression pratt() throws Exception {
+        return new PrattParser(this.text).parse();
+    }
+
+    // The tree construction on top of AOS.parse that PrattParser replaced
+    private static Expression compileBySplitting(AOS aos, String input) throws Exception {
+        final AOS.Parts parts = aos.parse(input);
+
+        if (parts.left == null) {
+            return parts.main.equalsIgnoreCase("x") ? new Variable() : new Constant(Double.parseDouble(parts.main));
+        }
+
+        if (parts.right == null) {
+            return new FunctionCall(Function.fromSymbol(parts.main), compileBySplitting(aos, parts.left));
+        }
+
+        return new BinaryOperation(Operator.fromSymbol(parts.main), compileBySplitting(aos, parts.left),
+                compileBySplitting(aos, parts.right));
+    }
+}
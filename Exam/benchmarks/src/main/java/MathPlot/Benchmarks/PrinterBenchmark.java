@@ -0,0 +1,66 @@
+package MathPlot.Benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionPrinter;
+import MathPlot.Expressions.LineWrapper;
+import MathPlot.Parsers.PrattParser;
+
+// Printing trees parsed from AOS texts of up to 1 MB back as AOS, as RPN, and as AOS wrapped
+// into lines as for the print area. A sum of n terms is n levels deep, which the printer walks
+// without recursion.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrinterBenchmark {
+    @Param({ "16384", "1048576" })
+    public int bytes;
+
+    private Expression expression;
+    private StringBuilder out;
+
+    @Setup
+    public void setup() throws Exception {
+        this.expression = new PrattParser(Expressions.flatOfLength(this.bytes)).parse();
+        this.out = new StringBuilder(this.bytes * 2);
+    }
+
+    @Benchmark
+    public int toAOS() throws IOException {
+        this.out.setLength(0);
+        ExpressionPrinter.writeAOS(this.expression, this.out);
+        return this.out.length();
+    }
+
+    @Benchmark
+    public int toRPN() throws IOException {
+        this.out.setLength(0);
+        ExpressionPrinter.writeRPN(this.expression, this.out);
+        return this.out.length();
+    }
+
+    @Benchmark
+    public void wrappedLines(Blackhole blackhole) throws IOException {
+        final LineWrapper wrapper = new LineWrapper(100, blackhole::consume);
+        ExpressionPrinter.writeAOS(this.expression, wrapper);
+        wrapper.flush();
+    }
+}
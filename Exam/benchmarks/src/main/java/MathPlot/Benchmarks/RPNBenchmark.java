@@ -0,0 +1,85 @@
+package MathPlot.Benchmarks;
+
+import java.util.Stack;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.Function;
+import MathPlot.Expressions.Operator;
+import MathPlot.Expressions.StackProgram;
+import MathPlot.Parsers.RPN;
+import MathPlot.Parsers.RPNCompiler;
+
+// RPN evaluation: string tokens through RPN.parse versus the tree and the opcode program.
+// Allocation per sample is the interesting figure, run with:
+// java -jar target/benchmarks.jar RPNBenchmark -prof gc
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RPNBenchmark {
+    @Param({ "x 2 * cos 0.5 * x +", "x x * 1 + log x sin * x 3 ^ 0.5 * -" })
+    public String expression;
+
+    private Expression tree;
+    private StackProgram program;
+    private double x;
+
+    @Setup
+    public void setup() throws Exception {
+        this.program = RPNCompiler.compile(this.expression);
+        this.tree = this.program.toExpression();
+        this.x = 1.25;
+    }
+
+    @Benchmark
+    public void stringTokens(Blackhole bh) throws Exception {
+        bh.consume(evaluateTokens(new RPN(this.expression).parse(), this.x));
+    }
+
+    @Benchmark
+    public void tree(Blackhole bh) {
+        bh.consume(this.tree.evaluate(this.x));
+    }
+
+    @Benchmark
+    public void stackProgram(Blackhole bh) {
+        bh.consume(this.program.evaluate(this.x));
+    }
+
+    // Evaluation of the validated token stack as returned by RPN.parse
+    private static double evaluateTokens(Stack<String> tokens, double x) {
+        final Stack<Double> values = new Stack<>();
+
+        for (final String token : tokens) {
+            final Operator op = Operator.fromSymbol(token);
+            final Function fn = Function.fromSymbol(token);
+
+            if (op != null) {
+                final double right = values.pop();
+                values.push(op.apply(values.pop(), right));
+            } else if (fn != null) {
+                values.push(fn.apply(values.pop()));
+            } else {
+                values.push(token.equals("x") ? x : Double.parseDouble(token));
+            }
+        }
+
+        return values.pop();
+    }
+}
@@ -0,0 +1,291 @@
+package MathPlot.Benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Compares a JMH result file, written with -rf json, to a baseline in the same format and
+// exits with status 1 if any benchmark got slower than the baseline by more than the threshold
+// percentage. To tell a regression from noise, the difference must also exceed both error
+// margins: the score's confidence interval has to lie entirely beyond the baseline's.
+// Benchmarks missing from the baseline are listed but never fail the check; benchmarks in the
+// baseline but missing from the results do, as does a baseline measured on another major JDK
+// version, since scores from different JDKs cannot be compared. Without a baseline, the first
+// run records its results as the baseline and passes; commit that file to guard later runs.
+//
+// Usage: RegressionCheck <baseline.json> <result.json> <threshold percent>
+public class RegressionCheck {
+    // A benchmark and its parameters, as matched between the files
+    private record Key(String benchmark, String mode, Map<String, String> params) {
+        @Override
+        public String toString() {
+            // Class and method, without the package
+            final int method = this.benchmark.lastIndexOf('.');
+            final String name = this.benchmark.substring(this.benchmark.lastIndexOf('.', method - 1) + 1);
+            return this.params.isEmpty() ? name : name + " " + this.params;
+        }
+    }
+
+    private record Score(double score, double error, String unit, String jdk) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: RegressionCheck <baseline.json> <result.json> <threshold percent>");
+            System.exit(2);
+        }
+
+        if (!Files.exists(Path.of(args[0]))) {
+            Files.copy(Path.of(args[1]), Path.of(args[0]));
+            System.out.println("No baseline at " + args[0] + ", recorded this run as the baseline, commit it");
+            return;
+        }
+
+        final Map<Key, Score> baseline = read(Path.of(args[0]));
+        final Map<Key, Score> results = read(Path.of(args[1]));
+        final double threshold = Double.parseDouble(args[2]) / 100;
+        if (!(threshold >= 0)) {
+            throw new IllegalArgumentException("Invalid threshold");
+        }
+
+        final List<String> regressions = new ArrayList<>();
+        for (final Map.Entry<Key, Score> entry : results.entrySet()) {
+            final Key key = entry.getKey();
+            final Score now = entry.getValue();
+            final Score then = baseline.get(key);
+
+            if (then == null) {
+                System.out.printf("%-60s %12.3f %s  (not in the baseline)%n", key, now.score(), now.unit());
+                continue;
+            }
+            if (!then.unit().equals(now.unit())) {
+                regressions.add(key + ": unit " + now.unit() + ", baseline in " + then.unit());
+                continue;
+            }
+            if (!major(then.jdk()).equals(major(now.jdk()))) {
+                regressions.add(key + ": measured on JDK " + now.jdk() + ", baseline on JDK " + then.jdk()
+                        + ", record the baseline again");
+                continue;
+            }
+
+            // Time per operation gets worse as it grows, throughput as it shrinks
+            final double sign = key.mode().equals("thrpt") ? -1 : 1;
+            final double change = sign * (now.score() - then.score()) / then.score();
+            final boolean significant = sign * (now.score() - then.score()) > now.error() + then.error();
+            final boolean regressed = change > threshold && significant;
+
+            System.out.printf("%-60s %12.3f %s  baseline %12.3f  %+7.1f%%%s%n", key, now.score(), now.unit(),
+                    then.score(), 100 * change, regressed ? "  REGRESSION" : "");
+            if (regressed) {
+                regressions.add(String.format("%s: %+.1f%%", key, 100 * change));
+            }
+        }
+
+        for (final Key key : baseline.keySet()) {
+            if (!results.containsKey(key)) {
+                regressions.add(key + ": in the baseline but not measured");
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+            System.out.printf("%d failure(s), threshold %s%%:%n", regressions.size(), args[2]);
+            regressions.forEach(r -> System.out.println("  " + r));
+            System.exit(1);
+        }
+        System.out.println("No regression beyond " + args[2] + "%");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Key, Score> read(Path file) throws IOException {
+        final Map<Key, Score> scores = new LinkedHashMap<>();
+
+        for (final Object run : (List<Object>) new JsonReader(Files.readString(file)).read()) {
+            final Map<String, Object> fields = (Map<String, Object>) run;
+            final Map<String, Object> metric = (Map<String, Object>) fields.get("primaryMetric");
+            final Map<String, String> params = new TreeMap<>();
+            if (fields.get("params") instanceof Map<?, ?> values) {
+                values.forEach((name, value) -> params.put((String) name, String.valueOf(value)));
+            }
+
+            scores.put(new Key((String) fields.get("benchmark"), (String) fields.get("mode"), params),
+                    new Score(number(metric.get("score")), number(metric.get("scoreError")),
+                            (String) metric.get("scoreUnit"), String.valueOf(fields.get("jdkVersion"))));
+        }
+
+        return scores;
+    }
+
+    // "21.0.1" -> "21"
+    private static String major(String version) {
+        final int dot = version.indexOf('.');
+        return dot < 0 ? version : version.substring(0, dot);
+    }
+
+    // JMH writes an error it cannot estimate, from a single iteration, as "NaN"
+    private static double number(Object value) {
+        final double d = value instanceof Double v ? v : Double.parseDouble(String.valueOf(value));
+        return Double.isNaN(d) ? 0 : d;
+    }
+
+    // Reads JSON into maps, lists, strings, doubles, booleans and nulls
+    private static class JsonReader {
+        final private String text;
+        private int pos;
+
+        JsonReader(String text) {
+            this.text = text;
+        }
+
+        Object read() {
+            final Object value = value();
+            skipSpace();
+            if (this.pos != this.text.length()) {
+                throw error("Trailing characters");
+            }
+            return value;
+        }
+
+        private Object value() {
+            skipSpace();
+            if (this.pos == this.text.length()) {
+                throw error("Unexpected end");
+            }
+
+            final char c = this.text.charAt(this.pos);
+            if (c == '{') {
+                return object();
+            }
+            if (c == '[') {
+                return array();
+            }
+            if (c == '"') {
+                return string();
+            }
+            if (this.text.startsWith("true", this.pos) || this.text.startsWith("false", this.pos)
+                    || this.text.startsWith("null", this.pos)) {
+                final String word = c == 'f' ? "false" : c == 't' ? "true" : "null";
+                this.pos += word.length();
+                return c == 'n' ? null : Boolean.valueOf(word);
+            }
+            return number();
+        }
+
+        private Map<String, Object> object() {
+            final Map<String, Object> map = new LinkedHashMap<>();
+            expect('{');
+            skipSpace();
+            if (peek() == '}') {
+                ++this.pos;
+                return map;
+            }
+
+            do {
+                skipSpace();
+                final String name = string();
+                skipSpace();
+                expect(':');
+                map.put(name, value());
+                skipSpace();
+            } while (next() == ',');
+
+            --this.pos;
+            expect('}');
+            return map;
+        }
+
+        private List<Object> array() {
+            final List<Object> list = new ArrayList<>();
+            expect('[');
+            skipSpace();
+            if (peek() == ']') {
+                ++this.pos;
+                return list;
+            }
+
+            do {
+                list.add(value());
+                skipSpace();
+            } while (next() == ',');
+
+            --this.pos;
+            expect(']');
+            return list;
+        }
+
+        private String string() {
+            expect('"');
+            final StringBuilder sb = new StringBuilder();
+
+            for (char c = next(); c != '"'; c = next()) {
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+
+                final char escaped = next();
+                switch (escaped) {
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (this.pos + 4 > this.text.length()) {
+                            throw error("Unexpected end");
+                        }
+                        sb.append((char) Integer.parseInt(this.text.substring(this.pos, this.pos + 4), 16));
+                        this.pos += 4;
+                    }
+                    default -> sb.append(escaped);
+                }
+            }
+
+            return sb.toString();
+        }
+
+        private Double number() {
+            final int start = this.pos;
+            while (this.pos < this.text.length() && "+-0123456789.eE".indexOf(this.text.charAt(this.pos)) >= 0) {
+                ++this.pos;
+            }
+            if (start == this.pos) {
+                throw error("Unexpected character");
+            }
+            return Double.valueOf(this.text.substring(start, this.pos));
+        }
+
+        private void skipSpace() {
+            while (this.pos < this.text.length() && Character.isWhitespace(this.text.charAt(this.pos))) {
+                ++this.pos;
+            }
+        }
+
+        private char peek() {
+            if (this.pos == this.text.length()) {
+                throw error("Unexpected end");
+            }
+            return this.text.charAt(this.pos);
+        }
+
+        private char next() {
+            final char c = peek();
+            ++this.pos;
+            return c;
+        }
+
+        private void expect(char c) {
+            if (next() != c) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + this.pos);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package MathPlot.Benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import MathPlot.Point;
+import MathPlot.Rendering.Raster;
+import MathPlot.Rendering.RasterRenderer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Affine;
+
+// Frame time and draw calls of a frame of lines, circles and a curve, drawn with the
+// GraphicsContext path calls Plotter issues versus rasterized by RasterRenderer, in full and
+// when panning by a few pixels. The path time only covers recording the calls into the canvas
+// (no scene is shown here): Prism rasterizes them later on the render thread, on top of it.
+// The raster frames cost 2 draw calls each, the transform reset and the drawImage of present().
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+    private static final Point VIEW_MIN = new Point(-10, -10);
+    private static final Point VIEW_MAX = new Point(10, 10);
+    private static final int PIXELS = 600;
+    private static final int PAN_PIXELS = 8;
+
+    // Lines and circles each, the curve having ten times as many points
+    @Param({ "100", "1000", "10000" })
+    public int items;
+
+    private double[] lines;
+    private double[] circles;
+    private double[] curveXs, curveYs;
+    private Canvas canvas;
+    private RasterRenderer renderer;
+    private Consumer<Raster> rasterItems;
+    private int panOffset;
+    private int panStep;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class DrawCalls {
+        public long drawCalls;
+        public long frames;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            this.drawCalls = 0;
+            this.frames = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+
+        this.lines = new double[4 * this.items];
+        for (int i = 0; i < this.lines.length; ++i) {
+            this.lines[i] = random.nextDouble() * 20 - 10;
+        }
+
+        this.circles = new double[3 * this.items];
+        for (int i = 0; i < this.circles.length; i += 3) {
+            this.circles[i] = random.nextDouble() * 20 - 10;
+            this.circles[i + 1] = random.nextDouble() * 20 - 10;
+            this.circles[i + 2] = 0.1 + random.nextDouble();
+        }
+
+        this.curveXs = new double[10 * this.items];
+        this.curveYs = new double[10 * this.items];
+        for (int i = 0; i < this.curveXs.length; ++i) {
+            this.curveXs[i] = -10 + 20.0 * i / (this.curveXs.length - 1);
+            this.curveYs[i] = 5 * Math.sin(5 * this.curveXs[i]);
+        }
+
+        final int lineColor = RasterRenderer.argb(Color.LIGHTGRAY);
+        final int circleColor = RasterRenderer.argb(Color.RED);
+        final int curveColor = RasterRenderer.argb(Color.BLUE);
+        this.rasterItems = raster -> {
+            for (int i = 0; i < this.lines.length; i += 4) {
+                raster.drawLine(this.lines[i], this.lines[i + 1], this.lines[i + 2], this.lines[i + 3], lineColor,
+                        0.02);
+            }
+            for (int i = 0; i < this.circles.length; i += 3) {
+                raster.drawEllipse(this.circles[i], this.circles[i + 1], this.circles[i + 2], this.circles[i + 2],
+                        circleColor, 0.05);
+            }
+            for (int i = 1; i < this.curveXs.length; ++i) {
+                raster.drawLine(this.curveXs[i - 1], this.curveYs[i - 1], this.curveXs[i], this.curveYs[i], curveColor,
+                        0.05);
+            }
+        };
+
+        this.canvas = new Canvas(PIXELS, PIXELS);
+        this.renderer = new RasterRenderer(Color.WHITE);
+        this.panStep = PAN_PIXELS;
+    }
+
+    @Benchmark
+    public void path(DrawCalls counter) {
+        final GraphicsContext gc = this.canvas.getGraphicsContext2D();
+        long calls = 0;
+
+        // Same calls as Plotter.draw and the items' stroke()
+        gc.setTransform(new Affine());
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, PIXELS, PIXELS);
+
+        final Affine transform = new Affine();
+        transform.appendTranslation(0, PIXELS);
+        transform.appendScale(1, -1);
+        transform.appendScale(PIXELS / (VIEW_MAX.x() - VIEW_MIN.x()), PIXELS / (VIEW_MAX.y() - VIEW_MIN.y()));
+        transform.appendTranslation(-VIEW_MIN.x(), -VIEW_MIN.y());
+        gc.setTransform(transform);
+        calls += 4;
+
+        for (int i = 0; i < this.lines.length; i += 4) {
+            gc.setStroke(Color.LIGHTGRAY);
+            gc.setLineWidth(0.02);
+            gc.strokeLine(this.lines[i], this.lines[i + 1], this.lines[i + 2], this.lines[i + 3]);
+            calls += 3;
+        }
+
+        for (int i = 0; i < this.circles.length; i += 3) {
+            final double r = this.circles[i + 2];
+            gc.setStroke(Color.RED);
+            gc.setLineWidth(0.05);
+            gc.strokeOval(this.circles[i] - r, this.circles[i + 1] - r, 2 * r, 2 * r);
+            calls += 3;
+        }
+
+        gc.setLineWidth(0.05);
+        gc.setStroke(Color.BLUE);
+        gc.beginPath();
+        gc.moveTo(this.curveXs[0], this.curveYs[0]);
+        calls += 4;
+        for (int i = 1; i < this.curveXs.length; ++i) {
+            gc.lineTo(this.curveXs[i], this.curveYs[i]);
+            gc.moveTo(this.curveXs[i], this.curveYs[i]);
+            calls += 2;
+        }
+        gc.stroke();
+        ++calls;
+
+        counter.drawCalls += calls;
+        ++counter.frames;
+    }
+
+    @Benchmark
+    public void rasterFull(DrawCalls counter) {
+        // New content each frame, so nothing of the previous frame is reused
+        this.renderer.rasterize(VIEW_MIN, VIEW_MAX, PIXELS, PIXELS, new Object(), this.rasterItems);
+
+        counter.drawCalls += 2;
+        ++counter.frames;
+    }
+
+    @Benchmark
+    public void rasterPan(DrawCalls counter) {
+        // Pans back and forth by up to half the canvas, PAN_PIXELS at a time
+        if (Math.abs(this.panOffset + this.panStep) > PIXELS / 2) {
+            this.panStep = -this.panStep;
+        }
+        this.panOffset += this.panStep;
+
+        final double dx = this.panOffset * (VIEW_MAX.x() - VIEW_MIN.x()) / PIXELS;
+        final Point min = new Point(VIEW_MIN.x() + dx, VIEW_MIN.y());
+        final Point max = new Point(VIEW_MAX.x() + dx, VIEW_MAX.y());
+
+        this.renderer.rasterize(min, max, PIXELS, PIXELS, this, this.rasterItems);
+
+        counter.drawCalls += 2;
+        ++counter.frames;
+    }
+}
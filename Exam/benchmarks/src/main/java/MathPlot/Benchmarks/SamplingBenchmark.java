@@ -0,0 +1,98 @@
+package MathPlot.Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import MathPlot.Point;
+import MathPlot.Expressions.BatchEvaluator;
+import MathPlot.Expressions.BatchFunction;
+import MathPlot.Expressions.BytecodeCompiler;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionCompiler;
+import MathPlot.Sampling.AdaptiveSampler;
+import MathPlot.Sampling.UniformSampler;
+
+// Uniform sampling at the canvas pixel width versus adaptive sampling. Besides the time, the
+// counters total the lineTo calls Plotter.Curve would issue and the curves sampled, so
+// lines / curves is the cost of stroking one curve.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector" })
+public class SamplingBenchmark {
+    private static final Point VIEW_MIN = new Point(-10, -10);
+    private static final Point VIEW_MAX = new Point(10, 10);
+    private static final int PIXELS = 600;
+
+    @Param({ "x^2/10", "sin(x)", "sin(x)/cos(x)", "1/x", "log(x)" })
+    public String expression;
+
+    private BatchFunction function;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Lines {
+        public long lines;
+        public long curves;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            this.lines = 0;
+            this.curves = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        final Expression tree = ExpressionCompiler.fromAOS(this.expression);
+        this.function = new BatchEvaluator(tree, BytecodeCompiler.compile(tree));
+    }
+
+    @Benchmark
+    public long uniform(Lines counter) {
+        return drain(new UniformSampler(this.function, VIEW_MIN.x(), VIEW_MAX.x(),
+                (VIEW_MAX.x() - VIEW_MIN.x()) / PIXELS), counter);
+    }
+
+    @Benchmark
+    public long adaptive(Lines counter) {
+        return drain(new AdaptiveSampler(this.function, VIEW_MIN.x(), VIEW_MAX.x(), VIEW_MIN, VIEW_MAX, PIXELS,
+                PIXELS), counter);
+    }
+
+    // Replays the iterator the way Plotter.Curve does, counting the segments drawn
+    private static long drain(Point.Iterator it, Lines counter) {
+        it.reset();
+        if (!it.hasNext()) {
+            return 0;
+        }
+
+        it.nextPoint();
+        long lines = 0;
+        while (it.hasNext()) {
+            it.nextPoint();
+            if (!it.hasBreak()) {
+                ++lines;
+            }
+        }
+
+        counter.lines += lines;
+        ++counter.curves;
+        return lines;
+    }
+}
@@ -0,0 +1,95 @@
+package MathPlot.Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import MathPlot.Expressions.BatchEvaluator;
+import MathPlot.Expressions.BytecodeCompiler;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionCompiler;
+import MathPlot.Expressions.Simplifier;
+
+// Evaluations per second of the parsed expression versus its simplified form, through the
+// compiled scalar function and the batch evaluator. One operation is one evaluation.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules=jdk.incubator.vector" })
+public class SimplifierBenchmark {
+    private static final int SAMPLES = 4096;
+
+    @Param({ "(x*1+0)^1+sin(0)*x", "(sin(x)+1)^2+(sin(x)+1)^3", "x^5-2*x^4+x^3*1", "exp(2)*x^2+log(1)/x" })
+    public String expression;
+
+    private DoubleUnaryOperator scalar;
+    private DoubleUnaryOperator scalarSimplified;
+    private BatchEvaluator batch;
+    private BatchEvaluator batchSimplified;
+    private double[] xs;
+    private double[] out;
+
+    @Setup
+    public void setup() throws Exception {
+        final Expression tree = ExpressionCompiler.fromAOS(this.expression);
+        final Expression simplified = Simplifier.simplify(tree);
+
+        this.scalar = BytecodeCompiler.compile(tree);
+        this.scalarSimplified = BytecodeCompiler.compile(simplified);
+        this.batch = new BatchEvaluator(tree, this.scalar);
+        this.batchSimplified = new BatchEvaluator(simplified, this.scalarSimplified);
+
+        this.xs = new double[SAMPLES];
+        this.out = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; ++i) {
+            this.xs[i] = 0.1 + 10.0 * i / SAMPLES;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double[] scalar() {
+        return scalar(this.scalar);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double[] scalarSimplified() {
+        return scalar(this.scalarSimplified);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double[] batch() {
+        this.batch.evaluate(this.xs, this.out, SAMPLES);
+        return this.out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double[] batchSimplified() {
+        this.batchSimplified.evaluate(this.xs, this.out, SAMPLES);
+        return this.out;
+    }
+
+    private double[] scalar(DoubleUnaryOperator f) {
+        for (int i = 0; i < SAMPLES; ++i) {
+            this.out[i] = f.applyAsDouble(this.xs[i]);
+        }
+        return this.out;
+    }
+}
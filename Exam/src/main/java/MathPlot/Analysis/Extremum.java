@@ -0,0 +1,5 @@
+package MathPlot.Analysis;
+
+// Local minimum or maximum of a function at (x, y)
+public record Extremum(double x, double y, boolean maximum) {
+}
@@ -0,0 +1,127 @@
+package MathPlot.Analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.IntStream;
+
+import MathPlot.Expressions.BatchFunction;
+
+// Zeros and extrema over a range. The range is cut into cells whose ends are evaluated in one
+// batch, then every cell where the function changes sign is solved in parallel by Newton's
+// method, falling back to bisection whenever a step would leave the cell or does not halve it.
+// A cell holding two zeros shows no sign change, so cells must be narrower than the features
+// looked for (a few per pixel is plenty).
+public class RootFinder {
+    private static final int MAX_ITERATIONS = 100;
+
+    // Zeros of f in [from, to], ascending; 'df' is the derivative of f
+    public static double[] roots(BatchFunction f, DoubleUnaryOperator df, double from, double to, int cells) {
+        final double[] xs = grid(from, to, cells);
+        final double[] ys = new double[xs.length];
+        f.evaluate(xs, ys, xs.length);
+
+        return IntStream.range(0, cells).parallel()
+                .filter(i -> ys[i] == 0 || isBracket(ys[i], ys[i + 1]) || (i + 1 == cells && ys[i + 1] == 0))
+                .mapToDouble(i -> ys[i] == 0 ? xs[i]
+                        : ys[i + 1] == 0 ? xs[i + 1]
+                        : solve(f, df, xs[i], ys[i], xs[i + 1], ys[i + 1]))
+                .filter(Double::isFinite)
+                .distinct()
+                .toArray();
+    }
+
+    // Extrema of f in [from, to], ascending, as the zeros of 'df' where it changes sign;
+    // 'd2f' is the derivative of 'df'
+    public static List<Extremum> extrema(DoubleUnaryOperator f, BatchFunction df, DoubleUnaryOperator d2f,
+            double from, double to, int cells) {
+        final double[] xs = grid(from, to, cells);
+        final double[] dys = new double[xs.length];
+        df.evaluate(xs, dys, xs.length);
+
+        // Cells with a sign change, and inner grid points where df is 0 between values of
+        // opposite signs; a 0 between equal signs is an inflection, no extremum
+        final int[] candidates = IntStream.range(0, 2 * cells)
+                .filter(c -> c % 2 == 0 ? isBracket(dys[c / 2], dys[c / 2 + 1])
+                        : c / 2 > 0 && dys[c / 2] == 0 && isBracket(dys[c / 2 - 1], dys[c / 2 + 1]))
+                .toArray();
+
+        final double[] found = Arrays.stream(candidates).parallel()
+                .mapToDouble(c -> {
+                    final int i = c / 2;
+                    return c % 2 == 0 ? solve(df, d2f, xs[i], dys[i], xs[i + 1], dys[i + 1]) : xs[i];
+                })
+                .toArray();
+
+        final List<Extremum> extrema = new ArrayList<>(found.length);
+        for (int k = 0; k < found.length; ++k) {
+            final int i = candidates[k] / 2;
+            if (Double.isFinite(found[k])) {
+                // Rising before, falling after
+                final double before = candidates[k] % 2 == 0 ? dys[i] : dys[i - 1];
+                extrema.add(new Extremum(found[k], f.applyAsDouble(found[k]), before > 0));
+            }
+        }
+        return extrema;
+    }
+
+    // The nodes of a SampledFunction of step (to - from) / cells, so that one can be passed
+    // for f or df to reuse values sampled before
+    private static double[] grid(double from, double to, int cells) {
+        final double step = (to - from) / cells;
+        final double[] xs = new double[cells + 1];
+        for (int i = 0; i <= cells; ++i) {
+            xs[i] = i == cells ? to : Math.min(from + i * step, to);
+        }
+        return xs;
+    }
+
+    private static boolean isBracket(double fa, double fb) {
+        return Double.isFinite(fa) && Double.isFinite(fb) && (fa < 0) != (fb < 0) && fa != 0 && fb != 0;
+    }
+
+    // Safeguarded Newton iteration on the bracket [a, b], f(a) and f(b) of opposite signs.
+    // Returns NaN when the sign change turns out to be a pole, whose |f| grows instead of
+    // shrinking towards the crossing.
+    private static double solve(DoubleUnaryOperator f, DoubleUnaryOperator df, double a, double fa, double b,
+            double fb) {
+        // Oriented so that f(lo) < 0 < f(hi)
+        double lo = fa < 0 ? a : b;
+        double hi = fa < 0 ? b : a;
+        double x = (a + b) / 2;
+        double step = Math.abs(b - a);
+        double lastStep = step;
+        double fx = f.applyAsDouble(x);
+        double dfx = df.applyAsDouble(x);
+
+        for (int i = 0; i < MAX_ITERATIONS && fx != 0; ++i) {
+            final boolean outside = ((x - hi) * dfx - fx) * ((x - lo) * dfx - fx) > 0;
+            final boolean slow = Math.abs(2 * fx) > Math.abs(lastStep * dfx);
+
+            if (!Double.isFinite(dfx) || dfx == 0 || outside || slow) {
+                lastStep = step;
+                step = (hi - lo) / 2;
+                x = lo + step;
+            } else {
+                lastStep = step;
+                step = fx / dfx;
+                x -= step;
+            }
+
+            if (Math.abs(step) <= 2 * Math.ulp(x)) {
+                break;
+            }
+
+            fx = f.applyAsDouble(x);
+            dfx = df.applyAsDouble(x);
+            if (fx < 0) {
+                lo = x;
+            } else {
+                hi = x;
+            }
+        }
+
+        return Math.abs(fx) <= Math.max(Math.abs(fa), Math.abs(fb)) ? x : Double.NaN;
+    }
+}
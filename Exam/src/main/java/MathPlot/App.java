@@ -1,7 +1,6 @@
 package MathPlot;
 
-import java.util.List;
-
+import MathPlot.Integration.Integral;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -21,6 +20,8 @@ import javafx.scene.text.Text;
 import javafx.stage.Stage;
 
 public class App extends Application {
+    // Characters per line in the print area
+    private static final int PRINT_WIDTH = 100;
 
     @Override
     public void start(Stage stage) {
@@ -79,8 +80,12 @@ public class App extends Application {
         rectButton.setSelected(true);
         final RadioButton trapButton = new RadioButton("Trapezoidal");
         trapButton.setToggleGroup(areaToggleGroup);
+        final RadioButton simpsonButton = new RadioButton("Simpson");
+        simpsonButton.setToggleGroup(areaToggleGroup);
+        final RadioButton kronrodButton = new RadioButton("Gauss-Kronrod");
+        kronrodButton.setToggleGroup(areaToggleGroup);
         final Button areaButton = new Button("Calculate");
-        final HBox areaButtonsBox = new HBox(rectButton, trapButton, areaButton);
+        final HBox areaButtonsBox = new HBox(rectButton, trapButton, simpsonButton, kronrodButton, areaButton);
         areaButtonsBox.setSpacing(3);
         areaButtonsBox.setAlignment(Pos.CENTER_LEFT);
         final VBox areaBox = new VBox(areaText, areaButtonsBox);
@@ -97,32 +102,39 @@ public class App extends Application {
         exprPrintBox.setPadding(new Insets(10));
 
         plotButton.setOnAction(e -> {
-            if (exprTextArea.getText().isEmpty()) {
+            if (exprTextArea.getText().isBlank()) {
                 return;
             }
 
-            mathPlot.setExpression(exprTextArea.getText(), aosButton.isSelected()
-                    ? MathPlot.ExpressionFormat.AOS
-                    : MathPlot.ExpressionFormat.RPN);
+            // One expression per line, plotted together
+            mathPlot.setExpressions(exprTextArea.getText().lines().filter(line -> !line.isBlank()).toList(),
+                    aosButton.isSelected()
+                            ? MathPlot.ExpressionFormat.AOS
+                            : MathPlot.ExpressionFormat.RPN);
 
             mathPlot.plot(cartesianCanvas, MathPlot.PlotType.Cartesian);
             mathPlot.plot(polarCanvas, MathPlot.PlotType.Polar);
 
-            final List<String> aosPrint = mathPlot.print(MathPlot.ExpressionFormat.AOS);
-            for (final String line : aosPrint) {
-                exprPrintArea.appendText("AOS: " + line + "\n");
-            }
-
-            final List<String> rpnPrint = mathPlot.print(MathPlot.ExpressionFormat.RPN);
-            for (final String line : rpnPrint) {
-                exprPrintArea.appendText("RPN: " + line + "\n");
+            // Expressions of any length are printed a line at a time
+            mathPlot.print(MathPlot.ExpressionFormat.AOS, false, PRINT_WIDTH,
+                    line -> exprPrintArea.appendText("AOS: " + line + "\n"));
+            mathPlot.print(MathPlot.ExpressionFormat.RPN, false, PRINT_WIDTH,
+                    line -> exprPrintArea.appendText("RPN: " + line + "\n"));
+            if (mathPlot.simplifies()) {
+                mathPlot.print(MathPlot.ExpressionFormat.AOS, true, PRINT_WIDTH,
+                        line -> exprPrintArea.appendText("Optimised: " + line + "\n"));
             }
+            mathPlot.printDerivative(MathPlot.ExpressionFormat.AOS, PRINT_WIDTH,
+                    line -> exprPrintArea.appendText("d/dx: " + line + "\n"));
         });
 
         areaButton.setOnAction(e -> {
-            final double area = mathPlot.area(rectButton.isSelected() ?
-                    MathPlot.AreaType.Rectangular : MathPlot.AreaType.Trapezoidal);
-            areaText.setText(String.format("Area: %.3f", area));
+            final MathPlot.AreaType areaType = rectButton.isSelected() ? MathPlot.AreaType.Rectangular
+                    : trapButton.isSelected() ? MathPlot.AreaType.Trapezoidal
+                    : simpsonButton.isSelected() ? MathPlot.AreaType.Simpson
+                    : MathPlot.AreaType.GaussKronrod;
+            final Integral area = mathPlot.integral(areaType);
+            areaText.setText(String.format("Area: %.3f (%d evaluations)", area.value(), area.evaluations()));
         });
 
         final Scene scene = new Scene(new VBox(topRowBox, plots, areaBox, exprPrintBox));
@@ -0,0 +1,91 @@
+package MathPlot.Caching;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+// Least-recently-used cache bounded by a total weight, one per entry by default. Safe to share
+// between threads; values are computed outside the lock, so two threads missing the same key
+// at once may both compute it, the second result replacing the first.
+public class LruCache<K, V> {
+    public record Stats(long hits, long misses, long evictions, int size, long weight) {
+        public double hitRatio() {
+            final long lookups = this.hits + this.misses;
+            return lookups == 0 ? 0 : (double) this.hits / lookups;
+        }
+    }
+
+    final private LinkedHashMap<K, V> entries;
+    final private ToLongFunction<V> weigher;
+    final private long maxWeight;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LruCache(int maxEntries) {
+        this(maxEntries, _ -> 1);
+    }
+
+    public LruCache(long maxWeight, ToLongFunction<V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Invalid cache size");
+        }
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.weigher = weigher;
+        this.maxWeight = maxWeight;
+    }
+
+    // Cached value for 'key', or null
+    public synchronized V get(K key) {
+        final V value = this.entries.get(key);
+        if (value != null) {
+            ++this.hits;
+        } else {
+            ++this.misses;
+        }
+        return value;
+    }
+
+    // Values heavier than the whole cache are not kept
+    public synchronized void put(K key, V value) {
+        final long w = this.weigher.applyAsLong(value);
+        if (w > this.maxWeight) {
+            return;
+        }
+
+        final V previous = this.entries.put(key, value);
+        if (previous != null) {
+            this.weight -= this.weigher.applyAsLong(previous);
+        }
+        this.weight += w;
+
+        final var it = this.entries.entrySet().iterator();
+        while (this.weight > this.maxWeight) {
+            final Map.Entry<K, V> eldest = it.next();
+            this.weight -= this.weigher.applyAsLong(eldest.getValue());
+            it.remove();
+            ++this.evictions;
+        }
+    }
+
+    public V computeIfAbsent(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    public synchronized void clear() {
+        this.entries.clear();
+        this.weight = 0;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(this.hits, this.misses, this.evictions, this.entries.size(), this.weight);
+    }
+}
@@ -0,0 +1,208 @@
+package MathPlot.Expressions;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+// Evaluates an expression over arrays of x, one column per stack slot of its StackProgram.
+// + - * / run on SIMD lanes, ^ and the functions have no vector form worth using and
+// stay scalar. Arrays are processed in chunks so the columns stay in cache. Registers of
+// shared nodes get columns of their own, after the stack's.
+public class BatchEvaluator implements BatchFunction {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int CHUNK = 1024;
+
+    final private DoubleUnaryOperator scalar;
+    final private byte[] code;
+    final private double[] constants;
+    final private int maxDepth;
+    // Columns are per thread so that one evaluator can be shared by parallel samplers
+    final private ThreadLocal<double[][]> columns;
+
+    // 'scalar' is used for single points, typically the bytecode-compiled form of 'expression'
+    public BatchEvaluator(Expression expression, DoubleUnaryOperator scalar) {
+        final StackProgram program = StackProgram.fromExpression(expression);
+
+        this.scalar = scalar;
+        this.code = program.code();
+        this.constants = program.constants();
+        this.maxDepth = program.maxDepth();
+        this.columns = ThreadLocal.withInitial(() -> new double[program.maxDepth() + program.registers()][CHUNK]);
+    }
+
+    @Override
+    public double applyAsDouble(double x) {
+        return this.scalar.applyAsDouble(x);
+    }
+
+    @Override
+    public void evaluate(double[] xs, double[] out, int length) {
+        final double[][] s = this.columns.get();
+
+        for (int offset = 0; offset < length; offset += CHUNK) {
+            final int n = Math.min(CHUNK, length - offset);
+            int top = -1;
+            int c = 0;
+
+            for (int pc = 0; pc < this.code.length; ++pc) {
+                final byte op = this.code[pc];
+
+                switch (op) {
+                    case StackProgram.PUSH_X:
+                        System.arraycopy(xs, offset, s[++top], 0, n);
+                        break;
+                    case StackProgram.PUSH_CONST: {
+                        final double value = this.constants[c++];
+                        // A constant right operand is broadcast instead of materialized
+                        if (top >= 0 && pc + 1 < this.code.length && isArithmetic(this.code[pc + 1])) {
+                            arithmetic(this.code[++pc], s[top], value, n);
+                        } else {
+                            Arrays.fill(s[++top], 0, n, value);
+                        }
+                        break;
+                    }
+                    case StackProgram.ADD:
+                    case StackProgram.SUB:
+                    case StackProgram.MUL:
+                    case StackProgram.DIV:
+                        arithmetic(op, s[top - 1], s[top], n);
+                        --top;
+                        break;
+                    case StackProgram.STORE:
+                        System.arraycopy(s[top], 0, s[this.maxDepth + (this.code[++pc] & 0xFF)], 0, n);
+                        break;
+                    case StackProgram.LOAD:
+                        System.arraycopy(s[this.maxDepth + (this.code[++pc] & 0xFF)], 0, s[++top], 0, n);
+                        break;
+                    case StackProgram.POW: {
+                        final double[] a = s[top - 1];
+                        final double[] b = s[top];
+                        for (int i = 0; i < n; ++i) {
+                            a[i] = Math.pow(a[i], b[i]);
+                        }
+                        --top;
+                        break;
+                    }
+                    default:
+                        function(op, s[top], n);
+                        break;
+                }
+            }
+
+            System.arraycopy(s[0], 0, out, offset, n);
+        }
+    }
+
+    private static boolean isArithmetic(byte op) {
+        return op == StackProgram.ADD || op == StackProgram.SUB || op == StackProgram.MUL || op == StackProgram.DIV;
+    }
+
+    // a[i] = a[i] op b[i]; one loop per operator so each lanewise call sees a constant operator
+    private static void arithmetic(byte op, double[] a, double[] b, int n) {
+        final int bound = SPECIES.loopBound(n);
+        int i = 0;
+
+        switch (op) {
+            case StackProgram.ADD:
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector.fromArray(SPECIES, a, i).add(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+                }
+                for (; i < n; ++i) {
+                    a[i] += b[i];
+                }
+                break;
+            case StackProgram.SUB:
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector.fromArray(SPECIES, a, i).sub(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+                }
+                for (; i < n; ++i) {
+                    a[i] -= b[i];
+                }
+                break;
+            case StackProgram.MUL:
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector.fromArray(SPECIES, a, i).mul(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+                }
+                for (; i < n; ++i) {
+                    a[i] *= b[i];
+                }
+                break;
+            default:
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector.fromArray(SPECIES, a, i).div(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+                }
+                for (; i < n; ++i) {
+                    a[i] /= b[i];
+                }
+                break;
+        }
+    }
+
+    // a[i] = a[i] op b
+    private static void arithmetic(byte op, double[] a, double b, int n) {
+        final int bound = SPECIES.loopBound(n);
+        int i = 0;
+
+        switch (op) {
+            case StackProgram.ADD:
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector.fromArray(SPECIES, a, i).add(b).intoArray(a, i);
+                }
+                for (; i < n; ++i) {
+                    a[i] += b;
+                }
+                break;
+            case StackProgram.SUB:
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector.fromArray(SPECIES, a, i).sub(b).intoArray(a, i);
+                }
+                for (; i < n; ++i) {
+                    a[i] -= b;
+                }
+                break;
+            case StackProgram.MUL:
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector.fromArray(SPECIES, a, i).mul(b).intoArray(a, i);
+                }
+                for (; i < n; ++i) {
+                    a[i] *= b;
+                }
+                break;
+            default:
+                for (; i < bound; i += SPECIES.length()) {
+                    DoubleVector.fromArray(SPECIES, a, i).div(b).intoArray(a, i);
+                }
+                for (; i < n; ++i) {
+                    a[i] /= b;
+                }
+                break;
+        }
+    }
+
+    private static void function(byte op, double[] a, int n) {
+        switch (op) {
+            case StackProgram.SIN:
+                for (int i = 0; i < n; ++i) {
+                    a[i] = Math.sin(a[i]);
+                }
+                break;
+            case StackProgram.COS:
+                for (int i = 0; i < n; ++i) {
+                    a[i] = Math.cos(a[i]);
+                }
+                break;
+            case StackProgram.EXP:
+                for (int i = 0; i < n; ++i) {
+                    a[i] = Math.exp(a[i]);
+                }
+                break;
+            default:
+                for (int i = 0; i < n; ++i) {
+                    a[i] = Math.log(a[i]);
+                }
+                break;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package MathPlot.Expressions;
+
+import java.util.function.DoubleUnaryOperator;
+
+// A function of x that can also be evaluated over a whole array of x in one call
+public interface BatchFunction extends DoubleUnaryOperator {
+    // Writes f(xs[i]) into out[i] for every i < length
+    default void evaluate(double[] xs, double[] out, int length) {
+        for (int i = 0; i < length; ++i) {
+            out[i] = applyAsDouble(xs[i]);
+        }
+    }
+
+    static BatchFunction of(DoubleUnaryOperator f) {
+        return f instanceof BatchFunction batch ? batch : f::applyAsDouble;
+    }
+}
@@ -0,0 +1,35 @@
+package MathPlot.Expressions;
+
+public class BinaryOperation implements Expression {
+    final private Operator operator;
+    final private Expression left;
+    final private Expression right;
+
+    public BinaryOperation(Operator operator, Expression left, Expression right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    public Operator operator() {
+        return this.operator;
+    }
+
+    public Expression left() {
+        return this.left;
+    }
+
+    public Expression right() {
+        return this.right;
+    }
+
+    @Override
+    public double evaluate(double x) {
+        return this.operator.apply(this.left.evaluate(x), this.right.evaluate(x));
+    }
+
+    @Override
+    public <T> T accept(ExpressionVisitor<T> visitor) {
+        return visitor.visit(this);
+    }
+}
@@ -0,0 +1,187 @@
+package MathPlot.Expressions;
+
+import static java.lang.constant.ConstantDescs.CD_Object;
+import static java.lang.constant.ConstantDescs.CD_double;
+import static java.lang.constant.ConstantDescs.INIT_NAME;
+import static java.lang.constant.ConstantDescs.MTD_void;
+
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.CodeBuilder;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.MethodTypeDesc;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleUnaryOperator;
+
+// Translates an expression tree into a hidden class implementing DoubleUnaryOperator, so that
+// the JIT sees straight-line arithmetic instead of a chain of virtual evaluate() calls. Nodes
+// shared in the expression (see Simplifier) are computed once and kept in a local variable.
+public class BytecodeCompiler {
+    private static final ClassDesc CD_COMPILED = ClassDesc.of("MathPlot.Expressions.CompiledExpression");
+    private static final ClassDesc CD_OPERATOR = ClassDesc.of("java.util.function.DoubleUnaryOperator");
+    private static final ClassDesc CD_MATH = ClassDesc.of("java.lang.Math");
+    private static final MethodTypeDesc MTD_UNARY = MethodTypeDesc.of(CD_double, CD_double);
+    private static final MethodTypeDesc MTD_BINARY = MethodTypeDesc.of(CD_double, CD_double, CD_double);
+
+    // Slot of the x parameter in applyAsDouble, slot 0 is 'this'
+    private static final int X_SLOT = 1;
+    // First slot free for shared nodes, a double taking two
+    private static final int FIRST_LOCAL_SLOT = 3;
+
+    // Expressions that fell back to their StackProgram
+    private static final LongAdder fallbacks = new LongAdder();
+
+    // Returns the compiled form of the expression, or its StackProgram when the class cannot be
+    // generated, e.g. when the method exceeds the 64KB code limit. Those expressions may be far
+    // deeper than the call stack allows the tree interpreter to recurse, the program does not
+    // recurse; each thread runs a copy of it.
+    public static DoubleUnaryOperator compile(Expression expression) {
+        try {
+            final byte[] bytes = generate(expression);
+            final Class<?> hidden = MethodHandles.lookup().defineHiddenClass(bytes, true).lookupClass();
+            return (DoubleUnaryOperator) hidden.getConstructor().newInstance();
+        } catch (Exception | LinkageError e) {
+            fallbacks.increment();
+            final StackProgram program = StackProgram.fromExpression(expression);
+            final ThreadLocal<StackProgram> programs = ThreadLocal.withInitial(program::copy);
+            return x -> programs.get().evaluate(x);
+        }
+    }
+
+    // Compilations that returned the StackProgram instead of a class, since the start
+    public static long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    private static byte[] generate(Expression expression) {
+        return ClassFile.of().build(CD_COMPILED, clb -> {
+            clb.withFlags(ClassFile.ACC_PUBLIC | ClassFile.ACC_FINAL | ClassFile.ACC_SUPER);
+            clb.withSuperclass(CD_Object);
+            clb.withInterfaceSymbols(CD_OPERATOR);
+
+            clb.withMethodBody(INIT_NAME, MTD_void, ClassFile.ACC_PUBLIC, cob -> cob
+                    .aload(0)
+                    .invokespecial(CD_Object, INIT_NAME, MTD_void)
+                    .return_());
+
+            clb.withMethodBody("applyAsDouble", MTD_UNARY, ClassFile.ACC_PUBLIC | ClassFile.ACC_FINAL, cob -> {
+                new Emitter(cob, Simplifier.sharedNodes(expression)).emit(expression);
+                cob.dreturn();
+            });
+        });
+    }
+
+    // Emits the code leaving the value of the expression on top of the operand stack, in a
+    // post-order walk keeping its own stack; the visit methods only emit the node itself, its
+    // operands being on the operand stack already
+    private static class Emitter implements ExpressionVisitor<Void> {
+        // Node whose operands are emitted, next to emit itself
+        private record Operated(Expression node) {
+        }
+
+        final private CodeBuilder cob;
+        final private Set<Expression> shared;
+        // Slot holding each shared node already computed
+        final private Map<Expression, Integer> slots;
+
+        public Emitter(CodeBuilder cob, Set<Expression> shared) {
+            this.cob = cob;
+            this.shared = shared;
+            this.slots = new IdentityHashMap<>();
+        }
+
+        public void emit(Expression root) {
+            final Deque<Object> pending = new ArrayDeque<>();
+            pending.push(root);
+
+            while (!pending.isEmpty()) {
+                final Object next = pending.pop();
+
+                if (next instanceof Operated operated) {
+                    final Expression e = operated.node();
+                    e.accept(this);
+
+                    if (this.shared.contains(e)) {
+                        final int slot = FIRST_LOCAL_SLOT + 2 * this.slots.size();
+                        this.slots.put(e, slot);
+                        this.cob.dup2();
+                        this.cob.dstore(slot);
+                    }
+                    continue;
+                }
+
+                final Expression e = (Expression) next;
+                final Integer slot = this.slots.get(e);
+                if (slot != null) {
+                    this.cob.dload(slot);
+                    continue;
+                }
+
+                // Operands first, the left one on top
+                pending.push(new Operated(e));
+                if (e instanceof BinaryOperation operation) {
+                    pending.push(operation.right());
+                    pending.push(operation.left());
+                } else if (e instanceof FunctionCall call) {
+                    pending.push(call.argument());
+                }
+            }
+        }
+
+        @Override
+        public Void visit(Constant constant) {
+            this.cob.loadConstant(constant.value());
+            return null;
+        }
+
+        @Override
+        public Void visit(Variable variable) {
+            this.cob.dload(X_SLOT);
+            return null;
+        }
+
+        @Override
+        public Void visit(NamedVariable variable) {
+            throw new IllegalArgumentException("Unbound variable " + variable.name());
+        }
+
+        @Override
+        public Void visit(BinaryOperation operation) {
+            switch (operation.operator()) {
+                case Add:
+                    this.cob.dadd();
+                    break;
+                case Subtract:
+                    this.cob.dsub();
+                    break;
+                case Multiply:
+                    this.cob.dmul();
+                    break;
+                case Divide:
+                    this.cob.ddiv();
+                    break;
+                case Power:
+                    this.cob.invokestatic(CD_MATH, "pow", MTD_BINARY);
+                    break;
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(FunctionCall call) {
+            final String method = switch (call.function()) {
+                case Sin -> "sin";
+                case Cos -> "cos";
+                case Exp -> "exp";
+                case Log -> "log";
+            };
+            this.cob.invokestatic(CD_MATH, method, MTD_UNARY);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package MathPlot.Expressions;
+
+public class Constant implements Expression {
+    final private double value;
+
+    public Constant(double value) {
+        this.value = value;
+    }
+
+    public double value() {
+        return this.value;
+    }
+
+    @Override
+    public double evaluate(double x) {
+        return this.value;
+    }
+
+    @Override
+    public <T> T accept(ExpressionVisitor<T> visitor) {
+        return visitor.visit(this);
+    }
+}
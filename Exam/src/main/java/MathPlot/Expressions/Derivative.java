@@ -0,0 +1,120 @@
+package MathPlot.Expressions;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Symbolic d/dx of an expression, simplified. Terms whose derivative is zero are left out
+// while building (d/dx of c*u is c*u', not 0*u + c*u'), the Simplifier does the rest.
+public class Derivative implements ExpressionVisitor<Expression> {
+    private static final Constant ZERO = new Constant(0);
+    private static final Constant ONE = new Constant(1);
+
+    // Derivatives of the nodes already visited, for expressions sharing nodes
+    final private Map<Expression, Expression> derived;
+
+    private Derivative() {
+        this.derived = new IdentityHashMap<>();
+    }
+
+    public static Expression of(Expression expression) {
+        // Operands first, see Simplifier.postOrder()
+        final Derivative derivative = new Derivative();
+        for (final Expression node : Simplifier.postOrder(expression, derivative.derived)) {
+            derivative.derive(node);
+        }
+        return Simplifier.simplify(derivative.derive(expression));
+    }
+
+    @Override
+    public Expression visit(Constant constant) {
+        return ZERO;
+    }
+
+    @Override
+    public Expression visit(Variable variable) {
+        return ONE;
+    }
+
+    // Held constant: the partial derivative by x
+    @Override
+    public Expression visit(NamedVariable variable) {
+        return ZERO;
+    }
+
+    @Override
+    public Expression visit(BinaryOperation operation) {
+        final Expression u = operation.left();
+        final Expression v = operation.right();
+        final Expression du = derive(u);
+        final Expression dv = derive(v);
+
+        switch (operation.operator()) {
+            case Add:
+                return add(du, dv);
+            case Subtract:
+                return subtract(du, dv);
+            case Multiply:
+                return add(multiply(du, v), multiply(u, dv));
+            case Divide:
+                // (u'v - uv') / v^2
+                return divide(subtract(multiply(du, v), multiply(u, dv)), multiply(v, v));
+            default:
+                if (v instanceof Constant c) {
+                    // c * u^(c-1) * u'
+                    return multiply(multiply(c, new BinaryOperation(Operator.Power, u, new Constant(c.value() - 1))),
+                            du);
+                }
+                if (u instanceof Constant) {
+                    // u^v * log(u) * v'
+                    return multiply(multiply(operation, new FunctionCall(Function.Log, u)), dv);
+                }
+                // u^v * (v' log(u) + v u' / u)
+                return multiply(operation, add(multiply(dv, new FunctionCall(Function.Log, u)),
+                        divide(multiply(v, du), u)));
+        }
+    }
+
+    @Override
+    public Expression visit(FunctionCall call) {
+        final Expression u = call.argument();
+        final Expression du = derive(u);
+
+        return switch (call.function()) {
+            case Sin -> multiply(new FunctionCall(Function.Cos, u), du);
+            case Cos -> subtract(ZERO, multiply(new FunctionCall(Function.Sin, u), du));
+            case Exp -> multiply(call, du);
+            case Log -> divide(du, u);
+        };
+    }
+
+    private Expression derive(Expression e) {
+        final Expression known = this.derived.get(e);
+        if (known != null) {
+            return known;
+        }
+
+        final Expression result = e.accept(this);
+        this.derived.put(e, result);
+        return result;
+    }
+
+    private static boolean isZero(Expression e) {
+        return e == ZERO;
+    }
+
+    private static Expression add(Expression a, Expression b) {
+        return isZero(a) ? b : isZero(b) ? a : new BinaryOperation(Operator.Add, a, b);
+    }
+
+    private static Expression subtract(Expression a, Expression b) {
+        return isZero(b) ? a : new BinaryOperation(Operator.Subtract, a, b);
+    }
+
+    private static Expression multiply(Expression a, Expression b) {
+        return isZero(a) || isZero(b) ? ZERO : new BinaryOperation(Operator.Multiply, a, b);
+    }
+
+    private static Expression divide(Expression a, Expression b) {
+        return isZero(a) ? ZERO : new BinaryOperation(Operator.Divide, a, b);
+    }
+}
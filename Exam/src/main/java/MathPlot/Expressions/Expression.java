@@ -0,0 +1,17 @@
+package MathPlot.Expressions;
+
+import java.util.function.DoubleUnaryOperator;
+
+// Immutable node of a compiled expression tree, a function of the single variable x
+public interface Expression extends DoubleUnaryOperator {
+    // Returns the value of the expression for the given x
+    double evaluate(double x);
+
+    // Dispatches to the visitor method matching the node type
+    <T> T accept(ExpressionVisitor<T> visitor);
+
+    @Override
+    default double applyAsDouble(double x) {
+        return evaluate(x);
+    }
+}
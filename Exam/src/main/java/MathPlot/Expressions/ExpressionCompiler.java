@@ -0,0 +1,34 @@
+package MathPlot.Expressions;
+
+import MathPlot.Parsers.PrattParser;
+import MathPlot.Parsers.RPNCompiler;
+
+// Turns AOS or RPN text into an expression tree, once, so that evaluation never has to
+// look at strings again
+public class ExpressionCompiler {
+    public static Expression fromAOS(String input) throws Exception {
+        return new PrattParser(input).parse();
+    }
+
+    public static Expression fromRPN(String input) throws Exception {
+        return RPNCompiler.compile(input).toExpression();
+    }
+
+    // Both sides of an equation in x and y, "x^2 + y^2 = 1"
+    public static Expression[] equationFromAOS(String input) throws Exception {
+        return new PrattParser(input, 'x', "y").parse('=', 2);
+    }
+
+    public static Expression[] equationFromRPN(String input) throws Exception {
+        return RPNCompiler.compile(input, 'x', "y", '=', 2);
+    }
+
+    // The coordinates of a parametric curve in t, "cos(t), sin(t)"
+    public static Expression[] parametricFromAOS(String input) throws Exception {
+        return new PrattParser(input, 't', "").parse(',', 2);
+    }
+
+    public static Expression[] parametricFromRPN(String input) throws Exception {
+        return RPNCompiler.compile(input, 't', "", ',', 2);
+    }
+}
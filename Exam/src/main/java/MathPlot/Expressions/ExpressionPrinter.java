@@ -0,0 +1,214 @@
+package MathPlot.Expressions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Writes an expression back as text the parsers read into the same tree: AOS with only the
+// parentheses the precedences require, or space-separated RPN. Negative constants are the
+// exception in AOS, which reads -2 as 0 - 2. Shared nodes are printed at every use. The
+// variable prints as x unless another name is given, t for a parametric curve say.
+//
+// The tree is walked once, with an explicit stack instead of recursion: a sum of n terms is n
+// levels deep, far more than the call stack holds for long inputs. The text goes straight into
+// an Appendable, so converting between AOS and RPN builds nothing but the output itself.
+public class ExpressionPrinter {
+    // Precedences, as in PrattParser: 0 - e, the parser's form of unary minus, prints as -e
+    private static final int ADDITIVE = 1;
+    private static final int MULTIPLICATIVE = 2;
+    private static final int UNARY = 3;
+    private static final int POWER = 4;
+    private static final int ATOM = 5;
+
+    // Expression still to print, in parentheses if it binds less tightly than 'minimum'
+    private record Operand(Expression expression, int minimum) {
+    }
+
+    public static String toAOS(Expression expression) {
+        final StringBuilder sb = new StringBuilder();
+        try {
+            writeAOS(expression, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    public static String toRPN(Expression expression) {
+        final StringBuilder sb = new StringBuilder();
+        try {
+            writeRPN(expression, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    public static void writeAOS(Expression expression, Appendable out) throws IOException {
+        writeAOS(expression, 'x', out);
+    }
+
+    public static void writeAOS(Expression expression, char variable, Appendable out) throws IOException {
+        // Operands, and the characters to write between them, in reverse order
+        final Deque<Object> pending = new ArrayDeque<>();
+        pending.push(new Operand(expression, 0));
+
+        while (!pending.isEmpty()) {
+            final Object next = pending.pop();
+            if (next instanceof Operand operand) {
+                aos(operand.expression(), operand.minimum(), variable, pending, out);
+            } else {
+                out.append((Character) next);
+            }
+        }
+    }
+
+    public static void writeRPN(Expression expression, Appendable out) throws IOException {
+        writeRPN(expression, 'x', out);
+    }
+
+    public static void writeRPN(Expression expression, char variable, Appendable out) throws IOException {
+        // Expressions, and the symbols to write after them, in reverse order
+        final Deque<Object> pending = new ArrayDeque<>();
+        pending.push(expression);
+
+        while (!pending.isEmpty()) {
+            final Object next = pending.pop();
+            if (next instanceof Constant c) {
+                number(c.value(), out);
+            } else if (next instanceof Variable) {
+                out.append(variable);
+            } else if (next instanceof NamedVariable named) {
+                out.append(named.name());
+            } else if (next instanceof FunctionCall call) {
+                pending.push(call.function().symbol());
+                pending.push(' ');
+                pending.push(call.argument());
+            } else if (next instanceof BinaryOperation operation) {
+                pending.push(operation.operator().symbol());
+                pending.push(' ');
+                pending.push(operation.right());
+                pending.push(' ');
+                pending.push(operation.left());
+            } else if (next instanceof Character c) {
+                out.append(c);
+            } else {
+                out.append((String) next);
+            }
+        }
+    }
+
+    // Nodes the expression prints as, shared nodes counted at every use, at most Long.MAX_VALUE.
+    // Sharing makes the text of a small tree exponentially long at worst: the Simplifier writes
+    // e^2 as e*e with e shared, so each square nested in another doubles it.
+    public static long printedNodes(Expression expression) {
+        final Map<Expression, Long> counted = new IdentityHashMap<>();
+        final Deque<Expression> pending = new ArrayDeque<>();
+        pending.push(expression);
+
+        while (!pending.isEmpty()) {
+            final Expression e = pending.peek();
+            long nodes = 1;
+
+            if (e instanceof BinaryOperation operation) {
+                final Long left = counted.get(operation.left());
+                final Long right = counted.get(operation.right());
+                if (left == null || right == null) {
+                    // Counted once both operands are
+                    pending.push(left == null ? operation.left() : operation.right());
+                    continue;
+                }
+                nodes = left + right + 1;
+            } else if (e instanceof FunctionCall call) {
+                final Long argument = counted.get(call.argument());
+                if (argument == null) {
+                    pending.push(call.argument());
+                    continue;
+                }
+                nodes = argument + 1;
+            }
+
+            pending.pop();
+            counted.put(e, nodes < 0 ? Long.MAX_VALUE : nodes);
+        }
+
+        return counted.get(expression);
+    }
+
+    // Writes what comes before the operands of e, and pushes them with what follows them
+    private static void aos(Expression e, int minimum, char variable, Deque<Object> pending, Appendable out)
+            throws IOException {
+        if (precedence(e) < minimum) {
+            out.append('(');
+            pending.push(')');
+        }
+
+        if (e instanceof Constant c) {
+            number(c.value(), out);
+        } else if (e instanceof Variable) {
+            out.append(variable);
+        } else if (e instanceof NamedVariable named) {
+            out.append(named.name());
+        } else if (e instanceof FunctionCall call) {
+            out.append(call.function().symbol()).append('(');
+            pending.push(')');
+            pending.push(new Operand(call.argument(), 0));
+        } else if (isNegation(e)) {
+            out.append('-');
+            pending.push(new Operand(((BinaryOperation) e).right(), UNARY));
+        } else {
+            final BinaryOperation operation = (BinaryOperation) e;
+            final int precedence = precedence(e);
+
+            // Left-associative operators need parentheses around an equal right operand, ^
+            // being right-associative needs them around an equal left one
+            if (operation.operator() == Operator.Power) {
+                pending.push(new Operand(operation.right(), precedence));
+                pending.push('^');
+                pending.push(new Operand(operation.left(), precedence + 1));
+            } else {
+                pending.push(new Operand(operation.right(), precedence + 1));
+                pending.push(operation.operator().symbol());
+                pending.push(new Operand(operation.left(), precedence));
+            }
+        }
+    }
+
+    private static int precedence(Expression e) {
+        if (e instanceof Constant c) {
+            return c.value() < 0 || (c.value() == 0 && 1 / c.value() < 0) ? UNARY : ATOM;
+        }
+        if (!(e instanceof BinaryOperation operation)) {
+            return ATOM;
+        }
+        if (isNegation(e)) {
+            return UNARY;
+        }
+
+        return switch (operation.operator()) {
+            case Add, Subtract -> ADDITIVE;
+            case Multiply, Divide -> MULTIPLICATIVE;
+            case Power -> POWER;
+        };
+    }
+
+    private static boolean isNegation(Expression e) {
+        return e instanceof BinaryOperation operation && operation.operator() == Operator.Subtract
+                && operation.left() instanceof Constant c && c.value() == 0 && 1 / c.value() > 0;
+    }
+
+    // Integral values without a fraction, others in the shortest form that reads back exactly
+    private static void number(double value, Appendable out) throws IOException {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            if (value == 0 && 1 / value < 0) {
+                out.append('-');
+            }
+            out.append(Long.toString((long) value));
+        } else {
+            out.append(Double.toString(value));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package MathPlot.Expressions;
+
+// Walks a compiled expression tree without the nodes knowing about the operation performed
+public interface ExpressionVisitor<T> {
+    T visit(Constant constant);
+
+    T visit(Variable variable);
+
+    T visit(NamedVariable variable);
+
+    T visit(BinaryOperation operation);
+
+    T visit(FunctionCall call);
+}
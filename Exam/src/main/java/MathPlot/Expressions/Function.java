@@ -0,0 +1,41 @@
+package MathPlot.Expressions;
+
+public enum Function {
+    Sin("sin"),
+    Cos("cos"),
+    Exp("exp"),
+    Log("log");
+
+    final private String symbol;
+
+    Function(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String symbol() {
+        return this.symbol;
+    }
+
+    public double apply(double arg) {
+        switch (this) {
+            case Sin:
+                return Math.sin(arg);
+            case Cos:
+                return Math.cos(arg);
+            case Exp:
+                return Math.exp(arg);
+            default:
+                return Math.log(arg);
+        }
+    }
+
+    // Returns the function with the given (case-insensitive) name, or null if there is none
+    public static Function fromSymbol(String symbol) {
+        for (final Function fn : values()) {
+            if (fn.symbol.equalsIgnoreCase(symbol)) {
+                return fn;
+            }
+        }
+        return null;
+    }
+}
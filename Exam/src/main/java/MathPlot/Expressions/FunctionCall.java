@@ -0,0 +1,29 @@
+package MathPlot.Expressions;
+
+public class FunctionCall implements Expression {
+    final private Function function;
+    final private Expression argument;
+
+    public FunctionCall(Function function, Expression argument) {
+        this.function = function;
+        this.argument = argument;
+    }
+
+    public Function function() {
+        return this.function;
+    }
+
+    public Expression argument() {
+        return this.argument;
+    }
+
+    @Override
+    public double evaluate(double x) {
+        return this.function.apply(this.argument.evaluate(x));
+    }
+
+    @Override
+    public <T> T accept(ExpressionVisitor<T> visitor) {
+        return visitor.visit(this);
+    }
+}
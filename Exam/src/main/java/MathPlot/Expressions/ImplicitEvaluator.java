@@ -0,0 +1,20 @@
+package MathPlot.Expressions;
+
+// Rows of an expression in x and y: y is bound to the row's value and the result simplified,
+// so the terms in y alone fold into constants and every point of the row costs only the
+// terms in x. A row is meant for one thread, which evaluates it by its StackProgram; the
+// evaluator itself can be shared.
+public class ImplicitEvaluator implements ImplicitFunction {
+    final private Expression expression;
+
+    // 'expression' may contain the NamedVariable y and no other
+    public ImplicitEvaluator(Expression expression) {
+        this.expression = expression;
+    }
+
+    @Override
+    public BatchFunction row(double y) {
+        final Expression row = Simplifier.simplify(Substitution.bind(this.expression, 'y', y));
+        return new BatchEvaluator(row, StackProgram.fromExpression(row));
+    }
+}
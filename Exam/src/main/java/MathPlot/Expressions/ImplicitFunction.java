@@ -0,0 +1,7 @@
+package MathPlot.Expressions;
+
+// A function F(x, y) of the plane, evaluated one row of constant y at a time
+public interface ImplicitFunction {
+    // F(x, y) as a function of x alone
+    BatchFunction row(double y);
+}
@@ -0,0 +1,26 @@
+package MathPlot.Expressions;
+
+// Closed range [lo, hi] of values, possibly unbounded; empty when lo > hi
+public record Interval(double lo, double hi) {
+    public static final Interval EMPTY = new Interval(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+    public static final Interval ENTIRE = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    public boolean isEmpty() {
+        return !(this.lo <= this.hi);
+    }
+
+    // Non-empty with finite ends
+    public boolean isBounded() {
+        return !isEmpty() && Double.isFinite(this.lo) && Double.isFinite(this.hi);
+    }
+
+    public boolean intersects(double min, double max) {
+        return !isEmpty() && this.lo <= max && this.hi >= min;
+    }
+
+    public Interval intersection(Interval other) {
+        final double lo = Math.max(this.lo, other.lo);
+        final double hi = Math.min(this.hi, other.hi);
+        return lo <= hi ? new Interval(lo, hi) : EMPTY;
+    }
+}
@@ -0,0 +1,354 @@
+package MathPlot.Expressions;
+
+// Interval arithmetic over the StackProgram of an expression: evaluated for x in [a, b], every
+// slot holds bounds that contain its value at each x of [a, b] where that value is finite.
+// Ends are rounded outwards by an ulp after every operation, which covers the rounding of the
+// operations themselves and the 1 ulp accuracy of Math.sin, exp, log and pow, so the bounds
+// hold for the values the compiled evaluators actually compute. Evaluation allocates only
+// the stack, so one instance can be shared between threads.
+//
+// Bounds explode (become infinite) across poles, and are empty where the expression is
+// nowhere finite. They are wider than the true range where x occurs several times in an
+// expression (x*(1-x)), except for e*e, which the Simplifier writes for squares and which
+// evaluates as one. The centred form of enclosure() narrows them by the derivative,
+// quadratically in b - a.
+public class IntervalEvaluator implements IntervalFunction {
+    private static final double TWO_PI = 2 * Math.PI;
+    // Origins of stack slots, to tell e*e from a product of two different values
+    private static final int UNKNOWN = -1;
+    private static final int VARIABLE = 0;
+
+    final private byte[] code;
+    final private double[] constants;
+    final private int maxDepth;
+    final private int registers;
+
+    public IntervalEvaluator(Expression expression) {
+        final StackProgram program = StackProgram.fromExpression(expression);
+
+        this.code = program.code();
+        this.constants = program.constants();
+        this.maxDepth = program.maxDepth();
+        this.registers = program.registers();
+    }
+
+    // Bounds of f, intersected with the centred form f(m) + f'([a, b]) ([a, b] - m), m the
+    // midpoint; 'derivative' must be d/dx of 'f'
+    public static IntervalFunction enclosure(Expression f, Expression derivative) {
+        final IntervalEvaluator natural = new IntervalEvaluator(f);
+        final IntervalEvaluator slope = new IntervalEvaluator(derivative);
+
+        return (a, b) -> {
+            final Interval range = natural.bounds(a, b);
+            if (!range.isBounded() || a == b) {
+                return range;
+            }
+
+            // f(m) is not bounded where f is partly undefined, the centred form would not hold
+            final double m = a + (b - a) / 2;
+            final Interval center = natural.bounds(m, m);
+            final Interval df = slope.bounds(a, b);
+            if (!center.isBounded() || !df.isBounded()) {
+                return range;
+            }
+
+            final double[] lo = { center.lo(), df.lo(), down(a - m) };
+            final double[] hi = { center.hi(), df.hi(), up(b - m) };
+            multiply(lo, hi, 1, 2);
+            add(lo, hi, 0, 1);
+            return range.intersection(new Interval(lo[0], hi[0]));
+        };
+    }
+
+    @Override
+    public Interval bounds(double a, double b) {
+        if (!(a <= b)) {
+            throw new IllegalArgumentException("Invalid interval");
+        }
+
+        final double[] lo = new double[this.maxDepth];
+        final double[] hi = new double[this.maxDepth];
+        final int[] origins = new int[this.maxDepth];
+        final double[] registerLo = new double[this.registers];
+        final double[] registerHi = new double[this.registers];
+        int top = -1;
+        int c = 0;
+
+        for (int pc = 0; pc < this.code.length; ++pc) {
+            switch (this.code[pc]) {
+                case StackProgram.PUSH_X:
+                    lo[++top] = a;
+                    hi[top] = b;
+                    origins[top] = VARIABLE;
+                    break;
+                case StackProgram.PUSH_CONST:
+                    lo[++top] = this.constants[c];
+                    hi[top] = this.constants[c++];
+                    origins[top] = UNKNOWN;
+                    break;
+                case StackProgram.ADD:
+                    add(lo, hi, --top, top + 1);
+                    origins[top] = UNKNOWN;
+                    break;
+                case StackProgram.SUB:
+                    subtract(lo, hi, --top, top + 1);
+                    origins[top] = UNKNOWN;
+                    break;
+                case StackProgram.MUL:
+                    --top;
+                    if (origins[top] != UNKNOWN && origins[top] == origins[top + 1]) {
+                        square(lo, hi, top);
+                    } else {
+                        multiply(lo, hi, top, top + 1);
+                    }
+                    origins[top] = UNKNOWN;
+                    break;
+                case StackProgram.DIV:
+                    divide(lo, hi, --top, top + 1);
+                    origins[top] = UNKNOWN;
+                    break;
+                case StackProgram.POW:
+                    power(lo, hi, --top, top + 1);
+                    origins[top] = UNKNOWN;
+                    break;
+                case StackProgram.SIN:
+                    periodic(lo, hi, top, true);
+                    origins[top] = UNKNOWN;
+                    break;
+                case StackProgram.COS:
+                    periodic(lo, hi, top, false);
+                    origins[top] = UNKNOWN;
+                    break;
+                case StackProgram.EXP:
+                    if (lo[top] <= hi[top]) {
+                        lo[top] = Math.max(0, down(Math.exp(lo[top])));
+                        hi[top] = up(Math.exp(hi[top]));
+                    }
+                    origins[top] = UNKNOWN;
+                    break;
+                case StackProgram.STORE: {
+                    final int r = this.code[++pc] & 0xFF;
+                    registerLo[r] = lo[top];
+                    registerHi[r] = hi[top];
+                    origins[top] = r + 1;
+                    break;
+                }
+                case StackProgram.LOAD: {
+                    final int r = this.code[++pc] & 0xFF;
+                    lo[++top] = registerLo[r];
+                    hi[top] = registerHi[r];
+                    origins[top] = r + 1;
+                    break;
+                }
+                default:
+                    log(lo, hi, top);
+                    origins[top] = UNKNOWN;
+                    break;
+            }
+        }
+
+        return lo[0] <= hi[0] ? new Interval(lo[0], hi[0]) : Interval.EMPTY;
+    }
+
+    // The operations combine slots i and j into slot i. An empty slot has lo > hi (or NaN
+    // ends) and stays empty.
+
+    private static boolean isEmpty(double[] lo, double[] hi, int i) {
+        return !(lo[i] <= hi[i]);
+    }
+
+    private static boolean setEmpty(double[] lo, double[] hi, int i) {
+        lo[i] = Double.POSITIVE_INFINITY;
+        hi[i] = Double.NEGATIVE_INFINITY;
+        return true;
+    }
+
+    private static boolean eitherEmpty(double[] lo, double[] hi, int i, int j) {
+        return (isEmpty(lo, hi, i) || isEmpty(lo, hi, j)) && setEmpty(lo, hi, i);
+    }
+
+    private static void add(double[] lo, double[] hi, int i, int j) {
+        if (!eitherEmpty(lo, hi, i, j)) {
+            lo[i] = down(lo[i] + lo[j]);
+            hi[i] = up(hi[i] + hi[j]);
+        }
+    }
+
+    private static void subtract(double[] lo, double[] hi, int i, int j) {
+        if (!eitherEmpty(lo, hi, i, j)) {
+            final double l = down(lo[i] - hi[j]);
+            hi[i] = up(hi[i] - lo[j]);
+            lo[i] = l;
+        }
+    }
+
+    private static void multiply(double[] lo, double[] hi, int i, int j) {
+        if (eitherEmpty(lo, hi, i, j)) {
+            return;
+        }
+
+        final double p1 = product(lo[i], lo[j]);
+        final double p2 = product(lo[i], hi[j]);
+        final double p3 = product(hi[i], lo[j]);
+        final double p4 = product(hi[i], hi[j]);
+        lo[i] = down(Math.min(Math.min(p1, p2), Math.min(p3, p4)));
+        hi[i] = up(Math.max(Math.max(p1, p2), Math.max(p3, p4)));
+    }
+
+    // An unbounded end times 0 stands for finite values times 0
+    private static double product(double a, double b) {
+        final double p = a * b;
+        return Double.isNaN(p) ? 0 : p;
+    }
+
+    private static void square(double[] lo, double[] hi, int i) {
+        if (isEmpty(lo, hi, i)) {
+            return;
+        }
+
+        final double l = lo[i] * lo[i];
+        final double h = hi[i] * hi[i];
+        if (lo[i] >= 0) {
+            lo[i] = down(l);
+            hi[i] = up(h);
+        } else if (hi[i] <= 0) {
+            lo[i] = down(h);
+            hi[i] = up(l);
+        } else {
+            lo[i] = 0;
+            hi[i] = up(Math.max(l, h));
+        }
+    }
+
+    private static void divide(double[] lo, double[] hi, int i, int j) {
+        if (eitherEmpty(lo, hi, i, j) || (lo[j] == 0 && hi[j] == 0 && setEmpty(lo, hi, i))) {
+            return;
+        }
+
+        // Replaces slot j by its reciprocal
+        if (lo[j] > 0 || hi[j] < 0) {
+            final double l = down(1 / hi[j]);
+            hi[j] = up(1 / lo[j]);
+            lo[j] = l;
+        } else if (lo[j] == 0) {
+            lo[j] = down(1 / hi[j]);
+            hi[j] = Double.POSITIVE_INFINITY;
+        } else if (hi[j] == 0) {
+            hi[j] = up(1 / lo[j]);
+            lo[j] = Double.NEGATIVE_INFINITY;
+        } else {
+            lo[i] = Double.NEGATIVE_INFINITY;
+            hi[i] = Double.POSITIVE_INFINITY;
+            return;
+        }
+        multiply(lo, hi, i, j);
+    }
+
+    private static void power(double[] lo, double[] hi, int i, int j) {
+        if (eitherEmpty(lo, hi, i, j)) {
+            return;
+        }
+
+        final double n = lo[j];
+        final boolean point = n == hi[j];
+
+        if (point && n == Math.rint(n) && Math.abs(n) < 1 << 30) {
+            integralPower(lo, hi, i, Math.abs(n));
+            if (n < 0) {
+                // 1 / base^|n|
+                lo[j] = lo[i];
+                hi[j] = hi[i];
+                lo[i] = 1;
+                hi[i] = 1;
+                divide(lo, hi, i, j);
+            }
+            return;
+        }
+
+        // Math.pow of a negative base and a fraction is NaN: only base >= 0 counts, where pow
+        // is monotonic in each argument and its extremes are at the corners. With a range of
+        // exponents the integral ones among them make negative bases count too.
+        if (hi[i] < 0 && point) {
+            setEmpty(lo, hi, i);
+            return;
+        }
+        if (lo[i] < 0 && !point) {
+            lo[i] = Double.NEGATIVE_INFINITY;
+            hi[i] = Double.POSITIVE_INFINITY;
+            return;
+        }
+
+        final double base = Math.max(0, lo[i]);
+        final double p1 = Math.pow(base, lo[j]);
+        final double p2 = Math.pow(base, hi[j]);
+        final double p3 = Math.pow(hi[i], lo[j]);
+        final double p4 = Math.pow(hi[i], hi[j]);
+        lo[i] = Math.max(0, down(Math.min(Math.min(p1, p2), Math.min(p3, p4))));
+        hi[i] = up(Math.max(Math.max(p1, p2), Math.max(p3, p4)));
+    }
+
+    // base^n for an integer n >= 0
+    private static void integralPower(double[] lo, double[] hi, int i, double n) {
+        if (n % 2 == 0) {
+            // Even powers grow with |base|
+            final double min = lo[i] > 0 ? lo[i] : hi[i] < 0 ? -hi[i] : 0;
+            final double max = Math.max(Math.abs(lo[i]), Math.abs(hi[i]));
+            lo[i] = Math.max(0, down(Math.pow(min, n)));
+            hi[i] = up(Math.pow(max, n));
+        } else {
+            lo[i] = down(Math.pow(lo[i], n));
+            hi[i] = up(Math.pow(hi[i], n));
+        }
+    }
+
+    // log(0) is not finite either
+    private static void log(double[] lo, double[] hi, int i) {
+        if (isEmpty(lo, hi, i)) {
+            return;
+        }
+        if (hi[i] <= 0) {
+            setEmpty(lo, hi, i);
+            return;
+        }
+
+        lo[i] = lo[i] <= 0 ? Double.NEGATIVE_INFINITY : down(Math.log(lo[i]));
+        hi[i] = up(Math.log(hi[i]));
+    }
+
+    // Extremes of sin or cos at the ends, or 1 and -1 where a crest or trough lies inside.
+    // Crests of sin lie at pi/2 + 2k pi, those of cos at 2k pi, troughs pi further.
+    private static void periodic(double[] lo, double[] hi, int i, boolean sine) {
+        if (isEmpty(lo, hi, i)) {
+            return;
+        }
+
+        final double a = lo[i];
+        final double b = hi[i];
+        if (!Double.isFinite(a) || !Double.isFinite(b) || b - a >= TWO_PI) {
+            lo[i] = -1;
+            hi[i] = 1;
+            return;
+        }
+
+        final double crest = sine ? Math.PI / 2 : 0;
+        final double fa = sine ? Math.sin(a) : Math.cos(a);
+        final double fb = sine ? Math.sin(b) : Math.cos(b);
+        lo[i] = contains(a, b, crest + Math.PI) ? -1 : Math.max(-1, down(Math.min(fa, fb)));
+        hi[i] = contains(a, b, crest) ? 1 : Math.min(1, up(Math.max(fa, fb)));
+    }
+
+    // True if [a, b] contains phase + 2k pi for some k, or might, given the rounding of k
+    private static boolean contains(double a, double b, double phase) {
+        final double slack = 1e-9 * (1 + Math.abs(a) + Math.abs(b));
+        final double k = Math.ceil((a - slack - phase) / TWO_PI);
+        return phase + k * TWO_PI <= b + slack;
+    }
+
+    private static double down(double value) {
+        return Double.isNaN(value) ? Double.NEGATIVE_INFINITY : Math.nextDown(value);
+    }
+
+    private static double up(double value) {
+        return Double.isNaN(value) ? Double.POSITIVE_INFINITY : Math.nextUp(value);
+    }
+}
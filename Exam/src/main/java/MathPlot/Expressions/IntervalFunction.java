@@ -0,0 +1,7 @@
+package MathPlot.Expressions;
+
+// Guaranteed bounds of a function of x over ranges of x
+public interface IntervalFunction {
+    // Encloses f(x) for every x in [a, b] where f(x) is finite; empty if there is none
+    Interval bounds(double a, double b);
+}
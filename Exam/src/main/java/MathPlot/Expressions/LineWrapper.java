@@ -0,0 +1,76 @@
+package MathPlot.Expressions;
+
+import java.util.function.Consumer;
+
+// Appendable passing its text on in lines of at most 'width' characters, each broken after
+// the last operator, parenthesis or space that fits, or at 'width' where there is none. A
+// newline ends a line as well. Only the line being filled is held, so printed expressions of
+// any length go out line by line; flush() passes on the last one.
+public class LineWrapper implements Appendable {
+    private static final String BREAK_AFTER = "+-*/^() ";
+
+    final private int width;
+    final private Consumer<String> lines;
+    final private StringBuilder line;
+
+    public LineWrapper(int width, Consumer<String> lines) {
+        if (width < 1) {
+            throw new IllegalArgumentException("Invalid width");
+        }
+
+        this.width = width;
+        this.lines = lines;
+        this.line = new StringBuilder(width + 1);
+    }
+
+    @Override
+    public LineWrapper append(char c) {
+        if (c == '\n') {
+            this.lines.accept(this.line.toString().stripTrailing());
+            this.line.setLength(0);
+            return this;
+        }
+
+        this.line.append(c);
+        if (this.line.length() > this.width) {
+            wrap();
+        }
+        return this;
+    }
+
+    @Override
+    public LineWrapper append(CharSequence text) {
+        return append(text, 0, text.length());
+    }
+
+    @Override
+    public LineWrapper append(CharSequence text, int start, int end) {
+        for (int i = start; i < end; ++i) {
+            append(text.charAt(i));
+        }
+        return this;
+    }
+
+    // Passes on the line being filled, if any
+    public void flush() {
+        if (!this.line.isEmpty()) {
+            this.lines.accept(this.line.toString().stripTrailing());
+            this.line.setLength(0);
+        }
+    }
+
+    // Passes on the longest head of the line, one past the width, that ends at a break
+    private void wrap() {
+        int cut = this.width;
+        for (int i = this.width - 1; i > 0; --i) {
+            // Not inside the exponent of a number, 1.0E-5
+            if (BREAK_AFTER.indexOf(this.line.charAt(i)) >= 0 && this.line.charAt(i - 1) != 'E') {
+                cut = i + 1;
+                break;
+            }
+        }
+
+        this.lines.accept(this.line.substring(0, cut).stripTrailing());
+        this.line.delete(0, cut);
+    }
+}
@@ -0,0 +1,26 @@
+package MathPlot.Expressions;
+
+// A variable other than x, such as y in an implicit curve F(x, y) = 0. Expressions only
+// evaluate as functions of x, so it has no value of its own: Substitution binds it to a
+// constant first. Everything else treats it as independent of x.
+public class NamedVariable implements Expression {
+    final private char name;
+
+    public NamedVariable(char name) {
+        this.name = name;
+    }
+
+    public char name() {
+        return this.name;
+    }
+
+    @Override
+    public double evaluate(double x) {
+        throw new IllegalStateException("Unbound variable " + this.name);
+    }
+
+    @Override
+    public <T> T accept(ExpressionVisitor<T> visitor) {
+        return visitor.visit(this);
+    }
+}
@@ -0,0 +1,56 @@
+package MathPlot.Expressions;
+
+public enum Operator {
+    Add('+'),
+    Subtract('-'),
+    Multiply('*'),
+    Divide('/'),
+    Power('^');
+
+    final private char symbol;
+
+    Operator(char symbol) {
+        this.symbol = symbol;
+    }
+
+    public char symbol() {
+        return this.symbol;
+    }
+
+    public double apply(double left, double right) {
+        switch (this) {
+            case Add:
+                return left + right;
+            case Subtract:
+                return left - right;
+            case Multiply:
+                return left * right;
+            case Divide:
+                return left / right;
+            default:
+                return Math.pow(left, right);
+        }
+    }
+
+    // Returns the operator written as the given symbol, or null if there is none
+    public static Operator fromSymbol(String symbol) {
+        return symbol.length() == 1 ? fromSymbol(symbol.charAt(0)) : null;
+    }
+
+    public static Operator fromSymbol(char symbol) {
+        switch (symbol) {
+            case '+':
+                return Add;
+            case '-':
+                return Subtract;
+            case '*':
+                return Multiply;
+            case '/':
+                return Divide;
+            case '^':
+                return Power;
+            default:
+                return null;
+        }
+    }
+}
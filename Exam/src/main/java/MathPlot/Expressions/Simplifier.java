@@ -0,0 +1,262 @@
+package MathPlot.Expressions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Optimisation pass run between parsing and evaluation. Bottom-up, it folds constant subtrees,
+// drops identities (x+0, x*1, x^1, ...), turns small integer powers into multiplication chains
+// and hash-conses the result, so that equal subtrees become one shared node. The compilers
+// evaluate a shared node once (see sharedNodes()), which is the common subexpression
+// elimination.
+//
+// The rewrites keep the value for every x, NaN and infinities included. The exceptions are
+// the power chains, which may differ from Math.pow in the last bits, and 0*e -> 0, e-e -> 0 and
+// 1^e -> 1, which are only done when e is finite for every finite x (overflow aside).
+public class Simplifier implements ExpressionVisitor<Expression> {
+    // Largest |n| for which e^n becomes a multiplication chain
+    private static final int MAX_CHAIN_POWER = 16;
+
+    private record Key(Object kind, double value, Expression left, Expression right) {
+    }
+
+    final private Map<Key, Expression> interned;
+    // Input nodes already rewritten, for inputs that share nodes themselves
+    final private Map<Expression, Expression> rewritten;
+    final private Map<Expression, Boolean> total;
+    final private Variable variable;
+
+    private Simplifier() {
+        this.interned = new HashMap<>();
+        this.rewritten = new IdentityHashMap<>();
+        this.total = new IdentityHashMap<>();
+        this.variable = new Variable();
+    }
+
+    public static Expression simplify(Expression expression) {
+        final Simplifier simplifier = new Simplifier();
+        for (final Expression node : postOrder(expression, simplifier.rewritten)) {
+            simplifier.rewrite(node);
+        }
+        return simplifier.rewrite(expression);
+    }
+
+    // Nodes other than leaves reachable through more than one parent
+    static Set<Expression> sharedNodes(Expression root) {
+        final Map<Expression, Integer> parents = new IdentityHashMap<>();
+        for (final Expression node : postOrder(root, Map.of())) {
+            if (node instanceof BinaryOperation operation) {
+                parents.merge(operation.left(), 1, Integer::sum);
+                parents.merge(operation.right(), 1, Integer::sum);
+            } else if (node instanceof FunctionCall call) {
+                parents.merge(call.argument(), 1, Integer::sum);
+            }
+        }
+
+        final Set<Expression> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+        parents.forEach((node, count) -> {
+            if (count > 1 && (node instanceof BinaryOperation || node instanceof FunctionCall)) {
+                shared.add(node);
+            }
+        });
+        return shared;
+    }
+
+    // The nodes under 'root' that are not keys of 'done', each once and after its operands.
+    // The passes over a tree handle its nodes in this order, so that the operands of a node are
+    // always done when it is: none of them recurses more than a level, however deep the tree.
+    static List<Expression> postOrder(Expression root, Map<Expression, ?> done) {
+        final List<Expression> order = new ArrayList<>();
+        final Set<Expression> expanded = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Set<Expression> listed = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Deque<Expression> pending = new ArrayDeque<>();
+        pending.push(root);
+
+        while (!pending.isEmpty()) {
+            final Expression e = pending.peek();
+            if (done.containsKey(e) || listed.contains(e)) {
+                pending.pop();
+            } else if (expanded.add(e)) {
+                // Operands first, the left one on top
+                if (e instanceof BinaryOperation operation) {
+                    pending.push(operation.right());
+                    pending.push(operation.left());
+                } else if (e instanceof FunctionCall call) {
+                    pending.push(call.argument());
+                }
+            } else {
+                pending.pop();
+                listed.add(e);
+                order.add(e);
+            }
+        }
+
+        return order;
+    }
+
+    @Override
+    public Expression visit(Constant constant) {
+        return constant(constant.value());
+    }
+
+    @Override
+    public Expression visit(Variable variable) {
+        return this.variable;
+    }
+
+    @Override
+    public Expression visit(NamedVariable variable) {
+        return intern(new Key(variable.name(), 0, null, null), () -> variable);
+    }
+
+    @Override
+    public Expression visit(BinaryOperation operation) {
+        return binary(operation.operator(), rewrite(operation.left()), rewrite(operation.right()));
+    }
+
+    @Override
+    public Expression visit(FunctionCall call) {
+        final Expression argument = rewrite(call.argument());
+
+        if (argument instanceof Constant c) {
+            final double value = call.function().apply(c.value());
+            if (Double.isFinite(value)) {
+                return constant(value);
+            }
+        }
+
+        return intern(new Key(call.function(), 0, argument, null), () -> new FunctionCall(call.function(), argument));
+    }
+
+    private Expression rewrite(Expression e) {
+        final Expression done = this.rewritten.get(e);
+        if (done != null) {
+            return done;
+        }
+
+        final Expression result = e.accept(this);
+        this.rewritten.put(e, result);
+        return result;
+    }
+
+    private Expression binary(Operator op, Expression left, Expression right) {
+        if (left instanceof Constant l && right instanceof Constant r) {
+            final double value = op.apply(l.value(), r.value());
+            // Non-finite results stay as they are, constants are always printable numbers
+            if (Double.isFinite(value)) {
+                return constant(value);
+            }
+        }
+
+        switch (op) {
+            case Add:
+                if (is(right, 0)) {
+                    return left;
+                }
+                if (is(left, 0)) {
+                    return right;
+                }
+                break;
+            case Subtract:
+                if (is(right, 0)) {
+                    return left;
+                }
+                if (left == right && isTotal(left)) {
+                    return constant(0);
+                }
+                break;
+            case Multiply:
+                if (is(right, 1)) {
+                    return left;
+                }
+                if (is(left, 1)) {
+                    return right;
+                }
+                if ((is(left, 0) && isTotal(right)) || (is(right, 0) && isTotal(left))) {
+                    return constant(0);
+                }
+                break;
+            case Divide:
+                if (is(right, 1)) {
+                    return left;
+                }
+                break;
+            case Power:
+                if (is(right, 1)) {
+                    return left;
+                }
+                // Math.pow(a, 0) is 1 even for NaN, Math.pow(1, b) only for finite b
+                if (is(right, 0) || (is(left, 1) && isTotal(right))) {
+                    return constant(1);
+                }
+                if (right instanceof Constant r && r.value() == Math.rint(r.value())
+                        && Math.abs(r.value()) <= MAX_CHAIN_POWER) {
+                    final Expression chain = power(left, (int) Math.abs(r.value()));
+                    return r.value() > 0 ? chain : binary(Operator.Divide, constant(1), chain);
+                }
+                break;
+        }
+
+        // a+b and a*b are exact in either order: constants go right, where BatchEvaluator
+        // broadcasts them and where equal sums end up with equal keys
+        if ((op == Operator.Add || op == Operator.Multiply) && left instanceof Constant
+                && !(right instanceof Constant)) {
+            final Expression swapped = left;
+            left = right;
+            right = swapped;
+        }
+
+        final Expression l = left;
+        final Expression r = right;
+        return intern(new Key(op, 0, l, r), () -> new BinaryOperation(op, l, r));
+    }
+
+    // e^n as a chain of squarings, every square shared, n >= 2
+    private Expression power(Expression base, int n) {
+        if (n == 1) {
+            return base;
+        }
+
+        final Expression half = power(base, n / 2);
+        final Expression square = binary(Operator.Multiply, half, half);
+        return n % 2 == 0 ? square : binary(Operator.Multiply, square, base);
+    }
+
+    private Expression constant(double value) {
+        return intern(new Key(Constant.class, value, null, null), () -> new Constant(value));
+    }
+
+    private Expression intern(Key key, Supplier<Expression> node) {
+        return this.interned.computeIfAbsent(key, _ -> node.get());
+    }
+
+    private static boolean is(Expression e, double value) {
+        return e instanceof Constant c && c.value() == value;
+    }
+
+    // True if e is finite for every finite x, ignoring overflow
+    private boolean isTotal(Expression e) {
+        for (final Expression node : postOrder(e, this.total)) {
+            final boolean result;
+            if (node instanceof Constant || node instanceof Variable || node instanceof NamedVariable) {
+                result = true;
+            } else if (node instanceof FunctionCall call) {
+                result = call.function() != Function.Log && this.total.get(call.argument());
+            } else {
+                final BinaryOperation operation = (BinaryOperation) node;
+                result = operation.operator() != Operator.Divide && operation.operator() != Operator.Power
+                        && this.total.get(operation.left()) && this.total.get(operation.right());
+            }
+            this.total.put(node, result);
+        }
+
+        return this.total.get(e);
+    }
+}
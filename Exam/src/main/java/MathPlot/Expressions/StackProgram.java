@@ -0,0 +1,356 @@
+package MathPlot.Expressions;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleUnaryOperator;
+
+// Postfix (RPN) form of an expression: a compact opcode array plus the constants it pushes,
+// evaluated on a primitive stack allocated once per program. Evaluation allocates nothing,
+// which also means an instance must not be shared between threads, use copy() instead.
+// Nodes shared in the expression (see Simplifier) are computed once: STORE copies the top of
+// the stack into a register and LOAD pushes it back, each followed by the register number.
+public class StackProgram implements DoubleUnaryOperator {
+    public static final byte PUSH_X = 0;
+    public static final byte PUSH_CONST = 1;
+    public static final byte ADD = 2;
+    public static final byte SUB = 3;
+    public static final byte MUL = 4;
+    public static final byte DIV = 5;
+    public static final byte POW = 6;
+    public static final byte SIN = 7;
+    public static final byte COS = 8;
+    public static final byte EXP = 9;
+    public static final byte LOG = 10;
+    public static final byte STORE = 11;
+    public static final byte LOAD = 12;
+
+    // Registers are numbered by an unsigned byte
+    private static final int MAX_REGISTERS = 256;
+
+    final private byte[] code;
+    final private double[] constants;
+    final private double[] stack;
+    final private double[] registers;
+
+    // 'constants' holds the values of the PUSH_CONST opcodes in order of appearance,
+    // 'maxDepth' is the deepest the stack gets while running 'code'
+    public StackProgram(byte[] code, double[] constants, int maxDepth) {
+        this(code, constants, maxDepth, 0);
+    }
+
+    public StackProgram(byte[] code, double[] constants, int maxDepth, int registers) {
+        this.code = code;
+        this.constants = constants;
+        this.stack = new double[maxDepth];
+        this.registers = new double[registers];
+    }
+
+    byte[] code() {
+        return this.code;
+    }
+
+    double[] constants() {
+        return this.constants;
+    }
+
+    int maxDepth() {
+        return this.stack.length;
+    }
+
+    int registers() {
+        return this.registers.length;
+    }
+
+    public double evaluate(double x) {
+        final byte[] code = this.code;
+        final double[] s = this.stack;
+        int top = -1;
+        int c = 0;
+
+        for (int pc = 0; pc < code.length; ++pc) {
+            switch (code[pc]) {
+                case PUSH_X:
+                    s[++top] = x;
+                    break;
+                case PUSH_CONST:
+                    s[++top] = this.constants[c++];
+                    break;
+                case ADD:
+                    s[top - 1] += s[top];
+                    --top;
+                    break;
+                case SUB:
+                    s[top - 1] -= s[top];
+                    --top;
+                    break;
+                case MUL:
+                    s[top - 1] *= s[top];
+                    --top;
+                    break;
+                case DIV:
+                    s[top - 1] /= s[top];
+                    --top;
+                    break;
+                case POW:
+                    s[top - 1] = Math.pow(s[top - 1], s[top]);
+                    --top;
+                    break;
+                case SIN:
+                    s[top] = Math.sin(s[top]);
+                    break;
+                case COS:
+                    s[top] = Math.cos(s[top]);
+                    break;
+                case EXP:
+                    s[top] = Math.exp(s[top]);
+                    break;
+                case STORE:
+                    this.registers[code[++pc] & 0xFF] = s[top];
+                    break;
+                case LOAD:
+                    s[++top] = this.registers[code[++pc] & 0xFF];
+                    break;
+                default:
+                    s[top] = Math.log(s[top]);
+                    break;
+            }
+        }
+
+        return s[0];
+    }
+
+    @Override
+    public double applyAsDouble(double x) {
+        return evaluate(x);
+    }
+
+    // Same program with its own stack, for evaluation on another thread
+    public StackProgram copy() {
+        return new StackProgram(this.code, this.constants, this.stack.length, this.registers.length);
+    }
+
+    // Rebuilds the expression tree by running the program symbolically
+    public Expression toExpression() {
+        final Deque<Expression> operands = new ArrayDeque<>();
+        final Expression[] registers = new Expression[this.registers.length];
+        int c = 0;
+
+        for (int pc = 0; pc < this.code.length; ++pc) {
+            final byte op = this.code[pc];
+
+            switch (op) {
+                case PUSH_X:
+                    operands.push(new Variable());
+                    break;
+                case PUSH_CONST:
+                    operands.push(new Constant(this.constants[c++]));
+                    break;
+                case ADD:
+                case SUB:
+                case MUL:
+                case DIV:
+                case POW: {
+                    final Expression right = operands.pop();
+                    final Expression left = operands.pop();
+                    operands.push(new BinaryOperation(operatorOf(op), left, right));
+                    break;
+                }
+                case STORE:
+                    registers[this.code[++pc] & 0xFF] = operands.peek();
+                    break;
+                case LOAD:
+                    operands.push(registers[this.code[++pc] & 0xFF]);
+                    break;
+                default:
+                    operands.push(new FunctionCall(functionOf(op), operands.pop()));
+                    break;
+            }
+        }
+
+        return operands.pop();
+    }
+
+    public static StackProgram fromExpression(Expression expression) {
+        final Emitter emitter = new Emitter(Simplifier.sharedNodes(expression), Integer.MAX_VALUE);
+        emitter.emit(expression);
+        return new StackProgram(Arrays.copyOf(emitter.code, emitter.codeLength),
+                Arrays.copyOf(emitter.constants, emitter.constantsLength), emitter.maxDepth,
+                emitter.registers.size());
+    }
+
+    // True if the program of the expression is at most 'maxLength' opcodes long. Shared nodes
+    // past the last register are emitted again wherever they occur, so the program of a small
+    // tree can still be huge; this stops emitting once it is longer than 'maxLength'.
+    public static boolean fits(Expression expression, int maxLength) {
+        final Emitter emitter = new Emitter(Simplifier.sharedNodes(expression), maxLength);
+        emitter.emit(expression);
+        return emitter.codeLength <= maxLength;
+    }
+
+    public static byte opcodeOf(Operator op) {
+        switch (op) {
+            case Add:
+                return ADD;
+            case Subtract:
+                return SUB;
+            case Multiply:
+                return MUL;
+            case Divide:
+                return DIV;
+            default:
+                return POW;
+        }
+    }
+
+    public static byte opcodeOf(Function fn) {
+        switch (fn) {
+            case Sin:
+                return SIN;
+            case Cos:
+                return COS;
+            case Exp:
+                return EXP;
+            default:
+                return LOG;
+        }
+    }
+
+    private static Operator operatorOf(byte op) {
+        switch (op) {
+            case ADD:
+                return Operator.Add;
+            case SUB:
+                return Operator.Subtract;
+            case MUL:
+                return Operator.Multiply;
+            case DIV:
+                return Operator.Divide;
+            default:
+                return Operator.Power;
+        }
+    }
+
+    private static Function functionOf(byte op) {
+        switch (op) {
+            case SIN:
+                return Function.Sin;
+            case COS:
+                return Function.Cos;
+            case EXP:
+                return Function.Exp;
+            default:
+                return Function.Log;
+        }
+    }
+
+    // Post-order walk of the tree appending opcodes, tracking the stack depth. The walk keeps its
+    // own stack, the visit methods only emit the node itself, its operands being emitted before.
+    private static class Emitter implements ExpressionVisitor<Void> {
+        // Node whose operands are emitted, next to emit itself
+        private record Operated(Expression node) {
+        }
+
+        final private Set<Expression> shared;
+        // Register holding each shared node already computed
+        final private Map<Expression, Integer> registers;
+        // Emitting stops once the code is longer than this
+        final private int maxLength;
+        private byte[] code = new byte[16];
+        private double[] constants = new double[8];
+        private int codeLength;
+        private int constantsLength;
+        private int depth;
+        private int maxDepth;
+
+        Emitter(Set<Expression> shared, int maxLength) {
+            this.shared = shared;
+            this.registers = new IdentityHashMap<>();
+            this.maxLength = maxLength;
+        }
+
+        void emit(Expression root) {
+            final Deque<Object> pending = new ArrayDeque<>();
+            pending.push(root);
+
+            while (!pending.isEmpty() && this.codeLength <= this.maxLength) {
+                final Object next = pending.pop();
+
+                if (next instanceof Operated operated) {
+                    final Expression e = operated.node();
+                    e.accept(this);
+
+                    if (this.shared.contains(e) && this.registers.size() < MAX_REGISTERS) {
+                        final int register = this.registers.size();
+                        this.registers.put(e, register);
+                        emit(STORE, 0);
+                        emit((byte) register, 0);
+                    }
+                    continue;
+                }
+
+                final Expression e = (Expression) next;
+                final Integer register = this.registers.get(e);
+                if (register != null) {
+                    emit(LOAD, 1);
+                    emit((byte) (int) register, 0);
+                    continue;
+                }
+
+                // Operands first, the left one on top
+                pending.push(new Operated(e));
+                if (e instanceof BinaryOperation operation) {
+                    pending.push(operation.right());
+                    pending.push(operation.left());
+                } else if (e instanceof FunctionCall call) {
+                    pending.push(call.argument());
+                }
+            }
+        }
+
+        @Override
+        public Void visit(Constant constant) {
+            if (this.constantsLength == this.constants.length) {
+                this.constants = Arrays.copyOf(this.constants, this.constantsLength * 2);
+            }
+            this.constants[this.constantsLength++] = constant.value();
+            emit(PUSH_CONST, 1);
+            return null;
+        }
+
+        @Override
+        public Void visit(Variable variable) {
+            emit(PUSH_X, 1);
+            return null;
+        }
+
+        @Override
+        public Void visit(NamedVariable variable) {
+            throw new IllegalArgumentException("Unbound variable " + variable.name());
+        }
+
+        @Override
+        public Void visit(BinaryOperation operation) {
+            emit(opcodeOf(operation.operator()), -1);
+            return null;
+        }
+
+        @Override
+        public Void visit(FunctionCall call) {
+            emit(opcodeOf(call.function()), 0);
+            return null;
+        }
+
+        private void emit(byte op, int stackEffect) {
+            if (this.codeLength == this.code.length) {
+                this.code = Arrays.copyOf(this.code, this.codeLength * 2);
+            }
+            this.code[this.codeLength++] = op;
+            this.depth += stackEffect;
+            this.maxDepth = Math.max(this.maxDepth, this.depth);
+        }
+    }
+}
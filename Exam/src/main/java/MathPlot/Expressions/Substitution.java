@@ -0,0 +1,70 @@
+package MathPlot.Expressions;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Copy of an expression with a named variable replaced by a constant, F(x, y) becoming the
+// function of x F(x, y0). Subtrees without the variable are shared with the original rather
+// than copied, and shared nodes stay shared.
+public class Substitution implements ExpressionVisitor<Expression> {
+    final private char name;
+    final private Constant value;
+    // Copies of the nodes already visited
+    final private Map<Expression, Expression> copied;
+
+    private Substitution(char name, double value) {
+        this.name = name;
+        this.value = new Constant(value);
+        this.copied = new IdentityHashMap<>();
+    }
+
+    public static Expression bind(Expression expression, char name, double value) {
+        // Operands first, see Simplifier.postOrder()
+        final Substitution substitution = new Substitution(name, value);
+        for (final Expression node : Simplifier.postOrder(expression, substitution.copied)) {
+            substitution.substitute(node);
+        }
+        return substitution.substitute(expression);
+    }
+
+    @Override
+    public Expression visit(Constant constant) {
+        return constant;
+    }
+
+    @Override
+    public Expression visit(Variable variable) {
+        return variable;
+    }
+
+    @Override
+    public Expression visit(NamedVariable variable) {
+        return variable.name() == this.name ? this.value : variable;
+    }
+
+    @Override
+    public Expression visit(BinaryOperation operation) {
+        final Expression left = substitute(operation.left());
+        final Expression right = substitute(operation.right());
+
+        return left == operation.left() && right == operation.right() ? operation
+                : new BinaryOperation(operation.operator(), left, right);
+    }
+
+    @Override
+    public Expression visit(FunctionCall call) {
+        final Expression argument = substitute(call.argument());
+        return argument == call.argument() ? call : new FunctionCall(call.function(), argument);
+    }
+
+    private Expression substitute(Expression e) {
+        final Expression known = this.copied.get(e);
+        if (known != null) {
+            return known;
+        }
+
+        final Expression result = e.accept(this);
+        this.copied.put(e, result);
+        return result;
+    }
+}
@@ -0,0 +1,14 @@
+package MathPlot.Expressions;
+
+// The independent variable x
+public class Variable implements Expression {
+    @Override
+    public double evaluate(double x) {
+        return x;
+    }
+
+    @Override
+    public <T> T accept(ExpressionVisitor<T> visitor) {
+        return visitor.visit(this);
+    }
+}
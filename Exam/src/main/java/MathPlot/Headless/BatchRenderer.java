@@ -0,0 +1,154 @@
+package MathPlot.Headless;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import MathPlot.MathPlot;
+import MathPlot.Point;
+import javafx.scene.paint.Color;
+
+// Renders every expression of a file to an image file, without a stage or a display:
+//
+//   BatchRenderer <expressions> <output directory> [png|svg] [cartesian|polar] [size]
+//
+// One expression per line, AOS unless prefixed with "rpn:"; blank lines and lines starting
+// with # are skipped. The plot of line n goes to plot-<n>.png (or .svg), drawn with the same
+// items and window as the App shows first. Plots are rendered in parallel on all cores, and
+// throughput figures are printed at the end.
+public class BatchRenderer {
+    private static final Point MIN = new Point(-10, -10);
+    private static final Point MAX = new Point(10, 10);
+    private static final int DEFAULT_SIZE = 600;
+
+    private enum Format {
+        Png, Svg
+    }
+
+    private record Job(int line, String text, MathPlot.ExpressionFormat format) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        if (args.length < 2 || args.length > 5) {
+            System.err.println(
+                    "Usage: BatchRenderer <expressions> <output directory> [png|svg] [cartesian|polar] [size]");
+            System.exit(2);
+        }
+
+        final Format format;
+        final MathPlot.PlotType type;
+        final int size;
+        try {
+            format = args.length > 2 ? enumValue(Format.class, args[2]) : Format.Png;
+            type = args.length > 3 ? enumValue(MathPlot.PlotType.class, args[3]) : MathPlot.PlotType.Cartesian;
+            size = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_SIZE;
+            if (size <= 0) {
+                throw new IllegalArgumentException("Invalid size: " + args[4]);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        final List<Job> jobs = readJobs(Path.of(args[0]));
+        final Path outputDirectory = Files.createDirectories(Path.of(args[1]));
+
+        final long[] nanos = new long[jobs.size()];
+        final AtomicLong bytes = new AtomicLong();
+        final long start = System.nanoTime();
+
+        final long failed = IntStream.range(0, jobs.size()).parallel().filter(i -> {
+            final long jobStart = System.nanoTime();
+            final Job job = jobs.get(i);
+
+            try {
+                final Path file = outputDirectory.resolve(String.format("plot-%05d.%s", job.line(),
+                        format.name().toLowerCase(Locale.ROOT)));
+                render(job, type, format, size, file);
+                bytes.addAndGet(Files.size(file));
+                return false;
+            } catch (IOException | RuntimeException | StackOverflowError e) {
+                // A deep expression may overflow the stack; either way only this plot fails
+                System.err.println("Line " + job.line() + ": " + (e.getMessage() != null ? e.getMessage() : e));
+                return true;
+            } finally {
+                nanos[i] = System.nanoTime() - jobStart;
+            }
+        }).count();
+
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        Arrays.sort(nanos);
+
+        System.out.printf(Locale.ROOT, "Rendered %d of %d plots (%d failed) in %.2f s on %d threads: %.1f plots/s%n",
+                jobs.size() - failed, jobs.size(), failed, seconds, ForkJoinPool.getCommonPoolParallelism(),
+                jobs.size() / seconds);
+        if (nanos.length > 0) {
+            System.out.printf(Locale.ROOT, "Per plot: mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                    Arrays.stream(nanos).average().orElse(0) / 1e6, percentile(nanos, 0.50) / 1e6,
+                    percentile(nanos, 0.99) / 1e6, nanos[nanos.length - 1] / 1e6);
+        }
+        System.out.printf(Locale.ROOT, "Written: %.2f MB, %.2f MB/s%n", bytes.get() / 1e6, bytes.get() / 1e6 / seconds);
+    }
+
+    private static void render(Job job, MathPlot.PlotType type, Format format, int size, Path file)
+            throws IOException {
+        // MathPlot keeps per-expression state, one per plot
+        final MathPlot mathPlot = new MathPlot();
+        mathPlot.setExpression(job.text(), job.format());
+        if (mathPlot.error() != null) {
+            throw new IllegalArgumentException(mathPlot.error());
+        }
+
+        final OffscreenPlot plot = new OffscreenPlot(MIN, MAX, size, size);
+        mathPlot.plot(plot, type);
+
+        switch (format) {
+            case Png -> plot.writePng(file, Color.WHITE);
+            case Svg -> plot.writeSvg(file, Color.WHITE);
+        }
+    }
+
+    private static List<Job> readJobs(Path file) throws IOException {
+        final List<String> lines = Files.readAllLines(file);
+        final List<Job> jobs = new ArrayList<>();
+
+        for (int i = 0; i < lines.size(); ++i) {
+            final String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            if (line.regionMatches(true, 0, "rpn:", 0, 4)) {
+                jobs.add(new Job(i + 1, line.substring(4).strip(), MathPlot.ExpressionFormat.RPN));
+            } else {
+                jobs.add(new Job(i + 1, line, MathPlot.ExpressionFormat.AOS));
+            }
+        }
+
+        return jobs;
+    }
+
+    // Nearest-rank percentile of sorted values
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.max(0, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String name) {
+        for (final E value : type.getEnumConstants()) {
+            if (value.name().equalsIgnoreCase(name)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unknown " + type.getSimpleName().toLowerCase(Locale.ROOT) + ": " + name);
+    }
+}
@@ -0,0 +1,231 @@
+package MathPlot.Headless;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import MathPlot.PlotterInterface;
+import MathPlot.Point;
+import MathPlot.Rendering.Raster;
+import MathPlot.Rendering.RasterRenderer;
+import MathPlot.Sampling.PointBuffer;
+import MathPlot.Sampling.ViewportAware;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.paint.Color;
+
+// Plotter without a canvas: records the items, samples the curves for a fixed window and
+// writes them out as a PNG, rasterized with Raster, or as SVG text streamed to the file.
+// Touches no JavaFX toolkit state, so it runs without a display.
+class OffscreenPlot implements PlotterInterface {
+    // Item with its curve points sampled, ready to be written either way
+    private interface Item {
+        void rasterize(Raster raster);
+
+        void writeSvg(BufferedWriter out) throws IOException;
+    }
+
+    final private Point min;
+    final private Point max;
+    final private int width;
+    final private int height;
+    final private List<Item> items;
+    // SVG numbers are rounded to multiples of 1 / 'resolution', a hundredth of a pixel or finer
+    final private double resolution;
+
+    public OffscreenPlot(Point min, Point max, int width, int height) {
+        if (!(min.x() < max.x()) || !(min.y() < max.y()) || width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid window");
+        }
+
+        this.min = min;
+        this.max = max;
+        this.width = width;
+        this.height = height;
+        this.items = new ArrayList<>();
+
+        final double pixelsPerUnit = Math.max(width / (max.x() - min.x()), height / (max.y() - min.y()));
+        this.resolution = Math.pow(10, Math.clamp(Math.ceil(Math.log10(100 * pixelsPerUnit)), 0, 15));
+    }
+
+    @Override
+    public void addCircle(Point c, double r, Color color, double lineWidth) {
+        final int argb = RasterRenderer.argb(color);
+        this.items.add(new Item() {
+            @Override
+            public void rasterize(Raster raster) {
+                raster.drawEllipse(c.x(), c.y(), r, r, argb, lineWidth);
+            }
+
+            @Override
+            public void writeSvg(BufferedWriter out) throws IOException {
+                out.write("<circle cx=\"");
+                number(c.x(), out);
+                out.write("\" cy=\"");
+                number(c.y(), out);
+                out.write("\" r=\"");
+                number(r, out);
+                stroke(argb, lineWidth, out);
+                out.write("/>\n");
+            }
+        });
+    }
+
+    @Override
+    public void addLine(Point from, Point to, Color color, double lineWidth) {
+        final int argb = RasterRenderer.argb(color);
+        this.items.add(new Item() {
+            @Override
+            public void rasterize(Raster raster) {
+                raster.drawLine(from.x(), from.y(), to.x(), to.y(), argb, lineWidth);
+            }
+
+            @Override
+            public void writeSvg(BufferedWriter out) throws IOException {
+                out.write("<line x1=\"");
+                number(from.x(), out);
+                out.write("\" y1=\"");
+                number(from.y(), out);
+                out.write("\" x2=\"");
+                number(to.x(), out);
+                out.write("\" y2=\"");
+                number(to.y(), out);
+                stroke(argb, lineWidth, out);
+                out.write("/>\n");
+            }
+        });
+    }
+
+    @Override
+    public void addCurve(Point.Iterator ptIt, Color color, double lineWidth) {
+        if (ptIt instanceof ViewportAware viewportAware) {
+            viewportAware.setViewport(this.min, this.max, this.width, this.height);
+        }
+
+        addCurve(PointBuffer.of(ptIt), color, lineWidth);
+    }
+
+    @Override
+    public void addCurve(PointBuffer points, Color color, double lineWidth) {
+        final int argb = RasterRenderer.argb(color);
+        final int size = points.size();
+        final double[] xs = points.xs();
+        final double[] ys = points.ys();
+        this.items.add(new Item() {
+            @Override
+            public void rasterize(Raster raster) {
+                for (int start = 0; start < size;) {
+                    final int end = points.nextBreak(start + 1);
+                    for (int i = start + 1; i < end; ++i) {
+                        raster.drawLine(xs[i - 1], ys[i - 1], xs[i], ys[i], argb, lineWidth);
+                    }
+                    start = end;
+                }
+            }
+
+            @Override
+            public void writeSvg(BufferedWriter out) throws IOException {
+                if (size == 0) {
+                    return;
+                }
+
+                out.write("<path d=\"");
+                for (int start = 0; start < size;) {
+                    final int end = points.nextBreak(start + 1);
+                    for (int i = start; i < end; ++i) {
+                        out.write(i == start ? "M" : "L");
+                        number(xs[i], out);
+                        out.write(' ');
+                        number(ys[i], out);
+                    }
+                    start = end;
+                }
+                stroke(argb, lineWidth, out);
+                out.write("/>\n");
+            }
+        });
+    }
+
+    // There is none, headless: the plot is written with writePng() or writeSvg() instead
+    @Override
+    public Canvas getCanvas() {
+        throw new UnsupportedOperationException("An offscreen plot has no canvas, write it to a file instead");
+    }
+
+    public void writePng(Path file, Color background) throws IOException {
+        final Raster raster = new Raster(this.width, this.height);
+        raster.setWindow(this.min.x(), this.min.y(), this.max.x(), this.max.y());
+        raster.fill(RasterRenderer.argb(background));
+        for (final Item item : this.items) {
+            item.rasterize(raster);
+        }
+
+        final BufferedImage image = new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, this.width, this.height, raster.pixels(), 0, this.width);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            if (!ImageIO.write(image, "png", out)) {
+                throw new IOException("No PNG writer");
+            }
+        }
+    }
+
+    // Items are written in plot units, under a transform that flips y like the canvas one
+    public void writeSvg(Path file, Color background) throws IOException {
+        final double scaleX = this.width / (this.max.x() - this.min.x());
+        final double scaleY = this.height / (this.max.y() - this.min.y());
+
+        try (BufferedWriter out = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8))) {
+            out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + this.width + "\" height=\"" + this.height
+                    + "\" viewBox=\"0 0 " + this.width + " " + this.height + "\">\n");
+            out.write("<rect width=\"100%\" height=\"100%\" fill=\"" + hex(RasterRenderer.argb(background)) + "\"/>\n");
+            out.write("<g fill=\"none\" transform=\"matrix(");
+            number(scaleX, out);
+            out.write(" 0 0 ");
+            number(-scaleY, out);
+            out.write(' ');
+            number(-this.min.x() * scaleX, out);
+            out.write(' ');
+            number(this.max.y() * scaleY, out);
+            out.write(")\">\n");
+
+            for (final Item item : this.items) {
+                item.writeSvg(out);
+            }
+
+            out.write("</g>\n</svg>\n");
+        }
+    }
+
+    // Closes the coordinate attribute and adds the stroke attributes
+    private void stroke(int argb, double lineWidth, BufferedWriter out) throws IOException {
+        out.write("\" stroke=\"");
+        out.write(hex(argb));
+        out.write("\" stroke-width=\"");
+        number(lineWidth, out);
+        out.write('"');
+    }
+
+    private static String hex(int argb) {
+        return String.format("#%06x", argb & 0xFFFFFF);
+    }
+
+    // Integral values without a fraction
+    private void number(double value, BufferedWriter out) throws IOException {
+        final double scaled = value * this.resolution;
+        final double rounded = Math.abs(scaled) < 1e15 ? Math.rint(scaled) / this.resolution : value;
+        if (rounded == Math.rint(rounded) && Math.abs(rounded) < 1e15) {
+            out.write(Long.toString((long) rounded));
+        } else {
+            out.write(Double.toString(rounded));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package MathPlot.Integration;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import MathPlot.Expressions.BatchFunction;
+import MathPlot.Expressions.Interval;
+import MathPlot.Expressions.IntervalFunction;
+
+// Adaptive quadrature: the range is cut into INITIAL_SEGMENTS segments, and every segment whose
+// error estimate exceeds its share of the tolerance is halved, the halves refined in parallel
+// on the fork-join pool. The tolerance is max(absolute, relative * |first estimate|), shared
+// between segments in proportion to their width. Segments that diverge are not refined.
+//
+// Given interval bounds of f, the enclosure w [lo, hi] of a segment of width w holds both its
+// integral and, the weights being positive, its estimate. A segment is then accepted once the
+// enclosure is narrower than its tolerance, or once its error is down to what rounding alone
+// explains: that of the values, and that of x itself, magnified by the slope of f, which
+// (hi - lo) / w bounds from below. This stops the halving near poles, where the tolerance soon
+// falls under it. A segment whose bounds explode is never taken as converged, as it may hide
+// a pole the estimate stepped over; if it cannot be refined any more its error is infinite.
+abstract class AdaptiveIntegrator implements Integrator {
+    protected interface Segment {
+        double from();
+
+        double to();
+
+        double value();
+
+        double error();
+
+        // Evaluations the segment made when it was built
+        long evaluations();
+
+        // Builds the two halves
+        Segment[] split(BatchFunction f);
+    }
+
+    private static final int INITIAL_SEGMENTS = 16;
+    private static final int MAX_DEPTH = 50;
+    // Halves are forked down to this depth, deeper ones are refined on the same thread
+    private static final int FORK_DEPTH = 10;
+    // Past this many evaluations segments are accepted as they are, their error included
+    private static final long MAX_EVALUATIONS = 2_000_000;
+    // Relative rounding of an evaluation, with room for the sums of the rules
+    private static final double ROUNDOFF = 16 * Math.ulp(1.0);
+
+    final private double absoluteTolerance;
+    final private double relativeTolerance;
+    // Null if no bounds are known
+    final private IntervalFunction bounds;
+
+    protected AdaptiveIntegrator(double absoluteTolerance, double relativeTolerance) {
+        this(absoluteTolerance, relativeTolerance, null);
+    }
+
+    protected AdaptiveIntegrator(double absoluteTolerance, double relativeTolerance, IntervalFunction bounds) {
+        if (!(absoluteTolerance >= 0) || !(relativeTolerance >= 0)
+                || (absoluteTolerance == 0 && relativeTolerance == 0)) {
+            throw new IllegalArgumentException("Invalid tolerance");
+        }
+
+        this.absoluteTolerance = absoluteTolerance;
+        this.relativeTolerance = relativeTolerance;
+        this.bounds = bounds;
+    }
+
+    protected abstract Segment segment(BatchFunction f, double from, double to);
+
+    @Override
+    public Integral integrate(BatchFunction f, double from, double to) {
+        if (!(from < to)) {
+            return new Integral(0, 0, 0);
+        }
+
+        final Segment[] segments = new Segment[INITIAL_SEGMENTS];
+        final AtomicLong evaluations = new AtomicLong();
+        double estimate = 0;
+
+        for (int i = 0; i < INITIAL_SEGMENTS; ++i) {
+            final double a = from + (to - from) * i / INITIAL_SEGMENTS;
+            final double b = i + 1 == INITIAL_SEGMENTS ? to : from + (to - from) * (i + 1) / INITIAL_SEGMENTS;
+            segments[i] = segment(f, a, b);
+            evaluations.addAndGet(segments[i].evaluations());
+            estimate += segments[i].value();
+        }
+
+        // A diverging first estimate (a pole) leaves only the absolute tolerance
+        final double tolerance = Double.isFinite(estimate)
+                ? Math.max(this.absoluteTolerance, this.relativeTolerance * Math.abs(estimate))
+                : this.absoluteTolerance;
+        final Refine[] tasks = new Refine[INITIAL_SEGMENTS];
+        for (int i = 0; i < INITIAL_SEGMENTS; ++i) {
+            final Segment segment = segments[i];
+            tasks[i] = new Refine(f, this.bounds, segment, tolerance * (segment.to() - segment.from()) / (to - from),
+                    0, evaluations);
+            tasks[i].fork();
+        }
+
+        Integral total = new Integral(0, 0, 0);
+        for (final Refine task : tasks) {
+            total = total.plus(task.join());
+        }
+
+        return new Integral(total.value(), total.error(), evaluations.get());
+    }
+
+    // Result of the refinement of one segment, evaluations counted separately
+    private static class Refine extends RecursiveTask<Integral> {
+        final private BatchFunction f;
+        final private IntervalFunction bounds;
+        final private Segment segment;
+        final private double tolerance;
+        final private int depth;
+        final private AtomicLong evaluations;
+
+        Refine(BatchFunction f, IntervalFunction bounds, Segment segment, double tolerance, int depth,
+                AtomicLong evaluations) {
+            this.f = f;
+            this.bounds = bounds;
+            this.segment = segment;
+            this.tolerance = tolerance;
+            this.depth = depth;
+            this.evaluations = evaluations;
+        }
+
+        @Override
+        protected Integral compute() {
+            final Segment s = this.segment;
+            final double middle = (s.from() + s.to()) / 2;
+            final Interval range = this.bounds != null ? this.bounds.bounds(s.from(), s.to()) : null;
+
+            if (range == null ? s.error() <= this.tolerance : isConverged(s, range)) {
+                return new Integral(s.value(), s.error(), 0);
+            }
+
+            // Diverged (a pole), too narrow to halve, too deep or out of budget
+            if (!Double.isFinite(s.value()) || middle <= s.from() || middle >= s.to() || this.depth >= MAX_DEPTH
+                    || this.evaluations.get() >= MAX_EVALUATIONS) {
+                final boolean hidesPole = range != null && !range.isBounded() && Double.isFinite(s.value());
+                return new Integral(s.value(), hidesPole ? Double.POSITIVE_INFINITY : s.error(), 0);
+            }
+
+            final Segment[] halves = s.split(this.f);
+            this.evaluations.addAndGet(halves[0].evaluations() + halves[1].evaluations());
+
+            final Refine left = new Refine(this.f, this.bounds, halves[0], this.tolerance / 2, this.depth + 1,
+                    this.evaluations);
+            final Refine right = new Refine(this.f, this.bounds, halves[1], this.tolerance / 2, this.depth + 1,
+                    this.evaluations);
+
+            if (this.depth < FORK_DEPTH) {
+                left.fork();
+                final Integral r = right.compute();
+                return left.join().plus(r);
+            }
+            return left.compute().plus(right.compute());
+        }
+
+        private boolean isConverged(Segment s, Interval range) {
+            if (!range.isBounded()) {
+                return false;
+            }
+
+            final double width = s.to() - s.from();
+            final double spread = range.hi() - range.lo();
+            final double roundoff = ROUNDOFF * (width * Math.max(Math.abs(range.lo()), Math.abs(range.hi()))
+                    + Math.max(Math.abs(s.from()), Math.abs(s.to())) * spread);
+            return s.error() <= this.tolerance || width * spread <= this.tolerance || s.error() <= roundoff;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package MathPlot.Integration;
+
+import MathPlot.Expressions.BatchFunction;
+import MathPlot.Expressions.IntervalFunction;
+
+// Adaptive Simpson's rule: a segment compares Simpson over its whole width with the sum over
+// its two halves, the difference being 15 times the error of the latter. Accepted segments are
+// Richardson-extrapolated. Halves reuse their parent's points, so a split costs 4 evaluations.
+public class AdaptiveSimpson extends AdaptiveIntegrator {
+    private static class SimpsonSegment implements Segment {
+        final private double a, b;
+        final private double fa, fm, fb;
+        final private double fq1, fq3;
+        final private double left, right;
+        final private double whole;
+        final private long evaluations;
+
+        // Simpson over [a, b] from its ends and middle, 'whole' being its estimate
+        SimpsonSegment(BatchFunction f, double a, double b, double fa, double fm, double fb, double whole,
+                long evaluations) {
+            this.a = a;
+            this.b = b;
+            this.fa = fa;
+            this.fm = fm;
+            this.fb = fb;
+            this.whole = whole;
+
+            final double m = (a + b) / 2;
+            final double[] xs = { (a + m) / 2, (m + b) / 2 };
+            final double[] ys = new double[2];
+            f.evaluate(xs, ys, 2);
+            this.fq1 = ys[0];
+            this.fq3 = ys[1];
+            this.evaluations = evaluations + 2;
+
+            this.left = (m - a) / 6 * (fa + 4 * this.fq1 + fm);
+            this.right = (b - m) / 6 * (fm + 4 * this.fq3 + fb);
+        }
+
+        @Override
+        public double from() {
+            return this.a;
+        }
+
+        @Override
+        public double to() {
+            return this.b;
+        }
+
+        @Override
+        public double value() {
+            final double halves = this.left + this.right;
+            return halves + (halves - this.whole) / 15;
+        }
+
+        @Override
+        public double error() {
+            return Math.abs(this.left + this.right - this.whole) / 15;
+        }
+
+        @Override
+        public long evaluations() {
+            return this.evaluations;
+        }
+
+        @Override
+        public Segment[] split(BatchFunction f) {
+            final double m = (this.a + this.b) / 2;
+            return new Segment[] {
+                    new SimpsonSegment(f, this.a, m, this.fa, this.fq1, this.fm, this.left, 0),
+                    new SimpsonSegment(f, m, this.b, this.fm, this.fq3, this.fb, this.right, 0) };
+        }
+    }
+
+    public AdaptiveSimpson(double absoluteTolerance, double relativeTolerance) {
+        super(absoluteTolerance, relativeTolerance);
+    }
+
+    // As above, 'bounds' enclosing f over ranges of x
+    public AdaptiveSimpson(double absoluteTolerance, double relativeTolerance, IntervalFunction bounds) {
+        super(absoluteTolerance, relativeTolerance, bounds);
+    }
+
+    @Override
+    protected Segment segment(BatchFunction f, double from, double to) {
+        final double[] xs = { from, (from + to) / 2, to };
+        final double[] ys = new double[3];
+        f.evaluate(xs, ys, 3);
+
+        return new SimpsonSegment(f, from, to, ys[0], ys[1], ys[2], (to - from) / 6 * (ys[0] + 4 * ys[1] + ys[2]),
+                3);
+    }
+}
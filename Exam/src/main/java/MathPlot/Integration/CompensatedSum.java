@@ -0,0 +1,23 @@
+package MathPlot.Integration;
+
+// Neumaier's variant of Kahan summation: the low-order bits lost by each addition are
+// accumulated separately and added back at the end
+class CompensatedSum {
+    private double sum;
+    private double compensation;
+
+    void add(double value) {
+        final double t = this.sum + value;
+
+        if (Math.abs(this.sum) >= Math.abs(value)) {
+            this.compensation += (this.sum - t) + value;
+        } else {
+            this.compensation += (value - t) + this.sum;
+        }
+        this.sum = t;
+    }
+
+    double value() {
+        return this.sum + this.compensation;
+    }
+}
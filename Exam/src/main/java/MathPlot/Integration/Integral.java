@@ -0,0 +1,10 @@
+package MathPlot.Integration;
+
+// Result of an integration: the area, an estimate of its absolute error (NaN for the fixed-step
+// rules, which give none) and the number of function evaluations it took
+public record Integral(double value, double error, long evaluations) {
+    Integral plus(Integral other) {
+        return new Integral(this.value + other.value, this.error + other.error,
+                this.evaluations + other.evaluations);
+    }
+}
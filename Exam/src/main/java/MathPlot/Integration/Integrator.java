@@ -0,0 +1,8 @@
+package MathPlot.Integration;
+
+import MathPlot.Expressions.BatchFunction;
+
+// Numerical approximation of the signed area below f between from and to
+public interface Integrator {
+    Integral integrate(BatchFunction f, double from, double to);
+}
@@ -0,0 +1,67 @@
+package MathPlot.Integration;
+
+import java.util.concurrent.RecursiveTask;
+
+import MathPlot.Expressions.BatchFunction;
+
+// Fixed-step rule over panels of width 'step', the last one shortened to end exactly on 'to'.
+// The panels are split into chunks summed in parallel on the fork-join pool, each with
+// compensated (Neumaier) summation, and the chunk sums are added pairwise, so 10^8 panels
+// do not lose the accuracy a plain running sum would.
+abstract class PanelRule implements Integrator {
+    // Points evaluated per batch
+    protected static final int BATCH = 1024;
+    // Panels summed by one task
+    private static final long LEAF_PANELS = 1 << 16;
+
+    final protected double step;
+
+    protected PanelRule(double step) {
+        if (!(step > 0)) {
+            throw new IllegalArgumentException("Invalid step");
+        }
+
+        this.step = step;
+    }
+
+    @Override
+    public Integral integrate(BatchFunction f, double from, double to) {
+        final long panels = (long) Math.ceil((to - from) / this.step);
+        return new Chunk(f, from, to, 0, Math.max(0, panels)).invoke();
+    }
+
+    // Adds panels first..last-1 to 'sum', using xs/ys (BATCH long) as scratch. Returns the
+    // number of evaluations made.
+    protected abstract long sumPanels(BatchFunction f, double from, double to, long first, long last, double[] xs,
+            double[] ys, CompensatedSum sum);
+
+    private class Chunk extends RecursiveTask<Integral> {
+        final private BatchFunction f;
+        final private double from, to;
+        final private long first, last;
+
+        Chunk(BatchFunction f, double from, double to, long first, long last) {
+            this.f = f;
+            this.from = from;
+            this.to = to;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected Integral compute() {
+            if (this.last - this.first <= LEAF_PANELS) {
+                final CompensatedSum sum = new CompensatedSum();
+                final long evaluations = sumPanels(this.f, this.from, this.to, this.first, this.last,
+                        new double[BATCH], new double[BATCH], sum);
+                return new Integral(sum.value(), Double.NaN, evaluations);
+            }
+
+            final long middle = (this.first + this.last) >>> 1;
+            final Chunk left = new Chunk(this.f, this.from, this.to, this.first, middle);
+            left.fork();
+            final Integral right = new Chunk(this.f, this.from, this.to, middle, this.last).compute();
+            return left.join().plus(right);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package MathPlot.Integration;
+
+import MathPlot.Expressions.BatchFunction;
+
+// Left Riemann sum, the last panel is shortened to end exactly on 'to'
+public class Rectangular extends PanelRule {
+    public Rectangular(double step) {
+        super(step);
+    }
+
+    @Override
+    protected long sumPanels(BatchFunction f, double from, double to, long first, long last, double[] xs, double[] ys,
+            CompensatedSum sum) {
+        for (long start = first; start < last; start += BATCH) {
+            final int n = (int) Math.min(BATCH, last - start);
+            for (int i = 0; i < n; ++i) {
+                xs[i] = from + (start + i) * this.step;
+            }
+
+            f.evaluate(xs, ys, n);
+
+            for (int i = 0; i < n; ++i) {
+                sum.add(ys[i] * (Math.min(xs[i] + this.step, to) - xs[i]));
+            }
+        }
+
+        return last - first;
+    }
+}
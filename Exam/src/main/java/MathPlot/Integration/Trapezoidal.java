@@ -0,0 +1,34 @@
+package MathPlot.Integration;
+
+import MathPlot.Expressions.BatchFunction;
+
+public class Trapezoidal extends PanelRule {
+    public Trapezoidal(double step) {
+        super(step);
+    }
+
+    @Override
+    protected long sumPanels(BatchFunction f, double from, double to, long first, long last, double[] xs, double[] ys,
+            CompensatedSum sum) {
+        double x0 = Math.min(from + first * this.step, to);
+        double y0 = f.applyAsDouble(x0);
+
+        // Nodes first+1..last, each closing the panel opened by the previous one
+        for (long start = first + 1; start <= last; start += BATCH) {
+            final int n = (int) Math.min(BATCH, last - start + 1);
+            for (int i = 0; i < n; ++i) {
+                xs[i] = Math.min(from + (start + i) * this.step, to);
+            }
+
+            f.evaluate(xs, ys, n);
+
+            for (int i = 0; i < n; ++i) {
+                sum.add((y0 + ys[i]) * (xs[i] - x0) / 2);
+                x0 = xs[i];
+                y0 = ys[i];
+            }
+        }
+
+        return last - first + 1;
+    }
+}
@@ -1,39 +1,154 @@
 package MathPlot;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.DoubleUnaryOperator;
+
+import MathPlot.Analysis.Extremum;
+import MathPlot.Analysis.RootFinder;
+import MathPlot.Caching.LruCache;
+import MathPlot.Expressions.BatchEvaluator;
+import MathPlot.Expressions.BinaryOperation;
+import MathPlot.Expressions.BatchFunction;
+import MathPlot.Expressions.BytecodeCompiler;
+import MathPlot.Expressions.Derivative;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionCompiler;
+import MathPlot.Expressions.ExpressionPrinter;
+import MathPlot.Expressions.ImplicitEvaluator;
+import MathPlot.Expressions.ImplicitFunction;
+import MathPlot.Expressions.IntervalEvaluator;
+import MathPlot.Expressions.IntervalFunction;
+import MathPlot.Expressions.LineWrapper;
+import MathPlot.Expressions.Operator;
+import MathPlot.Expressions.Simplifier;
+import MathPlot.Expressions.StackProgram;
+import MathPlot.Integration.AdaptiveSimpson;
+import MathPlot.Integration.GaussKronrod;
+import MathPlot.Integration.Integral;
+import MathPlot.Integration.Rectangular;
+import MathPlot.Integration.Trapezoidal;
+import MathPlot.Rendering.Raster;
+import MathPlot.Rendering.RasterRenderer;
+import MathPlot.Rendering.RenderPipeline;
+import MathPlot.Sampling.GridSampler;
+import MathPlot.Sampling.ImplicitSampler;
+import MathPlot.Sampling.MarkerSampler;
+import MathPlot.Sampling.ParametricSampler;
+import MathPlot.Sampling.PointBuffer;
+import MathPlot.Sampling.PolarSampler;
+import MathPlot.Sampling.SampledFunction;
+import MathPlot.Sampling.ViewportAware;
+import MathPlot.Sampling.ViewportSampler;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.event.EventHandler;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
 import javafx.scene.paint.Color;
 import javafx.scene.transform.Affine;
 
 public class MathPlot {
     private class Plotter implements PlotterInterface {
+        // Visible area, captured on the FX thread when a frame is requested
+        private record Viewport(Point min, Point max, double width, double height) {
+        }
+
+        // Sampled item, ready to be drawn either way
+        private interface Stroke {
+            // Draws with path calls, on the FX thread
+            void stroke();
+
+            // Draws into the raster, on worker threads
+            void rasterize(Raster raster);
+        }
+
         private interface PlotterItem {
-            void plot();
+            // Runs on a worker thread: samples what the item needs for the viewport
+            Stroke prepare(Viewport viewport);
         }
 
         private abstract class PlotterBase implements PlotterItem {
             final protected GraphicsContext gc;
             final protected Color color;
+            final protected int argb;
             final protected double lineWidth;
 
             public PlotterBase(Color color, double lineWidth) {
                 this.gc = Plotter.this.canvas.getGraphicsContext2D();
                 this.color = color;
+                this.argb = RasterRenderer.argb(color);
                 this.lineWidth = lineWidth;
             }
+
+            // Runs between breaks are walked straight through the coordinate arrays
+            protected void stroke(PointBuffer points) {
+                final int size = points.size();
+                if (size == 0) {
+                    return;
+                }
+
+                final double[] xs = points.xs();
+                final double[] ys = points.ys();
+
+                this.gc.setLineWidth(this.lineWidth);
+                this.gc.setStroke(this.color);
+
+                this.gc.beginPath();
+
+                for (int start = 0; start < size;) {
+                    final int end = points.nextBreak(start + 1);
+
+                    this.gc.moveTo(xs[start], ys[start]);
+                    for (int i = start + 1; i < end; ++i) {
+                        this.gc.lineTo(xs[i], ys[i]);
+                        this.gc.moveTo(xs[i], ys[i]);
+                    }
+
+                    start = end;
+                }
+
+                this.gc.stroke();
+            }
+
+            protected void rasterize(PointBuffer points, Raster raster) {
+                final int size = points.size();
+                final double[] xs = points.xs();
+                final double[] ys = points.ys();
+
+                for (int start = 0; start < size;) {
+                    final int end = points.nextBreak(start + 1);
+                    for (int i = start + 1; i < end; ++i) {
+                        raster.drawLine(xs[i - 1], ys[i - 1], xs[i], ys[i], this.argb, this.lineWidth);
+                    }
+                    start = end;
+                }
+            }
         }
 
         final List<PlotterItem> items;
         final private Canvas canvas;
+        final private RenderPipeline pipeline;
+        // Null when drawing with path calls
+        final private RasterRenderer rasterRenderer;
+        // Registered on the canvas, and removed from it by dispose()
+        final private InvalidationListener resizeListener;
+        final private EventHandler<MouseEvent> pressHandler;
+        final private EventHandler<MouseEvent> dragHandler;
+        final private EventHandler<ScrollEvent> scrollHandler;
         private Point min, max;
         private Point lastMouse;
 
-        private class Circle extends PlotterBase {
+        private class Circle extends PlotterBase implements Stroke {
             final private Point c;
             final private double r;
 
@@ -45,11 +160,20 @@ public class MathPlot {
             }
 
             @Override
-            public void plot() {
+            public Stroke prepare(Viewport viewport) {
+                return this;
+            }
+
+            @Override
+            public void stroke() {
                 this.gc.setStroke(this.color);
                 this.gc.setLineWidth(this.lineWidth);
-                this.gc.strokeOval(-this.r + this.c.x(), -this.r + this.c.y(), 2 * this.r + this.c.x(),
-                        2 * this.r + this.c.y());
+                this.gc.strokeOval(this.c.x() - this.r, this.c.y() - this.r, 2 * this.r, 2 * this.r);
+            }
+
+            @Override
+            public void rasterize(Raster raster) {
+                raster.drawEllipse(this.c.x(), this.c.y(), this.r, this.r, this.argb, this.lineWidth);
             }
         }
 
@@ -63,36 +187,53 @@ public class MathPlot {
             }
 
             @Override
-            public void plot() {
-                this.ptIt.reset();
-
-                if (!this.ptIt.hasNext()) {
-                        return;
+            public Stroke prepare(Viewport viewport) {
+                if (this.ptIt instanceof ViewportAware viewportAware) {
+                    viewportAware.setViewport(viewport.min(), viewport.max(), viewport.width(), viewport.height());
                 }
 
-                this.gc.setLineWidth(this.lineWidth);
-                this.gc.setStroke(this.color);
+                final PointBuffer points = PointBuffer.of(this.ptIt);
+                return new Stroke() {
+                    @Override
+                    public void stroke() {
+                        Curve.this.stroke(points);
+                    }
 
-                this.gc.beginPath();
+                    @Override
+                    public void rasterize(Raster raster) {
+                        Curve.this.rasterize(points, raster);
+                    }
+                };
+            }
+        }
 
-                Point origin = this.ptIt.nextPoint();
-                this.gc.moveTo(origin.x(), origin.y());
+        // Curve whose points were sampled by the caller, the same for every viewport
+        private class SampledCurve extends PlotterBase implements Stroke {
+            final private PointBuffer points;
 
-                while (this.ptIt.hasNext()) {
-                    final Point np = this.ptIt.nextPoint();
+            public SampledCurve(PointBuffer points, Color color, double lineWidth) {
+                super(color, lineWidth);
 
-                    if (!this.ptIt.hasBreak()) {
-                        this.gc.lineTo(np.x(), np.y());
-                    }
+                this.points = points;
+            }
 
-                    this.gc.moveTo(np.x(), np.y());
-                }
+            @Override
+            public Stroke prepare(Viewport viewport) {
+                return this;
+            }
 
-                this.gc.stroke();
+            @Override
+            public void stroke() {
+                stroke(this.points);
+            }
+
+            @Override
+            public void rasterize(Raster raster) {
+                rasterize(this.points, raster);
             }
         }
 
-        private class Line extends PlotterBase {
+        private class Line extends PlotterBase implements Stroke {
             final private Point from;
             final private Point to;
 
@@ -104,29 +245,40 @@ public class MathPlot {
             }
 
             @Override
-            public void plot() {
+            public Stroke prepare(Viewport viewport) {
+                return this;
+            }
+
+            @Override
+            public void stroke() {
                 this.gc.setStroke(this.color);
                 this.gc.setLineWidth(this.lineWidth);
                 this.gc.strokeLine(this.from.x(), this.from.y(), this.to.x(), this.to.y());
             }
+
+            @Override
+            public void rasterize(Raster raster) {
+                raster.drawLine(this.from.x(), this.from.y(), this.to.x(), this.to.y(), this.argb, this.lineWidth);
+            }
         }
 
-        public Plotter(Canvas canvas, Point min, Point max) {
+        public Plotter(Canvas canvas, Point min, Point max, RenderMode mode) {
             this.min = min;
             this.max = max;
             this.items = new ArrayList<>();
             this.canvas = canvas;
+            this.pipeline = new RenderPipeline(Platform::runLater);
+            this.rasterRenderer = mode == RenderMode.Raster ? new RasterRenderer(Color.WHITE) : null;
 
-            this.canvas.widthProperty().addListener(_ -> render());
-            this.canvas.heightProperty().addListener(_ -> render());
+            this.resizeListener = _ -> render();
 
-            this.canvas.setOnMousePressed(e -> {
+            this.pressHandler = e -> {
                 if (e.getButton() == MouseButton.PRIMARY) {
                     this.lastMouse = new Point(e.getX(), e.getY());
                 }
-            });
+            };
 
-            this.canvas.setOnMouseDragged(e -> {
+            this.dragHandler = e -> {
                 if (e.getButton() == MouseButton.PRIMARY) {
                     double dx = e.getX() - this.lastMouse.x();
                     double dy = e.getY() - this.lastMouse.y();
@@ -143,9 +295,9 @@ public class MathPlot {
 
                     render();
                 }
-            });
+            };
 
-            this.canvas.addEventHandler(ScrollEvent.SCROLL, e -> {
+            this.scrollHandler = e -> {
                 double zoomFactor = (e.getDeltaY() > 0) ? 0.9 : 1.1;
 
                 double mouseX = e.getX();
@@ -170,7 +322,13 @@ public class MathPlot {
                 this.max = new Point(xMax, yMax);
 
                 render();
-            });
+            };
+
+            this.canvas.widthProperty().addListener(this.resizeListener);
+            this.canvas.heightProperty().addListener(this.resizeListener);
+            this.canvas.setOnMousePressed(this.pressHandler);
+            this.canvas.setOnMouseDragged(this.dragHandler);
+            this.canvas.addEventHandler(ScrollEvent.SCROLL, this.scrollHandler);
         }
 
         @Override
@@ -188,14 +346,67 @@ public class MathPlot {
             this.items.add(new Curve(ptIt, color, lineWidth));
         }
 
+        @Override
+        public void addCurve(PointBuffer points, Color color, double lineWidth) {
+            this.items.add(new SampledCurve(points, color, lineWidth));
+        }
+
         @Override
         public Canvas getCanvas() {
             return this.canvas;
         }
 
+        // Samples the items for the current viewport off the FX thread, then draws them. In raster
+        // mode the frame is also rasterized off the FX thread, which only blits it.
         public void render() {
-            double width = this.canvas.getWidth();
-            double height = this.canvas.getHeight();
+            final Viewport viewport = new Viewport(this.min, this.max, this.canvas.getWidth(),
+                    this.canvas.getHeight());
+            final List<PlotterItem> snapshot = List.copyOf(this.items);
+
+            this.pipeline.submit(cancelled -> {
+                final List<Stroke> strokes = snapshot.parallelStream()
+                        .map(item -> cancelled.getAsBoolean() ? null : item.prepare(viewport))
+                        .toList();
+
+                if (cancelled.getAsBoolean()) {
+                    return null;
+                }
+                if (this.rasterRenderer == null) {
+                    return () -> draw(viewport, strokes);
+                }
+
+                this.rasterRenderer.rasterize(viewport.min(), viewport.max(), (int) Math.round(viewport.width()),
+                        (int) Math.round(viewport.height()), snapshot, raster -> {
+                            for (final Stroke stroke : strokes) {
+                                stroke.rasterize(raster);
+                            }
+                        });
+                return () -> this.rasterRenderer.present(this.canvas.getGraphicsContext2D());
+            });
+        }
+
+        public RenderPipeline.Metrics metrics() {
+            return this.pipeline.metrics();
+        }
+
+        // Stops rendering and leaves the canvas to the plotter replacing this one
+        public void dispose() {
+            this.pipeline.close();
+
+            this.canvas.widthProperty().removeListener(this.resizeListener);
+            this.canvas.heightProperty().removeListener(this.resizeListener);
+            this.canvas.removeEventHandler(ScrollEvent.SCROLL, this.scrollHandler);
+            if (this.canvas.getOnMousePressed() == this.pressHandler) {
+                this.canvas.setOnMousePressed(null);
+            }
+            if (this.canvas.getOnMouseDragged() == this.dragHandler) {
+                this.canvas.setOnMouseDragged(null);
+            }
+        }
+
+        private void draw(Viewport viewport, List<Stroke> strokes) {
+            double width = viewport.width();
+            double height = viewport.height();
 
             final GraphicsContext gc = this.canvas.getGraphicsContext2D();
 
@@ -206,18 +417,31 @@ public class MathPlot {
             Affine transform = new Affine();
             transform.appendTranslation(0, height);
             transform.appendScale(1, -1);
-            transform.appendScale(width / (this.max.x() - this.min.x()),
-                    height / (this.max.y() - this.min.y()));
-            transform.appendTranslation(-this.min.x(), -this.min.y());
+            transform.appendScale(width / (viewport.max().x() - viewport.min().x()),
+                    height / (viewport.max().y() - viewport.min().y()));
+            transform.appendTranslation(-viewport.min().x(), -viewport.min().y());
 
             gc.setTransform(transform);
 
-            for (final PlotterItem item : this.items) {
-                item.plot();
+            for (final Stroke stroke : strokes) {
+                stroke.stroke();
             }
         }
     }
 
+    private static final int EXPRESSION_CACHE_SIZE = 64;
+    // Total samples kept, and the largest grid worth keeping
+    private static final long GRID_CACHE_SAMPLES = 1 << 22;
+    private static final long MAX_GRID_SAMPLES = 1 << 20;
+    // Largest simplified expression, and longest program compiled for its derivatives. Shared
+    // nodes are printed at every use, and repeated in programs past the last register, so deep
+    // nesting can make either exponentially larger than the text entered.
+    private static final long MAX_PRINTED_NODES = 1 << 20;
+    private static final int MAX_PROGRAM_LENGTH = 1 << 18;
+    // Colours of the expressions, in order, repeated past the last
+    private static final Color[] CURVE_COLORS = { Color.BLUE, Color.CRIMSON, Color.DARKGREEN, Color.DARKVIOLET,
+            Color.TEAL, Color.SADDLEBROWN };
+
     public enum PlotType {
         Cartesian, Polar
     }
@@ -228,36 +452,584 @@ public class MathPlot {
 
     public enum AreaType {
         Rectangular,
-        Trapezoidal
+        Trapezoidal,
+        Simpson,
+        GaussKronrod
+    }
+
+    public enum RenderMode {
+        Path, Raster
+    }
+
+    // Parsed expression line of any form: a function y = f(x), a parametric curve "x(t), y(t)"
+    // or an implicit curve "F(x, y) = G(x, y)"; 'simplified' if the optimized form prints
+    // differently
+    private sealed interface Plotted permits Compiled, Parametric, Implicit {
+        boolean simplified();
+
+        void write(ExpressionFormat format, boolean optimized, Appendable out) throws IOException;
+
+        void writeDerivative(ExpressionFormat format, Appendable out) throws IOException;
+    }
+
+    // Function with everything derived from it for evaluation, the bounds enclosing f and f'
+    // over ranges of x; 'derivativeBounds' is null if f' is too large to compile
+    private record Compiled(Expression expression, Expression optimized, boolean simplified, BatchFunction function,
+            IntervalFunction bounds, Expression derivative, BatchFunction derivativeFunction,
+            IntervalFunction derivativeBounds, DoubleUnaryOperator secondDerivativeFunction) implements Plotted {
+        @Override
+        public void write(ExpressionFormat format, boolean optimized, Appendable out) throws IOException {
+            MathPlot.write(format, optimized ? this.optimized : this.expression, 'x', out);
+        }
+
+        @Override
+        public void writeDerivative(ExpressionFormat format, Appendable out) throws IOException {
+            MathPlot.write(format, this.derivative, 'x', out);
+        }
+    }
+
+    // f'' of a function, derived and compiled on first use, by extrema() or the bounds of f'. Its
+    // program grows far faster than the nesting depth; past MAX_PROGRAM_LENGTH opcodes it is not
+    // compiled, f'' is the central difference of f' and f' has its natural bounds.
+    private static class SecondDerivative implements DoubleUnaryOperator {
+        final private Expression derivative;
+        final private DoubleUnaryOperator derivativeFunction;
+        // Set once, 'function' last
+        private volatile IntervalFunction derivativeBounds;
+        private volatile DoubleUnaryOperator function;
+
+        public SecondDerivative(Expression derivative, DoubleUnaryOperator derivativeFunction) {
+            this.derivative = derivative;
+            this.derivativeFunction = derivativeFunction;
+        }
+
+        @Override
+        public double applyAsDouble(double x) {
+            DoubleUnaryOperator f = this.function;
+            if (f == null) {
+                derive();
+                f = this.function;
+            }
+            return f.applyAsDouble(x);
+        }
+
+        public IntervalFunction derivativeBounds() {
+            if (this.function == null) {
+                derive();
+            }
+            return this.derivativeBounds;
+        }
+
+        private synchronized void derive() {
+            if (this.function != null) {
+                return;
+            }
+
+            final Expression second = Derivative.of(this.derivative);
+            if (StackProgram.fits(second, MAX_PROGRAM_LENGTH)) {
+                this.derivativeBounds = IntervalEvaluator.enclosure(this.derivative, second);
+                this.function = BytecodeCompiler.compile(second);
+            } else {
+                this.derivativeBounds = new IntervalEvaluator(this.derivative);
+                this.function = centralDifference(this.derivativeFunction);
+            }
+        }
+    }
+
+    // Coordinates x(t) and y(t), as entered and simplified
+    private record Parametric(Expression x, Expression y, Expression optimizedX, Expression optimizedY,
+            boolean simplified, BatchFunction xFunction, BatchFunction yFunction) implements Plotted {
+        @Override
+        public void write(ExpressionFormat format, boolean optimized, Appendable out) throws IOException {
+            MathPlot.write(format, optimized ? this.optimizedX : this.x, 't', out);
+            out.append(", ");
+            MathPlot.write(format, optimized ? this.optimizedY : this.y, 't', out);
+        }
+
+        // (x'(t), y'(t))
+        @Override
+        public void writeDerivative(ExpressionFormat format, Appendable out) throws IOException {
+            MathPlot.write(format, Derivative.of(this.optimizedX), 't', out);
+            out.append(", ");
+            MathPlot.write(format, Derivative.of(this.optimizedY), 't', out);
+        }
+    }
+
+    // The sides of the equation F(x, y) = G(x, y), as entered and simplified
+    private record Implicit(Expression left, Expression right, Expression optimizedLeft, Expression optimizedRight,
+            boolean simplified, ImplicitFunction function) implements Plotted {
+        @Override
+        public void write(ExpressionFormat format, boolean optimized, Appendable out) throws IOException {
+            MathPlot.write(format, optimized ? this.optimizedLeft : this.left, 'x', out);
+            out.append(" = ");
+            MathPlot.write(format, optimized ? this.optimizedRight : this.right, 'x', out);
+        }
+
+        // The partial derivative of F - G in x
+        @Override
+        public void writeDerivative(ExpressionFormat format, Appendable out) throws IOException {
+            MathPlot.write(format,
+                    Derivative.of(new BinaryOperation(Operator.Subtract, this.optimizedLeft, this.optimizedRight)),
+                    'x', out);
+        }
+    }
+
+    private record ExpressionKey(String text, ExpressionFormat format) {
+    }
+
+    // Uniform samples of a function over a range; 'function' compares by identity
+    private record GridKey(BatchFunction function, double from, double to, double step) {
     }
 
+    final private LruCache<ExpressionKey, Plotted> expressionCache;
+    final private LruCache<GridKey, SampledFunction> gridCache;
+    // All the expressions plotted, and the first function among them, null if there is none
+    private List<Plotted> expressions;
+    private Compiled compiled;
+    private String error;
+    private double rangeMin;
+    private double rangeMax;
+    private double step;
+    private double thetaMin;
+    private double thetaMax;
+    private double parameterMin;
+    private double parameterMax;
+    private double absoluteTolerance;
+    private double relativeTolerance;
+    private RenderMode renderMode;
+    final private Map<PlotType, Plotter> plotters;
+
     public MathPlot() {
-        // YOU CAN CHANGE HERE
+        this.plotters = new EnumMap<>(PlotType.class);
+        this.expressions = List.of();
+        this.expressionCache = new LruCache<>(EXPRESSION_CACHE_SIZE);
+        this.gridCache = new LruCache<>(GRID_CACHE_SAMPLES, SampledFunction::size);
+        this.rangeMin = -10;
+        this.rangeMax = 10;
+        this.step = 0.01;
+        this.thetaMin = 0;
+        this.thetaMax = 2 * Math.PI;
+        this.parameterMin = 0;
+        this.parameterMax = 2 * Math.PI;
+        this.absoluteTolerance = 1e-10;
+        this.relativeTolerance = 1e-10;
+        this.renderMode = RenderMode.Path;
+    }
+
+    // Accuracy the adaptive area types stop at: the error estimate is at most the larger of
+    // 'absolute' and 'relative' times the area
+    public void setTolerance(double absolute, double relative) {
+        if (!(absolute >= 0) || !(relative >= 0) || (absolute == 0 && relative == 0)) {
+            throw new IllegalArgumentException("Invalid tolerance");
+        }
+
+        this.absoluteTolerance = absolute;
+        this.relativeTolerance = relative;
+    }
+
+    // Path draws through GraphicsContext calls; Raster rasterizes into a pixel buffer off the FX
+    // thread and redraws only the uncovered strips when panning. Applies from the next plot().
+    public void setRenderMode(RenderMode mode) {
+        this.renderMode = mode;
+    }
+
+    // Domain used for plotting and area calculation, 'step' being the width of the area panels
+    public void setRange(double min, double max, double step) {
+        if (!(min < max) || !(step > 0)) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+
+        this.rangeMin = min;
+        this.rangeMax = max;
+        this.step = step;
+    }
+
+    // Angles the polar plot draws r(θ) for
+    public void setThetaRange(double min, double max) {
+        if (!(min < max) || !Double.isFinite(max - min)) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+
+        this.thetaMin = min;
+        this.thetaMax = max;
     }
 
+    // Values of t parametric curves are drawn for
+    public void setParameterRange(double min, double max) {
+        if (!(min < max) || !Double.isFinite(max - min)) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+
+        this.parameterMin = min;
+        this.parameterMax = max;
+    }
+
+    // A function of x, in AOS "x^2 - 1" or RPN "x 2 ^ 1 -"; a parametric curve, its coordinates
+    // as functions of t separated by a comma, "cos(t), sin(t)" or "t cos, t sin"; or an
+    // implicit curve, an equation in x and y, "x^2 + y^2 = 1" or "x 2 ^ y 2 ^ + = 1".
+    // Expressions already compiled are taken from a cache, keyed by the text with runs of
+    // whitespace collapsed.
     public void setExpression(String expr, ExpressionFormat format) {
-        // YOU CAN CHANGE HERE
+        setExpressions(List.of(expr), format);
+    }
+
+    // Several expressions plotted together, each in its own colour. The first function among
+    // them is the one the derivative, the markers, the areas and the roots are about. If one of
+    // them does not compile, none is kept.
+    public void setExpressions(List<String> exprs, ExpressionFormat format) {
+        final List<Plotted> compiled = new ArrayList<>();
+
+        for (int i = 0; i < exprs.size(); ++i) {
+            final ExpressionKey key = new ExpressionKey(exprs.get(i).strip().replaceAll("\\s+", " "), format);
+
+            try {
+                Plotted c = this.expressionCache.get(key);
+                if (c == null) {
+                    c = compile(key.text(), format);
+                    this.expressionCache.put(key, c);
+                }
+                compiled.add(c);
+            } catch (Exception e) {
+                final String message = e.getMessage() != null ? e.getMessage() : e.toString();
+                this.expressions = List.of();
+                this.compiled = null;
+                this.error = exprs.size() > 1 ? "Expression " + (i + 1) + ": " + message : message;
+                return;
+            }
+        }
+
+        this.expressions = List.copyOf(compiled);
+        this.compiled = compiled.stream().filter(Compiled.class::isInstance).map(Compiled.class::cast).findFirst()
+                .orElse(null);
+        this.error = null;
+    }
+
+    // Message of the last setExpression() if it failed, null otherwise
+    public String error() {
+        return this.error;
+    }
+
+    // Lookups of setExpression() in the compiled expression cache
+    public LruCache.Stats expressionCacheStats() {
+        return this.expressionCache.stats();
+    }
+
+    // Lookups of the sample grids shared by root finding and the fixed-step area types
+    public LruCache.Stats gridCacheStats() {
+        return this.gridCache.stats();
     }
 
     public void plot(Canvas canvas, PlotType type) {
-        final Plotter pf = new Plotter(canvas, new Point(-10, -10), new Point(10, 10));
+        // Disposed first, so that it leaves nothing on the canvas the new one would share it with
+        final Plotter previous = this.plotters.remove(type);
+        if (previous != null) {
+            previous.dispose();
+        }
 
-        // YOU CAN CHANGE HERE
+        final Plotter pf = new Plotter(canvas, new Point(-10, -10), new Point(10, 10), this.renderMode);
+        this.plotters.put(type, pf);
 
+        plot(pf, type);
         pf.render();
     }
 
+    // Adds the items of the plot to any plotter, also one drawing offscreen; the grid, like
+    // the curves, is laid out for every viewport the plotter draws
+    public void plot(PlotterInterface pf, PlotType type) {
+        pf.addCurve(new GridSampler(1), Color.LIGHTGRAY, 0.02);
+        pf.addCurve(GridSampler.axes(), Color.BLACK, 0.05);
+
+        if (this.compiled != null && type == PlotType.Cartesian) {
+            pf.addCurve(new ViewportSampler(this.compiled.derivativeFunction(), this.compiled.derivativeBounds(),
+                    this.rangeMin, this.rangeMax), Color.ORANGE, 0.03);
+            for (int i = 0; i < this.expressions.size(); ++i) {
+                if (this.expressions.get(i) instanceof Compiled c) {
+                    pf.addCurve(new ViewportSampler(c.function(), c.bounds(), this.rangeMin, this.rangeMax),
+                            CURVE_COLORS[i % CURVE_COLORS.length], 0.05);
+                }
+            }
+
+            // Marked again for every viewport, like the curves are sampled
+            final Compiled c = this.compiled;
+            pf.addCurve(new MarkerSampler((from, to, cells) -> Arrays.stream(
+                    RootFinder.roots(c.function(), c.derivativeFunction(), from, to, cells))
+                    .mapToObj(x -> new Point(x, 0)).toList(), this.rangeMin, this.rangeMax), Color.RED, 0.04);
+            pf.addCurve(new MarkerSampler((from, to, cells) -> RootFinder.extrema(c.function(),
+                    c.derivativeFunction(), c.secondDerivativeFunction(), from, to, cells).stream()
+                    .map(e -> new Point(e.x(), e.y())).toList(), this.rangeMin, this.rangeMax), Color.GREEN, 0.04);
+        }
+
+        // Both plotters sample the same compiled functions, which are safe to share between their
+        // render threads. Functions of x are r(theta) in the polar plot; parametric and implicit
+        // curves are drawn in x and y in both.
+        for (int i = 0; i < this.expressions.size(); ++i) {
+            final Color color = CURVE_COLORS[i % CURVE_COLORS.length];
+
+            switch (this.expressions.get(i)) {
+                case Compiled c -> {
+                    if (type == PlotType.Polar) {
+                        pf.addCurve(new PolarSampler(c.function(), this.thetaMin, this.thetaMax), color, 0.05);
+                    }
+                }
+                case Parametric p -> pf.addCurve(
+                        new ParametricSampler(p.xFunction(), p.yFunction(), this.parameterMin, this.parameterMax),
+                        color, 0.05);
+                case Implicit f -> pf.addCurve(new ImplicitSampler(f.function()), color, 0.05);
+            }
+        }
+    }
+
+    // Timings of the last frame drawn for the plot type, null if it was never plotted
+    public RenderPipeline.Metrics renderMetrics(PlotType type) {
+        final Plotter pf = this.plotters.get(type);
+        return pf != null ? pf.metrics() : null;
+    }
+
+    // Zeros of the expression in [from, to], searched for in 'cells' equal cells, at most one
+    // per cell
+    public double[] roots(double from, double to, int cells) {
+        if (!(from < to) || cells < 1) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+        if (this.compiled == null) {
+            return new double[0];
+        }
+
+        final double step = (to - from) / cells;
+        return RootFinder.roots(sampled(this.compiled.function(), from, to, step),
+                this.compiled.derivativeFunction(), from, to, cells);
+    }
+
+    // Local minima and maxima of the expression in [from, to], as for roots()
+    public List<Extremum> extrema(double from, double to, int cells) {
+        if (!(from < to) || cells < 1) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+        if (this.compiled == null) {
+            return List.of();
+        }
+
+        final double step = (to - from) / cells;
+        return RootFinder.extrema(this.compiled.function(),
+                sampled(this.compiled.derivativeFunction(), from, to, step),
+                this.compiled.secondDerivativeFunction(), from, to, cells);
+    }
+
     public double area(AreaType areaType) {
-        // YOU CAN CHANGE HERE
+        return integral(areaType).value();
+    }
+
+    // Area with its error estimate and the evaluations it took
+    public Integral integral(AreaType areaType) {
+        if (this.compiled == null) {
+            return new Integral(0.0, 0.0, 0);
+        }
 
-        return 0.0;
+        // The fixed-step rules evaluate the same nodes, which they share through the grid cache
+        return switch (areaType) {
+            case Rectangular -> new Rectangular(this.step).integrate(
+                    sampled(this.compiled.function(), this.rangeMin, this.rangeMax, this.step), this.rangeMin,
+                    this.rangeMax);
+            case Trapezoidal -> new Trapezoidal(this.step).integrate(
+                    sampled(this.compiled.function(), this.rangeMin, this.rangeMax, this.step), this.rangeMin,
+                    this.rangeMax);
+            case Simpson -> new AdaptiveSimpson(this.absoluteTolerance, this.relativeTolerance,
+                    this.compiled.bounds()).integrate(this.compiled.function(), this.rangeMin, this.rangeMax);
+            case GaussKronrod -> new GaussKronrod(this.absoluteTolerance, this.relativeTolerance,
+                    this.compiled.bounds()).integrate(this.compiled.function(), this.rangeMin, this.rangeMax);
+        };
     }
 
     public List<String> print(ExpressionFormat format) {
+        return print(format, false);
+    }
+
+    // One line per expression. With 'optimized', prints the simplified form that is actually
+    // evaluated.
+    public List<String> print(ExpressionFormat format, boolean optimized) {
+        final List<String> res = new ArrayList<>();
+
+        if (this.error != null) {
+            res.add("Error: " + this.error);
+            return res;
+        }
+
+        for (final Plotted c : this.expressions) {
+            final StringBuilder sb = new StringBuilder();
+            try {
+                c.write(format, optimized, sb);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            res.add(sb.toString());
+        }
+
+        return res;
+    }
+
+    // As above, written straight into 'out' with a newline after each expression: the tree is
+    // walked once and no string is built in between, however long the expression
+    public void print(ExpressionFormat format, boolean optimized, Appendable out) throws IOException {
+        if (this.error != null) {
+            out.append("Error: ").append(this.error).append('\n');
+            return;
+        }
+
+        for (final Plotted c : this.expressions) {
+            c.write(format, optimized, out);
+            out.append('\n');
+        }
+    }
+
+    // As above, pretty-printed in lines of at most 'width' characters that 'line' gets one at
+    // a time, so that only one line is held whatever the size of the expression
+    public void print(ExpressionFormat format, boolean optimized, int width, Consumer<String> line) {
+        final LineWrapper wrapper = new LineWrapper(width, line);
+        try {
+            print(format, optimized, wrapper);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        wrapper.flush();
+    }
+
+    // True if simplifying changed the printed form of any expression
+    public boolean simplifies() {
+        return this.expressions.stream().anyMatch(Plotted::simplified);
+    }
+
+    // d/dx of each expression, simplified; (x'(t), y'(t)) for a parametric curve and the
+    // partial derivative in x of F - G for an implicit one F = G
+    public List<String> printDerivative(ExpressionFormat format) {
         final List<String> res = new ArrayList<>();
 
-        // YOU CAN CHANGE HERE
+        for (final Plotted c : this.expressions) {
+            final StringBuilder sb = new StringBuilder();
+            try {
+                c.writeDerivative(format, sb);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            res.add(sb.toString());
+        }
 
         return res;
     }
+
+    // As print(format, optimized, width, line), for the derivatives
+    public void printDerivative(ExpressionFormat format, int width, Consumer<String> line) {
+        final LineWrapper wrapper = new LineWrapper(width, line);
+        try {
+            for (final Plotted c : this.expressions) {
+                c.writeDerivative(format, wrapper);
+                wrapper.append('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        wrapper.flush();
+    }
+
+    private static void write(ExpressionFormat format, Expression expression, char variable, Appendable out)
+            throws IOException {
+        switch (format) {
+            case AOS -> ExpressionPrinter.writeAOS(expression, variable, out);
+            case RPN -> ExpressionPrinter.writeRPN(expression, variable, out);
+        }
+    }
+
+    // The form of the line is told by its separator: an equation is an implicit curve, two
+    // expressions separated by a comma a parametric one, anything else a function of x
+    private static Plotted compile(String expr, ExpressionFormat format) throws Exception {
+        if (expr.indexOf('=') >= 0) {
+            return compileImplicit(expr, format);
+        }
+        if (expr.indexOf(',') >= 0) {
+            return compileParametric(expr, format);
+        }
+
+        final Expression expression = switch (format) {
+            case AOS -> ExpressionCompiler.fromAOS(expr);
+            case RPN -> ExpressionCompiler.fromRPN(expr);
+        };
+        final Expression optimized = Simplifier.simplify(expression);
+        checkSize(optimized);
+        final Expression derivative = Derivative.of(optimized);
+        final boolean simplified = !ExpressionPrinter.toAOS(expression).equals(ExpressionPrinter.toAOS(optimized));
+        final BatchFunction function = new BatchEvaluator(optimized, BytecodeCompiler.compile(optimized));
+
+        if (!StackProgram.fits(derivative, MAX_PROGRAM_LENGTH)) {
+            // f' is the central difference of f, f has its natural bounds and f' none
+            final DoubleUnaryOperator derivativeFunction = centralDifference(function);
+            return new Compiled(expression, optimized, simplified, function, new IntervalEvaluator(optimized),
+                    derivative, BatchFunction.of(derivativeFunction), null, centralDifference(derivativeFunction));
+        }
+
+        final BatchFunction derivativeFunction = new BatchEvaluator(derivative, BytecodeCompiler.compile(derivative));
+        final SecondDerivative secondDerivative = new SecondDerivative(derivative, derivativeFunction);
+
+        return new Compiled(expression, optimized, simplified, function,
+                IntervalEvaluator.enclosure(optimized, derivative), derivative, derivativeFunction,
+                (a, b) -> secondDerivative.derivativeBounds().bounds(a, b), secondDerivative);
+    }
+
+    private static Parametric compileParametric(String expr, ExpressionFormat format) throws Exception {
+        final Expression[] xy = switch (format) {
+            case AOS -> ExpressionCompiler.parametricFromAOS(expr);
+            case RPN -> ExpressionCompiler.parametricFromRPN(expr);
+        };
+        final Expression x = Simplifier.simplify(xy[0]);
+        final Expression y = Simplifier.simplify(xy[1]);
+        checkSize(x);
+        checkSize(y);
+        final boolean simplified = !ExpressionPrinter.toAOS(xy[0]).equals(ExpressionPrinter.toAOS(x))
+                || !ExpressionPrinter.toAOS(xy[1]).equals(ExpressionPrinter.toAOS(y));
+
+        return new Parametric(xy[0], xy[1], x, y, simplified, new BatchEvaluator(x, BytecodeCompiler.compile(x)),
+                new BatchEvaluator(y, BytecodeCompiler.compile(y)));
+    }
+
+    private static Implicit compileImplicit(String expr, ExpressionFormat format) throws Exception {
+        final Expression[] sides = switch (format) {
+            case AOS -> ExpressionCompiler.equationFromAOS(expr);
+            case RPN -> ExpressionCompiler.equationFromRPN(expr);
+        };
+        final Expression left = Simplifier.simplify(sides[0]);
+        final Expression right = Simplifier.simplify(sides[1]);
+        checkSize(left);
+        checkSize(right);
+        final boolean simplified = !ExpressionPrinter.toAOS(sides[0]).equals(ExpressionPrinter.toAOS(left))
+                || !ExpressionPrinter.toAOS(sides[1]).equals(ExpressionPrinter.toAOS(right));
+
+        // The curve is where F - G changes sign
+        return new Implicit(sides[0], sides[1], left, right, simplified,
+                new ImplicitEvaluator(new BinaryOperation(Operator.Subtract, left, right)));
+    }
+
+    // Simplified expressions are printed, and compiled, only up to MAX_PRINTED_NODES
+    private static void checkSize(Expression optimized) throws Exception {
+        if (ExpressionPrinter.printedNodes(optimized) > MAX_PRINTED_NODES) {
+            throw new Exception("Expression too large once simplified");
+        }
+    }
+
+    // f' by the central difference of f, for derivatives too large to compile
+    private static DoubleUnaryOperator centralDifference(DoubleUnaryOperator f) {
+        return x -> {
+            // Relative step, about the cube root of the double precision
+            final double h = 1e-5 * Math.max(1, Math.abs(x));
+            return (f.applyAsDouble(x + h) - f.applyAsDouble(x - h)) / (2 * h);
+        };
+    }
+
+    // f backed by its samples on the grid of 'step' over [from, to], from the cache when sampled
+    // before; grids too large to keep are not sampled up front
+    private BatchFunction sampled(BatchFunction f, double from, double to, double step) {
+        if ((to - from) / step + 1 > MAX_GRID_SAMPLES) {
+            return f;
+        }
+
+        return this.gridCache.computeIfAbsent(new GridKey(f, from, to, step),
+                key -> new SampledFunction(f, from, to, step));
+    }
 }
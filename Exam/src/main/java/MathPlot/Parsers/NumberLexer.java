@@ -0,0 +1,85 @@
+package MathPlot.Parsers;
+
+// Reads an unsigned decimal number, the same way for AOS and RPN input: digits with an optional
+// fraction, at least one digit in all, then an optional exponent. Nothing else is a number, so
+// "1f", "2d" or "0x1p3" are rejected by both parsers. Like Tokenizer it is a cursor: lex()
+// reads a number and its end and value are read through the accessors.
+class NumberLexer {
+    // Largest mantissa, and power of ten, that can be combined with a single exact rounding
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private int end;
+    private double value;
+
+    // Offset after the number
+    public int end() {
+        return this.end;
+    }
+
+    public double value() {
+        return this.value;
+    }
+
+    // Reads the number at 'start', up to the first character that cannot continue it
+    public void lex(CharSequence input, int start) throws ParseException {
+        final int length = input.length();
+        int pos = start;
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean exact = true;
+
+        while (pos < length && isDigit(input.charAt(pos))) {
+            exact &= mantissa < MAX_EXACT_MANTISSA / 10;
+            mantissa = mantissa * 10 + (input.charAt(pos++) - '0');
+            ++digits;
+        }
+
+        if (pos < length && input.charAt(pos) == '.') {
+            ++pos;
+            while (pos < length && isDigit(input.charAt(pos))) {
+                exact &= mantissa < MAX_EXACT_MANTISSA / 10;
+                mantissa = mantissa * 10 + (input.charAt(pos++) - '0');
+                --exponent;
+                ++digits;
+            }
+        }
+
+        if (digits == 0) {
+            throw new ParseException("Malformed number", start);
+        }
+
+        if (pos < length && (input.charAt(pos) == 'e' || input.charAt(pos) == 'E')) {
+            ++pos;
+            boolean negative = false;
+            if (pos < length && (input.charAt(pos) == '+' || input.charAt(pos) == '-')) {
+                negative = input.charAt(pos++) == '-';
+            }
+            if (pos == length || !isDigit(input.charAt(pos))) {
+                throw new ParseException("Malformed exponent", pos);
+            }
+            int e = 0;
+            while (pos < length && isDigit(input.charAt(pos))) {
+                e = Math.min(e * 10 + (input.charAt(pos++) - '0'), 100000);
+            }
+            exponent += negative ? -e : e;
+        }
+
+        this.end = pos;
+        if (exact && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            this.value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            // Rare: too many significant digits or a huge exponent, let the JDK round it correctly.
+            // The characters are checked above, so it takes them as they are.
+            this.value = Double.parseDouble(input.subSequence(start, pos).toString());
+        }
+    }
+
+    public static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,15 @@
+package MathPlot.Parsers;
+
+// Syntax error, carrying the character offset in the input where it was detected
+public class ParseException extends Exception {
+    final private int offset;
+
+    public ParseException(String message, int offset) {
+        super(message + " at offset " + offset);
+        this.offset = offset;
+    }
+
+    public int offset() {
+        return this.offset;
+    }
+}
@@ -0,0 +1,180 @@
+package MathPlot.Parsers;
+
+import MathPlot.Expressions.BinaryOperation;
+import MathPlot.Expressions.Constant;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.Function;
+import MathPlot.Expressions.FunctionCall;
+import MathPlot.Expressions.NamedVariable;
+import MathPlot.Expressions.Operator;
+import MathPlot.Expressions.Variable;
+import MathPlot.Parsers.Tokenizer.TokenType;
+
+// Precedence-climbing parser for AOS expressions, building the expression tree in a single
+// left-to-right pass over the tokens.
+//
+// Binding powers, the higher binds tighter:
+// - + and - are left associative (10)
+// - * and / are left associative (20)
+// - unary - applies to everything but a power, so -x^2 is -(x^2) (25)
+// - ^ is right associative (30)
+//
+// A chain of operators is read in a loop, however long; the parser only recurses into
+// operands that bind tighter, parentheses and function arguments. MAX_NESTING levels of those
+// fit well within a default thread stack, deeper input is rejected.
+public class PrattParser {
+    private static final int UNARY_POWER = 25;
+    private static final int MAX_NESTING = 512;
+
+    final private Tokenizer tokens;
+    // Levels of parseExpression() currently running
+    private int nesting;
+
+    public PrattParser(CharSequence input) {
+        this.tokens = new Tokenizer(input);
+    }
+
+    // Reads 'variable' as the variable and the letters of 'namedVariables' as named variables
+    public PrattParser(CharSequence input, char variable, String namedVariables) {
+        this.tokens = new Tokenizer(input, variable, namedVariables);
+    }
+
+    public Expression parse() throws ParseException {
+        return parse(',', 1)[0];
+    }
+
+    // 'count' expressions separated by 'separator', as the sides of x^2 + y^2 = 1
+    public Expression[] parse(char separator, int count) throws ParseException {
+        final Expression[] exprs = new Expression[count];
+
+        this.tokens.next();
+        for (int i = 0; i < count; ++i) {
+            if (i > 0) {
+                if (this.tokens.type() != TokenType.Separator || this.tokens.name() != separator) {
+                    throw new ParseException("Expected '" + separator + "' instead of " + describe(),
+                            this.tokens.start());
+                }
+                this.tokens.next();
+            }
+            exprs[i] = parseExpression(0);
+        }
+
+        if (this.tokens.type() != TokenType.End) {
+            throw new ParseException("Unexpected " + describe(), this.tokens.start());
+        }
+
+        return exprs;
+    }
+
+    private Expression parseExpression(int minPower) throws ParseException {
+        if (++this.nesting > MAX_NESTING) {
+            throw new ParseException("Expression nested too deeply", this.tokens.start());
+        }
+
+        Expression left = parsePrefix();
+
+        while (this.tokens.type() == TokenType.Operator) {
+            final Operator op = this.tokens.operator();
+            if (leftPower(op) < minPower) {
+                break;
+            }
+
+            this.tokens.next();
+            left = new BinaryOperation(op, left, parseExpression(rightPower(op)));
+        }
+
+        --this.nesting;
+        return left;
+    }
+
+    private Expression parsePrefix() throws ParseException {
+        final int start = this.tokens.start();
+
+        switch (this.tokens.type()) {
+            case Number: {
+                final Expression constant = new Constant(this.tokens.number());
+                this.tokens.next();
+                return constant;
+            }
+            case Variable:
+                this.tokens.next();
+                return new Variable();
+            case NamedVariable: {
+                final Expression variable = new NamedVariable(this.tokens.name());
+                this.tokens.next();
+                return variable;
+            }
+            case Function: {
+                final Function fn = this.tokens.function();
+                this.tokens.next();
+                if (this.tokens.type() != TokenType.LeftParen) {
+                    throw new ParseException("Expected '(' after " + fn.symbol(), this.tokens.start());
+                }
+                return new FunctionCall(fn, parseParenthesized(this.tokens.start()));
+            }
+            case LeftParen:
+                return parseParenthesized(start);
+            case Operator: {
+                final Operator op = this.tokens.operator();
+                if (op != Operator.Add && op != Operator.Subtract) {
+                    break;
+                }
+                this.tokens.next();
+                final Expression operand = parseExpression(UNARY_POWER);
+                return op == Operator.Add ? operand : new BinaryOperation(Operator.Subtract, new Constant(0), operand);
+            }
+            default:
+                break;
+        }
+
+        throw new ParseException("Unexpected " + describe(), start);
+    }
+
+    // Parses '(' expression ')', the current token being the opening paren at offset 'open'
+    private Expression parseParenthesized(int open) throws ParseException {
+        this.tokens.next();
+        final Expression inner = parseExpression(0);
+
+        if (this.tokens.type() != TokenType.RightParen) {
+            throw new ParseException("Unbalanced paren", open);
+        }
+
+        this.tokens.next();
+        return inner;
+    }
+
+    private String describe() {
+        switch (this.tokens.type()) {
+            case End:
+                return "end of input";
+            case RightParen:
+                return "')'";
+            case LeftParen:
+                return "'('";
+            case Operator:
+                return "operator '" + this.tokens.operator().symbol() + "'";
+            case Separator:
+                return "'" + this.tokens.name() + "'";
+            default:
+                return "operand";
+        }
+    }
+
+    private static int leftPower(Operator op) {
+        switch (op) {
+            case Add:
+            case Subtract:
+                return 10;
+            case Multiply:
+            case Divide:
+                return 20;
+            default:
+                return 30;
+        }
+    }
+
+    private static int rightPower(Operator op) {
+        // One above the left power makes the operator left associative, equal makes it right
+        return op == Operator.Power ? leftPower(op) : leftPower(op) + 1;
+    }
+}
@@ -0,0 +1,257 @@
+package MathPlot.Parsers;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import MathPlot.Expressions.BinaryOperation;
+import MathPlot.Expressions.Constant;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.Function;
+import MathPlot.Expressions.FunctionCall;
+import MathPlot.Expressions.NamedVariable;
+import MathPlot.Expressions.Operator;
+import MathPlot.Expressions.StackProgram;
+import MathPlot.Expressions.Variable;
+
+// Lexes and validates an RPN expression in a single pass, straight into a StackProgram or into
+// the trees of an equation or parametric curve. Both read their tokens through the same Lexer,
+// which classifies them by their characters, so exceptions are only raised for real errors.
+public class RPNCompiler {
+    public static StackProgram compile(CharSequence input) throws ParseException {
+        byte[] code = new byte[16];
+        double[] constants = new double[8];
+        int codeLength = 0;
+        int constantsLength = 0;
+        int depth = 0;
+        int maxDepth = 0;
+
+        final Lexer lexer = new Lexer(input, 'x', "", "");
+
+        for (lexer.next(); lexer.type != TokenType.End; lexer.next()) {
+            final byte op;
+            final int stackEffect;
+
+            switch (lexer.type) {
+            case Variable:
+                op = StackProgram.PUSH_X;
+                stackEffect = 1;
+                break;
+            case Number:
+                if (constantsLength == constants.length) {
+                    constants = Arrays.copyOf(constants, constantsLength * 2);
+                }
+                constants[constantsLength++] = lexer.number;
+                op = StackProgram.PUSH_CONST;
+                stackEffect = 1;
+                break;
+            case Operator:
+                op = StackProgram.opcodeOf(lexer.operator);
+                stackEffect = -1;
+                if (depth < 2) {
+                    throw new ParseException("Missing operand", lexer.start);
+                }
+                break;
+            default:
+                op = StackProgram.opcodeOf(lexer.function);
+                stackEffect = 0;
+                if (depth < 1) {
+                    throw new ParseException("Missing operand", lexer.start);
+                }
+                break;
+            }
+
+            if (codeLength == code.length) {
+                code = Arrays.copyOf(code, codeLength * 2);
+            }
+            code[codeLength++] = op;
+            depth += stackEffect;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        if (depth != 1) {
+            throw new ParseException("Invalid RPN sequence", input.length());
+        }
+
+        return new StackProgram(Arrays.copyOf(code, codeLength), Arrays.copyOf(constants, constantsLength),
+                maxDepth);
+    }
+
+    // Trees of 'count' RPN expressions separated by 'separator', as the sides of an equation,
+    // with 'variable' read as the variable and the letters of 'namedVariables' as named
+    // variables. The separator ends a token, "t cos, t sin" is two expressions.
+    public static Expression[] compile(CharSequence input, char variable, String namedVariables, char separator,
+            int count) throws ParseException {
+        final Expression[] exprs = new Expression[count];
+        final Deque<Expression> operands = new ArrayDeque<>();
+        int found = 0;
+
+        final Lexer lexer = new Lexer(input, variable, namedVariables, String.valueOf(separator));
+
+        while (true) {
+            lexer.next();
+
+            switch (lexer.type) {
+            case End:
+            case Separator:
+                if (operands.size() != 1) {
+                    throw new ParseException("Invalid RPN sequence", lexer.start);
+                }
+                if (found == count) {
+                    throw new ParseException("Unexpected '" + separator + "'", lexer.start);
+                }
+                exprs[found++] = operands.pop();
+                break;
+            case Variable:
+                operands.push(new Variable());
+                break;
+            case NamedVariable:
+                operands.push(new NamedVariable(lexer.name));
+                break;
+            case Number:
+                operands.push(new Constant(lexer.number));
+                break;
+            case Operator:
+                if (operands.size() < 2) {
+                    throw new ParseException("Missing operand", lexer.start);
+                }
+                final Expression right = operands.pop();
+                operands.push(new BinaryOperation(lexer.operator, operands.pop(), right));
+                break;
+            case Function:
+                if (operands.isEmpty()) {
+                    throw new ParseException("Missing operand", lexer.start);
+                }
+                operands.push(new FunctionCall(lexer.function, operands.pop()));
+                break;
+            }
+
+            if (lexer.type == TokenType.End) {
+                break;
+            }
+        }
+
+        if (found != count) {
+            throw new ParseException("Expected " + count + " expressions separated by '" + separator + "'",
+                    input.length());
+        }
+        return exprs;
+    }
+
+    private enum TokenType {
+        Number, Variable, NamedVariable, Function, Operator, Separator, End
+    }
+
+    // Cursor over the tokens of RPN input: next() moves to the following token, whose details
+    // are read from the fields. Tokens end at whitespace or at a separator, which is a token of
+    // its own. A number may carry a sign, "-2", and is otherwise read as in AOS input.
+    private static class Lexer {
+        private static final Function[] FUNCTIONS = Function.values();
+
+        final private CharSequence input;
+        // Letters, in lower case, read as the variable and as named variables
+        final private char variable;
+        final private String namedVariables;
+        final private String separators;
+        final private NumberLexer numbers = new NumberLexer();
+        private int pos;
+
+        private TokenType type;
+        private int start;
+        private double number;
+        private Function function;
+        private Operator operator;
+        private char name;
+
+        Lexer(CharSequence input, char variable, String namedVariables, String separators) {
+            this.input = input;
+            this.variable = variable;
+            this.namedVariables = namedVariables;
+            this.separators = separators;
+        }
+
+        void next() throws ParseException {
+            final int length = this.input.length();
+            while (this.pos < length && Character.isWhitespace(this.input.charAt(this.pos))) {
+                ++this.pos;
+            }
+
+            this.start = this.pos;
+            if (this.pos == length) {
+                this.type = TokenType.End;
+                return;
+            }
+            if (this.separators.indexOf(this.input.charAt(this.pos)) >= 0) {
+                ++this.pos;
+                this.type = TokenType.Separator;
+                return;
+            }
+
+            while (this.pos < length && !Character.isWhitespace(this.input.charAt(this.pos))
+                    && this.separators.indexOf(this.input.charAt(this.pos)) < 0) {
+                ++this.pos;
+            }
+
+            final int size = this.pos - this.start;
+            final char first = this.input.charAt(this.start);
+            final char letter = size == 1 ? Character.toLowerCase(first) : 0;
+            if (size == 1 && letter == this.variable) {
+                this.type = TokenType.Variable;
+            } else if (size == 1 && this.namedVariables.indexOf(letter) >= 0) {
+                this.name = letter;
+                this.type = TokenType.NamedVariable;
+            } else if (isNumber()) {
+                lexNumber();
+            } else if (size == 1 && Operator.fromSymbol(first) != null) {
+                this.operator = Operator.fromSymbol(first);
+                this.type = TokenType.Operator;
+            } else {
+                this.function = functionAt(this.start, this.pos);
+                if (this.function == null) {
+                    throw new ParseException("Illegal token found", this.start);
+                }
+                this.type = TokenType.Function;
+            }
+        }
+
+        // Optional sign, then a digit or a dot
+        private boolean isNumber() {
+            int i = this.start;
+            if ((this.input.charAt(i) == '-' || this.input.charAt(i) == '+') && this.pos - this.start > 1) {
+                ++i;
+            }
+            final char c = this.input.charAt(i);
+            return NumberLexer.isDigit(c) || c == '.';
+        }
+
+        private void lexNumber() throws ParseException {
+            final char sign = this.input.charAt(this.start);
+            final int digits = sign == '-' || sign == '+' ? this.start + 1 : this.start;
+            this.numbers.lex(this.input, digits);
+            // Anything left before the end of the token, a suffix say, is not part of a number
+            if (this.numbers.end() != this.pos) {
+                throw new ParseException("Malformed number", this.start);
+            }
+            this.number = sign == '-' ? -this.numbers.value() : this.numbers.value();
+            this.type = TokenType.Number;
+        }
+
+        private Function functionAt(int start, int end) {
+            for (final Function fn : FUNCTIONS) {
+                final String name = fn.symbol();
+                if (name.length() != end - start) {
+                    continue;
+                }
+
+                int i = 0;
+                while (i < name.length() && Character.toLowerCase(this.input.charAt(start + i)) == name.charAt(i)) {
+                    ++i;
+                }
+                if (i == name.length()) {
+                    return fn;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package MathPlot.Parsers;
+
+import MathPlot.Expressions.Function;
+import MathPlot.Expressions.Operator;
+
+// Single-pass lexer over an AOS expression. It works as a cursor: next() moves to the
+// following token and its details are read through the accessors, so no token objects
+// or substrings are created.
+//
+// The variable is x unless another letter is given, t for a parametric curve say; further
+// single letters can be named variables, y for an implicit curve. '=' and ',' are separators,
+// between the sides of an equation or the coordinates of a parametric curve.
+public class Tokenizer {
+    public enum TokenType {
+        Number, Variable, NamedVariable, Function, Operator, Separator, LeftParen, RightParen, End
+    }
+
+    private static final Function[] FUNCTIONS = Function.values();
+
+    private static final String SEPARATORS = "=,";
+
+    final private CharSequence input;
+    // Letters, in lower case, read as the variable and as named variables
+    final private char variable;
+    final private String namedVariables;
+    final private NumberLexer numbers = new NumberLexer();
+    private int pos;
+
+    private TokenType type;
+    private int start;
+    private double number;
+    private Function function;
+    private Operator operator;
+    private char name;
+
+    public Tokenizer(CharSequence input) {
+        this(input, 'x', "");
+    }
+
+    public Tokenizer(CharSequence input, char variable, String namedVariables) {
+        this.input = input;
+        this.variable = variable;
+        this.namedVariables = namedVariables;
+        this.pos = 0;
+    }
+
+    public TokenType type() {
+        return this.type;
+    }
+
+    // Offset of the first character of the current token
+    public int start() {
+        return this.start;
+    }
+
+    public double number() {
+        return this.number;
+    }
+
+    public Function function() {
+        return this.function;
+    }
+
+    public Operator operator() {
+        return this.operator;
+    }
+
+    // The letter of a named variable, or the separator character
+    public char name() {
+        return this.name;
+    }
+
+    public void next() throws ParseException {
+        while (this.pos < this.input.length() && Character.isWhitespace(this.input.charAt(this.pos))) {
+            ++this.pos;
+        }
+
+        this.start = this.pos;
+
+        if (this.pos == this.input.length()) {
+            this.type = TokenType.End;
+            return;
+        }
+
+        final char c = this.input.charAt(this.pos);
+
+        if (c == '(') {
+            ++this.pos;
+            this.type = TokenType.LeftParen;
+        } else if (c == ')') {
+            ++this.pos;
+            this.type = TokenType.RightParen;
+        } else if (NumberLexer.isDigit(c) || c == '.') {
+            lexNumber();
+        } else if (isLetter(c)) {
+            lexIdentifier();
+        } else if (SEPARATORS.indexOf(c) >= 0) {
+            ++this.pos;
+            this.name = c;
+            this.type = TokenType.Separator;
+        } else {
+            this.operator = Operator.fromSymbol(c);
+            if (this.operator == null) {
+                throw new ParseException("Unexpected character '" + c + "'", this.pos);
+            }
+            ++this.pos;
+            this.type = TokenType.Operator;
+        }
+    }
+
+    private void lexNumber() throws ParseException {
+        this.numbers.lex(this.input, this.pos);
+        this.pos = this.numbers.end();
+        this.number = this.numbers.value();
+        this.type = TokenType.Number;
+    }
+
+    private void lexIdentifier() throws ParseException {
+        while (this.pos < this.input.length() && isLetter(this.input.charAt(this.pos))) {
+            ++this.pos;
+        }
+
+        final int length = this.pos - this.start;
+
+        if (length == 1) {
+            final char letter = Character.toLowerCase(this.input.charAt(this.start));
+            if (letter == this.variable) {
+                this.type = TokenType.Variable;
+                return;
+            }
+            if (this.namedVariables.indexOf(letter) >= 0) {
+                this.name = letter;
+                this.type = TokenType.NamedVariable;
+                return;
+            }
+        }
+
+        for (final Function fn : FUNCTIONS) {
+            if (fn.symbol().length() == length && regionMatches(fn.symbol())) {
+                this.function = fn;
+                this.type = TokenType.Function;
+                return;
+            }
+        }
+
+        throw new ParseException("Unknown identifier", this.start);
+    }
+
+    private boolean regionMatches(String name) {
+        for (int i = 0; i < name.length(); ++i) {
+            if (Character.toLowerCase(this.input.charAt(this.start + i)) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -1,5 +1,6 @@
 package MathPlot;
 
+import MathPlot.Sampling.PointBuffer;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.paint.Color;
 
@@ -15,6 +16,9 @@ public interface PlotterInterface {
     // Draw a curve defined by a set of points accessible via Point.Iterator
     void addCurve(Point.Iterator ptIt, Color color, double lineWidth);
 
+    // Draw a curve through points already sampled, kept as they are for every frame
+    void addCurve(PointBuffer points, Color color, double lineWidth);
+
     // Return the JavaFX Canvas associated with this Plotter
     Canvas getCanvas();
 }
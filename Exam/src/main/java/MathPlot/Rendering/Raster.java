@@ -0,0 +1,243 @@
+package MathPlot.Rendering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Opaque ARGB pixel buffer. The drawing methods take world coordinates, mapped through the
+// window set with setWindow, and only write the pixels inside the clip region, so a raster can
+// be split into regions drawn by different threads.
+public class Raster {
+    public record Region(int x, int y, int width, int height) {
+    }
+
+    // Arcs are approximated by segments about this many pixels long
+    private static final double ARC_SEGMENT = 4;
+    private static final int MAX_ARC_SEGMENTS = 4096;
+
+    final private int width;
+    final private int height;
+    final private int[] pixels;
+    private double minX, maxY;
+    private double scaleX, scaleY;
+    // Clip region, upper bounds exclusive
+    private int clipX0, clipY0, clipX1, clipY1;
+
+    public Raster(int width, int height) {
+        this(width, height, new int[width * height]);
+    }
+
+    private Raster(int width, int height, int[] pixels) {
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+        this.clipX1 = width;
+        this.clipY1 = height;
+        this.scaleX = 1;
+        this.scaleY = 1;
+    }
+
+    public int width() {
+        return this.width;
+    }
+
+    public int height() {
+        return this.height;
+    }
+
+    // Row-major pixels, 'width' per row
+    public int[] pixels() {
+        return this.pixels;
+    }
+
+    // Maps the world rectangle to the whole raster, y pointing up
+    public void setWindow(double minX, double minY, double maxX, double maxY) {
+        this.minX = minX;
+        this.maxY = maxY;
+        this.scaleX = this.width / (maxX - minX);
+        this.scaleY = this.height / (maxY - minY);
+    }
+
+    // View of the same pixels and window, clipped to 'region'
+    public Raster clip(Region region) {
+        final Raster view = new Raster(this.width, this.height, this.pixels);
+        view.minX = this.minX;
+        view.maxY = this.maxY;
+        view.scaleX = this.scaleX;
+        view.scaleY = this.scaleY;
+        view.clipX0 = Math.max(this.clipX0, region.x());
+        view.clipY0 = Math.max(this.clipY0, region.y());
+        view.clipX1 = Math.min(this.clipX1, region.x() + region.width());
+        view.clipY1 = Math.min(this.clipY1, region.y() + region.height());
+        return view;
+    }
+
+    public void fill(int argb) {
+        for (int y = this.clipY0; y < this.clipY1; ++y) {
+            final int row = y * this.width;
+            Arrays.fill(this.pixels, row + this.clipX0, row + this.clipX1, argb);
+        }
+    }
+
+    // Copies 'src' moved by (dx, dy) pixels, pixel (x, y) taking the value of src's (x + dx, y + dy).
+    // Returns the regions left uncovered, which the caller has to redraw.
+    public List<Region> shiftFrom(Raster src, int dx, int dy) {
+        final int x0 = Math.max(0, -dx);
+        final int x1 = Math.min(this.width, this.width - dx);
+
+        for (int y = Math.max(0, -dy); y < Math.min(this.height, this.height - dy); ++y) {
+            System.arraycopy(src.pixels, (y + dy) * this.width + x0 + dx, this.pixels, y * this.width + x0, x1 - x0);
+        }
+
+        final List<Region> dirty = new ArrayList<>(2);
+        if (dx > 0) {
+            dirty.add(new Region(this.width - dx, 0, dx, this.height));
+        } else if (dx < 0) {
+            dirty.add(new Region(0, 0, -dx, this.height));
+        }
+        if (dy > 0) {
+            dirty.add(new Region(x0, this.height - dy, x1 - x0, dy));
+        } else if (dy < 0) {
+            dirty.add(new Region(x0, 0, x1 - x0, -dy));
+        }
+        return dirty;
+    }
+
+    public void drawLine(double x0, double y0, double x1, double y1, int argb, double lineWidth) {
+        drawPixelLine(toPixelX(x0), toPixelY(y0), toPixelX(x1), toPixelY(y1), argb, thickness(lineWidth));
+    }
+
+    public void drawEllipse(double cx, double cy, double rx, double ry, int argb, double lineWidth) {
+        final int thickness = thickness(lineWidth);
+        final double px = toPixelX(cx);
+        final double py = toPixelY(cy);
+        final double prx = Math.abs(rx * this.scaleX);
+        final double pry = Math.abs(ry * this.scaleY);
+
+        if (!(px + prx + thickness >= this.clipX0 && px - prx - thickness < this.clipX1
+                && py + pry + thickness >= this.clipY0 && py - pry - thickness < this.clipY1)) {
+            return;
+        }
+
+        final int segments = (int) Math.min(MAX_ARC_SEGMENTS,
+                Math.max(8, Math.ceil(2 * Math.PI * Math.max(prx, pry) / ARC_SEGMENT)));
+
+        // Steps around the unit circle by rotating (cos, sin) instead of calling them per segment
+        final double cosStep = Math.cos(2 * Math.PI / segments);
+        final double sinStep = Math.sin(2 * Math.PI / segments);
+        double cos = 1;
+        double sin = 0;
+        double lastX = px + prx;
+        double lastY = py;
+
+        for (int i = 1; i <= segments; ++i) {
+            final double nextCos = cos * cosStep - sin * sinStep;
+            sin = sin * cosStep + cos * sinStep;
+            cos = nextCos;
+
+            final double x = i == segments ? px + prx : px + prx * cos;
+            final double y = i == segments ? py : py - pry * sin;
+            drawPixelLine(lastX, lastY, x, y, argb, thickness);
+            lastX = x;
+            lastY = y;
+        }
+    }
+
+    private double toPixelX(double x) {
+        return (x - this.minX) * this.scaleX;
+    }
+
+    private double toPixelY(double y) {
+        return (this.maxY - y) * this.scaleY;
+    }
+
+    // World line widths are scaled like the canvas transform scales them, to at least a pixel
+    private int thickness(double lineWidth) {
+        return (int) Math.max(1, Math.round(lineWidth * 0.5 * (this.scaleX + this.scaleY)));
+    }
+
+    // Line stepped one pixel at a time along its major axis, with spans of 'thickness' pixels
+    // across it. The major axis range is clipped (Liang-Barsky slabs) to the clip region grown by the
+    // thickness, while the minor coordinate comes from the unclipped line, so the pixels drawn do
+    // not depend on the clip region and strips line up with the rest of the frame.
+    private void drawPixelLine(double x0, double y0, double x1, double y1, int argb, int thickness) {
+        final double dx = x1 - x0;
+        final double dy = y1 - y0;
+        if (!Double.isFinite(dx) || !Double.isFinite(dy)) {
+            return;
+        }
+
+        final double left = this.clipX0 - thickness;
+        final double right = this.clipX1 + thickness;
+        final double top = this.clipY0 - thickness;
+        final double bottom = this.clipY1 + thickness;
+        double t0 = 0;
+        double t1 = 1;
+
+        if (dx == 0) {
+            if (x0 < left || x0 > right) {
+                return;
+            }
+        } else {
+            final double ta = (left - x0) / dx;
+            final double tb = (right - x0) / dx;
+            t0 = Math.max(t0, Math.min(ta, tb));
+            t1 = Math.min(t1, Math.max(ta, tb));
+        }
+        if (dy == 0) {
+            if (y0 < top || y0 > bottom) {
+                return;
+            }
+        } else {
+            final double ta = (top - y0) / dy;
+            final double tb = (bottom - y0) / dy;
+            t0 = Math.max(t0, Math.min(ta, tb));
+            t1 = Math.min(t1, Math.max(ta, tb));
+        }
+        if (t0 > t1) {
+            return;
+        }
+
+        final int half = (thickness - 1) / 2;
+
+        if (Math.abs(dx) >= Math.abs(dy)) {
+            final int from = (int) Math.floor(x0 + t0 * dx);
+            final int to = (int) Math.floor(x0 + t1 * dx);
+            final double slope = dx == 0 ? 0 : dy / dx;
+
+            for (int x = Math.min(from, to); x <= Math.max(from, to); ++x) {
+                final int y = (int) Math.floor(y0 + (x + 0.5 - x0) * slope);
+                for (int yy = y - half; yy < y - half + thickness; ++yy) {
+                    plot(x, yy, argb);
+                }
+            }
+        } else {
+            final int from = (int) Math.floor(y0 + t0 * dy);
+            final int to = (int) Math.floor(y0 + t1 * dy);
+            final double slope = dx / dy;
+
+            for (int y = Math.min(from, to); y <= Math.max(from, to); ++y) {
+                final int x = (int) Math.floor(x0 + (y + 0.5 - y0) * slope);
+                span(x - half, x - half + thickness, y, argb);
+            }
+        }
+    }
+
+    private void span(int from, int to, int y, int argb) {
+        if (y < this.clipY0 || y >= this.clipY1) {
+            return;
+        }
+
+        final int start = Math.max(from, this.clipX0);
+        final int end = Math.min(to, this.clipX1);
+        if (start < end) {
+            Arrays.fill(this.pixels, y * this.width + start, y * this.width + end, argb);
+        }
+    }
+
+    private void plot(int x, int y, int argb) {
+        if (x >= this.clipX0 && x < this.clipX1 && y >= this.clipY0 && y < this.clipY1) {
+            this.pixels[y * this.width + x] = argb;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package MathPlot.Rendering;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import MathPlot.Point;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Affine;
+
+// Double-buffered raster rendering: a frame is rasterized into the back buffer on a worker
+// thread, swapped to the front, and the FX thread blits the front with a single drawImage.
+// When a frame draws the same content as the front, panned by whole pixels, the back buffer
+// starts as a shifted copy of the front and only the uncovered strips are redrawn.
+public class RasterRenderer {
+    // Regions are split into a band per processor, of at least this many rows, rasterized in
+    // parallel. Every band goes through all the items, so more bands only add clipping work.
+    private static final int MIN_BAND_ROWS = 64;
+
+    final private int background;
+    final private Object lock;
+    private Raster front, back;
+    private Point frontMin, frontMax;
+    private Object frontContent;
+    private long frontVersion;
+    private long fullRedraws;
+    private long partialRedraws;
+
+    // Guarded by 'lock'
+    private WritableImage image;
+    private long presentedVersion;
+
+    public RasterRenderer(Color background) {
+        this.background = argb(background);
+        this.lock = new Object();
+        this.presentedVersion = -1;
+    }
+
+    // Items are drawn opaque
+    public static int argb(Color color) {
+        return 0xFF000000 | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8 | (int) Math.round(color.getBlue() * 255);
+    }
+
+    // Rasterizes the world rectangle min..max into a width x height frame and makes it the front.
+    // 'content' identifies what 'items' draws: the front is only reused if it drew equal content.
+    // 'items' draws everything into the raster it is given, which may be clipped to a strip and
+    // is called from several threads at once. Called by one thread at a time.
+    public void rasterize(Point min, Point max, int width, int height, Object content, Consumer<Raster> items) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        if (this.back == null || this.back.width() != width || this.back.height() != height) {
+            this.back = new Raster(width, height);
+        }
+        this.back.setWindow(min.x(), min.y(), max.x(), max.y());
+
+        List<Raster.Region> dirty = dirtyRegions(min, max, width, height, content);
+        if (dirty == null) {
+            dirty = List.of(new Raster.Region(0, 0, width, height));
+            ++this.fullRedraws;
+        } else if (dirty.isEmpty()) {
+            return;
+        } else {
+            ++this.partialRedraws;
+        }
+
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final List<Raster.Region> bands = new ArrayList<>();
+        for (final Raster.Region region : dirty) {
+            final int rows = Math.max(MIN_BAND_ROWS, (region.height() + processors - 1) / processors);
+            for (int y = region.y(); y < region.y() + region.height(); y += rows) {
+                bands.add(new Raster.Region(region.x(), y, region.width(),
+                        Math.min(rows, region.y() + region.height() - y)));
+            }
+        }
+
+        final Raster target = this.back;
+        bands.parallelStream().forEach(band -> {
+            final Raster clipped = target.clip(band);
+            clipped.fill(this.background);
+            items.accept(clipped);
+        });
+
+        synchronized (this.lock) {
+            this.back = this.front;
+            this.front = target;
+            this.frontMin = min;
+            this.frontMax = max;
+            this.frontContent = content;
+            ++this.frontVersion;
+        }
+    }
+
+    // Draws the front onto the canvas, on the FX thread
+    public void present(GraphicsContext gc) {
+        final WritableImage frame;
+
+        synchronized (this.lock) {
+            if (this.front == null) {
+                return;
+            }
+
+            final int width = this.front.width();
+            final int height = this.front.height();
+
+            if (this.image == null || this.image.getWidth() != width || this.image.getHeight() != height) {
+                this.image = new WritableImage(width, height);
+                this.presentedVersion = -1;
+            }
+            if (this.presentedVersion != this.frontVersion) {
+                this.image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(),
+                        this.front.pixels(), 0, width);
+                this.presentedVersion = this.frontVersion;
+            }
+            frame = this.image;
+        }
+
+        gc.setTransform(new Affine());
+        gc.drawImage(frame, 0, 0);
+    }
+
+    public long fullRedraws() {
+        return this.fullRedraws;
+    }
+
+    public long partialRedraws() {
+        return this.partialRedraws;
+    }
+
+    // Shifts the front into the back buffer and returns the strips left to draw, or null if the
+    // frame has to be drawn in full
+    private List<Raster.Region> dirtyRegions(Point min, Point max, int width, int height, Object content) {
+        if (this.front == null || this.front.width() != width || this.front.height() != height
+                || !Objects.equals(this.frontContent, content)
+                || !sameSpan(max.x() - min.x(), this.frontMax.x() - this.frontMin.x())
+                || !sameSpan(max.y() - min.y(), this.frontMax.y() - this.frontMin.y())) {
+            return null;
+        }
+
+        final double dx = (min.x() - this.frontMin.x()) * width / (max.x() - min.x());
+        final double dy = (this.frontMax.y() - max.y()) * height / (max.y() - min.y());
+        final long ix = Math.round(dx);
+        final long iy = Math.round(dy);
+
+        if (Math.abs(dx - ix) > 1e-3 || Math.abs(dy - iy) > 1e-3 || Math.abs(ix) >= width
+                || Math.abs(iy) >= height) {
+            return null;
+        }
+        if (ix == 0 && iy == 0) {
+            return List.of();
+        }
+
+        return this.back.shiftFrom(this.front, (int) ix, (int) iy);
+    }
+
+    private static boolean sameSpan(double a, double b) {
+        return Math.abs(a - b) <= 1e-9 * Math.abs(b);
+    }
+}
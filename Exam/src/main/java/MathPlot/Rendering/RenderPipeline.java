@@ -0,0 +1,153 @@
+package MathPlot.Rendering;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+// Renders frames in two steps: sampling on a worker thread, then drawing on the UI thread.
+// Only one frame is sampled at a time; frames requested meanwhile replace each other, and a
+// frame being sampled is told to stop as soon as a newer one is requested, unless nothing has
+// been drawn for MAX_STALL_MILLIS: that keeps the view moving while the user keeps dragging.
+// A frame whose sampling throws is dropped and counted in the metrics, with the last failure.
+public class RenderPipeline {
+    public interface Frame {
+        // Samples the frame, returning the drawing step or null if 'cancelled' became true
+        Runnable sample(BooleanSupplier cancelled);
+    }
+
+    // 'lastFailure' is what the last frame that failed threw, null while none has
+    public record Metrics(double sampleMillis, double strokeMillis, long framesRendered, long framesDropped,
+            long framesFailed, Throwable lastFailure) {
+    }
+
+    // Frames run on virtual threads, so idle pipelines hold no platform thread
+    private static final ExecutorService WORKERS = Executors.newVirtualThreadPerTaskExecutor();
+    private static final long MAX_STALL_MILLIS = 100;
+
+    final private Executor uiExecutor;
+    final private AtomicLong generation;
+    final private AtomicLong framesRendered;
+    final private AtomicLong framesDropped;
+    final private AtomicLong framesFailed;
+    private volatile Throwable lastFailure;
+    private volatile long sampleNanos;
+    private volatile long strokeNanos;
+    private volatile long lastSampledAt;
+    private volatile boolean closed;
+
+    // Guarded by 'this'
+    private Frame pending;
+    private long pendingGeneration;
+    private boolean running;
+
+    // 'uiExecutor' runs the drawing steps, e.g. Platform::runLater
+    public RenderPipeline(Executor uiExecutor) {
+        this.uiExecutor = uiExecutor;
+        this.generation = new AtomicLong();
+        this.framesRendered = new AtomicLong();
+        this.framesDropped = new AtomicLong();
+        this.framesFailed = new AtomicLong();
+    }
+
+    public void submit(Frame frame) {
+        final long gen = this.generation.incrementAndGet();
+
+        synchronized (this) {
+            if (this.pending != null) {
+                this.framesDropped.incrementAndGet();
+            }
+            this.pending = frame;
+            this.pendingGeneration = gen;
+
+            if (this.running) {
+                return;
+            }
+            this.running = true;
+        }
+
+        WORKERS.execute(this::drain);
+    }
+
+    // Discards pending and future frames
+    public void close() {
+        this.closed = true;
+    }
+
+    public Metrics metrics() {
+        return new Metrics(this.sampleNanos / 1e6, this.strokeNanos / 1e6, this.framesRendered.get(),
+                this.framesDropped.get(), this.framesFailed.get(), this.lastFailure);
+    }
+
+    private void drain() {
+        try {
+            drainFrames();
+        } catch (Throwable e) {
+            // Thrown past the frame, an error it cannot recover from or one of the UI executor:
+            // counted and passed on, leaving the frames after it to a new worker
+            this.lastFailure = e;
+            this.framesFailed.incrementAndGet();
+
+            final boolean more;
+            synchronized (this) {
+                more = this.pending != null && !this.closed;
+                this.running = more;
+            }
+            if (more) {
+                WORKERS.execute(this::drain);
+            }
+            throw e;
+        }
+    }
+
+    private void drainFrames() {
+        while (true) {
+            final Frame frame;
+            final long gen;
+
+            synchronized (this) {
+                if (this.pending == null || this.closed) {
+                    this.pending = null;
+                    this.running = false;
+                    return;
+                }
+                frame = this.pending;
+                gen = this.pendingGeneration;
+                this.pending = null;
+            }
+
+            final long start = System.nanoTime();
+            Runnable stroke = null;
+            try {
+                stroke = frame.sample(() -> this.closed || (this.generation.get() != gen
+                        && System.nanoTime() - this.lastSampledAt < MAX_STALL_MILLIS * 1_000_000));
+            } catch (RuntimeException | StackOverflowError e) {
+                // A deep expression may overflow the stack; other errors leave through drain()
+                this.lastFailure = e;
+                this.framesFailed.incrementAndGet();
+                continue;
+            }
+
+            if (stroke == null) {
+                this.framesDropped.incrementAndGet();
+                continue;
+            }
+            this.lastSampledAt = System.nanoTime();
+            this.sampleNanos = this.lastSampledAt - start;
+
+            final Runnable draw = stroke;
+            this.uiExecutor.execute(() -> {
+                if (this.closed) {
+                    this.framesDropped.incrementAndGet();
+                    return;
+                }
+
+                final long strokeStart = System.nanoTime();
+                draw.run();
+                this.strokeNanos = System.nanoTime() - strokeStart;
+                this.framesRendered.incrementAndGet();
+            });
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package MathPlot.Sampling;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import MathPlot.Point;
+import MathPlot.Expressions.BatchFunction;
+import MathPlot.Expressions.Interval;
+import MathPlot.Expressions.IntervalFunction;
+
+// Samples y = f(x) densely only where the curve bends: a coarse grid is refined by recursive
+// bisection until each segment is straight within half a pixel, or is narrower than a quarter
+// of a pixel, or lies entirely above or below the viewport. Segments that stay steep at that
+// width are probed further, and if the jump does not shrink, as at the poles of tan(x) or 1/x,
+// the curve is broken there.
+// Non-finite values (log(x) for x <= 0) are never emitted, they break the curve as well.
+//
+// Given interval bounds of f, the guesses become guarantees: a segment is dropped only if its
+// bounds miss the viewport, a segment whose samples look straight is still halved while its
+// bounds leave room for a visible spike between them, and at the finest width the curve
+// breaks exactly where the bounds explode, that is around poles. A spike narrower than the
+// finest width is followed down by its bounds and drawn through its most extreme sample.
+public class AdaptiveSampler implements Point.Iterator {
+    // Initial segment width, in pixels
+    private static final int INITIAL_PIXELS = 16;
+    // Finest segment width, as a fraction of a pixel
+    private static final int MIN_FRACTION = 4;
+    // Bisections used to tell a steep continuous segment from a discontinuity
+    private static final int JUMP_BISECTIONS = 24;
+    // Room the bounds may leave beyond the samples, in pixels, before a spike is looked for
+    private static final double SPIKE_PIXELS = 2;
+    // Bisections used to find a spike narrower than the finest width
+    private static final int SPIKE_BISECTIONS = 24;
+
+    final private BatchFunction f;
+    // Null if no bounds are known
+    final private IntervalFunction bounds;
+    final private double yMin;
+    final private double yMax;
+    final private double yTolerance;
+    final private double minWidth;
+
+    private double[] xs;
+    private double[] ys;
+    private boolean[] breaks;
+    private int size;
+    private boolean pendingBreak;
+
+    private int index;
+
+    // Samples [from, to] for a viewport spanning viewMin..viewMax over width x height pixels
+    public AdaptiveSampler(BatchFunction f, double from, double to, Point viewMin, Point viewMax, double width,
+            double height) {
+        this(f, null, from, to, viewMin, viewMax, width, height);
+    }
+
+    // As above, 'bounds' enclosing f over ranges of x
+    public AdaptiveSampler(BatchFunction f, IntervalFunction bounds, double from, double to, Point viewMin,
+            Point viewMax, double width, double height) {
+        final double xResolution = (viewMax.x() - viewMin.x()) / width;
+
+        this.f = f;
+        this.bounds = bounds;
+        this.yMin = viewMin.y();
+        this.yMax = viewMax.y();
+        this.yTolerance = (viewMax.y() - viewMin.y()) / height / 2;
+        this.minWidth = xResolution / MIN_FRACTION;
+
+        this.xs = new double[256];
+        this.ys = new double[256];
+        this.breaks = new boolean[256];
+
+        final int segments = Math.max(1, (int) Math.ceil((to - from) / (INITIAL_PIXELS * xResolution)));
+        final double segmentWidth = (to - from) / segments;
+
+        // Grid nodes and segment midpoints, evaluated in one batch
+        final double[] grid = new double[2 * segments + 1];
+        final double[] values = new double[grid.length];
+        for (int i = 0; i < grid.length; ++i) {
+            grid[i] = from + i * segmentWidth / 2;
+        }
+        grid[grid.length - 1] = to;
+        f.evaluate(grid, values, grid.length);
+
+        emit(grid[0], values[0]);
+        for (int i = 0; i + 2 < grid.length; i += 2) {
+            refine(grid[i], values[i], grid[i + 1], values[i + 1], grid[i + 2], values[i + 2]);
+            emit(grid[i + 2], values[i + 2]);
+        }
+
+        reset();
+    }
+
+    // Number of points the curve is made of
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.index < this.size;
+    }
+
+    @Override
+    public boolean hasBreak() {
+        return this.index > 0 && this.breaks[this.index - 1];
+    }
+
+    @Override
+    public void reset() {
+        this.index = 0;
+    }
+
+    @Override
+    public Point nextPoint() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Point p = new Point(this.xs[this.index], this.ys[this.index]);
+        ++this.index;
+        return p;
+    }
+
+    // Emits the points strictly inside [a, b], m being its midpoint
+    private void refine(double a, double fa, double m, double fm, double b, double fb) {
+        if (b - a <= this.minWidth) {
+            if (!Double.isFinite(fa) || !Double.isFinite(fb)) {
+                return;
+            }
+            if (this.bounds == null) {
+                this.pendingBreak |= isJump(a, fa, b, fb);
+                return;
+            }
+
+            final Interval range = this.bounds.bounds(a, b);
+            if (!range.isBounded()) {
+                this.pendingBreak = true;
+            } else if (range.intersects(this.yMin, this.yMax) && mayHideSpike(range, fa, fm, fb)) {
+                followSpike(a, fa, b, fb, range);
+            }
+            return;
+        }
+
+        final double q1 = (a + m) / 2;
+        final double q3 = (m + b) / 2;
+        final double fq1 = this.f.applyAsDouble(q1);
+        final double fq3 = this.f.applyAsDouble(q3);
+
+        // The bounds are only needed where the samples alone would end the refinement
+        final boolean offscreen = isOffscreen(fa, fq1, fm, fq3, fb);
+        final boolean straight = isStraight(a, fa, b, fb, m, fm) && isStraight(a, fa, b, fb, q1, fq1)
+                && isStraight(a, fa, b, fb, q3, fq3);
+        if (offscreen || straight) {
+            final Interval range = this.bounds != null ? this.bounds.bounds(a, b) : null;
+            if (range == null ? offscreen : !range.intersects(this.yMin, this.yMax)) {
+                return;
+            }
+            if (straight && !mayHideSpike(range, fa, fq1, fm, fq3, fb)) {
+                return;
+            }
+        }
+
+        refine(a, fa, q1, fq1, m, fm);
+        emit(m, fm);
+        refine(m, fm, q3, fq3, b, fb);
+    }
+
+    // True if all the values are on the same side out of the viewport
+    private boolean isOffscreen(double... values) {
+        boolean above = true;
+        boolean below = true;
+        for (final double v : values) {
+            above &= v > this.yMax && v != Double.POSITIVE_INFINITY;
+            below &= v < this.yMin && v != Double.NEGATIVE_INFINITY;
+        }
+        return above || below;
+    }
+
+    // True if the bounds reach further into the viewport than the samples by more than
+    // SPIKE_PIXELS, or explode
+    private boolean mayHideSpike(Interval range, double... values) {
+        if (range == null) {
+            return false;
+        }
+        if (!range.isBounded()) {
+            return true;
+        }
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (final double v : values) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+
+        // yTolerance is half a pixel
+        final double room = 2 * SPIKE_PIXELS * this.yTolerance;
+        return Math.max(range.lo(), this.yMin) < min - room || Math.min(range.hi(), this.yMax) > max + room;
+    }
+
+    // Bisects towards the half whose bounds reach further past the samples, in the direction
+    // 'range' leaves the most room, and emits the most extreme value met if it stands out
+    private void followSpike(double a, double fa, double b, double fb, Interval range) {
+        final boolean up = Math.min(range.hi(), this.yMax) - Math.max(fa, fb)
+                >= Math.min(fa, fb) - Math.max(range.lo(), this.yMin);
+        final double sign = up ? 1 : -1;
+        final double room = 2 * SPIKE_PIXELS * this.yTolerance;
+        double best = sign * Math.max(sign * fa, sign * fb);
+        double bestX = Double.NaN;
+
+        for (int i = 0; i < SPIKE_BISECTIONS; ++i) {
+            final double m = (a + b) / 2;
+            if (m <= a || m >= b) {
+                break;
+            }
+
+            final double fm = this.f.applyAsDouble(m);
+            if (sign * fm > sign * best) {
+                best = fm;
+                bestX = m;
+            }
+
+            final Interval left = this.bounds.bounds(a, m);
+            final Interval right = this.bounds.bounds(m, b);
+            final double leftReach = up ? Math.min(left.hi(), this.yMax) : -Math.max(left.lo(), this.yMin);
+            final double rightReach = up ? Math.min(right.hi(), this.yMax) : -Math.max(right.lo(), this.yMin);
+            if (Math.max(leftReach, rightReach) <= sign * best + room) {
+                break;
+            }
+
+            if (leftReach >= rightReach) {
+                b = m;
+            } else {
+                a = m;
+            }
+        }
+
+        if (!Double.isNaN(bestX) && sign * (best - fa) > this.yTolerance && sign * (best - fb) > this.yTolerance) {
+            emit(bestX, best);
+        }
+    }
+
+    // True if (x, fx) lies on the chord from (a, fa) to (b, fb), within tolerance
+    private boolean isStraight(double a, double fa, double b, double fb, double x, double fx) {
+        final double chord = fa + (fb - fa) * (x - a) / (b - a);
+        return Math.abs(fx - chord) <= this.yTolerance;
+    }
+
+    // Follows the steepest half of [a, b]. For a continuous function the rise ends up halving
+    // with the width, across a jump it converges to the jump size, across a pole it grows.
+    private boolean isJump(double a, double fa, double b, double fb) {
+        int shrinking = 0;
+
+        for (int i = 0; i < JUMP_BISECTIONS && shrinking < 2; ++i) {
+            final double rise = Math.abs(fb - fa);
+            if (rise <= this.yTolerance) {
+                return false;
+            }
+
+            final double m = (a + b) / 2;
+            final double fm = this.f.applyAsDouble(m);
+            if (!Double.isFinite(fm)) {
+                return true;
+            }
+
+            if (Math.abs(fm - fa) > Math.abs(fb - fm)) {
+                b = m;
+                fb = fm;
+            } else {
+                a = m;
+                fa = fm;
+            }
+
+            shrinking = Math.abs(fb - fa) < 0.6 * rise ? shrinking + 1 : 0;
+        }
+
+        return shrinking < 2;
+    }
+
+    private void emit(double x, double y) {
+        if (!Double.isFinite(y)) {
+            this.pendingBreak = true;
+            return;
+        }
+
+        if (this.size == this.xs.length) {
+            this.xs = Arrays.copyOf(this.xs, this.size * 2);
+            this.ys = Arrays.copyOf(this.ys, this.size * 2);
+            this.breaks = Arrays.copyOf(this.breaks, this.size * 2);
+        }
+
+        this.xs[this.size] = x;
+        this.ys[this.size] = y;
+        this.breaks[this.size] = this.pendingBreak;
+        ++this.size;
+        this.pendingBreak = false;
+    }
+}
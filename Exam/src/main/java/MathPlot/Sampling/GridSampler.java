@@ -0,0 +1,117 @@
+package MathPlot.Sampling;
+
+import java.util.NoSuchElementException;
+
+import MathPlot.Point;
+
+// Grid lines across the viewport, laid out anew for every viewport so that panning or zooming
+// never leaves the edge of an earlier window in view. Lines are drawn where x or y is a
+// multiple of the spacing, which grows tenfold while they would be closer than
+// MIN_SPACING_PIXELS; axes() draws only the lines through the origin. Each line is two points,
+// broken from the previous one.
+public class GridSampler implements Point.Iterator, ViewportAware {
+    private static final double MIN_SPACING_PIXELS = 10;
+
+    final private double spacing;
+    final private boolean axes;
+
+    private double[] verticals;
+    private double[] horizontals;
+    private Point min, max;
+    private int index;
+
+    public GridSampler(double spacing) {
+        this(spacing, false);
+    }
+
+    private GridSampler(double spacing, boolean axes) {
+        if (!(spacing > 0) || Double.isInfinite(spacing)) {
+            throw new IllegalArgumentException("Invalid grid spacing");
+        }
+
+        this.spacing = spacing;
+        this.axes = axes;
+        this.verticals = new double[0];
+        this.horizontals = new double[0];
+    }
+
+    // The x and y axes, where they are in view
+    public static GridSampler axes() {
+        return new GridSampler(1, true);
+    }
+
+    @Override
+    public void setViewport(Point min, Point max, double width, double height) {
+        this.verticals = new double[0];
+        this.horizontals = new double[0];
+        reset();
+
+        if (!(min.x() < max.x()) || !(min.y() < max.y()) || width <= 0 || height <= 0
+                || !Double.isFinite(max.x() - min.x()) || !Double.isFinite(max.y() - min.y())) {
+            return;
+        }
+
+        this.min = min;
+        this.max = max;
+        if (this.axes) {
+            this.verticals = min.x() <= 0 && 0 <= max.x() ? new double[] { 0 } : new double[0];
+            this.horizontals = min.y() <= 0 && 0 <= max.y() ? new double[] { 0 } : new double[0];
+        } else {
+            this.verticals = lines(min.x(), max.x(), width);
+            this.horizontals = lines(min.y(), max.y(), height);
+        }
+    }
+
+    // Multiples of the spacing, coarsened to fit, between 'from' and 'to' spanning 'pixels'
+    private double[] lines(double from, double to, double pixels) {
+        double step = this.spacing;
+        while (step * pixels / (to - from) < MIN_SPACING_PIXELS) {
+            step *= 10;
+        }
+
+        // Counted in doubles: far from the origin the multiples are beyond the range of a long
+        final double first = Math.ceil(from / step);
+        final double count = Math.floor(to / step) - first + 1;
+        if (!(count > 0)) {
+            return new double[0];
+        }
+
+        final double[] lines = new double[(int) Math.min(count, pixels / MIN_SPACING_PIXELS + 1)];
+        for (int i = 0; i < lines.length; ++i) {
+            lines[i] = (first + i) * step;
+        }
+        return lines;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.index < 2 * (this.verticals.length + this.horizontals.length);
+    }
+
+    // The first point of every line breaks it from the previous one
+    @Override
+    public boolean hasBreak() {
+        return this.index > 0 && (this.index - 1) % 2 == 0;
+    }
+
+    @Override
+    public void reset() {
+        this.index = 0;
+    }
+
+    @Override
+    public Point nextPoint() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final int line = this.index / 2;
+        final boolean start = this.index % 2 == 0;
+        ++this.index;
+
+        if (line < this.verticals.length) {
+            return new Point(this.verticals[line], start ? this.min.y() : this.max.y());
+        }
+        return new Point(start ? this.min.x() : this.max.x(), this.horizontals[line - this.verticals.length]);
+    }
+}
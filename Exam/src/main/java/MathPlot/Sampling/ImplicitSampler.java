@@ -0,0 +1,364 @@
+package MathPlot.Sampling;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+import MathPlot.Point;
+import MathPlot.Expressions.BatchFunction;
+import MathPlot.Expressions.ImplicitFunction;
+
+// Traces the curve F(x, y) = 0 over the viewport by marching squares. F is evaluated on a
+// coarse grid of COARSE_PIXELS cells, and only the cells whose corners change sign are
+// refined, into SUBDIVISIONS x SUBDIVISIONS cells of a pixel or so, where the curve is
+// followed from edge to edge; the crossings are interpolated linearly along the edges.
+// Contours smaller than a coarse cell, or touching the zero level without crossing it, can
+// thus be missed.
+//
+// The grid is evaluated in horizontal tiles of TILE_ROWS coarse rows, in parallel. Within a
+// tile each row of F is evaluated once, in one batch, and serves the cells below and above it;
+// the fine rows of a strip are shared by all its refined cells in the same way. The segments
+// of all the tiles are then chained into contours, with a break before each.
+public class ImplicitSampler implements Point.Iterator, ViewportAware {
+    private static final int COARSE_PIXELS = 8;
+    private static final int SUBDIVISIONS = 8;
+    private static final int TILE_ROWS = 8;
+
+    // Edges of a cell: bottom, right, top, left
+    private static final int BOTTOM = 0;
+    private static final int RIGHT = 1;
+    private static final int TOP = 2;
+    private static final int LEFT = 3;
+
+    // Pairs of edges the curve crosses, by the corners below zero: bit 0 bottom left,
+    // bit 1 bottom right, bit 2 top right, bit 3 top left. Saddles 5 and 10 are decided by the
+    // centre of the cell, see march().
+    private static final int[][] CROSSED = {
+            {}, { LEFT, BOTTOM }, { BOTTOM, RIGHT }, { LEFT, RIGHT },
+            { RIGHT, TOP }, null, { BOTTOM, TOP }, { LEFT, TOP },
+            { TOP, LEFT }, { BOTTOM, TOP }, null, { RIGHT, TOP },
+            { LEFT, RIGHT }, { BOTTOM, RIGHT }, { LEFT, BOTTOM }, {}
+    };
+
+    // Segments between edge crossings, each crossing keyed by the fine grid edge it lies on
+    private static class Segments {
+        private long[] keys = new long[64];
+        private double[] coords = new double[128];
+        private int size;
+
+        void add(long a, double ax, double ay, long b, double bx, double by) {
+            if (2 * this.size == this.keys.length) {
+                this.keys = Arrays.copyOf(this.keys, 2 * this.keys.length);
+                this.coords = Arrays.copyOf(this.coords, 2 * this.coords.length);
+            }
+
+            this.keys[2 * this.size] = a;
+            this.keys[2 * this.size + 1] = b;
+            this.coords[4 * this.size] = ax;
+            this.coords[4 * this.size + 1] = ay;
+            this.coords[4 * this.size + 2] = bx;
+            this.coords[4 * this.size + 3] = by;
+            ++this.size;
+        }
+
+        void addAll(Segments other) {
+            for (int s = 0; s < other.size; ++s) {
+                add(other.keys[2 * s], other.coords[4 * s], other.coords[4 * s + 1], other.keys[2 * s + 1],
+                        other.coords[4 * s + 2], other.coords[4 * s + 3]);
+            }
+        }
+    }
+
+    final private ImplicitFunction f;
+
+    // Fine grid of the last viewport: node (i, j) is at (minX + i * dx, minY + j * dy)
+    private double minX, minY, dx, dy;
+    private int columns, rows;
+
+    private double[] xs;
+    private double[] ys;
+    private boolean[] breaks;
+    private int size;
+
+    private int index;
+
+    public ImplicitSampler(ImplicitFunction f) {
+        this.f = f;
+        this.xs = new double[0];
+        this.ys = new double[0];
+        this.breaks = new boolean[0];
+    }
+
+    // Number of points traced for the last viewport
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void setViewport(Point min, Point max, double width, double height) {
+        this.size = 0;
+        reset();
+
+        if (!(min.x() < max.x()) || !(min.y() < max.y()) || width <= 0 || height <= 0) {
+            return;
+        }
+
+        // Coarse cells
+        this.columns = Math.max(1, (int) Math.ceil(width / COARSE_PIXELS));
+        this.rows = Math.max(1, (int) Math.ceil(height / COARSE_PIXELS));
+        this.minX = min.x();
+        this.minY = min.y();
+        this.dx = (max.x() - min.x()) / (this.columns * SUBDIVISIONS);
+        this.dy = (max.y() - min.y()) / (this.rows * SUBDIVISIONS);
+
+        final List<Segments> tiles = IntStream.range(0, (this.rows + TILE_ROWS - 1) / TILE_ROWS).parallel()
+                .mapToObj(this::tile).toList();
+
+        final Segments all = new Segments();
+        for (final Segments tile : tiles) {
+            all.addAll(tile);
+        }
+        chain(all);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.index < this.size;
+    }
+
+    @Override
+    public boolean hasBreak() {
+        return this.index > 0 && this.breaks[this.index - 1];
+    }
+
+    @Override
+    public void reset() {
+        this.index = 0;
+    }
+
+    @Override
+    public Point nextPoint() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Point p = new Point(this.xs[this.index], this.ys[this.index]);
+        ++this.index;
+        return p;
+    }
+
+    // Segments of the coarse rows [TILE_ROWS * tile, TILE_ROWS * (tile + 1)) of cells
+    private Segments tile(int tile) {
+        final Segments segments = new Segments();
+        final int first = tile * TILE_ROWS;
+        final int last = Math.min(this.rows, first + TILE_ROWS);
+
+        final double[] coarseXs = new double[this.columns + 1];
+        for (int i = 0; i <= this.columns; ++i) {
+            coarseXs[i] = x(i * SUBDIVISIONS);
+        }
+
+        final int[] refined = new int[this.columns];
+        double[] below = row(first * SUBDIVISIONS, coarseXs, coarseXs.length);
+        for (int j = first; j < last; ++j) {
+            final double[] above = row((j + 1) * SUBDIVISIONS, coarseXs, coarseXs.length);
+
+            int count = 0;
+            for (int i = 0; i < this.columns; ++i) {
+                if (changesSign(below[i], below[i + 1], above[i], above[i + 1])) {
+                    refined[count++] = i;
+                }
+            }
+            if (count > 0) {
+                strip(j, refined, count, segments);
+            }
+
+            below = above;
+        }
+
+        return segments;
+    }
+
+    // Marches through the fine cells of the 'count' cells of coarse row j listed in 'refined'
+    private void strip(int j, int[] refined, int count, Segments segments) {
+        // Fine columns of the refined cells, those on the border of two adjacent cells once;
+        // the fine columns of refined[c] start at starts[c]
+        final double[] fineXs = new double[count * (SUBDIVISIONS + 1)];
+        final int[] starts = new int[count];
+        int n = 0;
+        for (int c = 0; c < count; ++c) {
+            final int i = refined[c];
+            if (c == 0 || refined[c - 1] != i - 1) {
+                fineXs[n++] = x(i * SUBDIVISIONS);
+            }
+            starts[c] = n - 1;
+            for (int k = 1; k <= SUBDIVISIONS; ++k) {
+                fineXs[n++] = x(i * SUBDIVISIONS + k);
+            }
+        }
+
+        final int firstRow = j * SUBDIVISIONS;
+        double[] below = row(firstRow, fineXs, n);
+        for (int k = 0; k < SUBDIVISIONS; ++k) {
+            final double[] above = row(firstRow + k + 1, fineXs, n);
+
+            for (int c = 0; c < count; ++c) {
+                final int s = starts[c];
+                for (int m = 0; m < SUBDIVISIONS; ++m) {
+                    march(refined[c] * SUBDIVISIONS + m, firstRow + k, below[s + m], below[s + m + 1],
+                            above[s + m + 1], above[s + m], segments);
+                }
+            }
+
+            below = above;
+        }
+    }
+
+    // Adds the segments of the fine cell with bottom left node (i, j), given the values at its
+    // corners counterclockwise from there
+    private void march(int i, int j, double v00, double v10, double v11, double v01, Segments segments) {
+        if (Double.isNaN(v00) || Double.isNaN(v10) || Double.isNaN(v11) || Double.isNaN(v01)) {
+            return;
+        }
+
+        final int corners = (v00 < 0 ? 1 : 0) | (v10 < 0 ? 2 : 0) | (v11 < 0 ? 4 : 0) | (v01 < 0 ? 8 : 0);
+        int[] crossed = CROSSED[corners];
+        if (crossed == null) {
+            // The corners below zero are opposite: the centre tells whether they are joined
+            final boolean joined = v00 + v10 + v11 + v01 < 0;
+            crossed = joined == (corners == 5) ? new int[] { BOTTOM, RIGHT, TOP, LEFT }
+                    : new int[] { LEFT, BOTTOM, RIGHT, TOP };
+        }
+
+        for (int e = 0; e < crossed.length; e += 2) {
+            final int a = crossed[e];
+            final int b = crossed[e + 1];
+            segments.add(key(i, j, a), crossingX(i, a, v00, v10, v11, v01), crossingY(j, a, v00, v10, v11, v01),
+                    key(i, j, b), crossingX(i, b, v00, v10, v11, v01), crossingY(j, b, v00, v10, v11, v01));
+        }
+    }
+
+    // The fine grid edge of the cell at (i, j): horizontal edges from node n have key 2n,
+    // vertical ones 2n + 1
+    private long key(int i, int j, int edge) {
+        final long nodes = (long) this.columns * SUBDIVISIONS + 1;
+        return switch (edge) {
+            case BOTTOM -> 2 * (j * nodes + i);
+            case RIGHT -> 2 * (j * nodes + i + 1) + 1;
+            case TOP -> 2 * ((j + 1) * nodes + i);
+            default -> 2 * (j * nodes + i) + 1;
+        };
+    }
+
+    private double crossingX(int i, int edge, double v00, double v10, double v11, double v01) {
+        return switch (edge) {
+            case BOTTOM -> x(i) + this.dx * fraction(v00, v10);
+            case TOP -> x(i) + this.dx * fraction(v01, v11);
+            case RIGHT -> x(i + 1);
+            default -> x(i);
+        };
+    }
+
+    private double crossingY(int j, int edge, double v00, double v10, double v11, double v01) {
+        return switch (edge) {
+            case LEFT -> y(j) + this.dy * fraction(v00, v01);
+            case RIGHT -> y(j) + this.dy * fraction(v10, v11);
+            case TOP -> y(j + 1);
+            default -> y(j);
+        };
+    }
+
+    // Where the line through the values at the ends of an edge crosses zero, as a fraction of
+    // the edge; the middle if an end is infinite
+    private static double fraction(double a, double b) {
+        final double t = a / (a - b);
+        return Double.isFinite(t) ? Math.clamp(t, 0, 1) : 0.5;
+    }
+
+    // Values of F on fine row j at the first n of xs
+    private double[] row(int j, double[] xs, int n) {
+        final double[] values = new double[n];
+        final BatchFunction row = this.f.row(y(j));
+        row.evaluate(xs, values, n);
+        return values;
+    }
+
+    private double x(int i) {
+        return this.minX + i * this.dx;
+    }
+
+    private double y(int j) {
+        return this.minY + j * this.dy;
+    }
+
+    // True if some corners are below zero and some are not, none being NaN
+    private static boolean changesSign(double a, double b, double c, double d) {
+        if (Double.isNaN(a) || Double.isNaN(b) || Double.isNaN(c) || Double.isNaN(d)) {
+            return false;
+        }
+
+        final int below = (a < 0 ? 1 : 0) + (b < 0 ? 1 : 0) + (c < 0 ? 1 : 0) + (d < 0 ? 1 : 0);
+        return below > 0 && below < 4;
+    }
+
+    // Joins the segments sharing a crossing into polylines: first those with loose ends,
+    // started from one, then the closed ones
+    private void chain(Segments segments) {
+        // End e of segment e / 2, and the end of another segment at the same crossing
+        final int ends = 2 * segments.size;
+        final int[] joined = new int[ends];
+        Arrays.fill(joined, -1);
+        final Map<Long, Integer> seen = new HashMap<>();
+        for (int e = 0; e < ends; ++e) {
+            final Integer other = seen.putIfAbsent(segments.keys[e], e);
+            if (other != null && joined[other] < 0) {
+                joined[other] = e;
+                joined[e] = other;
+            }
+        }
+
+        this.xs = new double[segments.size + ends / 2 + 1];
+        this.ys = new double[this.xs.length];
+        this.breaks = new boolean[this.xs.length];
+
+        final boolean[] traced = new boolean[segments.size];
+        for (int e = 0; e < ends; ++e) {
+            if (joined[e] < 0 && !traced[e / 2]) {
+                trace(segments, joined, traced, e);
+            }
+        }
+        for (int e = 0; e < ends; e += 2) {
+            if (!traced[e / 2]) {
+                trace(segments, joined, traced, e);
+            }
+        }
+    }
+
+    // Emits the polyline starting at end e, after a break
+    private void trace(Segments segments, int[] joined, boolean[] traced, int e) {
+        emit(segments, e, true);
+
+        while (e >= 0 && !traced[e / 2]) {
+            traced[e / 2] = true;
+            final int other = e ^ 1;
+            emit(segments, other, false);
+            e = joined[other];
+        }
+    }
+
+    private void emit(Segments segments, int end, boolean newContour) {
+        if (this.size == this.xs.length) {
+            this.xs = Arrays.copyOf(this.xs, this.size * 2);
+            this.ys = Arrays.copyOf(this.ys, this.size * 2);
+            this.breaks = Arrays.copyOf(this.breaks, this.size * 2);
+        }
+
+        this.xs[this.size] = segments.coords[2 * end];
+        this.ys[this.size] = segments.coords[2 * end + 1];
+        this.breaks[this.size] = newContour && this.size > 0;
+        ++this.size;
+    }
+}
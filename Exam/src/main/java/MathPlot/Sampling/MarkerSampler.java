@@ -0,0 +1,90 @@
+package MathPlot.Sampling;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import MathPlot.Point;
+
+// Circles around points located anew for every viewport, such as the roots or the extrema of
+// a function, so that panning or zooming marks the ones that come into view. The locator is
+// handed the visible part of [from, to] and a number of cells, a few per pixel; each circle is
+// drawn as a polygon RADIUS_PIXELS in radius whatever the zoom, broken from the previous one.
+public class MarkerSampler implements Point.Iterator, ViewportAware {
+    private static final int MIN_CELLS = 1024;
+    private static final int CELLS_PER_PIXEL = 4;
+    private static final double RADIUS_PIXELS = 5;
+    private static final int SEGMENTS = 24;
+
+    // Finds the points to mark in [from, to], searching 'cells' equal cells
+    public interface Locator {
+        List<Point> locate(double from, double to, int cells);
+    }
+
+    final private Locator locator;
+    final private double from;
+    final private double to;
+
+    private List<Point> centers;
+    private double radiusX, radiusY;
+    private int index;
+
+    public MarkerSampler(Locator locator, double from, double to) {
+        this.locator = locator;
+        this.from = from;
+        this.to = to;
+        this.centers = List.of();
+    }
+
+    // Number of points marked for the last viewport
+    public int markers() {
+        return this.centers.size();
+    }
+
+    @Override
+    public void setViewport(Point min, Point max, double width, double height) {
+        this.centers = List.of();
+        reset();
+
+        final double left = Math.max(min.x(), this.from);
+        final double right = Math.min(max.x(), this.to);
+        if (!(left < right) || !(min.y() < max.y()) || width <= 0 || height <= 0) {
+            return;
+        }
+
+        this.radiusX = RADIUS_PIXELS * (max.x() - min.x()) / width;
+        this.radiusY = RADIUS_PIXELS * (max.y() - min.y()) / height;
+
+        final int cells = Math.max(MIN_CELLS, CELLS_PER_PIXEL * (int) width);
+        this.centers = this.locator.locate(left, right, cells).stream()
+                .filter(c -> min.y() - this.radiusY <= c.y() && c.y() <= max.y() + this.radiusY)
+                .toList();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.index < this.centers.size() * (SEGMENTS + 1);
+    }
+
+    // The first point of every circle breaks it from the previous one
+    @Override
+    public boolean hasBreak() {
+        return this.index > 0 && (this.index - 1) % (SEGMENTS + 1) == 0;
+    }
+
+    @Override
+    public void reset() {
+        this.index = 0;
+    }
+
+    @Override
+    public Point nextPoint() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Point c = this.centers.get(this.index / (SEGMENTS + 1));
+        final double angle = 2 * Math.PI * (this.index % (SEGMENTS + 1)) / SEGMENTS;
+        ++this.index;
+        return new Point(c.x() + this.radiusX * Math.cos(angle), c.y() + this.radiusY * Math.sin(angle));
+    }
+}
@@ -0,0 +1,196 @@
+package MathPlot.Sampling;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import MathPlot.Point;
+import MathPlot.Expressions.BatchFunction;
+
+// Samples the parametric curve (x(t), y(t)) for t in [from, to]. Both coordinates are
+// evaluated once, in one batch each, on a coarse uniform grid of t; each viewport then bisects
+// the grid intervals as PolarSampler does, until every segment is at most MAX_ARC_PIXELS of
+// arc and straight within half a pixel. Intervals off the viewport are not refined. The curve
+// breaks where a coordinate is not finite, and across jumps that are still wide after
+// MAX_DEPTH bisections.
+public class ParametricSampler implements Point.Iterator, ViewportAware {
+    private static final int INTERVALS = 256;
+    private static final double MAX_ARC_PIXELS = 8;
+    private static final int MAX_DEPTH = 24;
+
+    final private BatchFunction x;
+    final private BatchFunction y;
+    final private double[] ts;
+    final private double[] gridXs;
+    final private double[] gridYs;
+
+    // Viewport, in plot units and pixels per unit
+    private double minX, minY, maxX, maxY;
+    private double scaleX, scaleY;
+
+    private double[] xs;
+    private double[] ys;
+    private boolean[] breaks;
+    private int size;
+    private boolean pendingBreak;
+
+    private int index;
+
+    public ParametricSampler(BatchFunction x, BatchFunction y, double from, double to) {
+        if (!(from < to)) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+
+        this.x = x;
+        this.y = y;
+        this.ts = new double[INTERVALS + 1];
+        for (int i = 0; i < INTERVALS; ++i) {
+            this.ts[i] = from + (to - from) * i / INTERVALS;
+        }
+        this.ts[INTERVALS] = to;
+        this.gridXs = new double[this.ts.length];
+        this.gridYs = new double[this.ts.length];
+        x.evaluate(this.ts, this.gridXs, this.ts.length);
+        y.evaluate(this.ts, this.gridYs, this.ts.length);
+
+        this.xs = new double[256];
+        this.ys = new double[256];
+        this.breaks = new boolean[256];
+    }
+
+    // Number of points sampled for the last viewport
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void setViewport(Point min, Point max, double width, double height) {
+        this.size = 0;
+        this.pendingBreak = false;
+        reset();
+
+        if (!(min.x() < max.x()) || !(min.y() < max.y()) || width <= 0 || height <= 0) {
+            return;
+        }
+
+        this.minX = min.x();
+        this.minY = min.y();
+        this.maxX = max.x();
+        this.maxY = max.y();
+        this.scaleX = width / (max.x() - min.x());
+        this.scaleY = height / (max.y() - min.y());
+
+        emit(this.gridXs[0], this.gridYs[0]);
+        for (int i = 1; i < this.ts.length; ++i) {
+            refine(this.ts[i - 1], this.gridXs[i - 1], this.gridYs[i - 1], this.ts[i], this.gridXs[i],
+                    this.gridYs[i], 0);
+            emit(this.gridXs[i], this.gridYs[i]);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.index < this.size;
+    }
+
+    @Override
+    public boolean hasBreak() {
+        return this.index > 0 && this.breaks[this.index - 1];
+    }
+
+    @Override
+    public void reset() {
+        this.index = 0;
+    }
+
+    @Override
+    public Point nextPoint() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Point p = new Point(this.xs[this.index], this.ys[this.index]);
+        ++this.index;
+        return p;
+    }
+
+    // Emits the points strictly between parameters a and b
+    private void refine(double a, double xa, double ya, double b, double xb, double yb, int depth) {
+        final boolean finite = isFinite(xa, ya) && isFinite(xb, yb);
+
+        if (depth == MAX_DEPTH) {
+            if (finite && pixels(xb - xa, yb - ya) > MAX_ARC_PIXELS) {
+                this.pendingBreak = true;
+            }
+            return;
+        }
+
+        final double m = (a + b) / 2;
+        final double xm = this.x.applyAsDouble(m);
+        final double ym = this.y.applyAsDouble(m);
+
+        if (finite && isFinite(xm, ym)) {
+            if (isOffscreen(xa, ya, xm, ym, xb, yb)) {
+                return;
+            }
+
+            final double arc = pixels(xm - xa, ym - ya) + pixels(xb - xm, yb - ym);
+            if (arc <= MAX_ARC_PIXELS && deviation(xa, ya, xb, yb, xm, ym) <= 0.5) {
+                return;
+            }
+        } else if (!isFinite(xa, ya) && !isFinite(xm, ym) && !isFinite(xb, yb)) {
+            // Undefined throughout as far as can be told
+            return;
+        }
+
+        refine(a, xa, ya, m, xm, ym, depth + 1);
+        emit(xm, ym);
+        refine(m, xm, ym, b, xb, yb, depth + 1);
+    }
+
+    private static boolean isFinite(double x, double y) {
+        return Double.isFinite(x) && Double.isFinite(y);
+    }
+
+    // Length in pixels of the plot-unit vector (dx, dy)
+    private double pixels(double dx, double dy) {
+        return Math.hypot(dx * this.scaleX, dy * this.scaleY);
+    }
+
+    // Distance in pixels of (x, y) from the chord from (xa, ya) to (xb, yb)
+    private double deviation(double xa, double ya, double xb, double yb, double x, double y) {
+        final double cx = (xb - xa) * this.scaleX;
+        final double cy = (yb - ya) * this.scaleY;
+        final double px = (x - xa) * this.scaleX;
+        final double py = (y - ya) * this.scaleY;
+        final double length = Math.hypot(cx, cy);
+
+        return length == 0 ? Math.hypot(px, py) : Math.abs(cx * py - cy * px) / length;
+    }
+
+    // True if the points are all beyond the same edge of the viewport
+    private boolean isOffscreen(double xa, double ya, double xm, double ym, double xb, double yb) {
+        return (xa < this.minX && xm < this.minX && xb < this.minX)
+                || (xa > this.maxX && xm > this.maxX && xb > this.maxX)
+                || (ya < this.minY && ym < this.minY && yb < this.minY)
+                || (ya > this.maxY && ym > this.maxY && yb > this.maxY);
+    }
+
+    private void emit(double x, double y) {
+        if (!isFinite(x, y)) {
+            this.pendingBreak = true;
+            return;
+        }
+
+        if (this.size == this.xs.length) {
+            this.xs = Arrays.copyOf(this.xs, this.size * 2);
+            this.ys = Arrays.copyOf(this.ys, this.size * 2);
+            this.breaks = Arrays.copyOf(this.breaks, this.size * 2);
+        }
+
+        this.xs[this.size] = x;
+        this.ys[this.size] = y;
+        this.breaks[this.size] = this.pendingBreak;
+        ++this.size;
+        this.pendingBreak = false;
+    }
+}
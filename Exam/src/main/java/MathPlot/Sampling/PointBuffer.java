@@ -0,0 +1,92 @@
+package MathPlot.Sampling;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import MathPlot.Point;
+
+// Immutable points of a curve, stored as a struct of arrays: the coordinates in two primitive
+// arrays and the breaks in a bit set, 16 bytes and a bit per point. Safe to hand over to
+// another thread, and drawn by iterating the arrays, see xs() and ys().
+public class PointBuffer {
+    final private double[] xs;
+    final private double[] ys;
+    // Bit i is set if the segment ending at point i must not be drawn
+    final private BitSet breaks;
+    final private int size;
+
+    private PointBuffer(double[] xs, double[] ys, BitSet breaks, int size) {
+        this.xs = xs;
+        this.ys = ys;
+        this.breaks = breaks;
+        this.size = size;
+    }
+
+    // Takes over the first 'size' entries of the arrays, which must not be modified afterwards;
+    // bit i of 'breaks' breaks the curve before point i
+    public static PointBuffer of(double[] xs, double[] ys, BitSet breaks, int size) {
+        if (size < 0 || size > xs.length || size > ys.length) {
+            throw new IllegalArgumentException("Invalid size");
+        }
+
+        return new PointBuffer(xs, ys, breaks, size);
+    }
+
+    // Drains the iterator from its start
+    public static PointBuffer of(Point.Iterator it) {
+        double[] xs = new double[256];
+        double[] ys = new double[256];
+        final BitSet breaks = new BitSet();
+        int size = 0;
+
+        it.reset();
+        while (it.hasNext()) {
+            if (size == xs.length) {
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+            }
+
+            final Point p = it.nextPoint();
+            xs[size] = p.x();
+            ys[size] = p.y();
+            if (it.hasBreak()) {
+                breaks.set(size);
+            }
+            ++size;
+        }
+
+        return new PointBuffer(Arrays.copyOf(xs, size), Arrays.copyOf(ys, size), breaks, size);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public double x(int i) {
+        return this.xs[i];
+    }
+
+    public double y(int i) {
+        return this.ys[i];
+    }
+
+    public boolean isBreak(int i) {
+        return this.breaks.get(i);
+    }
+
+    // Index of the first break at or after 'from', size() if there is none. The points from a
+    // break up to the next one form a run drawn as one polyline.
+    public int nextBreak(int from) {
+        final int next = this.breaks.nextSetBit(from);
+        return next < 0 || next > this.size ? this.size : next;
+    }
+
+    // The arrays themselves, not to be modified; only the first size() entries are points
+    public double[] xs() {
+        return this.xs;
+    }
+
+    public double[] ys() {
+        return this.ys;
+    }
+}
@@ -0,0 +1,197 @@
+package MathPlot.Sampling;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import MathPlot.Point;
+import MathPlot.Expressions.BatchFunction;
+
+// Samples the polar curve (r(θ) cos θ, r(θ) sin θ) for θ in [from, to]. r is evaluated once,
+// in one batch, on a coarse shared ThetaGrid; each viewport then bisects the grid intervals
+// until every segment is at most MAX_ARC_PIXELS of arc and straight within half a pixel.
+// Steps thus follow the arc length on screen: the curve is sampled densely at large radii
+// and barely refined near the origin, where uniform θ steps would bunch up. Intervals off
+// the viewport are not refined. The curve breaks where r is not finite, and across jumps
+// that are still wide after MAX_DEPTH bisections, as at the poles of r = 1/cos θ.
+public class PolarSampler implements Point.Iterator, ViewportAware {
+    // Grid intervals per full turn
+    private static final int INTERVALS_PER_TURN = 128;
+    private static final double MAX_ARC_PIXELS = 8;
+    private static final int MAX_DEPTH = 24;
+
+    final private BatchFunction r;
+    final private ThetaGrid grid;
+    final private double[] radii;
+
+    // Viewport, in plot units and pixels per unit
+    private double minX, minY, maxX, maxY;
+    private double scaleX, scaleY;
+
+    private double[] xs;
+    private double[] ys;
+    private boolean[] breaks;
+    private int size;
+    private boolean pendingBreak;
+
+    private int index;
+
+    public PolarSampler(BatchFunction r, double from, double to) {
+        if (!(from < to)) {
+            throw new IllegalArgumentException("Invalid range");
+        }
+
+        final int intervals = (int) Math.min(1 << 20, Math.ceil(INTERVALS_PER_TURN * (to - from) / (2 * Math.PI)));
+
+        this.r = r;
+        this.grid = ThetaGrid.of(from, to, Math.max(1, intervals));
+        this.radii = new double[this.grid.size()];
+        r.evaluate(this.grid.thetas(), this.radii, this.radii.length);
+
+        this.xs = new double[256];
+        this.ys = new double[256];
+        this.breaks = new boolean[256];
+    }
+
+    // Number of points sampled for the last viewport
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void setViewport(Point min, Point max, double width, double height) {
+        this.size = 0;
+        this.pendingBreak = false;
+        reset();
+
+        if (!(min.x() < max.x()) || !(min.y() < max.y()) || width <= 0 || height <= 0) {
+            return;
+        }
+
+        this.minX = min.x();
+        this.minY = min.y();
+        this.maxX = max.x();
+        this.maxY = max.y();
+        this.scaleX = width / (max.x() - min.x());
+        this.scaleY = height / (max.y() - min.y());
+
+        double x0 = this.radii[0] * this.grid.cos(0);
+        double y0 = this.radii[0] * this.grid.sin(0);
+        emit(this.radii[0], x0, y0);
+
+        for (int i = 1; i < this.radii.length; ++i) {
+            final double x1 = this.radii[i] * this.grid.cos(i);
+            final double y1 = this.radii[i] * this.grid.sin(i);
+
+            refine(this.grid.theta(i - 1), this.radii[i - 1], x0, y0, this.grid.theta(i), this.radii[i], x1, y1, 0);
+            emit(this.radii[i], x1, y1);
+
+            x0 = x1;
+            y0 = y1;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.index < this.size;
+    }
+
+    @Override
+    public boolean hasBreak() {
+        return this.index > 0 && this.breaks[this.index - 1];
+    }
+
+    @Override
+    public void reset() {
+        this.index = 0;
+    }
+
+    @Override
+    public Point nextPoint() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Point p = new Point(this.xs[this.index], this.ys[this.index]);
+        ++this.index;
+        return p;
+    }
+
+    // Emits the points strictly between angles a and b
+    private void refine(double a, double ra, double xa, double ya, double b, double rb, double xb, double yb,
+            int depth) {
+        final boolean finite = Double.isFinite(ra) && Double.isFinite(rb);
+
+        if (depth == MAX_DEPTH) {
+            if (finite && pixels(xb - xa, yb - ya) > MAX_ARC_PIXELS) {
+                this.pendingBreak = true;
+            }
+            return;
+        }
+
+        final double m = (a + b) / 2;
+        final double rm = this.r.applyAsDouble(m);
+        final double xm = rm * Math.cos(m);
+        final double ym = rm * Math.sin(m);
+
+        if (finite && Double.isFinite(rm)) {
+            if (isOffscreen(xa, ya, xm, ym, xb, yb)) {
+                return;
+            }
+
+            final double arc = pixels(xm - xa, ym - ya) + pixels(xb - xm, yb - ym);
+            if (arc <= MAX_ARC_PIXELS && deviation(xa, ya, xb, yb, xm, ym) <= 0.5) {
+                return;
+            }
+        } else if (!Double.isFinite(ra) && !Double.isFinite(rm) && !Double.isFinite(rb)) {
+            // Undefined throughout as far as can be told
+            return;
+        }
+
+        refine(a, ra, xa, ya, m, rm, xm, ym, depth + 1);
+        emit(rm, xm, ym);
+        refine(m, rm, xm, ym, b, rb, xb, yb, depth + 1);
+    }
+
+    // Length in pixels of the plot-unit vector (dx, dy)
+    private double pixels(double dx, double dy) {
+        return Math.hypot(dx * this.scaleX, dy * this.scaleY);
+    }
+
+    // Distance in pixels of (x, y) from the chord from (xa, ya) to (xb, yb)
+    private double deviation(double xa, double ya, double xb, double yb, double x, double y) {
+        final double cx = (xb - xa) * this.scaleX;
+        final double cy = (yb - ya) * this.scaleY;
+        final double px = (x - xa) * this.scaleX;
+        final double py = (y - ya) * this.scaleY;
+        final double length = Math.hypot(cx, cy);
+
+        return length == 0 ? Math.hypot(px, py) : Math.abs(cx * py - cy * px) / length;
+    }
+
+    // True if the points are all beyond the same edge of the viewport
+    private boolean isOffscreen(double xa, double ya, double xm, double ym, double xb, double yb) {
+        return (xa < this.minX && xm < this.minX && xb < this.minX)
+                || (xa > this.maxX && xm > this.maxX && xb > this.maxX)
+                || (ya < this.minY && ym < this.minY && yb < this.minY)
+                || (ya > this.maxY && ym > this.maxY && yb > this.maxY);
+    }
+
+    private void emit(double radius, double x, double y) {
+        if (!Double.isFinite(radius)) {
+            this.pendingBreak = true;
+            return;
+        }
+
+        if (this.size == this.xs.length) {
+            this.xs = Arrays.copyOf(this.xs, this.size * 2);
+            this.ys = Arrays.copyOf(this.ys, this.size * 2);
+            this.breaks = Arrays.copyOf(this.breaks, this.size * 2);
+        }
+
+        this.xs[this.size] = x;
+        this.ys[this.size] = y;
+        this.breaks[this.size] = this.pendingBreak;
+        ++this.size;
+        this.pendingBreak = false;
+    }
+}
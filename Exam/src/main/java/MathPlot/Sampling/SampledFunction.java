@@ -0,0 +1,73 @@
+package MathPlot.Sampling;
+
+import MathPlot.Expressions.BatchFunction;
+
+// f with its values precomputed on the grid min(from + k * step, to), k = 0..ceil((to - from) / step),
+// the grid the panel rules and RootFinder evaluate. Batches lying entirely on the grid are
+// answered from it, anything else goes to f, so the wrapper can stand in for f anywhere.
+public class SampledFunction implements BatchFunction {
+    final private BatchFunction f;
+    final private double from;
+    final private double to;
+    final private double step;
+    final private double[] values;
+
+    public SampledFunction(BatchFunction f, double from, double to, double step) {
+        if (!(from < to) || !(step > 0)) {
+            throw new IllegalArgumentException("Invalid grid");
+        }
+
+        final long nodes = (long) Math.ceil((to - from) / step) + 1;
+        if (nodes > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Grid too large");
+        }
+
+        this.f = f;
+        this.from = from;
+        this.to = to;
+        this.step = step;
+        this.values = new double[(int) nodes];
+
+        final double[] xs = new double[this.values.length];
+        for (int k = 0; k < xs.length; ++k) {
+            xs[k] = Math.min(from + k * step, to);
+        }
+        f.evaluate(xs, this.values, xs.length);
+    }
+
+    // Grid size, as a cache weight
+    public int size() {
+        return this.values.length;
+    }
+
+    @Override
+    public double applyAsDouble(double x) {
+        final int k = index(x);
+        return k >= 0 ? this.values[k] : this.f.applyAsDouble(x);
+    }
+
+    @Override
+    public void evaluate(double[] xs, double[] out, int length) {
+        for (int i = 0; i < length; ++i) {
+            final int k = index(xs[i]);
+            if (k < 0) {
+                this.f.evaluate(xs, out, length);
+                return;
+            }
+            out[i] = this.values[k];
+        }
+    }
+
+    // Grid index of x if x is exactly a grid node, -1 otherwise
+    private int index(double x) {
+        if (x == this.to) {
+            return this.values.length - 1;
+        }
+
+        final double k = Math.rint((x - this.from) / this.step);
+        if (k >= 0 && k < this.values.length && Math.min(this.from + (long) k * this.step, this.to) == x) {
+            return (int) k;
+        }
+        return -1;
+    }
+}
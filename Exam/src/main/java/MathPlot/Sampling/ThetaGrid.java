@@ -0,0 +1,60 @@
+package MathPlot.Sampling;
+
+import MathPlot.Caching.LruCache;
+
+// Evenly spaced angles over [from, to] with their sines and cosines, computed once per grid
+// and shared by every polar curve sampled on it. Instances are immutable.
+public class ThetaGrid {
+    private static final int CACHE_SIZE = 16;
+
+    private record Key(double from, double to, int intervals) {
+    }
+
+    private static final LruCache<Key, ThetaGrid> GRIDS = new LruCache<>(CACHE_SIZE);
+
+    final private double[] thetas;
+    final private double[] sines;
+    final private double[] cosines;
+
+    private ThetaGrid(double from, double to, int intervals) {
+        this.thetas = new double[intervals + 1];
+        this.sines = new double[intervals + 1];
+        this.cosines = new double[intervals + 1];
+
+        for (int i = 0; i <= intervals; ++i) {
+            this.thetas[i] = i == intervals ? to : from + (to - from) * i / intervals;
+            this.sines[i] = Math.sin(this.thetas[i]);
+            this.cosines[i] = Math.cos(this.thetas[i]);
+        }
+    }
+
+    // 'intervals' + 1 angles from 'from' to 'to'
+    public static ThetaGrid of(double from, double to, int intervals) {
+        if (!(from < to) || intervals < 1) {
+            throw new IllegalArgumentException("Invalid theta grid");
+        }
+
+        return GRIDS.computeIfAbsent(new Key(from, to, intervals), _ -> new ThetaGrid(from, to, intervals));
+    }
+
+    public int size() {
+        return this.thetas.length;
+    }
+
+    public double theta(int i) {
+        return this.thetas[i];
+    }
+
+    public double sin(int i) {
+        return this.sines[i];
+    }
+
+    public double cos(int i) {
+        return this.cosines[i];
+    }
+
+    // The angles themselves, not to be modified, for batch evaluation
+    double[] thetas() {
+        return this.thetas;
+    }
+}
@@ -0,0 +1,62 @@
+package MathPlot.Sampling;
+
+import java.util.NoSuchElementException;
+
+import MathPlot.Point;
+import MathPlot.Expressions.BatchFunction;
+
+// Samples y = f(x) at evenly spaced x, breaking the curve wherever f is not finite.
+// The whole grid is evaluated in one batch up front, so re-plotting only replays arrays.
+public class UniformSampler implements Point.Iterator {
+    final private double[] xs;
+    final private double[] ys;
+
+    private int index;
+    private boolean lastFinite;
+    private boolean currentFinite;
+
+    public UniformSampler(BatchFunction f, double from, double to, double step) {
+        final int samples = (int) Math.floor((to - from) / step) + 1;
+
+        this.xs = new double[samples];
+        this.ys = new double[samples];
+        for (int i = 0; i < samples; ++i) {
+            this.xs[i] = from + i * step;
+        }
+        f.evaluate(this.xs, this.ys, samples);
+
+        reset();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.index < this.xs.length;
+    }
+
+    @Override
+    public boolean hasBreak() {
+        return !this.lastFinite || !this.currentFinite;
+    }
+
+    @Override
+    public void reset() {
+        this.index = 0;
+        this.lastFinite = true;
+        this.currentFinite = true;
+    }
+
+    @Override
+    public Point nextPoint() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final double x = this.xs[this.index];
+        final double y = this.ys[this.index++];
+
+        this.lastFinite = this.currentFinite;
+        this.currentFinite = Double.isFinite(y);
+
+        return new Point(x, y);
+    }
+}
@@ -0,0 +1,10 @@
+package MathPlot.Sampling;
+
+import MathPlot.Point;
+
+// Point iterators implementing this are told the visible area before every render,
+// so that they can sample for it instead of for a fixed range
+public interface ViewportAware {
+    // The viewport spans min..max in plot units over width x height pixels
+    void setViewport(Point min, Point max, double width, double height);
+}
@@ -0,0 +1,182 @@
+package MathPlot.Sampling;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import MathPlot.Point;
+import MathPlot.Expressions.BatchFunction;
+import MathPlot.Expressions.IntervalFunction;
+
+// Samples y = f(x) for whatever part of [from, to] is visible, reusing earlier work across
+// pans and zooms. The x axis is cut into tiles of TILE_PIXELS pixels at a power-of-two level
+// of detail; each tile is sampled adaptively once and kept in an LRU cache, so panning only
+// samples the tiles that scroll into view and zooming only the tiles of the new level.
+// A tile is sampled for a vertical band three viewports high and is reused while the
+// viewport stays inside it. Interval bounds of f, if given, are handed to the tiles' samplers.
+public class ViewportSampler implements Point.Iterator, ViewportAware {
+    private static final int TILE_PIXELS = 256;
+    private static final int MAX_TILES = 512;
+
+    private record TileKey(int xLevel, int yLevel, long index) {
+    }
+
+    private static class Tile {
+        final private double[] xs;
+        final private double[] ys;
+        final private boolean[] breaks;
+        final private double bandMin;
+        final private double bandMax;
+
+        public Tile(Point.Iterator it, int size, double bandMin, double bandMax) {
+            this.xs = new double[size];
+            this.ys = new double[size];
+            this.breaks = new boolean[size];
+            this.bandMin = bandMin;
+            this.bandMax = bandMax;
+
+            it.reset();
+            for (int i = 0; i < size; ++i) {
+                final Point p = it.nextPoint();
+                this.xs[i] = p.x();
+                this.ys[i] = p.y();
+                this.breaks[i] = it.hasBreak();
+            }
+        }
+
+        public boolean covers(double yMin, double yMax) {
+            return this.bandMin <= yMin && yMax <= this.bandMax;
+        }
+    }
+
+    final private BatchFunction f;
+    final private IntervalFunction bounds;
+    final private double from;
+    final private double to;
+    final private Map<TileKey, Tile> cache;
+    private long tilesSampled;
+
+    final private List<Tile> visible;
+    private int tile;
+    private int point;
+    private boolean currentBreak;
+
+    public ViewportSampler(BatchFunction f, double from, double to) {
+        this(f, null, from, to);
+    }
+
+    public ViewportSampler(BatchFunction f, IntervalFunction bounds, double from, double to) {
+        this.f = f;
+        this.bounds = bounds;
+        this.from = from;
+        this.to = to;
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TileKey, Tile> eldest) {
+                return size() > MAX_TILES;
+            }
+        };
+        this.visible = new ArrayList<>();
+    }
+
+    // Number of tiles sampled so far, cache misses included
+    public long tilesSampled() {
+        return this.tilesSampled;
+    }
+
+    @Override
+    public void setViewport(Point min, Point max, double width, double height) {
+        this.visible.clear();
+
+        final double left = Math.max(min.x(), this.from);
+        final double right = Math.min(max.x(), this.to);
+        if (!(left < right) || width <= 0 || height <= 0) {
+            reset();
+            return;
+        }
+
+        // Levels are the binary exponents of the pixel size, tiles are at least as fine as the screen
+        final int xLevel = Math.getExponent((max.x() - min.x()) / width);
+        final int yLevel = Math.getExponent((max.y() - min.y()) / height);
+        final double pixel = Math.scalb(1.0, xLevel);
+        final double tileWidth = pixel * TILE_PIXELS;
+        final double bandHeight = Math.scalb(1.0, yLevel) * height;
+
+        final double bandMin = min.y() - bandHeight;
+        final double bandMax = max.y() + bandHeight;
+        final double bandPixels = (bandMax - bandMin) / Math.scalb(1.0, yLevel);
+
+        // Zoomed in far from the origin, tile indices are beyond the integers a double holds
+        // exactly (and may saturate a long): the visible part is then sampled whole, uncached
+        if (!(Math.abs(left / tileWidth) < 0x1p53) || !(Math.abs(right / tileWidth) < 0x1p53)) {
+            final AdaptiveSampler sampler = new AdaptiveSampler(this.f, this.bounds, left, right,
+                    new Point(min.x(), bandMin), new Point(max.x(), bandMax), width, bandPixels);
+            this.visible.add(new Tile(sampler, sampler.size(), bandMin, bandMax));
+            ++this.tilesSampled;
+            reset();
+            return;
+        }
+
+        final long first = (long) Math.floor(left / tileWidth);
+        final long last = (long) Math.floor(right / tileWidth);
+
+        for (long index = first; index <= last; ++index) {
+            final TileKey key = new TileKey(xLevel, yLevel, index);
+            Tile t = this.cache.get(key);
+
+            if (t == null || !t.covers(min.y(), max.y())) {
+                final double tileFrom = Math.max(index * tileWidth, this.from);
+                final double tileTo = Math.min((index + 1) * tileWidth, this.to);
+                if (!(tileFrom < tileTo)) {
+                    continue;
+                }
+
+                final AdaptiveSampler sampler = new AdaptiveSampler(this.f, this.bounds, tileFrom, tileTo,
+                        new Point(tileFrom, bandMin), new Point(tileFrom + tileWidth, bandMax), TILE_PIXELS,
+                        bandPixels);
+
+                t = new Tile(sampler, sampler.size(), bandMin, bandMax);
+                this.cache.put(key, t);
+                ++this.tilesSampled;
+            }
+
+            this.visible.add(t);
+        }
+
+        reset();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (this.tile < this.visible.size() && this.point >= this.visible.get(this.tile).xs.length) {
+            ++this.tile;
+            this.point = 0;
+        }
+        return this.tile < this.visible.size();
+    }
+
+    @Override
+    public boolean hasBreak() {
+        return this.currentBreak;
+    }
+
+    @Override
+    public void reset() {
+        this.tile = 0;
+        this.point = 0;
+        this.currentBreak = false;
+    }
+
+    @Override
+    public Point nextPoint() throws NoSuchElementException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final Tile t = this.visible.get(this.tile);
+        this.currentBreak = t.breaks[this.point];
+        return new Point(t.xs[this.point], t.ys[this.point++]);
+    }
+}
@@ -3,6 +3,13 @@ module MathPlot {
     requires transitive javafx.graphics;
     requires java.desktop;
     requires javafx.swing;
+    requires jdk.incubator.vector;
 
     exports MathPlot;
+    exports MathPlot.Analysis;
+    exports MathPlot.Caching;
+    exports MathPlot.Expressions;
+    exports MathPlot.Integration;
+    exports MathPlot.Rendering;
+    exports MathPlot.Sampling;
 }
@@ -0,0 +1,64 @@
+package MathPlot.Analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import MathPlot.Expressions.BatchFunction;
+
+public class RootFinderTest {
+    @Test
+    void testRootsOfSine() {
+        final double[] roots = RootFinder.roots(BatchFunction.of(Math::sin), Math::cos, -10, 10, 1024);
+
+        assertEquals(7, roots.length);
+        for (int i = 0; i < roots.length; ++i) {
+            assertEquals((i - 3) * Math.PI, roots[i], 1e-12);
+        }
+    }
+
+    @Test
+    void testRootsOnTheGrid() {
+        // Zeros falling on cell ends, the range ends included, are found once each
+        final double[] roots = RootFinder.roots(BatchFunction.of(x -> x * (x - 1) * (x + 1)), x -> 3 * x * x - 1,
+                -1, 1, 4);
+        assertEquals(3, roots.length);
+        assertEquals(-1, roots[0], 0);
+        assertEquals(0, roots[1], 0);
+        assertEquals(1, roots[2], 0);
+    }
+
+    @Test
+    void testNoRootAtAPole() {
+        // 1/x changes sign across 0 without a zero
+        final double[] roots = RootFinder.roots(BatchFunction.of(x -> 1 / x), x -> -1 / (x * x), -1, 1, 7);
+        for (final double root : roots) {
+            assertFalse(Math.abs(1 / root) < 1e-6, "not a zero: " + root);
+        }
+    }
+
+    @Test
+    void testExtremaOfCubic() {
+        // x^3 - 3x has a maximum at -1 and a minimum at 1
+        final List<Extremum> extrema = RootFinder.extrema(x -> x * x * x - 3 * x,
+                BatchFunction.of(x -> 3 * x * x - 3), x -> 6 * x, -3, 3, 100);
+
+        assertEquals(2, extrema.size());
+        assertEquals(-1, extrema.get(0).x(), 1e-12);
+        assertEquals(2, extrema.get(0).y(), 1e-12);
+        assertTrue(extrema.get(0).maximum());
+        assertEquals(1, extrema.get(1).x(), 1e-12);
+        assertEquals(-2, extrema.get(1).y(), 1e-12);
+        assertFalse(extrema.get(1).maximum());
+    }
+
+    @Test
+    void testInflectionIsNoExtremum() {
+        assertTrue(RootFinder.extrema(x -> x * x * x, BatchFunction.of(x -> 3 * x * x), x -> 6 * x, -1, 1, 10)
+                .isEmpty());
+    }
+}
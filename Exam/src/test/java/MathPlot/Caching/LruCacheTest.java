@@ -0,0 +1,116 @@
+package MathPlot.Caching;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class LruCacheTest {
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        final LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        // Reading a makes b the eldest
+        assertEquals(1, cache.get("a"));
+        cache.put("c", 3);
+
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void testReplacingKeepsTheSize() {
+        final LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("a", 10);
+
+        assertEquals(2, cache.stats().size());
+        assertEquals(0, cache.stats().evictions());
+        assertEquals(10, cache.get("a"));
+    }
+
+    @Test
+    void testEvictsByWeight() {
+        final LruCache<Integer, String> cache = new LruCache<>(10, String::length);
+        cache.put(1, "aaaa");
+        cache.put(2, "bbbb");
+        assertEquals(8, cache.stats().weight());
+
+        // Needs room for 6, both older entries go
+        cache.put(3, "cccccc");
+        assertNull(cache.get(1));
+        assertEquals("bbbb", cache.get(2));
+        assertEquals(10, cache.stats().weight());
+
+        cache.put(2, "bb");
+        assertEquals(8, cache.stats().weight());
+    }
+
+    @Test
+    void testValueHeavierThanTheCacheIsNotKept() {
+        final LruCache<Integer, String> cache = new LruCache<>(3, String::length);
+        cache.put(1, "abc");
+        cache.put(2, "abcd");
+
+        assertNull(cache.get(2));
+        assertEquals("abc", cache.get(1));
+    }
+
+    @Test
+    void testComputeIfAbsent() {
+        final LruCache<Integer, Integer> cache = new LruCache<>(4);
+        final AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; ++i) {
+            assertEquals(49, cache.computeIfAbsent(7, k -> {
+                loads.incrementAndGet();
+                return k * k;
+            }));
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+        assertEquals(2.0 / 3, cache.stats().hitRatio(), 1e-15);
+    }
+
+    @Test
+    void testClear() {
+        final LruCache<Integer, Integer> cache = new LruCache<>(4);
+        cache.put(1, 1);
+        cache.clear();
+
+        assertNull(cache.get(1));
+        assertEquals(0, cache.stats().size());
+        assertEquals(0, cache.stats().weight());
+    }
+
+    @Test
+    void testConcurrentUseStaysBounded() {
+        final LruCache<Integer, Integer> cache = new LruCache<>(64);
+
+        IntStream.range(0, 100_000).parallel().forEach(i -> {
+            final int key = i % 200;
+            assertEquals(key + 1, cache.computeIfAbsent(key, k -> k + 1));
+        });
+
+        final LruCache.Stats stats = cache.stats();
+        assertTrue(stats.size() <= 64);
+        assertEquals(stats.size(), stats.weight());
+        assertEquals(100_000, stats.hits() + stats.misses());
+    }
+
+    @Test
+    void testInvalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<Integer, Integer>(0));
+    }
+}
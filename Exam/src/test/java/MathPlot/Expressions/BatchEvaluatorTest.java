@@ -0,0 +1,81 @@
+package MathPlot.Expressions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class BatchEvaluatorTest {
+    private static final String[] EXPRESSIONS = {
+            "x", "42", "3*x^2 - 2*x + 1", "2 - x", "1/x", "x/2 + 2/x", "x^x", "sin(x)*cos(x)",
+            "exp(-x^2/2)^3 - exp(-x^2/2)", "log(x)", "sin(x+1)*sin(x+1) + cos(x+1)*cos(x+1)"
+    };
+
+    private static BatchEvaluator evaluator(Expression e) {
+        return new BatchEvaluator(e, StackProgram.fromExpression(e));
+    }
+
+    @Test
+    void testSameValuesAsScalar() throws Exception {
+        final Random random = new Random(5);
+        // Lengths around the vector width and the chunk size, for the tails
+        for (final int length : new int[] { 0, 1, 3, 7, 8, 9, 1023, 1024, 1025, 5000 }) {
+            final double[] xs = new double[length];
+            for (int i = 0; i < length; ++i) {
+                xs[i] = random.nextDouble(-10, 10);
+            }
+
+            for (final String aos : EXPRESSIONS) {
+                final Expression e = Simplifier.simplify(ExpressionCompiler.fromAOS(aos));
+                final double[] out = new double[length];
+                evaluator(e).evaluate(xs, out, length);
+
+                for (int i = 0; i < length; ++i) {
+                    assertEquals(e.evaluate(xs[i]), out[i], aos + " at x = " + xs[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testOnlyTheLengthIsWritten() throws Exception {
+        final double[] xs = { 1, 2, 3, 4 };
+        final double[] out = { -1, -1, -1, -1 };
+        evaluator(ExpressionCompiler.fromAOS("x*10")).evaluate(xs, out, 2);
+
+        assertEquals(10, out[0], 0);
+        assertEquals(20, out[1], 0);
+        assertEquals(-1, out[2], 0);
+    }
+
+    @Test
+    void testSharedBetweenThreads() throws Exception {
+        final Expression e = Simplifier.simplify(ExpressionCompiler.fromAOS("sin(x)^2 + x/3"));
+        final BatchEvaluator evaluator = evaluator(e);
+
+        IntStream.range(0, 64).parallel().forEach(k -> {
+            final double[] xs = new double[3000];
+            final double[] out = new double[xs.length];
+            for (int i = 0; i < xs.length; ++i) {
+                xs[i] = k + i / 1000.0;
+            }
+            evaluator.evaluate(xs, out, xs.length);
+            for (int i = 0; i < xs.length; ++i) {
+                assertEquals(e.evaluate(xs[i]), out[i]);
+            }
+        });
+    }
+
+    @Test
+    void testBatchFunctionDefault() {
+        final BatchFunction f = BatchFunction.of(x -> 2 * x);
+        final double[] out = new double[3];
+        f.evaluate(new double[] { 1, 2, 3 }, out, 3);
+
+        assertEquals(6, out[2], 0);
+        assertSame(f, BatchFunction.of(f));
+    }
+}
@@ -0,0 +1,59 @@
+package MathPlot.Expressions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+public class BytecodeCompilerTest {
+    private static final String[] EXPRESSIONS = {
+            "x", "42", "3*x^2 - 2*x + 1", "x^7 - x^-3", "x^0.5 + 2^x", "x^x",
+            "sin(x)/cos(x)", "exp(sin(x)) * log(x*x + 1)", "1/(x - 1/3)", "log(x)",
+            "sin(x+1)*sin(x+1) + cos(x+1)*cos(x+1)", "exp(-x^2/2)^3 - exp(-x^2/2)"
+    };
+    private static final double[] XS = {
+            -1e300, -7.5, -2, -1, -1.0 / 3, -0.0, 0.0, 1e-300, 1.0 / 3, 0.5, 1, 2, 3.25, 100, 1e300,
+            Double.POSITIVE_INFINITY, Double.NaN
+    };
+
+    @Test
+    void testSameValuesAsTheTree() throws Exception {
+        for (final String aos : EXPRESSIONS) {
+            final Expression e = Simplifier.simplify(ExpressionCompiler.fromAOS(aos));
+            final DoubleUnaryOperator compiled = BytecodeCompiler.compile(e);
+            final StackProgram program = StackProgram.fromExpression(e);
+
+            // The same operations in the same order, to the last bit
+            for (final double x : XS) {
+                assertEquals(e.evaluate(x), compiled.applyAsDouble(x), aos + " at x = " + x);
+                assertEquals(program.evaluate(x), compiled.applyAsDouble(x), aos + " at x = " + x);
+            }
+        }
+    }
+
+    @Test
+    void testCompilesWithoutFallback() throws Exception {
+        final long fallbacks = BytecodeCompiler.getFallbackCount();
+        for (final String aos : EXPRESSIONS) {
+            BytecodeCompiler.compile(Simplifier.simplify(ExpressionCompiler.fromAOS(aos)));
+        }
+        assertEquals(fallbacks, BytecodeCompiler.getFallbackCount());
+    }
+
+    @Test
+    void testHugeExpressionFallsBack() {
+        // Past the 64KB method limit, and far deeper than evaluate() can recurse
+        Expression e = new Variable();
+        for (int i = 1; i <= 100_000; ++i) {
+            e = new BinaryOperation(Operator.Add, new BinaryOperation(Operator.Multiply, new Variable(),
+                    new Constant(i)), e);
+        }
+
+        final long fallbacks = BytecodeCompiler.getFallbackCount();
+        final DoubleUnaryOperator compiled = BytecodeCompiler.compile(e);
+
+        assertEquals(fallbacks + 1, BytecodeCompiler.getFallbackCount());
+        assertEquals(100_000.0 * 100_001 / 2 + 1, compiled.applyAsDouble(1), 0);
+    }
+}
@@ -0,0 +1,70 @@
+package MathPlot.Expressions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class DerivativeTest {
+    private static final double[] XS = { -2.5, -1, -0.3, 0.2, 0.7, 1, 1.9, 3.2 };
+    private static final double H = 1e-5;
+
+    private static String derived(String aos) throws Exception {
+        return ExpressionPrinter.toAOS(Derivative.of(ExpressionCompiler.fromAOS(aos)));
+    }
+
+    // Compares f' with the central difference of f wherever both are finite
+    private static void assertMatchesDifference(String aos) throws Exception {
+        final Expression f = ExpressionCompiler.fromAOS(aos);
+        final Expression df = Derivative.of(f);
+        int checked = 0;
+
+        for (final double x : XS) {
+            final double expected = (f.evaluate(x + H) - f.evaluate(x - H)) / (2 * H);
+            final double actual = df.evaluate(x);
+            if (Double.isFinite(expected) && Double.isFinite(f.evaluate(x))) {
+                assertEquals(expected, actual, 1e-5 * Math.max(1, Math.abs(expected)), aos + "' at x = " + x);
+                ++checked;
+            }
+        }
+        assertTrue(checked > 0, aos + " was never finite");
+    }
+
+    @Test
+    void testLeaves() throws Exception {
+        assertEquals("1", derived("x"));
+        assertEquals("0", derived("42"));
+        assertEquals("0", derived("sin(2)"));
+    }
+
+    @Test
+    void testRules() throws Exception {
+        assertEquals("2", derived("2*x+1"));
+        assertEquals("cos(x)", derived("sin(x)"));
+        assertEquals("exp(x)", derived("exp(x)"));
+        assertEquals("1/x", derived("log(x)"));
+        assertEquals("x*2", derived("x^2"));
+    }
+
+    @Test
+    void testRulesNumerically() throws Exception {
+        for (final String aos : new String[] {
+                // Sum, difference, product and quotient
+                "x^3 - 4*x + 7", "x*sin(x)", "(x+1)/(x*x+1)", "3/x",
+                // Chain rule through every function
+                "sin(x^2)", "cos(3*x-1)", "exp(sin(x))", "log(x*x+1)", "log(x)",
+                // Constant, variable and mixed powers
+                "x^0.5", "2^x", "x^x", "(x*x+1)^-1.5",
+                "sin(exp(x/4))*log(2+cos(x))^2" }) {
+            assertMatchesDifference(aos);
+        }
+    }
+
+    @Test
+    void testSecondDerivative() throws Exception {
+        final Expression d2 = Derivative.of(Derivative.of(ExpressionCompiler.fromAOS("x^4 - sin(x)")));
+        for (final double x : XS) {
+            assertEquals(12 * x * x + Math.sin(x), d2.evaluate(x), 1e-12 * Math.max(1, Math.abs(12 * x * x)));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package MathPlot.Expressions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import MathPlot.Parsers.ParseException;
+
+public class ExpressionCompilerTest {
+    @Test
+    void testAOSAndRPNAgree() throws Exception {
+        final String[][] pairs = {
+                { "3*x^2 - 2*x + 1", "3 x 2 ^ * 2 x * - 1 +" },
+                { "sin(x)/x", "x sin x /" },
+                { "exp(-x^2/2)", "0 x 2 ^ - 2 / exp" },
+                { "log(1 + cos(x)^2)", "1 x cos 2 ^ + log" },
+                { "2^x^0.5", "2 x 0.5 ^ ^" }
+        };
+
+        for (final String[] pair : pairs) {
+            final Expression aos = ExpressionCompiler.fromAOS(pair[0]);
+            final Expression rpn = ExpressionCompiler.fromRPN(pair[1]);
+            for (double x = -3; x <= 3; x += 0.25) {
+                assertEquals(aos.evaluate(x), rpn.evaluate(x), pair[0] + " at x = " + x);
+            }
+        }
+    }
+
+    @Test
+    void testTreeIsReusable() throws Exception {
+        // Parsed once, evaluated at every sample
+        final Expression e = ExpressionCompiler.fromAOS("x*x - 1");
+        for (int x = -100; x <= 100; ++x) {
+            assertEquals(x * x - 1, e.evaluate(x), 0);
+        }
+        assertEquals(e.evaluate(0.5), e.applyAsDouble(0.5), 0);
+    }
+
+    @Test
+    void testEquations() throws Exception {
+        final Expression[] aos = ExpressionCompiler.equationFromAOS("x^2 + y^2 = 1");
+        final Expression[] rpn = ExpressionCompiler.equationFromRPN("x 2 ^ y 2 ^ + = 1");
+        final Expression bound = Substitution.bind(aos[0], 'y', 2);
+
+        assertEquals(9 + 4, bound.evaluate(3), 0);
+        assertEquals(ExpressionPrinter.toRPN(aos[0]), ExpressionPrinter.toRPN(rpn[0]));
+        assertEquals(1, rpn[1].evaluate(0), 0);
+    }
+
+    @Test
+    void testParametricCurves() throws Exception {
+        final Expression[] aos = ExpressionCompiler.parametricFromAOS("cos(t), sin(2*t)");
+        final Expression[] rpn = ExpressionCompiler.parametricFromRPN("t cos, 2 t * sin");
+
+        for (int i = 0; i < 2; ++i) {
+            assertEquals(aos[i].evaluate(0.7), rpn[i].evaluate(0.7), 0);
+        }
+        assertEquals(Math.sin(1.4), aos[1].evaluate(0.7), 0);
+    }
+
+    @Test
+    void testErrors() {
+        assertThrows(ParseException.class, () -> ExpressionCompiler.fromAOS("x +"));
+        assertThrows(ParseException.class, () -> ExpressionCompiler.fromRPN("x +"));
+        assertThrows(ParseException.class, () -> ExpressionCompiler.equationFromAOS("x^2 + y^2"));
+        assertThrows(ParseException.class, () -> ExpressionCompiler.parametricFromAOS("cos(x), sin(x)"));
+    }
+}
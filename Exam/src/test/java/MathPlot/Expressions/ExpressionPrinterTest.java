@@ -0,0 +1,120 @@
+package MathPlot.Expressions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class ExpressionPrinterTest {
+    private static final double[] CONSTANTS = { 0, 0.1, 1, 2, 2.5, 1.5e-7, 1e300 };
+    private static final Operator[] OPERATORS = Operator.values();
+    private static final Function[] FUNCTIONS = Function.values();
+
+    // Random tree of at most 'depth' levels, with non-negative constants only: AOS has no
+    // negative literals, it reads -2 as 0 - 2
+    private static Expression random(Random random, int depth) {
+        final int kind = depth == 0 ? random.nextInt(2) : random.nextInt(6);
+        switch (kind) {
+            case 0:
+                return new Constant(CONSTANTS[random.nextInt(CONSTANTS.length)]);
+            case 1:
+                return new Variable();
+            case 2:
+                return new FunctionCall(FUNCTIONS[random.nextInt(FUNCTIONS.length)], random(random, depth - 1));
+            default:
+                return new BinaryOperation(OPERATORS[random.nextInt(OPERATORS.length)], random(random, depth - 1),
+                        random(random, depth - 1));
+        }
+    }
+
+    private static void assertRoundTrips(Expression e) throws Exception {
+        final String aos = ExpressionPrinter.toAOS(e);
+        final String rpn = ExpressionPrinter.toRPN(e);
+
+        // Each form reads back into the same tree, which prints the other form again
+        assertEquals(rpn, ExpressionPrinter.toRPN(ExpressionCompiler.fromAOS(aos)), aos);
+        assertEquals(aos, ExpressionPrinter.toAOS(ExpressionCompiler.fromRPN(rpn)), rpn);
+    }
+
+    @Test
+    void testMinimalParentheses() throws Exception {
+        final String[][] cases = {
+                { "(1-2)-3", "1-2-3" }, { "1-(2-3)", "1-(2-3)" }, { "x/(2/x)", "x/(2/x)" },
+                { "(2^3)^2", "(2^3)^2" }, { "2^(3^2)", "2^3^2" }, { "(x+1)*(x-1)", "(x+1)*(x-1)" },
+                { "-(x^2)", "-x^2" }, { "(-x)^2", "(-x)^2" }, { "-(x*2)", "-(x*2)" }, { "x^-2", "x^(-2)" },
+                { "((sin((x))))", "sin(x)" }, { "1.5e-7*X", "1.5E-7*x" }
+        };
+
+        for (final String[] c : cases) {
+            assertEquals(c[1], ExpressionPrinter.toAOS(ExpressionCompiler.fromAOS(c[0])), c[0]);
+        }
+    }
+
+    @Test
+    void testRPN() throws Exception {
+        assertEquals("1 2 3 * +", ExpressionPrinter.toRPN(ExpressionCompiler.fromAOS("1+2*3")));
+        assertEquals("x exp x sin 2 ^ ^", ExpressionPrinter.toRPN(ExpressionCompiler.fromAOS("exp(x)^sin(x)^2")));
+        assertEquals("0 x - sin", ExpressionPrinter.toRPN(ExpressionCompiler.fromAOS("sin(-x)")));
+    }
+
+    @Test
+    void testRoundTrips() throws Exception {
+        for (final String aos : new String[] { "--x", "x--x", "2--3", "x*-2", "exp(x)^sin(x)^2", "-x^2*log(x)/3" }) {
+            assertRoundTrips(ExpressionCompiler.fromAOS(aos));
+        }
+
+        final Random random = new Random(18);
+        for (int i = 0; i < 2000; ++i) {
+            assertRoundTrips(random(random, 6));
+        }
+    }
+
+    @Test
+    void testNegativeConstants() throws Exception {
+        // Folded constants print as negative numbers; AOS reads them back as 0 - c, same value
+        final Expression e = new BinaryOperation(Operator.Power, new Constant(-2), new Variable());
+        assertEquals("(-2)^x", ExpressionPrinter.toAOS(e));
+        assertEquals("-2 x ^", ExpressionPrinter.toRPN(e));
+        assertEquals(e.evaluate(3), ExpressionCompiler.fromAOS(ExpressionPrinter.toAOS(e)).evaluate(3), 0);
+        assertEquals(ExpressionPrinter.toRPN(e), ExpressionPrinter.toRPN(ExpressionCompiler.fromRPN("-2 x ^")));
+    }
+
+    @Test
+    void testVariableName() throws IOException {
+        final Expression e = new FunctionCall(Function.Cos, new BinaryOperation(Operator.Multiply, new Constant(2),
+                new Variable()));
+        final StringBuilder aos = new StringBuilder();
+        final StringBuilder rpn = new StringBuilder();
+        ExpressionPrinter.writeAOS(e, 't', aos);
+        ExpressionPrinter.writeRPN(e, 't', rpn);
+
+        assertEquals("cos(2*t)", aos.toString());
+        assertEquals("2 t * cos", rpn.toString());
+    }
+
+    @Test
+    void testLongInput() throws Exception {
+        // 100000 levels deep, printed without recursion
+        final String sum = "x" + "+x".repeat(100000);
+        final Expression e = ExpressionCompiler.fromAOS(sum);
+
+        assertEquals(sum, ExpressionPrinter.toAOS(e));
+        assertEquals(4 * 100000 + 1, ExpressionPrinter.toRPN(e).length());
+    }
+
+    @Test
+    void testPrintedNodes() throws Exception {
+        // x^16 is four nested squares, each square shared: 31 nodes once printed
+        final Expression power = Simplifier.simplify(ExpressionCompiler.fromAOS("x^16"));
+        assertEquals(31, ExpressionPrinter.printedNodes(power));
+        assertEquals(16, ExpressionPrinter.toAOS(power).chars().filter(c -> c == 'x').count());
+
+        Expression square = new Variable();
+        for (int i = 0; i < 70; ++i) {
+            square = new BinaryOperation(Operator.Multiply, square, square);
+        }
+        assertEquals(Long.MAX_VALUE, ExpressionPrinter.printedNodes(square));
+    }
+}
@@ -0,0 +1,112 @@
+package MathPlot.Expressions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+public class IntervalEvaluatorTest {
+    private static final String[] EXPRESSIONS = {
+            "x", "3*x^2 - 2*x + 1", "x*(1-x)", "x^3", "x^-2", "x^0.5", "2^x", "x^x",
+            "sin(x)", "cos(3*x) + sin(x/7)", "exp(x)", "log(x)", "1/x", "1/(x*x - 2)",
+            "sin(exp(x/4)) * log(2 + cos(x))^2", "exp(sin(x)) / (1 + x*x)", "(x - 1)^7"
+    };
+    private static final int SAMPLES = 200;
+
+    private static Expression compile(String aos) throws Exception {
+        return Simplifier.simplify(ExpressionCompiler.fromAOS(aos));
+    }
+
+    private static void assertEncloses(IntervalFunction bounds, Expression f, double a, double b, String what) {
+        final Interval range = bounds.bounds(a, b);
+        final StackProgram program = StackProgram.fromExpression(f);
+        final DoubleUnaryOperator compiled = BytecodeCompiler.compile(f);
+
+        for (int i = 0; i <= SAMPLES; ++i) {
+            final double x = i == SAMPLES ? b : a + (b - a) * i / SAMPLES;
+            for (final double y : new double[] { f.evaluate(x), program.evaluate(x), compiled.applyAsDouble(x) }) {
+                if (Double.isFinite(y)) {
+                    assertTrue(range.lo() <= y && y <= range.hi(),
+                            what + " at x = " + x + ": " + y + " outside " + range);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testBoundsContainSampledValues() throws Exception {
+        final Random random = new Random(42);
+
+        for (final String aos : EXPRESSIONS) {
+            final Expression f = compile(aos);
+            final IntervalEvaluator bounds = new IntervalEvaluator(f);
+
+            for (int k = 0; k < 50; ++k) {
+                final double a = random.nextDouble(-20, 20);
+                final double b = a + Math.scalb(random.nextDouble(), random.nextInt(-20, 5));
+                assertEncloses(bounds, f, a, b, aos + " over [" + a + ", " + b + "]");
+            }
+        }
+    }
+
+    @Test
+    void testEnclosureContainsSampledValues() throws Exception {
+        final Random random = new Random(7);
+
+        for (final String aos : EXPRESSIONS) {
+            final Expression f = compile(aos);
+            final IntervalFunction enclosure = IntervalEvaluator.enclosure(f, Derivative.of(f));
+
+            for (int k = 0; k < 50; ++k) {
+                final double a = random.nextDouble(-20, 20);
+                final double b = a + Math.scalb(random.nextDouble(), random.nextInt(-20, 5));
+                assertEncloses(enclosure, f, a, b, aos + "' enclosure over [" + a + ", " + b + "]");
+            }
+        }
+    }
+
+    @Test
+    void testPoint() throws Exception {
+        final Interval point = new IntervalEvaluator(compile("sin(x)")).bounds(1, 1);
+        assertTrue(point.lo() <= Math.sin(1) && Math.sin(1) <= point.hi());
+        assertTrue(point.hi() - point.lo() <= 4 * Math.ulp(Math.sin(1)));
+    }
+
+    @Test
+    void testSquareIsOneValue() throws Exception {
+        // x*x over [-1, 2] is [0, 4], not [-2, 4]
+        final Interval square = new IntervalEvaluator(compile("x^2")).bounds(-1, 2);
+        assertEquals(0, square.lo(), 1e-300);
+        assertEquals(4, square.hi(), 1e-12);
+    }
+
+    @Test
+    void testPolesAndUndefinedRanges() throws Exception {
+        assertFalse(new IntervalEvaluator(compile("1/x")).bounds(-1, 1).isBounded());
+        assertTrue(new IntervalEvaluator(compile("1/x")).bounds(1, 2).isBounded());
+        assertFalse(new IntervalEvaluator(compile("1/(x*x - 2)")).bounds(1, 2).isBounded());
+        assertTrue(new IntervalEvaluator(compile("log(x)")).bounds(-2, -1).isEmpty());
+        assertTrue(new IntervalEvaluator(compile("x^0.5")).bounds(-3, -2).isEmpty());
+    }
+
+    @Test
+    void testCentredFormIsNarrower() throws Exception {
+        final Expression f = compile("x*(1-x)");
+        final Interval natural = new IntervalEvaluator(f).bounds(0.49, 0.51);
+        final Interval centred = IntervalEvaluator.enclosure(f, Derivative.of(f)).bounds(0.49, 0.51);
+
+        assertTrue(centred.hi() - centred.lo() < (natural.hi() - natural.lo()) / 10);
+    }
+
+    @Test
+    void testInvalidInterval() throws Exception {
+        final IntervalEvaluator bounds = new IntervalEvaluator(compile("x"));
+        assertThrows(IllegalArgumentException.class, () -> bounds.bounds(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> bounds.bounds(Double.NaN, 0));
+    }
+}
@@ -0,0 +1,98 @@
+package MathPlot.Expressions;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class SimplifierTest {
+    // Finite, where every rewrite keeps the value
+    private static final double[] XS = { -1e300, -3, -1, -0.5, -0.0, 0.0, 1e-300, 0.5, 1, 2, 1e300 };
+
+    private static String simplified(String aos) throws Exception {
+        return ExpressionPrinter.toAOS(Simplifier.simplify(ExpressionCompiler.fromAOS(aos)));
+    }
+
+    // Same value as before simplifying at every x of XS, NaN where it was NaN; the sign of a
+    // zero may differ (x*0 for negative x)
+    private static void assertSameValues(String aos) throws Exception {
+        final Expression original = ExpressionCompiler.fromAOS(aos);
+        final Expression simplified = Simplifier.simplify(original);
+        for (final double x : XS) {
+            final double expected = original.evaluate(x);
+            final double actual = simplified.evaluate(x);
+            assertTrue(expected == actual || (Double.isNaN(expected) && Double.isNaN(actual)),
+                    aos + " at x = " + x + ": " + actual + " instead of " + expected);
+        }
+    }
+
+    @Test
+    void testConstantFolding() throws Exception {
+        assertEquals("7", simplified("1+2*3"));
+        assertEquals("512", simplified("2^3^2"));
+        assertEquals("x+1", simplified("x+cos(0)"));
+        assertEquals("1.0E301", simplified("1e300*10"));
+    }
+
+    @Test
+    void testNonFiniteResultsAreNotFolded() throws Exception {
+        assertEquals("1/0", simplified("1/0"));
+        assertEquals("log(0)", simplified("log(0)"));
+        assertEquals("log(-1)", simplified("log(-1)"));
+    }
+
+    @Test
+    void testIdentities() throws Exception {
+        for (final String aos : new String[] { "x+0", "0+x", "x-0", "x*1", "1*x", "x/1", "x^1" }) {
+            assertEquals("x", simplified(aos), aos);
+        }
+        assertEquals("1", simplified("x^0"));
+        assertEquals("1", simplified("1^x"));
+        assertEquals("1^log(x)", simplified("1^log(x)"));
+        assertEquals("0", simplified("x*0"));
+        assertEquals("0", simplified("sin(x)-sin(x)"));
+    }
+
+    @Test
+    void testConstantsGoRight() throws Exception {
+        assertEquals("x*2", simplified("2*x"));
+        assertEquals("x+1", simplified("1+x"));
+        assertEquals("2-x", simplified("2-x"));
+    }
+
+    @Test
+    void testPowersBecomeChains() throws Exception {
+        assertEquals("x*x", simplified("x^2"));
+        assertEquals("x*x*x", simplified("x^3"));
+        assertEquals("1/(x*x)", simplified("x^-2"));
+        assertEquals("x^17", simplified("x^17"));
+        assertEquals("x^0.5", simplified("x^0.5"));
+
+        // x^4 is the square of x*x, computed once
+        final BinaryOperation fourth = (BinaryOperation) Simplifier.simplify(ExpressionCompiler.fromAOS("x^4"));
+        assertSame(fourth.left(), fourth.right());
+    }
+
+    @Test
+    void testEqualSubtreesAreShared() throws Exception {
+        final BinaryOperation sum = (BinaryOperation) Simplifier.simplify(ExpressionCompiler.fromAOS("sin(x+1)+sin(1+x)"));
+        assertSame(sum.left(), sum.right());
+        assertTrue(Simplifier.sharedNodes(sum).contains(sum.left()));
+        assertEquals(2, Simplifier.sharedNodes(Simplifier.simplify(ExpressionCompiler.fromAOS("exp(x*x)*exp(x*x)+x*x"))).size());
+    }
+
+    @Test
+    void testNaNIsPreserved() throws Exception {
+        // The identities that would hide a NaN are only applied where none can occur
+        assertEquals("log(x)*0", simplified("0*log(x)"));
+        assertEquals("1/x*0", simplified("0*(1/x)"));
+        assertEquals("log(x)-log(x)", simplified("log(x)-log(x)"));
+        assertEquals("x/x", simplified("x/x"));
+
+        for (final String aos : new String[] { "0*log(x)", "0*(1/x)", "log(x)-log(x)", "x/x", "x-x", "x*0",
+                "x^0", "1^log(x)", "(x+0)*1", "x^3", "x^-3", "x^0.5", "exp(log(x))", "sin(x)+sin(x)" }) {
+            assertSameValues(aos);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package MathPlot.Headless;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+
+public class BatchRendererTest {
+    // Runs the renderer on 'expressions' and returns what it printed
+    private static String render(Path directory, String expressions, String... options) throws IOException {
+        final Path input = Files.writeString(directory.resolve("expressions.txt"), expressions);
+        final String[] args = new String[2 + options.length];
+        args[0] = input.toString();
+        args[1] = directory.resolve("out").toString();
+        System.arraycopy(options, 0, args, 2, options.length);
+
+        final PrintStream out = System.out;
+        final ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true, StandardCharsets.UTF_8));
+        try {
+            BatchRenderer.main(args);
+        } finally {
+            System.setOut(out);
+        }
+        return printed.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testPng() throws IOException {
+        final Path directory = Files.createTempDirectory("plots");
+        final String printed = render(directory, "# a parabola\n\nx^2\n", "png", "cartesian", "100");
+
+        assertTrue(printed.startsWith("Rendered 1 of 1 plots (0 failed)"), printed);
+        final BufferedImage image = ImageIO.read(directory.resolve("out/plot-00003.png").toFile());
+        assertNotNull(image);
+        assertEquals(100, image.getWidth());
+        assertEquals(100, image.getHeight());
+    }
+
+    @Test
+    void testSvg() throws IOException {
+        final Path directory = Files.createTempDirectory("plots");
+        final String printed = render(directory, "rpn: x sin", "svg");
+
+        assertTrue(printed.startsWith("Rendered 1 of 1 plots (0 failed)"), printed);
+        final String svg = Files.readString(directory.resolve("out/plot-00001.svg"));
+        assertTrue(svg.contains("<svg"));
+        assertTrue(svg.contains("<path"));
+    }
+
+    @Test
+    void testFailedPlotsAreCounted() throws IOException {
+        final Path directory = Files.createTempDirectory("plots");
+        // An invalid expression and one nested deeper than the parser allows
+        final String deep = "(".repeat(1_000_000) + "x" + ")".repeat(1_000_000);
+        final String printed = render(directory, "x +\n" + deep + "\nx\n");
+
+        assertTrue(printed.startsWith("Rendered 1 of 3 plots (2 failed)"), printed);
+        assertTrue(Files.exists(directory.resolve("out/plot-00003.png")));
+        assertFalse(Files.exists(directory.resolve("out/plot-00001.png")));
+    }
+}
@@ -0,0 +1,108 @@
+package MathPlot.Integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+import MathPlot.Expressions.BatchFunction;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionCompiler;
+import MathPlot.Expressions.IntervalEvaluator;
+
+public class AdaptiveIntegratorTest {
+    private static final double TOLERANCE = 1e-10;
+
+    // An integrand, its range and its exact integral
+    private record Known(String name, DoubleUnaryOperator f, double from, double to, double integral) {
+    }
+
+    private static final Known[] KNOWN = {
+            new Known("x^2", x -> x * x, 0, 1, 1.0 / 3),
+            new Known("sin", Math::sin, 0, Math.PI, 2),
+            new Known("exp", Math::exp, -1, 2, Math.exp(2) - Math.exp(-1)),
+            new Known("1/x", x -> 1 / x, 1, Math.E, 1),
+            new Known("sqrt", Math::sqrt, 0, 1, 2.0 / 3),
+            new Known("Runge", x -> 1 / (1 + 25 * x * x), -1, 1, 0.4 * Math.atan(5)),
+            new Known("cos(20x)", x -> Math.cos(20 * x), 0, 3, Math.sin(60) / 20),
+    };
+
+    private static void assertAccurate(Integrator integrator) {
+        for (final Known known : KNOWN) {
+            final Integral integral = integrator.integrate(BatchFunction.of(known.f()), known.from(), known.to());
+
+            assertEquals(known.integral(), integral.value(), 10 * TOLERANCE, known.name());
+            assertTrue(integral.error() <= 10 * TOLERANCE, known.name() + " error " + integral.error());
+            assertTrue(integral.evaluations() > 0);
+        }
+    }
+
+    @Test
+    void testGaussKronrodAccuracy() {
+        assertAccurate(new GaussKronrod(TOLERANCE, 0));
+    }
+
+    @Test
+    void testAdaptiveSimpsonAccuracy() {
+        assertAccurate(new AdaptiveSimpson(TOLERANCE, 0));
+    }
+
+    @Test
+    void testGaussKronrodIsExactForPolynomials() {
+        // 15 Kronrod nodes integrate polynomials up to degree 22 exactly, with no refinement
+        final Integral integral = new GaussKronrod(TOLERANCE, 0).integrate(BatchFunction.of(x -> Math.pow(x, 9)),
+                0, 2);
+        assertEquals(102.4, integral.value(), 1e-12);
+        assertEquals(16 * 15, integral.evaluations());
+    }
+
+    @Test
+    void testRelativeTolerance() {
+        final Integral integral = new GaussKronrod(0, 1e-12).integrate(BatchFunction.of(x -> 1e9 * Math.exp(x)), 0,
+                1);
+        assertEquals(1e9 * (Math.E - 1), integral.value(), 1e-12 * 1e9 * Math.E * 10);
+    }
+
+    @Test
+    void testEmptyRange() {
+        final Integral integral = new AdaptiveSimpson(TOLERANCE, 0).integrate(BatchFunction.of(Math::exp), 1, 1);
+        assertEquals(0, integral.value(), 0);
+        assertEquals(0, integral.evaluations());
+    }
+
+    @Test
+    void testPoleIsReported() throws Exception {
+        // No integral across the pole at 1/3, which no node hits; the bounds explode there
+        final Expression f = ExpressionCompiler.fromAOS("1/(x-1/3)");
+        final Integral integral = new GaussKronrod(TOLERANCE, 0, new IntervalEvaluator(f))
+                .integrate(BatchFunction.of(f), -1, 2);
+        assertFalse(Double.isFinite(integral.value()) && Double.isFinite(integral.error()));
+    }
+
+    @Test
+    void testInvalidTolerance() {
+        assertThrows(IllegalArgumentException.class, () -> new GaussKronrod(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveSimpson(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveSimpson(Double.NaN, 1e-6));
+    }
+
+    @Test
+    void testPanelRules() {
+        // The trapezoidal rule is exact for lines, its error for x^2 is step^2 / 6 over [0, 1]
+        final Integral line = new Trapezoidal(0.1).integrate(BatchFunction.of(x -> 3 * x + 1), 0, 1);
+        assertEquals(2.5, line.value(), 1e-14);
+        assertTrue(Double.isNaN(line.error()));
+
+        final Integral square = new Trapezoidal(1e-3).integrate(BatchFunction.of(x -> x * x), 0, 1);
+        assertEquals(1.0 / 3 + 1e-6 / 6, square.value(), 1e-12);
+
+        final Integral sine = new Rectangular(1e-4).integrate(BatchFunction.of(Math::sin), 0, Math.PI);
+        assertEquals(2, sine.value(), 1e-6);
+
+        assertThrows(IllegalArgumentException.class, () -> new Rectangular(0));
+    }
+}
@@ -0,0 +1,102 @@
+package MathPlot.Parsers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionPrinter;
+import MathPlot.Expressions.StackProgram;
+
+public class PrattParserTest {
+    // The tree, written in RPN so that its shape shows without parentheses
+    private static String parse(String input) throws ParseException {
+        return ExpressionPrinter.toRPN(new PrattParser(input).parse());
+    }
+
+    private static int errorOffset(String input) {
+        return assertThrows(ParseException.class, () -> new PrattParser(input).parse()).offset();
+    }
+
+    @Test
+    void testPrecedence() throws ParseException {
+        assertEquals("1 2 3 * +", parse("1+2*3"));
+        assertEquals("1 2 + 3 *", parse("(1+2)*3"));
+        assertEquals("2 x 3 ^ *", parse("2*x^3"));
+        assertEquals("x sin 2 ^", parse("sin(x)^2"));
+    }
+
+    @Test
+    void testAssociativity() throws ParseException {
+        assertEquals("1 2 - 3 -", parse("1-2-3"));
+        assertEquals("x 2 / 3 /", parse("x/2/3"));
+        // Powers group to the right
+        assertEquals("2 3 2 ^ ^", parse("2^3^2"));
+    }
+
+    @Test
+    void testUnaryMinus() throws ParseException {
+        // Binds looser than a power, tighter than a product
+        assertEquals("0 x 2 ^ -", parse("-x^2"));
+        assertEquals("0 2 - x *", parse("-2*x"));
+        assertEquals("x 0 x - ^", parse("x^-x"));
+        assertEquals("x", parse("+x"));
+    }
+
+    @Test
+    void testEvaluation() throws ParseException {
+        final Expression e = new PrattParser("3*x^2 - 2*x + 1").parse();
+        assertEquals(3 * 4 - 2 * 2 + 1, e.evaluate(2), 0);
+        assertEquals(Math.exp(Math.sin(0.5)), new PrattParser("EXP(Sin(x))").parse().evaluate(0.5), 0);
+        assertEquals(1.5e-3, new PrattParser("1.5E-3").parse().evaluate(0), 0);
+    }
+
+    @Test
+    void testErrorOffsets() {
+        assertEquals(4, errorOffset("1 + * 2"));
+        assertEquals(2, errorOffset("x $ 1"));
+        assertEquals(3, errorOffset("(x))"));
+        assertEquals(5, errorOffset("x + 1f"));
+        assertEquals(3, errorOffset("x +"));
+        assertEquals(0, errorOffset(""));
+        assertEquals(4, errorOffset("sin x"));
+    }
+
+    @Test
+    void testUnbalancedParenPointsAtTheOpeningOne() {
+        assertEquals(3, errorOffset("sin(x"));
+        assertEquals(2, errorOffset("1*((x+1)"));
+    }
+
+    @Test
+    void testMessageCarriesTheOffset() {
+        final ParseException e = assertThrows(ParseException.class, () -> new PrattParser("1 + * 2").parse());
+        assertEquals("Unexpected operator '*' at offset 4", e.getMessage());
+    }
+
+    @Test
+    void testNestingLimit() throws ParseException {
+        final int depth = 2000;
+        final String nested = "(".repeat(depth) + "x" + ")".repeat(depth);
+        final ParseException e = assertThrows(ParseException.class, () -> new PrattParser(nested).parse());
+        assertEquals("Expression nested too deeply at offset " + e.offset(), e.getMessage());
+
+        // Chains of operators are read in a loop, however long, and run as a program since
+        // evaluating the tree recurses
+        final String sum = "x" + "+x".repeat(100000);
+        assertEquals(100001, StackProgram.fromExpression(new PrattParser(sum).parse()).evaluate(1), 0);
+    }
+
+    @Test
+    void testSeparatedExpressions() throws ParseException {
+        final Expression[] sides = new PrattParser("x^2 + y^2 = 1", 'x', "y").parse('=', 2);
+        assertEquals("x 2 ^ y 2 ^ +", ExpressionPrinter.toRPN(sides[0]));
+        assertEquals("1", ExpressionPrinter.toRPN(sides[1]));
+
+        assertThrows(ParseException.class, () -> new PrattParser("x^2 + y^2", 'x', "y").parse('=', 2));
+        assertThrows(ParseException.class, () -> new PrattParser("x = y = 1", 'x', "y").parse('=', 2));
+        // y is only a variable where it is named one
+        assertThrows(ParseException.class, () -> new PrattParser("x + y").parse());
+    }
+}
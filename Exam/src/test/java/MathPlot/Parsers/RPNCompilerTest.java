@@ -0,0 +1,75 @@
+package MathPlot.Parsers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionPrinter;
+import MathPlot.Expressions.StackProgram;
+
+public class RPNCompilerTest {
+    private static ParseException error(String input) {
+        return assertThrows(ParseException.class, () -> RPNCompiler.compile(input));
+    }
+
+    @Test
+    void testEvaluation() throws ParseException {
+        final StackProgram program = RPNCompiler.compile("x 2 ^ 3 x * - 1 +");
+        assertEquals(4 - 6 + 1, program.evaluate(2), 0);
+        assertEquals(Math.log(Math.cos(0.25)), RPNCompiler.compile("x COS log").evaluate(0.25), 0);
+        // A sign is part of a number, not an operator
+        assertEquals(-7, RPNCompiler.compile("x -2 * 3 +").evaluate(5), 0);
+        assertEquals(2.5e-3, RPNCompiler.compile("+2.5e-3").evaluate(0), 0);
+    }
+
+    @Test
+    void testProgramIsReusable() throws ParseException {
+        final StackProgram program = RPNCompiler.compile("x x * 1 +");
+        for (int x = -3; x <= 3; ++x) {
+            assertEquals(x * x + 1, program.evaluate(x), 0);
+        }
+        assertEquals(10, program.copy().evaluate(3), 0);
+    }
+
+    @Test
+    void testMissingOperand() {
+        final ParseException binary = error("x +");
+        assertEquals(2, binary.offset());
+        assertEquals("Missing operand at offset 2", binary.getMessage());
+        assertEquals(0, error("sin").offset());
+        assertEquals(6, error("1 2 + * 3").offset());
+    }
+
+    @Test
+    void testInvalidSequence() {
+        // Operands left over, or none at all, are reported at the end of the input
+        assertEquals(3, error("x 2").offset());
+        assertEquals(0, error("").offset());
+        assertEquals(3, error("   ").offset());
+    }
+
+    @Test
+    void testIllegalTokens() {
+        assertEquals(2, error("x foo").offset());
+        assertEquals(2, error("x 1f +").offset());
+        assertEquals(2, error("x 0x1p3 *").offset());
+        assertEquals(4, error("x 1e +").offset());
+        assertEquals("Illegal token found at offset 4", error("x 1 % +").getMessage());
+    }
+
+    @Test
+    void testSeparatedExpressions() throws ParseException {
+        final Expression[] curve = RPNCompiler.compile("t cos, t sin", 't', "", ',', 2);
+        assertEquals(Math.cos(1), curve[0].evaluate(1), 0);
+        assertEquals(Math.sin(1), curve[1].evaluate(1), 0);
+
+        final Expression[] sides = RPNCompiler.compile("x 2 ^ y 2 ^ + = 1", 'x', "y", '=', 2);
+        assertEquals("x 2 ^ y 2 ^ +", ExpressionPrinter.toRPN(sides[0]));
+
+        assertThrows(ParseException.class, () -> RPNCompiler.compile("x y +", 'x', "y", '=', 2));
+        assertThrows(ParseException.class, () -> RPNCompiler.compile("x = y = 1", 'x', "y", '=', 2));
+        assertThrows(ParseException.class, () -> RPNCompiler.compile("x y = 1", 'x', "y", '=', 2));
+    }
+}
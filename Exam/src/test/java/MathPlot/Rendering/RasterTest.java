@@ -0,0 +1,134 @@
+package MathPlot.Rendering;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class RasterTest {
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+    private static final int INK = 0xff102030;
+
+    // World coordinates one unit per pixel, y pointing up
+    private static Raster raster() {
+        final Raster raster = new Raster(WIDTH, HEIGHT);
+        raster.setWindow(0, 0, WIDTH, HEIGHT);
+        return raster;
+    }
+
+    private static int pixel(Raster raster, int x, int y) {
+        return raster.pixels()[y * raster.width() + x];
+    }
+
+    @Test
+    void testFillOnlyTheClip() {
+        final Raster raster = raster();
+        raster.clip(new Raster.Region(10, 5, 20, 10)).fill(INK);
+
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                final boolean inside = x >= 10 && x < 30 && y >= 5 && y < 15;
+                assertEquals(inside ? INK : 0, pixel(raster, x, y), x + ", " + y);
+            }
+        }
+    }
+
+    @Test
+    void testLines() {
+        final Raster raster = raster();
+        // y = 40.5 is pixel row 7.5, one unit wide is one pixel
+        raster.drawLine(-10, 40.5, 100, 40.5, INK, 1);
+        raster.drawLine(20.5, 0, 20.5, HEIGHT, INK, 1);
+
+        for (int x = 0; x < WIDTH; ++x) {
+            assertEquals(INK, pixel(raster, x, 7));
+            assertEquals(x == 20 ? INK : 0, pixel(raster, x, 6));
+        }
+        for (int y = 0; y < HEIGHT; ++y) {
+            assertEquals(INK, pixel(raster, 20, y));
+        }
+
+        // Three pixels wide, centred on the line
+        final Raster thick = raster();
+        thick.drawLine(0, 20.5, WIDTH, 20.5, INK, 3);
+        for (int y = 25; y <= 29; ++y) {
+            assertEquals(y >= 26 && y <= 28 ? INK : 0, pixel(thick, 30, y), "row " + y);
+        }
+    }
+
+    @Test
+    void testNonFiniteLinesAreSkipped() {
+        final Raster raster = raster();
+        raster.drawLine(0, 0, Double.NaN, 10, INK, 1);
+        raster.drawLine(0, 0, 10, Double.POSITIVE_INFINITY, INK, 1);
+
+        assertArrayEquals(new int[WIDTH * HEIGHT], raster.pixels());
+    }
+
+    @Test
+    void testStripsMatchTheWholeFrame() {
+        final Random random = new Random(9);
+        final Raster whole = new Raster(WIDTH, HEIGHT);
+        final Raster strips = new Raster(WIDTH, HEIGHT);
+        whole.setWindow(-2, -1.5, 2, 1.5);
+        strips.setWindow(-2, -1.5, 2, 1.5);
+
+        // Pixels drawn do not depend on the clip region, so strips join up without seams
+        for (int i = 0; i < 50; ++i) {
+            final double[] c = new double[4];
+            for (int k = 0; k < c.length; ++k) {
+                c[k] = random.nextDouble(-3, 3);
+            }
+            final double lineWidth = random.nextDouble(0, 0.2);
+
+            whole.drawLine(c[0], c[1], c[2], c[3], INK + i, lineWidth);
+            whole.drawEllipse(c[0], c[1], Math.abs(c[2]), Math.abs(c[3]), INK - i, lineWidth);
+            for (int y = 0; y < HEIGHT; y += 7) {
+                final Raster strip = strips.clip(new Raster.Region(0, y, WIDTH, 7));
+                strip.drawLine(c[0], c[1], c[2], c[3], INK + i, lineWidth);
+                strip.drawEllipse(c[0], c[1], Math.abs(c[2]), Math.abs(c[3]), INK - i, lineWidth);
+            }
+        }
+
+        assertArrayEquals(whole.pixels(), strips.pixels());
+    }
+
+    @Test
+    void testShift() {
+        final Raster src = new Raster(WIDTH, HEIGHT);
+        for (int i = 0; i < src.pixels().length; ++i) {
+            src.pixels()[i] = i + 1;
+        }
+
+        for (final int[] d : new int[][] { { 3, -2 }, { -5, 7 }, { 0, 4 }, { -1, 0 } }) {
+            final Raster dst = new Raster(WIDTH, HEIGHT);
+            final List<Raster.Region> dirty = dst.shiftFrom(src, d[0], d[1]);
+
+            for (int y = 0; y < HEIGHT; ++y) {
+                for (int x = 0; x < WIDTH; ++x) {
+                    final int sx = x + d[0];
+                    final int sy = y + d[1];
+                    final boolean covered = sx >= 0 && sx < WIDTH && sy >= 0 && sy < HEIGHT;
+
+                    // Every pixel is either copied or in exactly one region to redraw
+                    int regions = 0;
+                    for (final Raster.Region r : dirty) {
+                        if (x >= r.x() && x < r.x() + r.width() && y >= r.y() && y < r.y() + r.height()) {
+                            ++regions;
+                        }
+                    }
+                    assertEquals(covered ? 0 : 1, regions, x + ", " + y);
+                    if (covered) {
+                        assertEquals(pixel(src, sx, sy), pixel(dst, x, y));
+                    }
+                }
+            }
+            assertTrue(dirty.size() <= 2);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package MathPlot.Sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+
+import MathPlot.Point;
+import MathPlot.Expressions.BatchFunction;
+import MathPlot.Expressions.Derivative;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionCompiler;
+import MathPlot.Expressions.IntervalEvaluator;
+import MathPlot.Expressions.Simplifier;
+
+public class AdaptiveSamplerTest {
+    private static final Point MIN = new Point(-5, -10);
+    private static final Point MAX = new Point(5, 10);
+    private static final double WIDTH = 800;
+    private static final double HEIGHT = 600;
+
+    private static AdaptiveSampler sampler(String aos, boolean bounded) throws Exception {
+        final Expression f = Simplifier.simplify(ExpressionCompiler.fromAOS(aos));
+        return bounded
+                ? new AdaptiveSampler(BatchFunction.of(f), IntervalEvaluator.enclosure(f, Derivative.of(f)), MIN.x(),
+                        MAX.x(), MIN, MAX, WIDTH, HEIGHT)
+                : new AdaptiveSampler(BatchFunction.of(f), MIN.x(), MAX.x(), MIN, MAX, WIDTH, HEIGHT);
+    }
+
+    // x of the points on either side of each break, the one before the first point aside
+    private static double[][] breaks(AdaptiveSampler sampler) {
+        final PointBuffer points = PointBuffer.of(sampler);
+        final double[][] gaps = new double[points.size()][];
+        int count = 0;
+        for (int i = 1; i < points.size(); ++i) {
+            if (points.isBreak(i)) {
+                gaps[count++] = new double[] { points.x(i - 1), points.x(i) };
+            }
+        }
+        return Arrays.copyOf(gaps, count);
+    }
+
+    private static double highest(PointBuffer points) {
+        double highest = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < points.size(); ++i) {
+            highest = Math.max(highest, points.y(i));
+        }
+        return highest;
+    }
+
+    @Test
+    void testSmoothCurveIsUnbroken() throws Exception {
+        final AdaptiveSampler sampler = sampler("sin(x)", false);
+        final PointBuffer points = PointBuffer.of(sampler);
+
+        assertEquals(0, breaks(sampler).length);
+        assertEquals(MIN.x(), points.x(0), 0);
+        assertEquals(MAX.x(), points.x(points.size() - 1), 0);
+        for (int i = 0; i < points.size(); ++i) {
+            assertEquals(Math.sin(points.x(i)), points.y(i), 1e-15);
+            assertTrue(i == 0 || points.x(i) > points.x(i - 1));
+        }
+    }
+
+    @Test
+    void testLineNeedsFewPoints() throws Exception {
+        // The initial grid is straight already, far fewer points than pixels
+        assertTrue(sampler("2*x+1", false).size() < WIDTH / 8);
+        assertTrue(sampler("sin(20*x)", false).size() > sampler("sin(x)", false).size());
+    }
+
+    @Test
+    void testBreaksAtPoles() throws Exception {
+        for (final boolean bounded : new boolean[] { false, true }) {
+            final double[][] gaps = breaks(sampler("sin(x)/cos(x)", bounded));
+
+            // Poles at -3pi/2, -pi/2, pi/2 and 3pi/2, each between the points around its break
+            assertEquals(4, gaps.length);
+            for (int k = 0; k < 4; ++k) {
+                final double pole = (k - 1.5) * Math.PI;
+                assertTrue(gaps[k][0] < pole && pole < gaps[k][1]);
+                assertTrue(gaps[k][1] - gaps[k][0] < (MAX.x() - MIN.x()) / WIDTH);
+            }
+        }
+
+        final double[][] gaps = breaks(sampler("1/x", false));
+        assertEquals(1, gaps.length);
+        assertTrue(gaps[0][0] < 0 && 0 < gaps[0][1]);
+    }
+
+    @Test
+    void testNonFiniteValuesAreNotEmitted() throws Exception {
+        final PointBuffer points = PointBuffer.of(sampler("log(x)", false));
+
+        assertTrue(points.isBreak(0));
+        for (int i = 0; i < points.size(); ++i) {
+            assertTrue(points.x(i) > 0 && Double.isFinite(points.y(i)));
+        }
+        assertTrue(points.x(0) < (MAX.x() - MIN.x()) / WIDTH);
+    }
+
+    @Test
+    void testBoundsFindNarrowSpikes() throws Exception {
+        // A spike 1e-5 wide, between the samples of the grid: only the bounds reveal it
+        final String spike = "5/(1+1e10*(x-0.123456)^2)";
+        assertTrue(highest(PointBuffer.of(sampler(spike, false))) < 1);
+        assertTrue(highest(PointBuffer.of(sampler(spike, true))) > 4.9);
+    }
+
+    @Test
+    void testReset() throws Exception {
+        final AdaptiveSampler sampler = sampler("exp(x/3)*cos(x)", false);
+        final PointBuffer first = PointBuffer.of(sampler);
+        final PointBuffer second = PointBuffer.of(sampler);
+
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); ++i) {
+            assertEquals(first.x(i), second.x(i), 0);
+            assertEquals(first.y(i), second.y(i), 0);
+        }
+
+        assertFalse(sampler.hasNext());
+        assertThrows(NoSuchElementException.class, sampler::nextPoint);
+    }
+}
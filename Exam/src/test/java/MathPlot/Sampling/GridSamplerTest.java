@@ -0,0 +1,82 @@
+package MathPlot.Sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import MathPlot.Point;
+
+public class GridSamplerTest {
+    private static final double PIXELS = 600;
+
+    private static PointBuffer lines(GridSampler grid, double minX, double minY, double maxX, double maxY) {
+        grid.setViewport(new Point(minX, minY), new Point(maxX, maxY), PIXELS, PIXELS);
+        return PointBuffer.of(grid);
+    }
+
+    @Test
+    void testLinesSpanTheViewport() {
+        final PointBuffer points = lines(new GridSampler(1), -10, -10, 10, 10);
+
+        // 21 vertical and 21 horizontal lines, two points each, broken from one another
+        assertEquals(2 * 42, points.size());
+        for (int i = 0; i < points.size(); i += 2) {
+            assertTrue(points.isBreak(i));
+            assertFalse(points.isBreak(i + 1));
+        }
+        assertEquals(-10, points.x(0), 0);
+        assertEquals(-10, points.y(0), 0);
+        assertEquals(10, points.y(1), 0);
+    }
+
+    @Test
+    void testPanMovesTheGrid() {
+        final GridSampler grid = new GridSampler(1);
+        lines(grid, -10, -10, 10, 10);
+        final PointBuffer points = lines(grid, 5.5, 100.5, 25.5, 120.5);
+
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < points.size(); ++i) {
+            assertTrue(points.x(i) >= 5.5 && points.x(i) <= 25.5);
+            assertTrue(points.y(i) >= 100.5 && points.y(i) <= 120.5);
+            maxX = Math.max(maxX, points.x(i));
+            maxY = Math.max(maxY, points.y(i));
+        }
+        assertEquals(25.5, maxX, 0);
+        assertEquals(120.5, maxY, 0);
+        assertEquals(2 * 40, points.size());
+    }
+
+    @Test
+    void testZoomOutCoarsensTheGrid() {
+        final PointBuffer points = lines(new GridSampler(1), -1e4, -1e4, 1e4, 1e4);
+
+        // Lines every 1000, at least ten pixels apart
+        assertEquals(2 * 42, points.size());
+        for (int i = 0; i < 42; i += 2) {
+            assertEquals(0, points.x(i) % 1000, 0);
+        }
+    }
+
+    @Test
+    void testFarFromTheOrigin() {
+        // Multiples far beyond the range of a long still give a bounded number of lines
+        final PointBuffer points = lines(new GridSampler(1), 1e300, 1e300, 1e300 * (1 + 1e-15), 1e300 * (1 + 1e-15));
+        assertTrue(points.size() <= 2 * 2 * (PIXELS / 10 + 1));
+
+        assertEquals(0, lines(new GridSampler(1), 1, 1, 1, 2).size());
+    }
+
+    @Test
+    void testAxes() {
+        assertEquals(4, lines(GridSampler.axes(), -10, -10, 10, 10).size());
+        assertEquals(2, lines(GridSampler.axes(), 1, -10, 20, 10).size());
+        assertEquals(0, lines(GridSampler.axes(), 1, 1, 20, 10).size());
+
+        assertThrows(IllegalArgumentException.class, () -> new GridSampler(0));
+    }
+}
@@ -0,0 +1,104 @@
+package MathPlot.Sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import MathPlot.Point;
+import MathPlot.Expressions.BinaryOperation;
+import MathPlot.Expressions.Expression;
+import MathPlot.Expressions.ExpressionCompiler;
+import MathPlot.Expressions.ImplicitEvaluator;
+import MathPlot.Expressions.Operator;
+
+public class ImplicitSamplerTest {
+    private static final double SIZE = 400;
+
+    // Samples the equation over [min, max] on a SIZE x SIZE pixel viewport
+    private static PointBuffer trace(String equation, Point min, Point max) throws Exception {
+        final Expression[] sides = ExpressionCompiler.equationFromAOS(equation);
+        final ImplicitSampler sampler = new ImplicitSampler(
+                new ImplicitEvaluator(new BinaryOperation(Operator.Subtract, sides[0], sides[1])));
+        sampler.setViewport(min, max, SIZE, SIZE);
+        return PointBuffer.of(sampler);
+    }
+
+    private static int contours(PointBuffer points) {
+        int count = 0;
+        for (int i = 0; i < points.size(); i = points.nextBreak(i + 1)) {
+            ++count;
+        }
+        return count;
+    }
+
+    @Test
+    void testUnitCircle() throws Exception {
+        final PointBuffer points = trace("x^2 + y^2 = 1", new Point(-2, -2), new Point(2, 2));
+        final double pixel = 4 / SIZE;
+
+        // One closed contour, every point on the circle within the linear interpolation error
+        assertTrue(points.size() > 100);
+        assertEquals(1, contours(points));
+        assertEquals(points.x(0), points.x(points.size() - 1), 1e-12);
+        assertEquals(points.y(0), points.y(points.size() - 1), 1e-12);
+
+        final boolean[] octants = new boolean[8];
+        for (int i = 0; i < points.size(); ++i) {
+            final double x = points.x(i);
+            final double y = points.y(i);
+            assertEquals(1, Math.hypot(x, y), pixel / 10, "(" + x + ", " + y + ")");
+            // Consecutive points lie on the edges of one fine cell, a pixel wide
+            if (i > 0) {
+                assertTrue(Math.hypot(x - points.x(i - 1), y - points.y(i - 1)) <= Math.sqrt(2) * pixel);
+            }
+            octants[(int) Math.floor((Math.atan2(y, x) + Math.PI) / (Math.PI / 4)) % 8] = true;
+        }
+        for (final boolean visited : octants) {
+            assertTrue(visited);
+        }
+    }
+
+    @Test
+    void testSeparateContours() throws Exception {
+        final PointBuffer points = trace("(x^2 + y^2 - 1) * ((x-3)^2 + y^2 - 1) = 0", new Point(-2, -3),
+                new Point(5, 4));
+        assertEquals(2, contours(points));
+    }
+
+    @Test
+    void testOpenCurveCrossingTheViewport() throws Exception {
+        // y = x^2, both ends leaving through the top edge
+        final PointBuffer points = trace("y = x^2", new Point(-2, -1), new Point(2, 3));
+
+        assertEquals(1, contours(points));
+        for (int i = 0; i < points.size(); ++i) {
+            assertEquals(points.x(i) * points.x(i), points.y(i), 0.01);
+        }
+    }
+
+    @Test
+    void testNothingToTrace() throws Exception {
+        assertEquals(0, trace("x^2 + y^2 = 1", new Point(3, 3), new Point(4, 4)).size());
+        assertEquals(0, trace("x^2 + y^2 = -1", new Point(-2, -2), new Point(2, 2)).size());
+    }
+
+    @Test
+    void testViewportChange() throws Exception {
+        final Expression[] sides = ExpressionCompiler.equationFromAOS("x^2 + y^2 = 1");
+        final ImplicitSampler sampler = new ImplicitSampler(
+                new ImplicitEvaluator(new BinaryOperation(Operator.Subtract, sides[0], sides[1])));
+
+        sampler.setViewport(new Point(-2, -2), new Point(2, 2), SIZE, SIZE);
+        final int whole = sampler.size();
+
+        // Zoomed on the first quadrant: a quarter of the circle at twice the resolution
+        sampler.setViewport(new Point(0, 0), new Point(2, 2), SIZE, SIZE);
+        final PointBuffer quarter = PointBuffer.of(sampler);
+        assertTrue(quarter.size() > whole / 2);
+        for (int i = 0; i < quarter.size(); ++i) {
+            assertTrue(quarter.x(i) >= 0 && quarter.y(i) >= 0);
+            assertEquals(1, Math.hypot(quarter.x(i), quarter.y(i)), 2 / SIZE / 10);
+        }
+    }
+}
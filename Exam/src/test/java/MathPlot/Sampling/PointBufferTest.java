@@ -0,0 +1,141 @@
+package MathPlot.Sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+
+import MathPlot.Point;
+import MathPlot.Expressions.BatchFunction;
+
+public class PointBufferTest {
+    // Fake iterator replaying fixed points, breaking before the points flagged
+    static class FixedIterator implements Point.Iterator {
+        final private double[] xs;
+        final private double[] ys;
+        final private boolean[] breaks;
+        private int index;
+
+        FixedIterator(double[] xs, double[] ys, boolean[] breaks) {
+            this.xs = xs;
+            this.ys = ys;
+            this.breaks = breaks;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.index < this.xs.length;
+        }
+
+        @Override
+        public boolean hasBreak() {
+            return this.index > 0 && this.breaks[this.index - 1];
+        }
+
+        @Override
+        public void reset() {
+            this.index = 0;
+        }
+
+        @Override
+        public Point nextPoint() throws NoSuchElementException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Point p = new Point(this.xs[this.index], this.ys[this.index]);
+            ++this.index;
+            return p;
+        }
+    }
+
+    private static FixedIterator iterator(int size, int... breaks) {
+        final double[] xs = new double[size];
+        final double[] ys = new double[size];
+        final boolean[] flags = new boolean[size];
+        for (int i = 0; i < size; ++i) {
+            xs[i] = i;
+            ys[i] = i * i;
+        }
+        for (final int b : breaks) {
+            flags[b] = true;
+        }
+        return new FixedIterator(xs, ys, flags);
+    }
+
+    @Test
+    void testCopiesPointsAndBreaks() {
+        final PointBuffer buffer = PointBuffer.of(iterator(1000, 0, 10, 999));
+
+        assertEquals(1000, buffer.size());
+        for (int i = 0; i < buffer.size(); ++i) {
+            assertEquals(i, buffer.x(i), 0);
+            assertEquals(i * i, buffer.y(i), 0);
+            assertEquals(i == 0 || i == 10 || i == 999, buffer.isBreak(i));
+        }
+        assertEquals(1000, buffer.xs().length);
+    }
+
+    @Test
+    void testDrainsFromTheStart() {
+        final FixedIterator it = iterator(5);
+        it.nextPoint();
+        it.nextPoint();
+
+        final PointBuffer buffer = PointBuffer.of(it);
+        assertEquals(5, buffer.size());
+        assertEquals(0, buffer.x(0), 0);
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    void testRuns() {
+        final PointBuffer buffer = PointBuffer.of(iterator(10, 3, 7));
+
+        // Runs [0, 3), [3, 7) and [7, 10)
+        assertEquals(3, buffer.nextBreak(0));
+        assertEquals(3, buffer.nextBreak(3));
+        assertEquals(7, buffer.nextBreak(4));
+        assertEquals(10, buffer.nextBreak(8));
+        assertEquals(4, PointBuffer.of(iterator(4)).nextBreak(0));
+    }
+
+    @Test
+    void testFromArrays() {
+        final BitSet breaks = new BitSet();
+        breaks.set(1);
+        // Bits past the size are not breaks
+        breaks.set(5);
+        final PointBuffer buffer = PointBuffer.of(new double[] { 1, 2, 3, 4 }, new double[] { 5, 6, 7, 8 }, breaks, 3);
+
+        assertEquals(3, buffer.size());
+        assertEquals(7, buffer.y(2), 0);
+        assertTrue(buffer.isBreak(1));
+        assertEquals(3, buffer.nextBreak(2));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PointBuffer.of(new double[2], new double[1], new BitSet(), 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> PointBuffer.of(new double[2], new double[2], new BitSet(), -1));
+    }
+
+    @Test
+    void testKeepsTheBreaksOfASampler() {
+        // Not finite at -1 and 1, where the uniform sampler breaks the curve
+        final UniformSampler sampler = new UniformSampler(BatchFunction.of(x -> 1 / (x * x - 1)), -2, 2, 0.5);
+        final PointBuffer buffer = PointBuffer.of(sampler);
+
+        sampler.reset();
+        for (int i = 0; sampler.hasNext(); ++i) {
+            final Point p = sampler.nextPoint();
+            assertEquals(p.x(), buffer.x(i), 0);
+            assertEquals(p.y(), buffer.y(i), 0);
+            assertEquals(sampler.hasBreak(), buffer.isBreak(i));
+        }
+        assertTrue(buffer.nextBreak(0) < buffer.size());
+    }
+}
@@ -0,0 +1,117 @@
+package MathPlot.Sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+import MathPlot.Point;
+import MathPlot.Expressions.BatchFunction;
+
+public class PolarSamplerTest {
+    private static final double SIZE = 500;
+    // Longest segment the sampler draws, in pixels
+    private static final double MAX_ARC_PIXELS = 8;
+
+    private static PointBuffer sample(DoubleUnaryOperator r, double from, double to, double extent) {
+        final PolarSampler sampler = new PolarSampler(BatchFunction.of(r), from, to);
+        sampler.setViewport(new Point(-extent, -extent), new Point(extent, extent), SIZE, SIZE);
+        return PointBuffer.of(sampler);
+    }
+
+    // Longest segment between consecutive points of a run, in pixels
+    private static double longestSegment(PointBuffer points, double extent) {
+        final double scale = SIZE / (2 * extent);
+        double longest = 0;
+        for (int i = 1; i < points.size(); ++i) {
+            if (!points.isBreak(i)) {
+                longest = Math.max(longest,
+                        scale * Math.hypot(points.x(i) - points.x(i - 1), points.y(i) - points.y(i - 1)));
+            }
+        }
+        return longest;
+    }
+
+    @Test
+    void testCircle() {
+        final PointBuffer points = sample(theta -> 1, 0, 2 * Math.PI, 2);
+
+        assertEquals(points.x(0), points.x(points.size() - 1), 1e-12);
+        assertEquals(points.y(0), points.y(points.size() - 1), 1e-12);
+        for (int i = 0; i < points.size(); ++i) {
+            assertEquals(1, Math.hypot(points.x(i), points.y(i)), 1e-12);
+            assertFalse(points.isBreak(i) && i > 0);
+        }
+        assertTrue(longestSegment(points, 2) <= MAX_ARC_PIXELS);
+    }
+
+    @Test
+    void testStepsFollowTheArcLength() {
+        // Archimedean spiral: the outer turns are sampled more densely in theta
+        final double extent = 6 * Math.PI;
+        final PointBuffer points = sample(theta -> theta, 0, 6 * Math.PI, extent);
+        assertTrue(longestSegment(points, extent) <= MAX_ARC_PIXELS);
+
+        int inner = 0;
+        int outer = 0;
+        for (int i = 0; i < points.size(); ++i) {
+            final double radius = Math.hypot(points.x(i), points.y(i));
+            if (radius < 2 * Math.PI) {
+                ++inner;
+            } else if (radius >= 4 * Math.PI) {
+                ++outer;
+            }
+        }
+        assertTrue(outer > 2 * inner, inner + " points on the first turn, " + outer + " on the last");
+    }
+
+    @Test
+    void testBreaksAtPoles() {
+        // r = 1/cos(theta) is the line x = 1, going to infinity at pi/2 and 3pi/2
+        final PointBuffer points = sample(theta -> 1 / Math.cos(theta), 0, 2 * Math.PI, 4);
+
+        // No segment is drawn across a pole, from far above the viewport to far below
+        int breaks = 0;
+        for (int i = 1; i < points.size(); ++i) {
+            if (points.isBreak(i)) {
+                ++breaks;
+            } else {
+                assertTrue(Math.signum(points.y(i)) == Math.signum(points.y(i - 1))
+                        || Math.abs(points.y(i) - points.y(i - 1)) <= 8, "segment across a pole at " + i);
+            }
+        }
+        assertTrue(breaks >= 2);
+        for (int i = 0; i < points.size(); ++i) {
+            assertEquals(1, points.x(i), 1e-9);
+        }
+    }
+
+    @Test
+    void testOffscreenIsNotRefined() {
+        // The circle lies entirely outside, only the initial grid is sampled
+        final PolarSampler sampler = new PolarSampler(BatchFunction.of(theta -> 1), 0, 2 * Math.PI);
+        sampler.setViewport(new Point(5, 5), new Point(6, 6), SIZE, SIZE);
+        assertTrue(sampler.size() <= 129);
+    }
+
+    @Test
+    void testSharedGrid() {
+        assertSame(ThetaGrid.of(0, 2 * Math.PI, 128), ThetaGrid.of(0, 2 * Math.PI, 128));
+
+        final ThetaGrid grid = ThetaGrid.of(-1, 3, 8);
+        assertEquals(9, grid.size());
+        assertEquals(-1, grid.theta(0), 0);
+        assertEquals(3, grid.theta(8), 0);
+        assertEquals(Math.sin(1), grid.sin(4), 0);
+        assertEquals(Math.cos(1), grid.cos(4), 0);
+
+        assertThrows(IllegalArgumentException.class, () -> ThetaGrid.of(1, 1, 8));
+        assertThrows(IllegalArgumentException.class, () -> ThetaGrid.of(0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PolarSampler(BatchFunction.of(t -> 1), 1, 0));
+    }
+}
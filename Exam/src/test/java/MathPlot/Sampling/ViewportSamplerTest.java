@@ -0,0 +1,109 @@
+package MathPlot.Sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import MathPlot.Point;
+import MathPlot.Expressions.BatchFunction;
+
+public class ViewportSamplerTest {
+    // 1024 pixels over 8 units: pixels of 2^-7, tiles of 256 pixels are 2 units wide
+    private static final double WIDTH = 1024;
+    private static final double HEIGHT = 512;
+
+    private static ViewportSampler sampler() {
+        return new ViewportSampler(BatchFunction.of(Math::sin), -100, 100);
+    }
+
+    @Test
+    void testPointsFollowTheCurve() {
+        final ViewportSampler sampler = sampler();
+        sampler.setViewport(new Point(0, -2), new Point(8, 2), WIDTH, HEIGHT);
+        final PointBuffer points = PointBuffer.of(sampler);
+
+        assertTrue(points.size() > 10);
+        assertTrue(points.x(0) <= 0 && points.x(points.size() - 1) >= 8);
+        for (int i = 0; i < points.size(); ++i) {
+            assertEquals(Math.sin(points.x(i)), points.y(i), 0);
+            assertTrue(i == 0 || points.x(i) >= points.x(i - 1));
+        }
+    }
+
+    @Test
+    void testPanReusesTiles() {
+        final ViewportSampler sampler = sampler();
+        sampler.setViewport(new Point(0, -2), new Point(8, 2), WIDTH, HEIGHT);
+        assertEquals(5, sampler.tilesSampled());
+
+        // Within the same tiles, then one tile further
+        sampler.setViewport(new Point(1, -2), new Point(9, 2), WIDTH, HEIGHT);
+        assertEquals(5, sampler.tilesSampled());
+        sampler.setViewport(new Point(2.5, -2), new Point(10.5, 2), WIDTH, HEIGHT);
+        assertEquals(6, sampler.tilesSampled());
+
+        // Back to where it started, all cached
+        sampler.setViewport(new Point(0, -2), new Point(8, 2), WIDTH, HEIGHT);
+        assertEquals(6, sampler.tilesSampled());
+    }
+
+    @Test
+    void testVerticalPanWithinTheBand() {
+        final ViewportSampler sampler = sampler();
+        sampler.setViewport(new Point(0, -2), new Point(8, 2), WIDTH, HEIGHT);
+
+        // The tiles were sampled for a band three viewports high
+        sampler.setViewport(new Point(0, -1), new Point(8, 3), WIDTH, HEIGHT);
+        assertEquals(5, sampler.tilesSampled());
+        sampler.setViewport(new Point(0, 10), new Point(8, 14), WIDTH, HEIGHT);
+        assertEquals(10, sampler.tilesSampled());
+    }
+
+    @Test
+    void testZoomSamplesTheNewLevel() {
+        final ViewportSampler sampler = sampler();
+        sampler.setViewport(new Point(0, -2), new Point(8, 2), WIDTH, HEIGHT);
+        sampler.setViewport(new Point(0, -1), new Point(4, 1), WIDTH, HEIGHT);
+        assertEquals(5 + 5, sampler.tilesSampled());
+
+        final PointBuffer points = PointBuffer.of(sampler);
+        for (int i = 0; i < points.size(); ++i) {
+            assertEquals(Math.sin(points.x(i)), points.y(i), 0);
+        }
+    }
+
+    @Test
+    void testOutsideTheRange() {
+        final ViewportSampler sampler = sampler();
+        sampler.setViewport(new Point(200, -2), new Point(208, 2), WIDTH, HEIGHT);
+
+        assertFalse(sampler.hasNext());
+        assertEquals(0, sampler.tilesSampled());
+
+        // Clipped to the range
+        sampler.setViewport(new Point(96, -2), new Point(104, 2), WIDTH, HEIGHT);
+        final PointBuffer points = PointBuffer.of(sampler);
+        assertEquals(100, points.x(points.size() - 1), 0);
+    }
+
+    @Test
+    void testDeepZoomFarFromTheOrigin() {
+        final ViewportSampler sampler = new ViewportSampler(BatchFunction.of(x -> 1), -1e300, 1e300);
+        final double left = 1e299;
+        final double right = Math.nextUp(Math.nextUp(left));
+
+        // Tiles a quarter of a unit in the last place, and tiles beyond the range of a long
+        for (final double width : new double[] { WIDTH, 0x1p24 }) {
+            sampler.setViewport(new Point(left, 0), new Point(right, 2), width, HEIGHT);
+            final PointBuffer points = PointBuffer.of(sampler);
+
+            assertTrue(points.size() >= 2);
+            for (int i = 0; i < points.size(); ++i) {
+                assertTrue(points.x(i) >= left && points.x(i) <= right);
+                assertEquals(1, points.y(i), 0);
+            }
+        }
+    }
+}
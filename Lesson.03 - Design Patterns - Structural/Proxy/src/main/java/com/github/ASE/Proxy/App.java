@@ -6,21 +6,28 @@ import java.util.Set;
 
 import com.github.ASE.Proxy.Proxies.Authentication;
 import com.github.ASE.Proxy.Proxies.Caching;
+import com.github.ASE.Proxy.Proxies.Hedging;
 import com.github.ASE.Proxy.Proxies.LoadBalancing;
 import com.github.ASE.Proxy.Proxies.Logging;
+import com.github.ASE.Proxy.Proxies.ReplicaMetrics;
 import com.github.ASE.Proxy.Proxies.Retry;
+import com.github.ASE.Proxy.Proxies.WriteQuorum;
 
 public class App {
 
     public static void main(String[] args) {
         // Create multiple remote servers
-        List<FileService> servers = Arrays.asList(new RemoteFileService("US-East"), new RemoteFileService("EU-West"),
+        List<AsyncFileService> servers = Arrays.asList(new RemoteFileService("US-East"), new RemoteFileService("EU-West"),
                 new RemoteFileService("Asia-Singapore"));
 
-        // Build layered proxy chain
-        FileService fileService = new LoadBalancing(servers);
+        // Build layered proxy chain, asynchronous throughout; the calls below wait for each
+        // request, as a synchronous FileService
+        LoadBalancing loadBalancing = new LoadBalancing(servers, WriteQuorum.QUORUM);
+        Hedging hedging = new Hedging(loadBalancing);
+        AsyncFileService fileService = hedging;
         fileService = new Retry(fileService, 3);
-        fileService = new Caching(fileService);
+        Caching caching = new Caching(fileService);
+        fileService = caching;
         fileService = new Logging(fileService);
         fileService = new Authentication(fileService, Set.of("admin", "user"));
 
@@ -52,5 +59,19 @@ public class App {
         // Admin downloads (cache miss)
         System.out.println("\nAdmin Download (cache miss):");
         System.out.println(fileService.downloadFile("public.txt", admin));
+
+        // Admin overwrites the file, which drops it from the cache (cache miss)
+        System.out.println("\nAdmin Upload and Download (cache miss):");
+        fileService.uploadFile("Revised Data", "public.txt", admin);
+        System.out.println(fileService.downloadFile("public.txt", admin));
+
+        System.out.println("\nCache: " + caching.getStats());
+        System.out.println("Hedging: " + hedging);
+        for (ReplicaMetrics metrics : loadBalancing.getReplicaMetrics()) {
+            System.out.println(metrics);
+        }
+
+        // Stops its repairs and probes
+        loadBalancing.close();
     }
 }
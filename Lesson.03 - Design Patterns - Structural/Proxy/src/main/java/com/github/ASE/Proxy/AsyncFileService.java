@@ -0,0 +1,55 @@
+package com.github.ASE.Proxy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+// FileService whose calls return at once and complete later, so a chain of proxies passes a
+// request on without holding a thread while the server responds. The blocking methods wait
+// for the future, which makes every asynchronous service a synchronous one too; adapt() goes
+// the other way.
+public interface AsyncFileService extends FileService {
+    CompletableFuture<String> downloadFileAsync(String fileId, User user);
+
+    CompletableFuture<Void> uploadFileAsync(String content, String filename, User user);
+
+    @Override
+    default String downloadFile(String fileId, User user) {
+        return await(downloadFileAsync(fileId, user));
+    }
+
+    @Override
+    default void uploadFile(String content, String filename, User user) {
+        await(uploadFileAsync(content, filename, user));
+    }
+
+    // The service itself if it is asynchronous, otherwise an adapter calling it on 'executor',
+    // where every call still holds a thread until it returns
+    static AsyncFileService adapt(FileService service, Executor executor) {
+        if (service instanceof AsyncFileService) {
+            return (AsyncFileService) service;
+        }
+        return new BlockingFileServiceAdapter(service, executor);
+    }
+
+    // The future's value, or the exception it completed with rethrown as it was raised
+    static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    // The exception raised, from the CompletionException a stage of a future wraps it in
+    static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.ASE.Proxy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// A synchronous FileService made asynchronous by calling it on an executor, see
+// AsyncFileService.adapt()
+public class BlockingFileServiceAdapter implements AsyncFileService {
+    private final FileService service;
+    private final Executor executor;
+
+    public BlockingFileServiceAdapter(FileService service, Executor executor) {
+        this.service = service;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<String> downloadFileAsync(String fileId, User user) {
+        return CompletableFuture.supplyAsync(() -> service.downloadFile(fileId, user), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> uploadFileAsync(String content, String filename, User user) {
+        return CompletableFuture.runAsync(() -> service.uploadFile(content, filename, user), executor);
+    }
+
+    // Called directly rather than through the executor and back
+    @Override
+    public String downloadFile(String fileId, User user) {
+        return service.downloadFile(fileId, user);
+    }
+
+    @Override
+    public void uploadFile(String content, String filename, User user) {
+        service.uploadFile(content, filename, user);
+    }
+
+    @Override
+    public String toString() {
+        return service.toString();
+    }
+}
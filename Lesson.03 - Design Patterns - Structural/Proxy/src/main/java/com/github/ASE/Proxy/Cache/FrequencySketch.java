@@ -0,0 +1,82 @@
+package com.github.ASE.Proxy.Cache;
+
+// Approximate access counts for TinyLfuCache's admission: a count-min sketch of 4-bit counters,
+// sixteen to a long. Once the sampled accesses reach ten times the cache's capacity, every
+// counter is halved, so the counts age and keys popular long ago lose their weight.
+final class FrequencySketch {
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L };
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int size;
+
+    FrequencySketch(long maximumSize) {
+        int length = Integer.highestOneBit((int) Math.min(Math.max(maximumSize, 2), 1 << 30) - 1) << 1;
+        this.table = new long[length];
+        this.mask = length - 1;
+        this.sampleSize = (int) Math.min(10 * maximumSize, Integer.MAX_VALUE);
+    }
+
+    // Estimated count of the key, 0 to 15
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = hash(hash, i);
+            frequency = Math.min(frequency, (int) ((table[index(h)] >>> offset(h)) & MAX_COUNT));
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long h = hash(hash, i);
+            int index = index(h);
+            int offset = offset(h);
+            if (((table[index] >>> offset) & MAX_COUNT) != MAX_COUNT) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        // The halved counts lose the odd ones' remainders, a quarter per counter hashed
+        size = (size - (odd >>> 2)) >>> 1;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+
+    private static long hash(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        return h + (h >>> 32);
+    }
+
+    private int index(long h) {
+        return (int) h & mask;
+    }
+
+    private static int offset(long h) {
+        return ((int) (h >>> 40) & 15) << 2;
+    }
+}
@@ -0,0 +1,564 @@
+package com.github.ASE.Proxy.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+// Concurrent cache bounded by entry count and total weight, with W-TinyLFU eviction: new
+// entries wait in a small LRU window, and one evicted from the window only displaces the
+// least recently used entry of the main space if the frequency sketch counts it more often.
+// The main space is a segmented LRU whose probation part holds the entries admitted, the
+// protected part those read again since. Every entry expires after its own time to live.
+//
+// Reads are lock-free lookups; recording them in the sketch and the LRU order takes the
+// policy lock, and a read that finds it busy is not recorded rather than kept waiting.
+public class TinyLfuCache<K, V> {
+    // Share of the capacity, in entries and in weight, for the window, and of the main space
+    // for the protected part
+    private static final double WINDOW_SHARE = 0.01;
+    private static final double PROTECTED_SHARE = 0.8;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    // Loads in flight, one per key, that concurrent misses wait for
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final ReentrantLock policyLock = new ReentrantLock();
+
+    private final long maximumSize;
+    private final long maximumWeight;
+    private final long windowMaximumSize;
+    private final long windowMaximum;
+    private final long protectedMaximumSize;
+    private final long protectedMaximum;
+    private final ToIntFunction<? super V> weigher;
+    private final long timeToLiveNanos;
+
+    // Guarded by policyLock
+    private final FrequencySketch sketch;
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedOrder = new AccessOrder<>();
+    private long weight;
+    private long windowSize;
+    private long windowWeight;
+    private long protectedSize;
+    private long protectedWeight;
+    private long writesSinceSweep;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder evictionWeight = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public TinyLfuCache(long maximumSize, long maximumWeight, ToIntFunction<? super V> weigher, Duration timeToLive) {
+        if (maximumSize < 1 || maximumWeight < 1 || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Invalid cache bounds");
+        }
+
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        this.windowMaximumSize = Math.max(1, (long) (maximumSize * WINDOW_SHARE));
+        this.windowMaximum = Math.max(1, (long) (maximumWeight * WINDOW_SHARE));
+        this.protectedMaximumSize = (long) ((maximumSize - windowMaximumSize) * PROTECTED_SHARE);
+        this.protectedMaximum = (long) ((maximumWeight - windowMaximum) * PROTECTED_SHARE);
+        this.weigher = weigher;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    // Cached value of the key, null if there is none or it expired
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (node.isExpired(System.nanoTime())) {
+            misses.increment();
+            policyLock.lock();
+            try {
+                if (data.remove(key, node)) {
+                    expirations.increment();
+                    unlink(node);
+                }
+            } finally {
+                policyLock.unlock();
+            }
+            return null;
+        }
+
+        hits.increment();
+        if (policyLock.tryLock()) {
+            try {
+                onRead(node);
+            } finally {
+                policyLock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    // Cached value of the key, otherwise the loader's, which is cached if 'cacheable' accepts
+    // it. Concurrent misses for the same key call the loader only once and share its value or
+    // its exception.
+    public V get(K key, Function<? super K, ? extends V> loader, Predicate<? super V> cacheable) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        return await(load(key, k -> CompletableFuture.completedFuture(loader.apply(k)), cacheable));
+    }
+
+    // As above, for a loader that returns at once and completes later; the time to load is
+    // until its future completes
+    public CompletableFuture<V> getAsync(K key, Function<? super K, ? extends CompletionStage<? extends V>> loader,
+            Predicate<? super V> cacheable) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+        return loadAsync(key, loader, cacheable);
+    }
+
+    // The miss half of getAsync(), for a caller that looked the key up with getIfPresent()
+    // itself: joins the key's load in flight, or starts one
+    public CompletableFuture<V> loadAsync(K key, Function<? super K, ? extends CompletionStage<? extends V>> loader,
+            Predicate<? super V> cacheable) {
+        // A copy, as a caller completing or cancelling its future must not affect the others
+        return load(key, loader, cacheable).copy();
+    }
+
+    private CompletableFuture<V> load(K key, Function<? super K, ? extends CompletionStage<? extends V>> loader,
+            Predicate<? super V> cacheable) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = loading.putIfAbsent(key, flight);
+        if (existing != null) {
+            return existing;
+        }
+
+        // A load that finished between the miss and now has left its value
+        Node<K, V> node = data.get(key);
+        if (node != null && !node.isExpired(System.nanoTime())) {
+            loading.remove(key, flight);
+            flight.complete(node.value);
+            return flight;
+        }
+
+        long start = System.nanoTime();
+        CompletionStage<? extends V> stage;
+        try {
+            stage = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+
+        stage.whenComplete((value, e) -> {
+            totalLoadNanos.add(System.nanoTime() - start);
+            if (e != null) {
+                loadFailures.increment();
+                loading.remove(key, flight);
+                flight.completeExceptionally(e);
+                return;
+            }
+
+            loadSuccesses.increment();
+            try {
+                if (value != null && cacheable.test(value)) {
+                    policyLock.lock();
+                    try {
+                        // Unless invalidate() dropped the load meanwhile, as its value may be stale
+                        if (loading.get(key) == flight) {
+                            write(key, value, timeToLiveNanos);
+                        }
+                    } finally {
+                        policyLock.unlock();
+                    }
+                }
+            } catch (RuntimeException | Error t) {
+                // Or the callers would wait forever, as whenComplete() swallows it
+                loading.remove(key, flight);
+                flight.completeExceptionally(t);
+                return;
+            }
+            loading.remove(key, flight);
+            flight.complete(value);
+        });
+        return flight;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, Duration.ofNanos(timeToLiveNanos));
+    }
+
+    // As above, expiring after 'timeToLive' instead of the cache's default
+    public void put(K key, V value, Duration timeToLive) {
+        if (key == null || value == null || timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Invalid cache entry");
+        }
+
+        policyLock.lock();
+        try {
+            // A load in flight would replace the value with one possibly older
+            loading.remove(key);
+            write(key, value, timeToLive.toNanos());
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    // Drops the key's entry, and its load in flight if any, so that the value being loaded is
+    // returned to the callers waiting for it but not cached
+    public void invalidate(K key) {
+        policyLock.lock();
+        try {
+            loading.remove(key);
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        policyLock.lock();
+        try {
+            loading.clear();
+            for (K key : data.keySet()) {
+                Node<K, V> node = data.remove(key);
+                if (node != null) {
+                    unlink(node);
+                }
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    // Removes the expired entries now rather than as they are found
+    public void cleanUp() {
+        policyLock.lock();
+        try {
+            sweepExpired();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public long estimatedSize() {
+        return data.size();
+    }
+
+    public long weight() {
+        policyLock.lock();
+        try {
+            return weight;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), loadSuccesses.sum(), loadFailures.sum(), totalLoadNanos.sum(),
+                evictions.sum(), evictionWeight.sum(), expirations.sum());
+    }
+
+    // Guarded by policyLock from here on
+
+    private void write(K key, V value, long timeToLiveNanos) {
+        Node<K, V> node = new Node<>(key, value, weigher.applyAsInt(value), System.nanoTime() + timeToLiveNanos);
+        if (node.weight < 0) {
+            throw new IllegalArgumentException("Negative weight");
+        }
+
+        Node<K, V> previous = data.put(key, node);
+        if (previous != null) {
+            unlink(previous);
+        }
+        sketch.increment(key);
+
+        node.queue = Queue.WINDOW;
+        window.addLast(node);
+        weight += node.weight;
+        windowSize++;
+        windowWeight += node.weight;
+
+        // Expired entries take room until read, so now and then they are swept out: a pass
+        // over all the entries once per as many writes, which costs each write a constant
+        if (++writesSinceSweep >= data.size()) {
+            sweepExpired();
+        }
+        evict();
+    }
+
+    private void onRead(Node<K, V> node) {
+        sketch.increment(node.key);
+
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToLast(node);
+                break;
+            case PROBATION:
+                // Read again: promoted to the protected part, which demotes its eldest if full
+                probation.remove(node);
+                node.queue = Queue.PROTECTED;
+                protectedOrder.addLast(node);
+                protectedSize++;
+                protectedWeight += node.weight;
+                while ((protectedSize > protectedMaximumSize || protectedWeight > protectedMaximum)
+                        && protectedOrder.first() != node) {
+                    Node<K, V> demoted = protectedOrder.removeFirst();
+                    demoted.queue = Queue.PROBATION;
+                    probation.addLast(demoted);
+                    protectedSize--;
+                    protectedWeight -= demoted.weight;
+                }
+                break;
+            case PROTECTED:
+                protectedOrder.moveToLast(node);
+                break;
+            default:
+                // Removed while the read went on
+                break;
+        }
+    }
+
+    private void evict() {
+        // The window's overflow becomes the candidates for the main space, appended to the
+        // probation part after the entries they compete with
+        Node<K, V> firstCandidate = null;
+        while ((windowSize > windowMaximumSize || windowWeight > windowMaximum) && window.first() != null) {
+            Node<K, V> node = window.removeFirst();
+            windowSize--;
+            windowWeight -= node.weight;
+            node.queue = Queue.PROBATION;
+            probation.addLast(node);
+            if (firstCandidate == null) {
+                firstCandidate = node;
+            }
+        }
+
+        Node<K, V> candidate = firstCandidate;
+        while (weight > maximumWeight || data.size() > maximumSize) {
+            Node<K, V> victim = probation.first();
+            if (victim == null) {
+                victim = protectedOrder.first() != null ? protectedOrder.first() : window.first();
+            } else if (candidate != null && victim != candidate) {
+                // Candidate against victim: the one accessed less often goes, the victim on a tie
+                // as the cache would only churn otherwise
+                Node<K, V> loser = candidate.weight > maximumWeight
+                        || sketch.frequency(candidate.key) <= sketch.frequency(victim.key) ? candidate : victim;
+                if (loser == candidate) {
+                    candidate = candidate.next != probation.head ? candidate.next : null;
+                }
+                victim = loser;
+            } else if (candidate == victim) {
+                candidate = candidate.next != probation.head ? candidate.next : null;
+            }
+
+            data.remove(victim.key, victim);
+            unlink(victim);
+            evictions.increment();
+            evictionWeight.add(victim.weight);
+        }
+    }
+
+    private void sweepExpired() {
+        writesSinceSweep = 0;
+        long now = System.nanoTime();
+        for (Node<K, V> node : data.values()) {
+            if (node.isExpired(now) && data.remove(node.key, node)) {
+                unlink(node);
+                expirations.increment();
+            }
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                windowSize--;
+                windowWeight -= node.weight;
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedOrder.remove(node);
+                protectedSize--;
+                protectedWeight -= node.weight;
+                break;
+            default:
+                return;
+        }
+        node.queue = Queue.NONE;
+        weight -= node.weight;
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Counters since the cache was created
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final long loadSuccessCount;
+        private final long loadFailureCount;
+        private final long totalLoadTimeNanos;
+        private final long evictionCount;
+        private final long evictionWeight;
+        private final long expirationCount;
+
+        Stats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount, long totalLoadTimeNanos,
+                long evictionCount, long evictionWeight, long expirationCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.loadSuccessCount = loadSuccessCount;
+            this.loadFailureCount = loadFailureCount;
+            this.totalLoadTimeNanos = totalLoadTimeNanos;
+            this.evictionCount = evictionCount;
+            this.evictionWeight = evictionWeight;
+            this.expirationCount = expirationCount;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public double getHitRatio() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1.0 : (double) hitCount / requests;
+        }
+
+        public long getLoadSuccessCount() {
+            return loadSuccessCount;
+        }
+
+        public long getLoadFailureCount() {
+            return loadFailureCount;
+        }
+
+        public long getTotalLoadTimeNanos() {
+            return totalLoadTimeNanos;
+        }
+
+        // Mean time a load took, successful or not
+        public double getAverageLoadPenaltyNanos() {
+            long loads = loadSuccessCount + loadFailureCount;
+            return loads == 0 ? 0.0 : (double) totalLoadTimeNanos / loads;
+        }
+
+        // Entries evicted for size or weight, not counting the expired ones
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        public long getEvictionWeight() {
+            return evictionWeight;
+        }
+
+        public long getExpirationCount() {
+            return expirationCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hit ratio %.1f%% (%d hits, %d misses), %d loads (%d failed) averaging %.1f ms, "
+                    + "%d evictions (weight %d), %d expired", 100 * getHitRatio(), hitCount, missCount,
+                    loadSuccessCount + loadFailureCount, loadFailureCount, getAverageLoadPenaltyNanos() / 1e6,
+                    evictionCount, evictionWeight, expirationCount);
+        }
+    }
+
+    private enum Queue {
+        NONE, WINDOW, PROBATION, PROTECTED
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int weight;
+        final long expiresAt;
+        // Guarded by policyLock
+        Queue queue = Queue.NONE;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value, int weight, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    // Doubly linked LRU order, eldest first, around a sentinel
+    private static final class AccessOrder<K, V> {
+        final Node<K, V> head = new Node<>(null, null, 0, 0);
+
+        AccessOrder() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        Node<K, V> first() {
+            return head.next != head ? head.next : null;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.prev = head.prev;
+            node.next = head;
+            head.prev.next = node;
+            head.prev = node;
+        }
+
+        void remove(Node<K, V> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+
+        Node<K, V> removeFirst() {
+            Node<K, V> node = head.next;
+            remove(node);
+            return node;
+        }
+
+        void moveToLast(Node<K, V> node) {
+            remove(node);
+            addLast(node);
+        }
+    }
+}
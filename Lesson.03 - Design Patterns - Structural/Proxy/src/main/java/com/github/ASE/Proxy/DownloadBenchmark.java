@@ -0,0 +1,116 @@
+package com.github.ASE.Proxy;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.github.ASE.Proxy.Proxies.Authentication;
+import com.github.ASE.Proxy.Proxies.Caching;
+import com.github.ASE.Proxy.Proxies.LoadBalancing;
+import com.github.ASE.Proxy.Proxies.Logging;
+import com.github.ASE.Proxy.Proxies.Retry;
+
+// Starts 10,000 downloads of distinct files at once through the whole proxy chain, against the
+// simulated servers and their 100 ms of latency, with 4 platform threads to run the responses.
+// Blocking, each download would hold a thread for 100 ms at least, and the 10,000 would take
+// over four minutes; asynchronous, they overlap and take little more than the latency of a
+// download and its retries. The output of the servers and proxies is discarded meanwhile.
+//
+// Usage: DownloadBenchmark [downloads] [threads]
+public class DownloadBenchmark {
+    private static final int DOWNLOADS = 10_000;
+    private static final int THREADS = 4;
+    // Downloads of the round that warms up the JIT compiler first
+    private static final int WARMUP_DOWNLOADS = 1_000;
+
+    public static void main(String[] args) {
+        int downloads = args.length > 0 ? Integer.parseInt(args[0]) : DOWNLOADS;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : THREADS;
+        if (downloads < 1 || threads < 1) {
+            throw new IllegalArgumentException("Invalid downloads or threads");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        PrintStream out = System.out;
+        try {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            run(WARMUP_DOWNLOADS, executor);
+            Result result = run(downloads, executor);
+            System.setOut(out);
+
+            System.out.printf("%d concurrent downloads on %d threads in %d ms (%d errors)%n", downloads, threads,
+                    result.elapsedMillis, result.errors);
+            System.out.printf("Latency: p50 %d ms, p99 %d ms, max %d ms%n", result.percentile(0.5),
+                    result.percentile(0.99), result.percentile(1.0));
+            System.out.printf("Peak live threads in the JVM: %d%n",
+                    ManagementFactory.getThreadMXBean().getPeakThreadCount());
+        } finally {
+            System.setOut(out);
+            executor.shutdown();
+        }
+    }
+
+    // Uploads the files, then downloads them all at once through a fresh chain
+    private static Result run(int downloads, ExecutorService executor) {
+        List<AsyncFileService> servers = Arrays.asList(new RemoteFileService("US-East", executor),
+                new RemoteFileService("EU-West", executor), new RemoteFileService("Asia-Singapore", executor));
+        try (LoadBalancing loadBalancing = new LoadBalancing(servers)) {
+            AsyncFileService fileService = new Retry(loadBalancing, 3);
+            fileService = new Caching(fileService, downloads, Long.MAX_VALUE, Duration.ofMinutes(10));
+            fileService = new Logging(fileService);
+            fileService = new Authentication(fileService, Set.of("admin", "user"));
+            User admin = new User("Alice", "admin");
+
+            CompletableFuture<?>[] uploads = new CompletableFuture<?>[downloads];
+            for (int i = 0; i < downloads; i++) {
+                uploads[i] = fileService.uploadFileAsync("Data " + i, "file-" + i + ".txt", admin);
+            }
+            CompletableFuture.allOf(uploads).join();
+
+            long[] latencies = new long[downloads];
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[downloads];
+            long start = System.nanoTime();
+            for (int i = 0; i < downloads; i++) {
+                int index = i;
+                long started = System.nanoTime();
+                futures[i] = fileService.downloadFileAsync("file-" + i + ".txt", admin).thenApply(content -> {
+                    latencies[index] = System.nanoTime() - started;
+                    return content.startsWith("Error") ? 1 : 0;
+                });
+            }
+            CompletableFuture.allOf(futures).join();
+            long elapsed = System.nanoTime() - start;
+
+            int errors = 0;
+            for (CompletableFuture<?> future : futures) {
+                errors += (Integer) future.join();
+            }
+            return new Result(elapsed / 1_000_000, errors, latencies);
+        }
+    }
+
+    private static class Result {
+        private final long elapsedMillis;
+        private final int errors;
+        private final long[] latencies;
+
+        Result(long elapsedMillis, int errors, long[] latencies) {
+            this.elapsedMillis = elapsedMillis;
+            this.errors = errors;
+            this.latencies = latencies.clone();
+            Arrays.sort(this.latencies);
+        }
+
+        long percentile(double p) {
+            int index = (int) Math.ceil(p * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1_000_000;
+        }
+    }
+}
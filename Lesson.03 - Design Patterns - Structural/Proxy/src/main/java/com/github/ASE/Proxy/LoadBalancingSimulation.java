@@ -0,0 +1,259 @@
+package com.github.ASE.Proxy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import com.github.ASE.Proxy.Proxies.BalancingStrategy;
+import com.github.ASE.Proxy.Proxies.ConsistentHashing;
+import com.github.ASE.Proxy.Proxies.Hedging;
+import com.github.ASE.Proxy.Proxies.LeastOutstanding;
+import com.github.ASE.Proxy.Proxies.LoadBalancing;
+import com.github.ASE.Proxy.Proxies.PowerOfTwoChoices;
+import com.github.ASE.Proxy.Proxies.ReplicaMetrics;
+import com.github.ASE.Proxy.Proxies.RoundRobin;
+import com.github.ASE.Proxy.Proxies.WriteQuorum;
+
+// Replays the same workload through LoadBalancing with each strategy and compares the latency
+// percentiles. The servers are skewed: two fast, one medium and one slow with latency spikes,
+// each serving a few downloads at a time and queueing the rest, so that a server sent more
+// than it can take falls behind. One fast server fails every download for a stretch of the
+// run, to be ejected and probed back in. Downloads arrive at random at a fixed mean rate, of
+// files drawn from a Zipf distribution, and their latency counts from when they were due, not
+// from when they were sent. A last run puts Hedging in front of PowerOfTwoChoices.
+//
+// Usage: LoadBalancingSimulation [downloads] [downloads per second]
+public class LoadBalancingSimulation {
+    private static final int DOWNLOADS = 4_000;
+    private static final double RATE = 500;
+    private static final int FILES = 1_000;
+    private static final double ZIPF_EXPONENT = 1.1;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) {
+        int downloads = args.length > 0 ? Integer.parseInt(args[0]) : DOWNLOADS;
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : RATE;
+        if (downloads < 1 || !(rate > 0)) {
+            throw new IllegalArgumentException("Invalid downloads or rate");
+        }
+
+        Workload workload = new Workload(downloads, rate);
+        ScheduledExecutorService timer = Executors.newScheduledThreadPool(2);
+        try {
+            List<String> rows = new ArrayList<>();
+            rows.add(run("RoundRobin", RoundRobin::new, workload, timer));
+            rows.add(run("LeastOutstanding", LeastOutstanding::new, workload, timer));
+            rows.add(run("PowerOfTwoChoices", PowerOfTwoChoices::new, workload, timer));
+            rows.add(run("ConsistentHashing", ConsistentHashing::new, workload, timer));
+            rows.add(run("PowerOfTwoChoices", PowerOfTwoChoices::new, true, workload, timer));
+
+            System.out.printf("%n%d downloads at %.0f per second%n", downloads, rate);
+            System.out.printf("%-30s %9s %9s %9s %9s %7s  %s%n", "Strategy", "p50 ms", "p99 ms", "p99.9 ms",
+                    "max ms", "errors", "downloads per server");
+            rows.forEach(System.out::println);
+        } finally {
+            timer.shutdown();
+        }
+    }
+
+    private static String run(String name, Supplier<BalancingStrategy> strategy, Workload workload,
+            ScheduledExecutorService timer) {
+        return run(name, strategy, false, workload, timer);
+    }
+
+    // With 'hedged', downloads go through Hedging in front of LoadBalancing
+    private static String run(String name, Supplier<BalancingStrategy> strategy, boolean hedged, Workload workload,
+            ScheduledExecutorService timer) {
+        if (hedged) {
+            name += " + Hedging";
+        }
+        System.out.println("\n" + name + ":");
+        long start = System.nanoTime();
+        long duration = workload.arrivals[workload.arrivals.length - 1];
+        List<SimulatedServer> servers = Arrays.asList(
+                new SimulatedServer("fast-1", 10, 0, timer, 1, 0, 0),
+                new SimulatedServer("fast-2", 10, 0, timer, 2, start + duration * 3 / 10, start + duration * 6 / 10),
+                new SimulatedServer("medium", 25, 0, timer, 3, 0, 0),
+                new SimulatedServer("slow", 60, 0.05, timer, 4, 0, 0));
+        try (LoadBalancing loadBalancing = new LoadBalancing(servers, WriteQuorum.QUORUM, strategy.get())) {
+            Hedging hedging = hedged ? new Hedging(loadBalancing) : null;
+            AsyncFileService fileService = hedged ? hedging : loadBalancing;
+            User user = new User("Trudy", "user");
+
+            int n = workload.arrivals.length;
+            long[] latencies = new long[n];
+            boolean[] failed = new boolean[n];
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[n];
+            for (int i = 0; i < n; i++) {
+                long due = start + workload.arrivals[i];
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                int index = i;
+                futures[i] = fileService.downloadFileAsync(workload.files[i], user).whenComplete((content, e) -> {
+                    latencies[index] = System.nanoTime() - due;
+                    failed[index] = e != null;
+                });
+            }
+            CompletableFuture.allOf(futures).exceptionally(e -> null).join();
+            if (hedged) {
+                System.out.println("Hedging: " + hedging);
+            }
+
+            int errors = 0;
+            for (boolean f : failed) {
+                errors += f ? 1 : 0;
+            }
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+
+            StringBuilder shares = new StringBuilder();
+            for (ReplicaMetrics metrics : loadBalancing.getReplicaMetrics()) {
+                shares.append(String.format("%s %d  ", metrics.getReplica(), metrics.getDownloads()));
+            }
+            return String.format("%-30s %9.1f %9.1f %9.1f %9.1f %7d  %s", name, percentile(sorted, 0.5),
+                    percentile(sorted, 0.99), percentile(sorted, 0.999), percentile(sorted, 1.0), errors,
+                    shares.toString().trim());
+        }
+    }
+
+    // In milliseconds
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    // When each download is due, in nanoseconds from the start, and of which file
+    private static class Workload {
+        private final long[] arrivals;
+        private final String[] files;
+
+        Workload(int downloads, double rate) {
+            Random random = new Random(SEED);
+
+            double[] cumulative = new double[FILES];
+            double sum = 0;
+            for (int i = 0; i < FILES; i++) {
+                sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+                cumulative[i] = sum;
+            }
+
+            arrivals = new long[downloads];
+            files = new String[downloads];
+            double t = 0;
+            for (int i = 0; i < downloads; i++) {
+                // Exponential gaps: a Poisson process
+                t += -Math.log(1 - random.nextDouble()) / rate;
+                arrivals[i] = (long) (t * 1e9);
+
+                int file = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                files[i] = "file-" + (file < 0 ? -file - 1 : file) + ".txt";
+            }
+        }
+    }
+
+    // A server that serves CAPACITY downloads at a time, each for an exponentially distributed
+    // time around its mean, a share of them 'spikes' times SPIKE_FACTOR longer, and queues the
+    // others. A download cancelled, queued or served, frees its place at once. Between
+    // 'failFrom' and 'failUntil' every download fails.
+    private static class SimulatedServer implements AsyncFileService {
+        private static final int CAPACITY = 4;
+        private static final double SPIKE_FACTOR = 8;
+
+        private final String name;
+        private final double meanMillis;
+        private final double spikes;
+        private final ScheduledExecutorService timer;
+        private final Random random;
+        private final long failFrom;
+        private final long failUntil;
+
+        // Guarded by this
+        private final ArrayDeque<CompletableFuture<String>> queue = new ArrayDeque<>();
+        private int running;
+
+        SimulatedServer(String name, double meanMillis, double spikes, ScheduledExecutorService timer, long seed,
+                long failFrom, long failUntil) {
+            this.name = name;
+            this.meanMillis = meanMillis;
+            this.spikes = spikes;
+            this.timer = timer;
+            this.random = new Random(seed);
+            this.failFrom = failFrom;
+            this.failUntil = failUntil;
+        }
+
+        @Override
+        public CompletableFuture<String> downloadFileAsync(String fileId, User user) {
+            CompletableFuture<String> download = new CompletableFuture<>();
+            synchronized (this) {
+                if (running < CAPACITY) {
+                    start(download);
+                } else {
+                    queue.add(download);
+                }
+            }
+            return download;
+        }
+
+        @Override
+        public CompletableFuture<Void> uploadFileAsync(String content, String filename, User user) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+
+        // Guarded by this
+        private void start(CompletableFuture<String> download) {
+            running++;
+            double millis = -Math.log(1 - random.nextDouble()) * meanMillis;
+            if (random.nextDouble() < spikes) {
+                millis *= SPIKE_FACTOR;
+            }
+            ScheduledFuture<?> serving = timer.schedule(() -> finish(download), (long) (millis * 1e6),
+                    TimeUnit.NANOSECONDS);
+            // Cancelled while served, by Hedging: its place is free at once
+            download.whenComplete((content, e) -> {
+                if (download.isCancelled() && serving.cancel(false)) {
+                    release();
+                }
+            });
+        }
+
+        private synchronized void release() {
+            running--;
+            // Cancelled while queued
+            CompletableFuture<String> next = queue.poll();
+            while (next != null && next.isDone()) {
+                next = queue.poll();
+            }
+            if (next != null) {
+                start(next);
+            }
+        }
+
+        private void finish(CompletableFuture<String> download) {
+            release();
+
+            long now = System.nanoTime();
+            if (now >= failFrom && now < failUntil) {
+                download.completeExceptionally(new RuntimeException("Network error"));
+            } else {
+                download.complete("Content");
+            }
+        }
+    }
+}
@@ -1,35 +1,36 @@
 package com.github.ASE.Proxy.Proxies;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
-import com.github.ASE.Proxy.FileService;
+import com.github.ASE.Proxy.AsyncFileService;
 import com.github.ASE.Proxy.User;
 
-public class Authentication implements FileService {
-    private final FileService realService;
+public class Authentication implements AsyncFileService {
+    private final AsyncFileService realService;
     private final Set<String> allowedRoles;
 
-    public Authentication(FileService realService, Set<String> allowedRoles) {
+    public Authentication(AsyncFileService realService, Set<String> allowedRoles) {
         this.realService = realService;
         this.allowedRoles = allowedRoles;
     }
 
     @Override
-    public String downloadFile(String fileId, User user) {
+    public CompletableFuture<String> downloadFileAsync(String fileId, User user) {
         if (!allowedRoles.contains(user.getRole())) {
             System.out.println("Access denied to " + user.getUsername() + ": insufficient privileges");
-            return "Error: Access denied";
+            return CompletableFuture.completedFuture("Error: Access denied");
         }
-        return realService.downloadFile(fileId, user);
+        return realService.downloadFileAsync(fileId, user);
     }
 
     @Override
-    public void uploadFile(String content, String filename, User user) {
+    public CompletableFuture<Void> uploadFileAsync(String content, String filename, User user) {
         if (!allowedRoles.contains(user.getRole())) {
             System.out.println("Upload denied to " + user.getUsername() + ": insufficient privileges");
-            return;
+            return CompletableFuture.completedFuture(null);
         }
-        realService.uploadFile(content, filename, user);
+        return realService.uploadFileAsync(content, filename, user);
     }
 
 }
@@ -0,0 +1,9 @@
+package com.github.ASE.Proxy.Proxies;
+
+import java.util.List;
+
+// Chooses the replica of LoadBalancing a download goes to. Called concurrently.
+public interface BalancingStrategy {
+    // One of 'replicas', the ones in rotation, never empty
+    Replica select(List<Replica> replicas, String fileId);
+}
@@ -1,34 +1,53 @@
 package com.github.ASE.Proxy.Proxies;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
-import com.github.ASE.Proxy.FileService;
+import com.github.ASE.Proxy.AsyncFileService;
 import com.github.ASE.Proxy.User;
+import com.github.ASE.Proxy.Cache.TinyLfuCache;
 
-public class Caching implements FileService {
-    private final FileService realService;
-    private final Map<String, String> cache = new HashMap<>();
+public class Caching implements AsyncFileService {
+    private static final long DEFAULT_MAXIMUM_SIZE = 1000;
+    // In characters of content
+    private static final long DEFAULT_MAXIMUM_WEIGHT = 16 * 1024 * 1024;
+    private static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
 
-    public Caching(FileService realService) {
+    private final AsyncFileService realService;
+    private final TinyLfuCache<String, String> cache;
+
+    public Caching(AsyncFileService realService) {
+        this(realService, DEFAULT_MAXIMUM_SIZE, DEFAULT_MAXIMUM_WEIGHT, DEFAULT_TIME_TO_LIVE);
+    }
+
+    // At most 'maximumSize' files of 'maximumWeight' characters in all, each kept for
+    // 'timeToLive' at most
+    public Caching(AsyncFileService realService, long maximumSize, long maximumWeight, Duration timeToLive) {
         this.realService = realService;
+        this.cache = new TinyLfuCache<>(maximumSize, maximumWeight, String::length, timeToLive);
     }
 
     @Override
-    public String downloadFile(String fileId, User user) {
-        if (cache.containsKey(fileId)) {
+    public CompletableFuture<String> downloadFileAsync(String fileId, User user) {
+        String cached = cache.getIfPresent(fileId);
+        if (cached != null) {
             System.out.println("Serving from cache: " + fileId);
-            return cache.get(fileId);
-        }
-        String content = realService.downloadFile(fileId, user);
-        if (!content.startsWith("Error")) {
-            cache.put(fileId, content);
+            return CompletableFuture.completedFuture(cached);
         }
-        return content;
+
+        // Concurrent misses for the file share one download; errors are passed on, not cached
+        return cache.loadAsync(fileId, id -> realService.downloadFileAsync(id, user),
+                result -> !result.startsWith("Error"));
     }
 
     @Override
-    public void uploadFile(String content, String filename, User user) {
-        realService.uploadFile(content, filename, user);
+    public CompletableFuture<Void> uploadFileAsync(String content, String filename, User user) {
+        // Invalidated also after a failure, as the upload may have reached some servers
+        return realService.uploadFileAsync(content, filename, user)
+                .whenComplete((done, e) -> cache.invalidate(filename));
+    }
+
+    public TinyLfuCache.Stats getStats() {
+        return cache.stats();
     }
 }
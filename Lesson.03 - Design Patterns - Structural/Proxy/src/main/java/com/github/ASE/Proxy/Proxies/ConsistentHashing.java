@@ -0,0 +1,84 @@
+package com.github.ASE.Proxy.Proxies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The replica owning the file on a hash ring, so that a file keeps going to the same replica
+// and finds its content in that replica's caches. Each replica has VIRTUAL_NODES points on the
+// ring to even out the shares; when a replica leaves the rotation, only its files move, to the
+// next points along the ring that belong to a replica in it.
+public class ConsistentHashing implements BalancingStrategy {
+    private static final int VIRTUAL_NODES = 100;
+
+    // Rebuilt when a replica it does not have joins; one that leaves is skipped over
+    private volatile Ring ring = new Ring(List.of());
+
+    @Override
+    public Replica select(List<Replica> replicas, String fileId) {
+        Ring current = ring;
+        if (!current.replicas.containsAll(replicas)) {
+            List<Replica> all = new ArrayList<>(current.replicas);
+            for (Replica replica : replicas) {
+                if (!all.contains(replica)) {
+                    all.add(replica);
+                }
+            }
+            current = new Ring(all);
+            ring = current;
+        }
+        return current.owner(hash(fileId), replicas);
+    }
+
+    // 64-bit FNV-1a of the characters, with the final mix of MurmurHash3 to spread the bits
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static class Ring {
+        private final List<Replica> replicas;
+        // Points in ascending order and the replica each belongs to
+        private final long[] points;
+        private final Replica[] owners;
+
+        Ring(List<Replica> replicas) {
+            this.replicas = new ArrayList<>(replicas);
+
+            long[][] entries = new long[replicas.size() * VIRTUAL_NODES][];
+            for (int r = 0; r < replicas.size(); r++) {
+                for (int v = 0; v < VIRTUAL_NODES; v++) {
+                    entries[r * VIRTUAL_NODES + v] = new long[] { hash(replicas.get(r).getName() + "#" + v), r };
+                }
+            }
+            Arrays.sort(entries, (x, y) -> Long.compare(x[0], y[0]));
+
+            this.points = new long[entries.length];
+            this.owners = new Replica[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                points[i] = entries[i][0];
+                owners[i] = replicas.get((int) entries[i][1]);
+            }
+        }
+
+        // The first point at or after the hash, around the ring, of one of 'replicas'
+        Replica owner(long hash, List<Replica> replicas) {
+            int i = Arrays.binarySearch(points, hash);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            for (int n = 0; n < points.length; n++, i++) {
+                Replica owner = owners[i % points.length];
+                if (replicas.contains(owner)) {
+                    return owner;
+                }
+            }
+            throw new IllegalArgumentException("No replicas");
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.github.ASE.Proxy.Proxies;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.ASE.Proxy.AsyncFileService;
+import com.github.ASE.Proxy.User;
+
+// Sends a second download, a hedge, when the first has taken longer than the given percentile
+// of recent download latencies, or as soon as it fails. The first to succeed is the result and
+// the other is cancelled; the download fails only if both do. Placed above LoadBalancing, the
+// hedge goes to the server its strategy picks next, another one but with consistent hashing.
+//
+// Hedges are paid for from a budget, which starts with one hedge: every download adds
+// budgetPercent / 100 of a hedge, up to MAX_BUDGET, so that hedging adds at most that share of
+// load, also when every server is slow at once. Until the histogram has MIN_SAMPLES latencies,
+// hedges are only sent on failures.
+//
+// Every attempt's latency is recorded, a failed one's until it failed and a cancelled loser's
+// until it was cancelled, a lower bound; recording only the winners would leave the slow tail
+// out, and the delay would drift down and hedge ever more often.
+public class Hedging implements AsyncFileService {
+    private static final long MIN_SAMPLES = 20;
+    private static final long MIN_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // In thousandths of a hedge
+    private static final long HEDGE_COST = 1_000;
+    private static final long MAX_BUDGET = 10 * HEDGE_COST;
+
+    private final AsyncFileService realService;
+    private final double percentile;
+    private final long budgetPerDownload;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final AtomicLong budget = new AtomicLong(HEDGE_COST);
+
+    private final LongAdder downloads = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder hedgesDenied = new LongAdder();
+
+    public Hedging(AsyncFileService realService) {
+        this(realService, 0.95, 10);
+    }
+
+    // Hedges after the 'percentile', between 0 and 1, of latencies, adding at most
+    // 'budgetPercent' more downloads
+    public Hedging(AsyncFileService realService, double percentile, double budgetPercent) {
+        if (!(percentile > 0 && percentile < 1) || !(budgetPercent >= 0 && budgetPercent <= 100)) {
+            throw new IllegalArgumentException("Invalid percentile or budget");
+        }
+
+        this.realService = realService;
+        this.percentile = percentile;
+        this.budgetPerDownload = Math.round(budgetPercent / 100 * HEDGE_COST);
+    }
+
+    @Override
+    public CompletableFuture<String> downloadFileAsync(String fileId, User user) {
+        downloads.increment();
+        budget.getAndUpdate(b -> Math.min(MAX_BUDGET, b + budgetPerDownload));
+
+        Download download = new Download(fileId, user);
+        download.send(false);
+
+        long delay = getHedgeDelayNanos();
+        if (delay >= 0) {
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(download::hedge);
+        }
+        return download.result;
+    }
+
+    // Not hedged: every server gets the upload anyway
+    @Override
+    public CompletableFuture<Void> uploadFileAsync(String content, String filename, User user) {
+        return realService.uploadFileAsync(content, filename, user);
+    }
+
+    // Delay before a hedge is sent, -1 while there are too few latencies to tell
+    public long getHedgeDelayNanos() {
+        long delay = histogram.percentile(percentile, MIN_SAMPLES);
+        return delay < 0 ? -1 : Math.max(MIN_DELAY_NANOS, delay);
+    }
+
+    public long getDownloads() {
+        return downloads.sum();
+    }
+
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    // Hedges that completed first
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    // Hedges not sent for lack of budget
+    public long getHedgesDenied() {
+        return hedgesDenied.sum();
+    }
+
+    @Override
+    public String toString() {
+        long delay = getHedgeDelayNanos();
+        return String.format("%d downloads, %d hedged (%d won, %d denied by the budget), hedge delay %s", getDownloads(),
+                getHedges(), getHedgesWon(), getHedgesDenied(), delay < 0 ? "not known yet" : delay / 1e6 + " ms");
+    }
+
+    private boolean withdrawHedge() {
+        long b;
+        do {
+            b = budget.get();
+            if (b < HEDGE_COST) {
+                hedgesDenied.increment();
+                return false;
+            }
+        } while (!budget.compareAndSet(b, b - HEDGE_COST));
+        return true;
+    }
+
+    // The attempts at one download
+    private class Download {
+        private final String fileId;
+        private final User user;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        // Guarded by this
+        private final List<CompletableFuture<String>> attempts = new ArrayList<>();
+        private int sent = 1;
+        private int failed;
+        // Once the hedge was sent or denied
+        private boolean hedged;
+        private Throwable lastFailure;
+        private boolean won;
+
+        Download(String fileId, User user) {
+            this.fileId = fileId;
+            this.user = user;
+            // The losers are cancelled once there is a result
+            result.whenComplete((content, e) -> cancelAttempts());
+        }
+
+        // Sends the hedge, unless the download is done, hedged already or out of budget
+        void hedge() {
+            synchronized (this) {
+                if (result.isDone() || hedged) {
+                    return;
+                }
+                // Counted as sent already, so that a failure meanwhile waits for it
+                hedged = true;
+                sent++;
+            }
+
+            if (!withdrawHedge()) {
+                synchronized (this) {
+                    sent--;
+                }
+                failIfAllFailed();
+                return;
+            }
+            hedges.increment();
+            send(true);
+        }
+
+        void send(boolean isHedge) {
+            long start = System.nanoTime();
+            CompletableFuture<String> attempt;
+            try {
+                attempt = realService.downloadFileAsync(fileId, user);
+            } catch (RuntimeException e) {
+                attempt = CompletableFuture.failedFuture(e);
+            }
+            synchronized (this) {
+                attempts.add(attempt);
+            }
+            if (result.isDone()) {
+                // Lost before it started, which says nothing of the latency
+                attempt.cancel(true);
+                return;
+            }
+
+            attempt.whenComplete((content, e) -> {
+                histogram.record(System.nanoTime() - start);
+                if (e == null) {
+                    synchronized (this) {
+                        if (result.isDone() || won) {
+                            return;
+                        }
+                        won = true;
+                    }
+                    // Counted before the caller can see the result
+                    if (isHedge) {
+                        hedgesWon.increment();
+                    }
+                    result.complete(content);
+                    return;
+                }
+                if (AsyncFileService.unwrap(e) instanceof CancellationException) {
+                    return;
+                }
+                synchronized (this) {
+                    failed++;
+                    lastFailure = AsyncFileService.unwrap(e);
+                }
+                // Rather than waiting out the delay
+                hedge();
+                failIfAllFailed();
+            });
+        }
+
+        // Fails the download once every attempt sent has failed and no other will be
+        private void failIfAllFailed() {
+            Throwable failure;
+            synchronized (this) {
+                if (!hedged || failed < sent) {
+                    return;
+                }
+                failure = lastFailure;
+            }
+            result.completeExceptionally(failure);
+        }
+
+        private void cancelAttempts() {
+            List<CompletableFuture<String>> losers;
+            synchronized (this) {
+                losers = new ArrayList<>(attempts);
+            }
+            for (CompletableFuture<String> attempt : losers) {
+                attempt.cancel(true);
+            }
+        }
+    }
+}
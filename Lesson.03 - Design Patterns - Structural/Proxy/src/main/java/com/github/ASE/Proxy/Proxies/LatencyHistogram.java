@@ -0,0 +1,91 @@
+package com.github.ASE.Proxy.Proxies;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Counts of latencies in log-linear buckets: 16 per power of two, so any value is known to
+// within 1/16 of it, from 1 ns to about 18 minutes. Recording is lock-free. Percentiles are
+// over the last two windows of WINDOW_SAMPLES recordings, the one filling and the one before,
+// so that they follow the latency as it changes instead of averaging over all time.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+    private static final long WINDOW_SAMPLES = 1_000;
+
+    private volatile AtomicLongArray current = new AtomicLongArray(BUCKETS);
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKETS);
+    private final AtomicLong currentCount = new AtomicLong();
+
+    public void record(long nanos) {
+        current.incrementAndGet(index(Math.max(0, nanos)));
+        if (currentCount.incrementAndGet() == WINDOW_SAMPLES) {
+            rotate();
+        }
+    }
+
+    // Recordings the percentiles are over
+    public long count() {
+        return sum(current) + sum(previous);
+    }
+
+    // Upper bound of the bucket holding the percentile 'p', between 0 and 1, of the recent
+    // latencies in nanoseconds; -1 if there are fewer than 'minimumCount'
+    public long percentile(double p, long minimumCount) {
+        AtomicLongArray a = current;
+        AtomicLongArray b = previous;
+        long total = sum(a) + sum(b);
+        if (total == 0 || total < minimumCount) {
+            return -1;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += a.get(i) + b.get(i);
+            if (seen >= target) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private synchronized void rotate() {
+        previous = current;
+        current = new AtomicLongArray(BUCKETS);
+        currentCount.set(0);
+    }
+
+    private static long sum(AtomicLongArray counts) {
+        long sum = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            sum += counts.get(i);
+        }
+        return sum;
+    }
+
+    // Values below SUB_BUCKETS have a bucket each; above, each power of two is split in
+    // SUB_BUCKETS by the bits after the leading one
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        if (exponent == MAX_EXPONENT && value >>> MAX_EXPONENT > 1) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
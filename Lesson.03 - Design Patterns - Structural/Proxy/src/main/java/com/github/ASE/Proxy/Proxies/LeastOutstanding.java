@@ -0,0 +1,21 @@
+package com.github.ASE.Proxy.Proxies;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// The replica with the fewest downloads in progress. The scan starts at a random replica, so
+// that ties are not always won by the same one.
+public class LeastOutstanding implements BalancingStrategy {
+    @Override
+    public Replica select(List<Replica> replicas, String fileId) {
+        int start = ThreadLocalRandom.current().nextInt(replicas.size());
+        Replica best = null;
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (best == null || replica.getOutstandingDownloads() < best.getOutstandingDownloads()) {
+                best = replica;
+            }
+        }
+        return best;
+    }
+}
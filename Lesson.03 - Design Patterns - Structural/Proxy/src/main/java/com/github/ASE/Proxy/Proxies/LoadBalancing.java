@@ -1,35 +1,438 @@
 package com.github.ASE.Proxy.Proxies;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-import com.github.ASE.Proxy.FileService;
+import com.github.ASE.Proxy.AsyncFileService;
 import com.github.ASE.Proxy.User;
 
-public class LoadBalancing implements FileService {
-    private final List<FileService> servers;
+// Downloads from the server the strategy chooses among those in rotation; uploads to all of
+// them, each on its own virtual thread, and completes once the write quorum has acknowledged.
+// A replica that fails its upload, before the quorum or after, is queued for repair: the
+// upload is retried in the background with growing delays, unless a later upload of the file
+// supersedes it. Uploads of a file to a replica go one at a time, and one finding a later
+// version there already is skipped, so that old content never overwrites new.
+//
+// A download goes to a replica holding the latest upload of the file the write quorum has
+// acknowledged, so that it sees every upload that completed before it, and Caching, which
+// drops a file once its upload completes, cannot cache the content of a lagging replica. A file
+// is forgotten, here and by the replicas, once every replica holds its latest upload and no
+// write of it is pending, so that no state is kept for every file ever uploaded.
+//
+// Health is tracked passively, from the downloads: a server failing EJECTION_FAILURES in a
+// row is taken out of rotation, unless it is the last one, and probed in the background at
+// growing intervals until a probe download succeeds.
+//
+// Closing it stops the repairs and probes and lets the uploads under way finish.
+public class LoadBalancing implements AsyncFileService, AutoCloseable {
+    private static final long FIRST_REPAIR_DELAY_MILLIS = 100;
+    private static final long MAX_REPAIR_DELAY_MILLIS = 5_000;
+    private static final int MAX_REPAIR_ATTEMPTS = 10;
+    private static final int EJECTION_FAILURES = 5;
+    private static final long FIRST_PROBE_DELAY_MILLIS = 500;
+    private static final long MAX_PROBE_DELAY_MILLIS = 30_000;
+    // Whether the file exists does not matter, only that the server answers
+    private static final String PROBE_FILE = "health-check";
+    private static final User PROBE_USER = new User("LoadBalancing", "probe");
 
-    public LoadBalancing(List<FileService> servers) {
-        this.servers = servers;
+    private final List<Replica> servers;
+    private final WriteQuorum writeQuorum;
+    private final BalancingStrategy strategy;
+    // A virtual thread per replica upload, which may block for as long as the replica takes
+    private final ExecutorService uploads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("replica-upload-", 0).factory());
+    // Versions increase across all files, so that a version of a file forgotten is still older
+    // than any later upload of it
+    private final AtomicLong lastVersion = new AtomicLong();
+    // The files with writes pending or replicas behind, each changed in compute()
+    private final ConcurrentHashMap<String, FileState> files = new ConcurrentHashMap<>();
+    private final DelayQueue<Repair> repairs = new DelayQueue<>();
+    private final Thread repairer;
+    private final Set<Thread> probes = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    public LoadBalancing(List<? extends AsyncFileService> servers) {
+        this(servers, WriteQuorum.ALL);
+    }
+
+    public LoadBalancing(List<? extends AsyncFileService> servers, WriteQuorum writeQuorum) {
+        this(servers, writeQuorum, new RoundRobin());
     }
 
-    private int currentServer = 0;
+    public LoadBalancing(List<? extends AsyncFileService> servers, WriteQuorum writeQuorum,
+            BalancingStrategy strategy) {
+        if (servers.isEmpty()) {
+            throw new IllegalArgumentException("No servers");
+        }
+
+        this.servers = new ArrayList<>();
+        for (AsyncFileService server : servers) {
+            this.servers.add(new Replica(server));
+        }
+        this.writeQuorum = writeQuorum;
+        this.strategy = strategy;
+        this.repairer = Thread.ofVirtual().name("replica-repair").start(this::repairLoop);
+    }
 
     @Override
-    public String downloadFile(String fileId, User user) {
-        FileService server = getNextServer();
-        return server.downloadFile(fileId, user);
+    public CompletableFuture<String> downloadFileAsync(String fileId, User user) {
+        Replica server = getNextServer(fileId);
+        server.downloadStarted();
+        long start = System.nanoTime();
+
+        CompletableFuture<String> download;
+        try {
+            download = server.service().downloadFileAsync(fileId, user);
+        } catch (RuntimeException e) {
+            download = CompletableFuture.failedFuture(e);
+        }
+        // The bookkeeping hangs off the server's download, which completes however the download
+        // ends; an action on a future that is cancelled first would never run
+        CompletableFuture<String> result = new CompletableFuture<>();
+        download.whenComplete((content, e) -> {
+            if (e == null) {
+                server.downloadSucceeded(System.nanoTime() - start);
+                result.complete(content);
+                return;
+            }
+            if (AsyncFileService.unwrap(e) instanceof CancellationException) {
+                server.downloadCancelled(System.nanoTime() - start);
+            } else if (server.downloadFailed() >= EJECTION_FAILURES) {
+                eject(server);
+            }
+            result.completeExceptionally(e);
+        });
+        // Passed on to the server, which can then drop the download, as Hedging does to a loser
+        CompletableFuture<String> sent = download;
+        result.whenComplete((content, e) -> {
+            if (result.isCancelled()) {
+                sent.cancel(true);
+            }
+        });
+        return result;
     }
 
+    // Completes when the write quorum has acknowledged, and fails as soon as too many replicas
+    // have failed for it to be reached
     @Override
-    public void uploadFile(String content, String filename, User user) {
-        for (FileService server : servers) {
-            server.uploadFile(content, filename, user);
+    public CompletableFuture<Void> uploadFileAsync(String content, String filename, User user) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Load balancer closed"));
         }
+        long version = lastVersion.incrementAndGet();
+        files.compute(filename, (f, file) -> {
+            file = file != null ? file : new FileState();
+            file.latest = Math.max(file.latest, version);
+            file.pendingWrites += servers.size();
+            return file;
+        });
+        // Recorded before the upload completes, so that no download after it can miss it
+        Write write = new Write(writeQuorum.required(servers.size()), servers.size(),
+                () -> files.computeIfPresent(filename, (f, file) -> {
+                    file.acknowledged = Math.max(file.acknowledged, version);
+                    return file;
+                }));
+
+        for (int i = 0; i < servers.size(); i++) {
+            Replica replica = servers.get(i);
+            replica.uploadStarted();
+            try {
+                uploads.execute(() -> upload(replica, write, content, filename, user, version));
+            } catch (RejectedExecutionException e) {
+                // Closed meanwhile: this replica and the rest get no upload
+                replica.uploadAborted();
+                writesEnded(filename, servers.size() - i);
+                write.acknowledged.completeExceptionally(new IllegalStateException("Load balancer closed", e));
+                break;
+            }
+        }
+        return write.acknowledged;
+    }
+
+    @Override
+    public void close() {
+        // Set first, so that no probe starts after the interrupts
+        closed = true;
+        repairer.interrupt();
+        for (Thread probe : probes) {
+            probe.interrupt();
+        }
+        uploads.shutdown();
+    }
+
+    public WriteQuorum getWriteQuorum() {
+        return writeQuorum;
+    }
+
+    public BalancingStrategy getStrategy() {
+        return strategy;
+    }
+
+    // Files still known, with writes pending or replicas behind
+    int getTrackedFiles() {
+        return files.size();
+    }
+
+    public List<ReplicaMetrics> getReplicaMetrics() {
+        List<ReplicaMetrics> metrics = new ArrayList<>();
+        for (Replica replica : servers) {
+            metrics.add(replica.metrics());
+        }
+        return metrics;
+    }
+
+    private void upload(Replica replica, Write write, String content, String filename, User user, long version) {
+        long start = System.nanoTime();
+        try {
+            // Blocking is cheap on a virtual thread, and the replica may be a synchronous one.
+            // Superseded, the replica holds a later version and acknowledges this one with it.
+            replica.write(filename, version, () -> replica.service().uploadFile(content, filename, user));
+        } catch (RuntimeException e) {
+            replica.uploadFailed();
+            write.failed(e);
+            replica.repairQueued();
+            repairs.add(new Repair(replica, content, filename, user, version, 1));
+            return;
+        }
+        long end = System.nanoTime();
+        replica.uploadAcknowledged(end - start, write.acknowledged(end));
+        writesEnded(filename, 1);
+    }
+
+    private void repairLoop() {
+        while (true) {
+            try {
+                Repair repair = repairs.take();
+                // Each on its own thread, so that a replica slow to answer holds up no other
+                uploads.execute(() -> repair(repair));
+            } catch (InterruptedException | RejectedExecutionException e) {
+                // Closed
+                return;
+            }
+        }
+    }
+
+    private void repair(Repair repair) {
+        Replica replica = repair.replica;
+        FileState file = files.get(repair.filename);
+        if (file == null || file.latest != repair.version) {
+            // Superseded: the later upload went to this replica too
+            replica.repairEnded(false, false);
+            writesEnded(repair.filename, 1);
+            return;
+        }
+
+        replica.uploadStarted();
+        long start = System.nanoTime();
+        boolean written;
+        try {
+            // Checked again under the file's lock: a later upload may have started meanwhile
+            written = replica.write(repair.filename, repair.version,
+                    () -> replica.service().uploadFile(repair.content, repair.filename, repair.user));
+        } catch (RuntimeException e) {
+            replica.uploadFailed();
+            if (repair.attempt == MAX_REPAIR_ATTEMPTS) {
+                System.out.println("Repair of " + repair.filename + " on " + replica.getName()
+                        + " abandoned after " + MAX_REPAIR_ATTEMPTS + " attempts");
+                replica.repairEnded(false, true);
+                writesEnded(repair.filename, 1);
+            } else {
+                repairs.add(new Repair(replica, repair.content, repair.filename, repair.user, repair.version,
+                        repair.attempt + 1));
+            }
+            return;
+        }
+        replica.uploadAcknowledged(System.nanoTime() - start, 0);
+        replica.repairEnded(written, false);
+        writesEnded(repair.filename, 1);
+    }
+
+    // Forgets the file once no write of it is pending and every replica holds its latest
+    // upload; one whose repair was abandoned keeps it known until a later upload reaches all
+    private void writesEnded(String filename, int count) {
+        files.computeIfPresent(filename, (f, file) -> {
+            file.pendingWrites -= count;
+            if (file.pendingWrites > 0) {
+                return file;
+            }
+            for (Replica replica : servers) {
+                if (!replica.holds(filename, file.latest)) {
+                    return file;
+                }
+            }
+            for (Replica replica : servers) {
+                replica.forget(filename);
+            }
+            return null;
+        });
     }
 
-    private FileService getNextServer() {
-        FileService server = servers.get(currentServer);
-        currentServer = (currentServer + 1) % servers.size();
-        return server;
+    private Replica getNextServer(String fileId) {
+        List<Replica> inRotation = new ArrayList<>(servers.size());
+        for (Replica replica : servers) {
+            if (!replica.isEjected()) {
+                inRotation.add(replica);
+            }
+        }
+        if (inRotation.isEmpty()) {
+            inRotation = servers;
+        }
+
+        Replica server = strategy.select(inRotation, fileId);
+        FileState file = files.get(fileId);
+        long version = file != null ? file.acknowledged : 0;
+        if (version == 0 || server.holds(fileId, version)) {
+            return server;
+        }
+
+        // Lagging behind the latest acknowledged upload, until it is repaired
+        List<Replica> upToDate = new ArrayList<>(inRotation.size());
+        for (Replica replica : inRotation) {
+            if (replica.holds(fileId, version)) {
+                upToDate.add(replica);
+            }
+        }
+        // None if those that acknowledged are all out of rotation
+        return upToDate.isEmpty() ? server : strategy.select(upToDate, fileId);
+    }
+
+    // Synchronized so that two servers failing at once cannot both leave, the last one
+    private synchronized void eject(Replica server) {
+        long inRotation = servers.stream().filter(replica -> !replica.isEjected()).count();
+        if (closed || inRotation <= 1 || !server.eject()) {
+            return;
+        }
+
+        System.out.println("Ejected " + server.getName() + " after " + EJECTION_FAILURES + " failures in a row");
+        Thread probe = Thread.ofVirtual().name("health-probe").unstarted(() -> probe(server));
+        probes.add(probe);
+        probe.start();
+        if (closed) {
+            probe.interrupt();
+        }
+    }
+
+    private void probe(Replica server) {
+        try {
+            probeUntilReinstated(server);
+        } finally {
+            probes.remove(Thread.currentThread());
+        }
+    }
+
+    private void probeUntilReinstated(Replica server) {
+        long delay = FIRST_PROBE_DELAY_MILLIS;
+        while (true) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                server.service().downloadFile(PROBE_FILE, PROBE_USER);
+            } catch (RuntimeException e) {
+                delay = Math.min(2 * delay, MAX_PROBE_DELAY_MILLIS);
+                continue;
+            }
+            server.reinstate();
+            System.out.println("Reinstated " + server.getName() + " after a successful probe");
+            return;
+        }
+    }
+
+    // Acknowledgements of one upload, counted against its quorum
+    private static class Write {
+        private final int required;
+        private final int replicas;
+        private final AtomicInteger acknowledgements = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        // When the quorum was reached, 0 until then
+        private final AtomicLong quorumNanos = new AtomicLong();
+        private final CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+        private final Runnable onQuorum;
+
+        Write(int required, int replicas, Runnable onQuorum) {
+            this.required = required;
+            this.replicas = replicas;
+            this.onQuorum = onQuorum;
+        }
+
+        // Counts an acknowledgement at 'now' and returns how long after the quorum it came
+        long acknowledged(long now) {
+            int count = acknowledgements.incrementAndGet();
+            if (count == required) {
+                quorumNanos.set(now);
+                onQuorum.run();
+                acknowledged.complete(null);
+                return 0;
+            }
+            long quorum = quorumNanos.get();
+            return count > required && quorum != 0 ? Math.max(0, now - quorum) : 0;
+        }
+
+        void failed(RuntimeException e) {
+            int count = failures.incrementAndGet();
+            if (count == replicas - required + 1) {
+                RuntimeException failure = new RuntimeException("Write quorum not reached: " + count + " of "
+                        + replicas + " replicas failed, " + required + " acknowledgements needed");
+                failure.addSuppressed(e);
+                acknowledged.completeExceptionally(failure);
+            }
+        }
+    }
+
+    // What is known of a file with writes pending or replicas behind
+    private static class FileState {
+        // Latest version uploaded, which repairs of older ones must not overwrite
+        private volatile long latest;
+        // Latest version its write quorum has acknowledged, which downloads must see; 0 for none
+        private volatile long acknowledged;
+        // Uploads to a replica and repairs not ended yet
+        private int pendingWrites;
+    }
+
+    // An upload to send a replica again, at an exponentially growing delay
+    private static class Repair implements Delayed {
+        private final Replica replica;
+        private final String content;
+        private final String filename;
+        private final User user;
+        private final long version;
+        private final int attempt;
+        private final long dueNanos;
+
+        Repair(Replica replica, String content, String filename, User user, long version, int attempt) {
+            this.replica = replica;
+            this.content = content;
+            this.filename = filename;
+            this.user = user;
+            this.version = version;
+            this.attempt = attempt;
+            long delayMillis = Math.min(MAX_REPAIR_DELAY_MILLIS, FIRST_REPAIR_DELAY_MILLIS << Math.min(attempt - 1, 16));
+            this.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
     }
 }
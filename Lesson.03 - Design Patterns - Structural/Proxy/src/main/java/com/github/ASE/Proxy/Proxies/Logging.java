@@ -1,27 +1,28 @@
 package com.github.ASE.Proxy.Proxies;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
-import com.github.ASE.Proxy.FileService;
+import com.github.ASE.Proxy.AsyncFileService;
 import com.github.ASE.Proxy.User;
 
-public class Logging implements FileService {
-    private final FileService realService;
+public class Logging implements AsyncFileService {
+    private final AsyncFileService realService;
 
-    public Logging(FileService realService) {
+    public Logging(AsyncFileService realService) {
         this.realService = realService;
     }
 
     @Override
-    public String downloadFile(String fileId, User user) {
+    public CompletableFuture<String> downloadFileAsync(String fileId, User user) {
         logAccess("Download", fileId, user);
-        return realService.downloadFile(fileId, user);
+        return realService.downloadFileAsync(fileId, user);
     }
 
     @Override
-    public void uploadFile(String content, String filename, User user) {
+    public CompletableFuture<Void> uploadFileAsync(String content, String filename, User user) {
         logAccess("Upload", filename, user);
-        realService.uploadFile(content, filename, user);
+        return realService.uploadFileAsync(content, filename, user);
     }
 
     private void logAccess(String operation, String fileId, User user) {
@@ -0,0 +1,33 @@
+package com.github.ASE.Proxy.Proxies;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// The cheaper of two replicas drawn at random, the cost being the moving average of latency
+// times the downloads it would have in progress. Two random choices avoid the herd that
+// always picking the best one sends to a replica whose figures are not updated yet, and
+// weighting by latency steers traffic away from slow replicas before their queues grow.
+public class PowerOfTwoChoices implements BalancingStrategy {
+    @Override
+    public Replica select(List<Replica> replicas, String fileId) {
+        if (replicas.size() == 1) {
+            return replicas.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(replicas.size());
+        int second = random.nextInt(replicas.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        Replica a = replicas.get(first);
+        Replica b = replicas.get(second);
+        return cost(b) < cost(a) ? b : a;
+    }
+
+    // A replica not measured yet costs nothing, so that it is tried
+    private static double cost(Replica replica) {
+        return replica.getLatencyEwmaNanos() * (replica.getOutstandingDownloads() + 1);
+    }
+}
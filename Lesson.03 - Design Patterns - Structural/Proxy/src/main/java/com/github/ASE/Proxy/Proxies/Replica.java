@@ -0,0 +1,204 @@
+package com.github.ASE.Proxy.Proxies;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.github.ASE.Proxy.AsyncFileService;
+
+// A server of LoadBalancing, with what a BalancingStrategy chooses by and the counters behind
+// its ReplicaMetrics. LoadBalancing records the requests; strategies only read.
+public final class Replica {
+    // Weight of the latest download in the moving average of latency
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final AsyncFileService service;
+    private final String name;
+
+    private final LongAdder acknowledged = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder lagged = new LongAdder();
+    private final LongAdder totalLagNanos = new LongAdder();
+    private final LongAccumulator maxLagNanos = new LongAccumulator(Long::max, 0);
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong pendingRepairs = new AtomicLong();
+    private final LongAdder repaired = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    private final LongAdder downloads = new LongAdder();
+    private final LongAdder downloadFailures = new LongAdder();
+    private final AtomicInteger outstandingDownloads = new AtomicInteger();
+    // Guarded by this; negative until the first download completes
+    private double latencyEwmaNanos = -1;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile boolean ejected;
+    private final LongAdder ejections = new LongAdder();
+
+    // The uploads of each file to this replica, one at a time
+    private final ConcurrentHashMap<String, StoredFile> files = new ConcurrentHashMap<>();
+
+    Replica(AsyncFileService service) {
+        this.service = service;
+        this.name = service.toString();
+    }
+
+    AsyncFileService service() {
+        return service;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Downloads sent and not completed yet
+    public int getOutstandingDownloads() {
+        return outstandingDownloads.get();
+    }
+
+    // Moving average of the latency of its successful downloads, 0 before the first
+    public synchronized double getLatencyEwmaNanos() {
+        return Math.max(0, latencyEwmaNanos);
+    }
+
+    // Taken out of rotation for failing, until a probe succeeds
+    public boolean isEjected() {
+        return ejected;
+    }
+
+    void downloadStarted() {
+        outstandingDownloads.incrementAndGet();
+    }
+
+    void downloadSucceeded(long latencyNanos) {
+        outstandingDownloads.decrementAndGet();
+        downloads.increment();
+        consecutiveFailures.set(0);
+        recordLatency(latencyNanos);
+    }
+
+    // Neither a success nor a failure, but it took at least 'elapsedNanos': leaving it out of
+    // the average would hide the downloads slow enough for Hedging to give up on
+    void downloadCancelled(long elapsedNanos) {
+        outstandingDownloads.decrementAndGet();
+        recordLatency(elapsedNanos);
+    }
+
+    private synchronized void recordLatency(long latencyNanos) {
+        latencyEwmaNanos = latencyEwmaNanos < 0 ? latencyNanos
+                : latencyEwmaNanos + EWMA_ALPHA * (latencyNanos - latencyEwmaNanos);
+    }
+
+    // Returns the failures in a row so far
+    int downloadFailed() {
+        outstandingDownloads.decrementAndGet();
+        downloads.increment();
+        downloadFailures.increment();
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    // True if it was in rotation until now
+    boolean eject() {
+        if (ejected) {
+            return false;
+        }
+        ejected = true;
+        ejections.increment();
+        return true;
+    }
+
+    void reinstate() {
+        consecutiveFailures.set(0);
+        ejected = false;
+    }
+
+    // Runs 'upload', of 'version' of the file, unless the replica has that version or a later
+    // one already; returns false then. Uploads of one file wait for each other, so that an
+    // older version cannot land after a newer one.
+    boolean write(String filename, long version, Runnable upload) {
+        StoredFile file = files.computeIfAbsent(filename, f -> new StoredFile());
+        file.lock.lock();
+        try {
+            if (file.version >= version) {
+                return false;
+            }
+            upload.run();
+            file.version = version;
+            return true;
+        } finally {
+            file.lock.unlock();
+        }
+    }
+
+    // Whether its latest upload of the file is 'version' or a later one
+    boolean holds(String filename, long version) {
+        StoredFile file = files.get(filename);
+        return file != null && file.version >= version;
+    }
+
+    // Drops what it knows of the file, once LoadBalancing has no write of it pending
+    void forget(String filename) {
+        files.remove(filename);
+    }
+
+    void uploadStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    // Counted by uploadStarted() but never sent
+    void uploadAborted() {
+        inFlight.decrementAndGet();
+    }
+
+    // 'lagNanos' after the quorum, 0 if it came before
+    void uploadAcknowledged(long latencyNanos, long lagNanos) {
+        inFlight.decrementAndGet();
+        acknowledged.increment();
+        totalLatencyNanos.add(latencyNanos);
+        maxLatencyNanos.accumulate(latencyNanos);
+        if (lagNanos > 0) {
+            lagged.increment();
+            totalLagNanos.add(lagNanos);
+            maxLagNanos.accumulate(lagNanos);
+        }
+    }
+
+    void uploadFailed() {
+        inFlight.decrementAndGet();
+        failed.increment();
+    }
+
+    void repairQueued() {
+        pendingRepairs.incrementAndGet();
+    }
+
+    // The repair is done, 'succeeded' or abandoned, or was superseded by a later write
+    void repairEnded(boolean succeeded, boolean abandon) {
+        pendingRepairs.decrementAndGet();
+        if (succeeded) {
+            repaired.increment();
+        } else if (abandon) {
+            abandoned.increment();
+        }
+    }
+
+    ReplicaMetrics metrics() {
+        long acks = acknowledged.sum();
+        long lags = lagged.sum();
+        return new ReplicaMetrics(name, acks, failed.sum(), acks == 0 ? 0 : totalLatencyNanos.sum() / 1e6 / acks,
+                maxLatencyNanos.get() / 1e6, lags == 0 ? 0 : totalLagNanos.sum() / 1e6 / lags, maxLagNanos.get() / 1e6,
+                inFlight.get(), pendingRepairs.get(), repaired.sum(), abandoned.sum(), downloads.sum(),
+                downloadFailures.sum(), getLatencyEwmaNanos() / 1e6, outstandingDownloads.get(), ejected,
+                ejections.sum());
+    }
+
+    private static class StoredFile {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Latest version uploaded, 0 before the first
+        private volatile long version;
+    }
+}
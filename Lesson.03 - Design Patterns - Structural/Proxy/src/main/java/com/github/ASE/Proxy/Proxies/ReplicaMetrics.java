@@ -0,0 +1,132 @@
+package com.github.ASE.Proxy.Proxies;
+
+// Uploads to and downloads from one replica of LoadBalancing since it was created. The lag of
+// a replica is how long after the write quorum it acknowledged; the writes it is missing wait
+// for repair.
+public class ReplicaMetrics {
+    private final String replica;
+    private final long acknowledged;
+    private final long failed;
+    private final double meanLatencyMillis;
+    private final double maxLatencyMillis;
+    private final double meanLagMillis;
+    private final double maxLagMillis;
+    private final long inFlight;
+    private final long pendingRepairs;
+    private final long repaired;
+    private final long abandoned;
+    private final long downloads;
+    private final long downloadFailures;
+    private final double latencyEwmaMillis;
+    private final long outstandingDownloads;
+    private final boolean ejected;
+    private final long ejections;
+
+    ReplicaMetrics(String replica, long acknowledged, long failed, double meanLatencyMillis, double maxLatencyMillis,
+            double meanLagMillis, double maxLagMillis, long inFlight, long pendingRepairs, long repaired,
+            long abandoned, long downloads, long downloadFailures, double latencyEwmaMillis,
+            long outstandingDownloads, boolean ejected, long ejections) {
+        this.replica = replica;
+        this.acknowledged = acknowledged;
+        this.failed = failed;
+        this.meanLatencyMillis = meanLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.meanLagMillis = meanLagMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.inFlight = inFlight;
+        this.pendingRepairs = pendingRepairs;
+        this.repaired = repaired;
+        this.abandoned = abandoned;
+        this.downloads = downloads;
+        this.downloadFailures = downloadFailures;
+        this.latencyEwmaMillis = latencyEwmaMillis;
+        this.outstandingDownloads = outstandingDownloads;
+        this.ejected = ejected;
+        this.ejections = ejections;
+    }
+
+    public String getReplica() {
+        return replica;
+    }
+
+    // Uploads, repairs included, that succeeded and failed
+    public long getAcknowledged() {
+        return acknowledged;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public double getMeanLatencyMillis() {
+        return meanLatencyMillis;
+    }
+
+    public double getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+
+    // Over the acknowledgements that came after the quorum, 0 if none did
+    public double getMeanLagMillis() {
+        return meanLagMillis;
+    }
+
+    public double getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    // Writes the replica missed that are queued for repair
+    public long getPendingRepairs() {
+        return pendingRepairs;
+    }
+
+    public long getRepaired() {
+        return repaired;
+    }
+
+    // Repairs given up after too many attempts
+    public long getAbandoned() {
+        return abandoned;
+    }
+
+    // Downloads completed, failed ones included
+    public long getDownloads() {
+        return downloads;
+    }
+
+    public long getDownloadFailures() {
+        return downloadFailures;
+    }
+
+    // Moving average of the latency of the successful downloads
+    public double getLatencyEwmaMillis() {
+        return latencyEwmaMillis;
+    }
+
+    public long getOutstandingDownloads() {
+        return outstandingDownloads;
+    }
+
+    public boolean isEjected() {
+        return ejected;
+    }
+
+    // Times it was taken out of rotation for failing
+    public long getEjections() {
+        return ejections;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s%s: uploads %d acks, %d failed, latency mean %.1f ms max %.1f ms, lag mean %.1f ms "
+                + "max %.1f ms, %d in flight, %d repairs pending, %d repaired, %d abandoned; downloads %d, "
+                + "%d failed, latency EWMA %.1f ms, %d outstanding, %d ejections", replica, ejected ? " (ejected)" : "",
+                acknowledged, failed, meanLatencyMillis, maxLatencyMillis, meanLagMillis, maxLagMillis, inFlight,
+                pendingRepairs, repaired, abandoned, downloads, downloadFailures, latencyEwmaMillis,
+                outstandingDownloads, ejections);
+    }
+}
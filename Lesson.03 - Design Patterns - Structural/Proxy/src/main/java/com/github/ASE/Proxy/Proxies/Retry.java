@@ -1,49 +1,67 @@
 package com.github.ASE.Proxy.Proxies;
 
-import com.github.ASE.Proxy.FileService;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.github.ASE.Proxy.AsyncFileService;
 import com.github.ASE.Proxy.User;
 
-public class Retry implements FileService {
-    private final FileService realService;
+public class Retry implements AsyncFileService {
+    private final AsyncFileService realService;
     private final int maxRetries;
 
-    public Retry(FileService realService, int maxRetries) {
+    public Retry(AsyncFileService realService, int maxRetries) {
         this.realService = realService;
         this.maxRetries = maxRetries;
     }
 
+    // Each attempt is made when the one before fails, from the thread that completes it
     @Override
-    public String downloadFile(String fileId, User user) {
-        int attempt = 0;
-        while (true) {
-            try {
-                return realService.downloadFile(fileId, user);
-            } catch (Exception e) {
-                attempt++;
-                if (attempt > maxRetries) {
-                    System.out.println("Max retries reached for file: " + fileId);
-                    return "Error: " + e.getMessage();
-                }
-                System.out.println("Retry " + attempt + " for file: " + fileId);
+    public CompletableFuture<String> downloadFileAsync(String fileId, User user) {
+        return downloadAttempt(fileId, user, 0);
+    }
+
+    private CompletableFuture<String> downloadAttempt(String fileId, User user, int attempt) {
+        return recover(call(() -> realService.downloadFileAsync(fileId, user)), e -> {
+            if (attempt + 1 > maxRetries) {
+                System.out.println("Max retries reached for file: " + fileId);
+                return CompletableFuture.completedFuture("Error: " + AsyncFileService.unwrap(e).getMessage());
             }
-        }
+            System.out.println("Retry " + (attempt + 1) + " for file: " + fileId);
+            return downloadAttempt(fileId, user, attempt + 1);
+        });
     }
 
     @Override
-    public void uploadFile(String content, String filename, User user) {
-        int attempt = 0;
-        while (true) {
-            try {
-                realService.uploadFile(content, filename, user);
-                return;
-            } catch (Exception e) {
-                attempt++;
-                if (attempt > maxRetries) {
-                    System.out.println("Upload failed after " + maxRetries + " retries.");
-                    return;
-                }
-                System.out.println("Retrying upload...");
+    public CompletableFuture<Void> uploadFileAsync(String content, String filename, User user) {
+        return uploadAttempt(content, filename, user, 0);
+    }
+
+    private CompletableFuture<Void> uploadAttempt(String content, String filename, User user, int attempt) {
+        return recover(call(() -> realService.uploadFileAsync(content, filename, user)), e -> {
+            if (attempt + 1 > maxRetries) {
+                System.out.println("Upload failed after " + maxRetries + " retries.");
+                return CompletableFuture.completedFuture(null);
             }
+            System.out.println("Retrying upload...");
+            return uploadAttempt(content, filename, user, attempt + 1);
+        });
+    }
+
+    // The call's future, failed rather than thrown if the call throws
+    private static <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
+
+    // The future, or if it fails the one 'fallback' returns for the exception
+    private static <T> CompletableFuture<T> recover(CompletableFuture<T> future,
+            Function<Throwable, CompletableFuture<T>> fallback) {
+        return future.handle((value, e) -> e == null ? CompletableFuture.completedFuture(value) : fallback.apply(e))
+                .thenCompose(Function.identity());
+    }
 }
@@ -0,0 +1,15 @@
+package com.github.ASE.Proxy.Proxies;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Each replica in turn
+public class RoundRobin implements BalancingStrategy {
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override
+    public Replica select(List<Replica> replicas, String fileId) {
+        // floorMod, as the counter overflows to negative values in time
+        return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+    }
+}
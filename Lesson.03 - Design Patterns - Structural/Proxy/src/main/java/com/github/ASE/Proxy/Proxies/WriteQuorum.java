@@ -0,0 +1,17 @@
+package com.github.ASE.Proxy.Proxies;
+
+// Replicas that must acknowledge an upload before it completes
+public enum WriteQuorum {
+    ONE, QUORUM, ALL;
+
+    public int required(int replicas) {
+        switch (this) {
+        case ONE:
+            return Math.min(1, replicas);
+        case QUORUM:
+            return replicas / 2 + 1;
+        default:
+            return replicas;
+        }
+    }
+}
@@ -1,38 +1,51 @@
 package com.github.ASE.Proxy;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
-public class RemoteFileService implements FileService {
-    private final Map<String, String> storage = new HashMap<>();
+public class RemoteFileService implements AsyncFileService {
+    private static final long LATENCY_MILLIS = 100;
+
+    private final Map<String, String> storage = new ConcurrentHashMap<>();
     private final String serverId;
+    // Runs the responses once the simulated network delay has passed
+    private final Executor network;
 
     public RemoteFileService(String serverId) {
+        this(serverId, ForkJoinPool.commonPool());
+    }
+
+    public RemoteFileService(String serverId, Executor executor) {
         this.serverId = serverId;
+        this.network = CompletableFuture.delayedExecutor(LATENCY_MILLIS, TimeUnit.MILLISECONDS, executor);
     }
 
     @Override
-    public String downloadFile(String fileId, User user) {
-        simulateNetworkLatency();
-        if (Math.random() < 0.1) {
-            throw new RuntimeException("Network error");
-        }
-        System.out.println("[Server " + serverId + "] Downloading file: " + fileId);
-        return storage.getOrDefault(fileId, "File not found");
+    public CompletableFuture<String> downloadFileAsync(String fileId, User user) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (ThreadLocalRandom.current().nextDouble() < 0.1) {
+                throw new RuntimeException("Network error");
+            }
+            System.out.println("[Server " + serverId + "] Downloading file: " + fileId);
+            return storage.getOrDefault(fileId, "File not found");
+        }, network);
     }
 
     @Override
-    public void uploadFile(String content, String filename, User user) {
-        simulateNetworkLatency();
-        System.out.println("[Server " + serverId + "] Uploading file: " + filename);
-        storage.put(filename, content);
+    public CompletableFuture<Void> uploadFileAsync(String content, String filename, User user) {
+        return CompletableFuture.runAsync(() -> {
+            System.out.println("[Server " + serverId + "] Uploading file: " + filename);
+            storage.put(filename, content);
+        }, network);
     }
 
-    private void simulateNetworkLatency() {
-        try {
-            Thread.sleep(100); // Simulate network delay
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+    @Override
+    public String toString() {
+        return "Server " + serverId;
     }
 }
@@ -0,0 +1,67 @@
+package com.github.ASE.Proxy.Cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class FrequencySketchTest {
+    @Test
+    void testCountsSaturate() {
+        FrequencySketch sketch = new FrequencySketch(512);
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("hot");
+        }
+        for (int i = 0; i < 3; i++) {
+            sketch.increment("warm");
+        }
+
+        assertEquals(15, sketch.frequency("hot"));
+        assertEquals(3, sketch.frequency("warm"));
+        assertEquals(0, sketch.frequency("never seen"));
+    }
+
+    @Test
+    void testResetHalvesTheCounts() {
+        // Sample size of ten times the capacity: 640 increments
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("hot");
+        }
+        for (int i = 0; i < 629; i++) {
+            sketch.increment("cold " + i);
+        }
+        int before = sketch.frequency("hot");
+        int[] cold = new int[629];
+        for (int i = 0; i < cold.length; i++) {
+            cold[i] = sketch.frequency("cold " + i);
+        }
+        assertTrue(before >= 10);
+
+        sketch.increment("cold 629");
+        assertEquals(before / 2, sketch.frequency("hot"));
+        // Rounded up where the last increment shared a counter
+        for (int i = 0; i < cold.length; i++) {
+            int after = sketch.frequency("cold " + i);
+            assertTrue(after == cold[i] / 2 || after == (cold[i] + 1) / 2, "cold " + i);
+        }
+    }
+
+    @Test
+    void testOldPopularityAges() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 15; i++) {
+            sketch.increment("old");
+        }
+
+        // Several resets later, a key popular since counts more
+        for (int i = 0; i < 5 * 640; i++) {
+            sketch.increment("new " + i % 1000);
+            if (i % 100 == 0) {
+                sketch.increment("recent");
+            }
+        }
+        assertTrue(sketch.frequency("old") < sketch.frequency("recent"));
+        assertTrue(sketch.frequency("old") <= 1);
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.ASE.Proxy.Cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class TinyLfuCacheTest {
+    private static TinyLfuCache<String, String> cache(long maximumSize) {
+        return new TinyLfuCache<>(maximumSize, Long.MAX_VALUE, value -> 1, Duration.ofHours(1));
+    }
+
+    @Test
+    void testHotKeysSurviveAScan() {
+        TinyLfuCache<String, String> cache = cache(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put("hot " + i, "value");
+        }
+        for (int read = 0; read < 3; read++) {
+            for (int i = 0; i < 50; i++) {
+                assertNotNull(cache.getIfPresent("hot " + i));
+            }
+        }
+
+        // A scan of keys written once each, which would flush an LRU cache, while the hot keys
+        // are still read now and then
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("scan " + i, "value");
+            if (i % 1000 == 999) {
+                for (int j = 0; j < 50; j++) {
+                    assertNotNull(cache.getIfPresent("hot " + j), "hot " + j + " after " + i);
+                }
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertNotNull(cache.getIfPresent("hot " + i), "hot " + i);
+        }
+        assertTrue(cache.estimatedSize() <= 100);
+        assertTrue(cache.stats().getEvictionCount() >= 10_000 - 50);
+    }
+
+    @Test
+    void testWeightBound() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(1000, 100, String::length, Duration.ofHours(1));
+        for (int i = 0; i < 100; i++) {
+            cache.put("key " + i, "0123456789");
+            assertTrue(cache.weight() <= 100);
+        }
+
+        // Heavier than the whole cache, never kept
+        cache.put("huge", "x".repeat(101));
+        assertNull(cache.getIfPresent("huge"));
+        assertTrue(cache.weight() <= 100);
+    }
+
+    @Test
+    void testExpiry() throws Exception {
+        TinyLfuCache<String, String> cache = cache(10);
+        cache.put("short", "value", Duration.ofMillis(1));
+        cache.put("long", "value");
+        Thread.sleep(20);
+
+        assertNull(cache.getIfPresent("short"));
+        assertNotNull(cache.getIfPresent("long"));
+        assertEquals(1, cache.stats().getExpirationCount());
+    }
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        TinyLfuCache<String, String> cache = cache(10);
+        CompletableFuture<String> download = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+        int threads = 32;
+        CountDownLatch started = new CountDownLatch(threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<CompletableFuture<String>>> calls = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                calls.add(executor.submit(() -> {
+                    started.countDown();
+                    started.await();
+                    return cache.getAsync("file", key -> {
+                        loads.incrementAndGet();
+                        return download;
+                    }, value -> true);
+                }));
+            }
+
+            // The load stays in flight until every caller has joined it
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (Future<CompletableFuture<String>> call : calls) {
+                results.add(call.get());
+            }
+            download.complete("content");
+
+            for (CompletableFuture<String> result : results) {
+                assertEquals("content", result.join());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals("content", cache.getIfPresent("file"));
+        assertEquals(1, cache.stats().getLoadSuccessCount());
+    }
+
+    @Test
+    void testCallersCannotCancelEachOther() {
+        TinyLfuCache<String, String> cache = cache(10);
+        CompletableFuture<String> download = new CompletableFuture<>();
+        CompletableFuture<String> first = cache.getAsync("file", key -> download, value -> true);
+        CompletableFuture<String> second = cache.getAsync("file", key -> download, value -> true);
+
+        first.cancel(true);
+        download.complete("content");
+
+        assertEquals("content", second.join());
+        assertEquals("content", cache.getIfPresent("file"));
+    }
+
+    @Test
+    void testInvalidateDuringLoad() {
+        TinyLfuCache<String, String> cache = cache(10);
+        CompletableFuture<String> download = new CompletableFuture<>();
+        CompletableFuture<String> waiting = cache.getAsync("file", key -> download, value -> true);
+
+        // An upload meanwhile makes the value being downloaded stale
+        cache.invalidate("file");
+        download.complete("stale");
+
+        assertEquals("stale", waiting.join());
+        assertNull(cache.getIfPresent("file"));
+
+        // The next miss loads again
+        assertEquals("fresh", cache.getAsync("file", key -> CompletableFuture.completedFuture("fresh"),
+                value -> true).join());
+        assertEquals("fresh", cache.getIfPresent("file"));
+    }
+
+    @Test
+    void testPutDuringLoadWins() {
+        TinyLfuCache<String, String> cache = cache(10);
+        CompletableFuture<String> download = new CompletableFuture<>();
+        cache.getAsync("file", key -> download, value -> true);
+
+        cache.put("file", "new");
+        download.complete("old");
+
+        assertEquals("new", cache.getIfPresent("file"));
+    }
+
+    @Test
+    void testFailuresAreNotCached() {
+        TinyLfuCache<String, String> cache = cache(10);
+        CompletableFuture<String> failed = cache.getAsync("file",
+                key -> CompletableFuture.failedFuture(new IllegalStateException("down")), value -> true);
+        CompletionException e = assertThrows(CompletionException.class, failed::join);
+        assertTrue(e.getCause() instanceof IllegalStateException);
+
+        // Nor values refused by the predicate
+        assertEquals("Error", cache.get("file", key -> "Error", value -> !value.equals("Error")));
+        assertNull(cache.getIfPresent("file"));
+
+        assertEquals("content", cache.get("file", key -> "content", value -> true));
+        assertEquals(1, cache.stats().getLoadFailureCount());
+        assertEquals(2, cache.stats().getLoadSuccessCount());
+    }
+}
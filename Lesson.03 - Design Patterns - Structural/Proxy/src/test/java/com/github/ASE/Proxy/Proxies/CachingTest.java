@@ -0,0 +1,106 @@
+package com.github.ASE.Proxy.Proxies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.ASE.Proxy.AsyncFileService;
+import com.github.ASE.Proxy.User;
+
+public class CachingTest {
+    private static final User USER = new User("alice", "user");
+
+    // Fake server: downloads complete when the test says so
+    static class FakeFileService implements AsyncFileService {
+        final List<CompletableFuture<String>> downloads = new ArrayList<>();
+        int uploads;
+
+        @Override
+        public CompletableFuture<String> downloadFileAsync(String fileId, User user) {
+            CompletableFuture<String> download = new CompletableFuture<>();
+            downloads.add(download);
+            return download;
+        }
+
+        @Override
+        public CompletableFuture<Void> uploadFileAsync(String content, String filename, User user) {
+            uploads++;
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    // What 'action' prints to System.out
+    private static String output(Runnable action) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer, true));
+        try {
+            action.run();
+        } finally {
+            System.setOut(out);
+        }
+        return buffer.toString();
+    }
+
+    @Test
+    void testConcurrentMissesShareOneDownload() {
+        FakeFileService server = new FakeFileService();
+        Caching caching = new Caching(server);
+        List<CompletableFuture<String>> results = new ArrayList<>();
+
+        String printed = output(() -> {
+            for (int i = 0; i < 5; i++) {
+                results.add(caching.downloadFileAsync("report", USER));
+            }
+            server.downloads.get(0).complete("content");
+        });
+
+        assertEquals(1, server.downloads.size());
+        for (CompletableFuture<String> result : results) {
+            assertEquals("content", result.join());
+        }
+        // None of them found the file in the cache
+        assertFalse(printed.contains("Serving from cache"), printed);
+
+        printed = output(() -> assertEquals("content", caching.downloadFileAsync("report", USER).join()));
+        assertTrue(printed.contains("Serving from cache: report"), printed);
+        assertEquals(1, server.downloads.size());
+    }
+
+    @Test
+    void testErrorsAreNotCached() {
+        FakeFileService server = new FakeFileService();
+        Caching caching = new Caching(server);
+
+        CompletableFuture<String> first = caching.downloadFileAsync("report", USER);
+        server.downloads.get(0).complete("Error: not found");
+        assertEquals("Error: not found", first.join());
+
+        caching.downloadFileAsync("report", USER);
+        assertEquals(2, server.downloads.size());
+    }
+
+    @Test
+    void testUploadDuringDownloadKeepsTheStaleFileOut() {
+        FakeFileService server = new FakeFileService();
+        Caching caching = new Caching(server);
+
+        CompletableFuture<String> download = caching.downloadFileAsync("report", USER);
+        caching.uploadFileAsync("new", "report", USER).join();
+        server.downloads.get(0).complete("old");
+        assertEquals("old", download.join());
+
+        // Downloaded again rather than served the old content from the cache
+        caching.downloadFileAsync("report", USER);
+        assertEquals(2, server.downloads.size());
+        assertEquals(1, server.uploads);
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.ASE.Proxy.Proxies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.ASE.Proxy.AsyncFileService;
+import com.github.ASE.Proxy.User;
+
+public class HedgingTest {
+    private static final User USER = new User("alice", "user");
+
+    // Fake server: every download completes when the test says so
+    static class FakeFileService implements AsyncFileService {
+        private final List<CompletableFuture<String>> downloads = new ArrayList<>();
+
+        @Override
+        public synchronized CompletableFuture<String> downloadFileAsync(String fileId, User user) {
+            CompletableFuture<String> download = new CompletableFuture<>();
+            downloads.add(download);
+            return download;
+        }
+
+        @Override
+        public CompletableFuture<Void> uploadFileAsync(String content, String filename, User user) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        synchronized CompletableFuture<String> download(int index) {
+            return downloads.get(index);
+        }
+
+        synchronized int count() {
+            return downloads.size();
+        }
+    }
+
+    // Waits up to five seconds for 'condition'
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(1);
+        }
+    }
+
+    // Enough fast downloads for the histogram to give a delay, of about the minimum
+    private static void warmUp(Hedging hedging, FakeFileService server) {
+        for (int i = 0; i < 20; i++) {
+            CompletableFuture<String> result = hedging.downloadFileAsync("file", USER);
+            server.download(server.count() - 1).complete("content");
+            result.join();
+        }
+    }
+
+    @Test
+    void testNoTimedHedgeWithoutLatencies() throws Exception {
+        FakeFileService server = new FakeFileService();
+        Hedging hedging = new Hedging(server);
+
+        CompletableFuture<String> result = hedging.downloadFileAsync("file", USER);
+        assertEquals(-1, hedging.getHedgeDelayNanos());
+        Thread.sleep(50);
+
+        assertEquals(1, server.count());
+        server.download(0).complete("content");
+        assertEquals("content", result.join());
+    }
+
+    @Test
+    void testHedgeAfterTheDelay() throws Exception {
+        FakeFileService server = new FakeFileService();
+        Hedging hedging = new Hedging(server);
+        warmUp(hedging, server);
+        assertTrue(hedging.getHedgeDelayNanos() >= TimeUnit.MILLISECONDS.toNanos(1));
+
+        CompletableFuture<String> result = hedging.downloadFileAsync("file", USER);
+        waitFor(() -> server.count() == 22);
+        server.download(21).complete("hedge");
+
+        assertEquals("hedge", result.join());
+        assertTrue(server.download(20).isCancelled());
+        assertEquals(1, hedging.getHedges());
+        assertEquals(1, hedging.getHedgesWon());
+    }
+
+    @Test
+    void testHedgeOnFailure() {
+        FakeFileService server = new FakeFileService();
+        Hedging hedging = new Hedging(server);
+
+        CompletableFuture<String> result = hedging.downloadFileAsync("file", USER);
+        server.download(0).completeExceptionally(new IllegalStateException("down"));
+        assertEquals(2, server.count());
+        server.download(1).complete("content");
+
+        assertEquals("content", result.join());
+        assertEquals(1, hedging.getHedgesWon());
+    }
+
+    @Test
+    void testFailsWhenBothFail() {
+        FakeFileService server = new FakeFileService();
+        Hedging hedging = new Hedging(server);
+
+        CompletableFuture<String> result = hedging.downloadFileAsync("file", USER);
+        server.download(0).completeExceptionally(new IllegalStateException("first"));
+        assertFalse(result.isDone());
+        server.download(1).completeExceptionally(new IllegalStateException("second"));
+
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertEquals("second", e.getCause().getMessage());
+    }
+
+    @Test
+    void testBudgetCapsHedges() throws Exception {
+        FakeFileService server = new FakeFileService();
+        // No budget added per download: only the one hedge it starts with
+        Hedging hedging = new Hedging(server, 0.95, 0);
+        warmUp(hedging, server);
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(hedging.downloadFileAsync("file", USER));
+        }
+        waitFor(() -> hedging.getHedges() + hedging.getHedgesDenied() == 5);
+
+        assertEquals(1, hedging.getHedges());
+        assertEquals(4, hedging.getHedgesDenied());
+        assertEquals(20 + 5 + 1, server.count());
+        for (int i = 20; i < server.count(); i++) {
+            server.download(i).complete("content");
+        }
+        for (CompletableFuture<String> result : results) {
+            assertEquals("content", result.join());
+        }
+    }
+
+    @Test
+    void testCancelledAndFailedAttemptsAreRecorded() throws Exception {
+        FakeFileService server = new FakeFileService();
+        // A hedge for every download, so that each failure is hedged
+        Hedging hedging = new Hedging(server, 0.95, 100);
+
+        // Slow downloads that are abandoned: only their cancellation tells how slow they were
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(hedging.downloadFileAsync("file", USER));
+        }
+        Thread.sleep(30);
+        for (CompletableFuture<String> result : results) {
+            result.cancel(true);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(server.download(i).isCancelled(), "attempt " + i);
+        }
+
+        // And slow failures, each hedged at once by a hedge that fails too
+        for (int i = 0; i < 5; i++) {
+            CompletableFuture<String> result = hedging.downloadFileAsync("file", USER);
+            Thread.sleep(30);
+            server.download(server.count() - 1).completeExceptionally(new IllegalStateException("down"));
+            server.download(server.count() - 1).completeExceptionally(new IllegalStateException("down"));
+            assertThrows(CompletionException.class, result::join);
+        }
+
+        // The delay reflects the slow attempts rather than staying unknown
+        long delay = hedging.getHedgeDelayNanos();
+        assertTrue(delay >= TimeUnit.MILLISECONDS.toNanos(30), "delay " + delay);
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.ASE.Proxy.Proxies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    void testTooFewSamples() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(-1, histogram.percentile(0.5, 1));
+
+        for (int i = 0; i < 19; i++) {
+            histogram.record(1_000);
+        }
+        assertEquals(-1, histogram.percentile(0.5, 20));
+        histogram.record(1_000);
+        assertTrue(histogram.percentile(0.5, 20) >= 1_000);
+    }
+
+    @Test
+    void testPercentilesWithinASixteenth() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1 to 500 microseconds
+        for (int i = 1; i <= 500; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        for (double p : new double[] { 0.01, 0.5, 0.9, 0.95, 0.99, 1 }) {
+            long exact = (long) Math.ceil(p * 500) * 1_000;
+            long estimate = histogram.percentile(p, 1);
+            assertTrue(estimate >= exact && estimate <= exact + exact / 16, p + ": " + estimate);
+        }
+    }
+
+    @Test
+    void testSmallAndHugeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 16; i++) {
+            histogram.record(i);
+        }
+        // Exact below sixteen
+        assertEquals(7, histogram.percentile(0.5, 1));
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(18, histogram.count());
+        assertTrue(histogram.percentile(1, 1) > 1L << 40);
+    }
+
+    @Test
+    void testOldWindowsAreForgotten() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 1_000; i++) {
+            histogram.record(1_000_000);
+        }
+        assertTrue(histogram.percentile(0.01, 1) < 2_000_000);
+
+        // Two windows later only the new latency is left, the last window full and the
+        // current one just started
+        for (int i = 0; i < 2_000; i++) {
+            histogram.record(10_000_000);
+        }
+        assertEquals(1_000, histogram.count());
+        assertTrue(histogram.percentile(0.01, 1) >= 10_000_000);
+    }
+}
@@ -0,0 +1,224 @@
+package com.github.ASE.Proxy.Proxies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.ASE.Proxy.AsyncFileService;
+import com.github.ASE.Proxy.User;
+
+public class LoadBalancingTest {
+    private static final User USER = new User("alice", "admin");
+
+    // Fake server: uploads wait for the gate, then fail while 'failing' is set
+    static class FakeServer implements AsyncFileService {
+        final String name;
+        final Map<String, String> files = new ConcurrentHashMap<>();
+        final AtomicInteger uploads = new AtomicInteger();
+        volatile CompletableFuture<Void> gate = CompletableFuture.completedFuture(null);
+        volatile boolean failing;
+
+        FakeServer(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public CompletableFuture<String> downloadFileAsync(String fileId, User user) {
+            return CompletableFuture.completedFuture(files.getOrDefault(fileId, "File not found"));
+        }
+
+        @Override
+        public CompletableFuture<Void> uploadFileAsync(String content, String filename, User user) {
+            uploads.incrementAndGet();
+            return gate.thenRun(() -> {
+                if (failing) {
+                    throw new IllegalStateException(name + " down");
+                }
+                files.put(filename, content);
+            });
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    // Waits up to five seconds for 'condition'
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(1);
+        }
+    }
+
+    private static ReplicaMetrics metrics(LoadBalancing loadBalancing, int replica) {
+        return loadBalancing.getReplicaMetrics().get(replica);
+    }
+
+    @Test
+    void testAllWaitsForEveryReplica() throws Exception {
+        FakeServer a = new FakeServer("A");
+        FakeServer b = new FakeServer("B");
+        FakeServer c = new FakeServer("C");
+        c.gate = new CompletableFuture<>();
+
+        try (LoadBalancing loadBalancing = new LoadBalancing(List.of(a, b, c), WriteQuorum.ALL)) {
+            CompletableFuture<Void> upload = loadBalancing.uploadFileAsync("v1", "file", USER);
+            waitFor(() -> b.files.containsKey("file") && a.files.containsKey("file"));
+            Thread.sleep(20);
+            assertFalse(upload.isDone());
+
+            c.gate.complete(null);
+            upload.join();
+            assertEquals("v1", c.files.get("file"));
+        }
+    }
+
+    @Test
+    void testQuorumAndOne() throws Exception {
+        FakeServer a = new FakeServer("A");
+        FakeServer b = new FakeServer("B");
+        FakeServer c = new FakeServer("C");
+        c.gate = new CompletableFuture<>();
+
+        try (LoadBalancing loadBalancing = new LoadBalancing(List.of(a, b, c), WriteQuorum.QUORUM)) {
+            // Two of three, while C has not answered
+            loadBalancing.uploadFileAsync("v1", "file", USER).join();
+            assertFalse(c.files.containsKey("file"));
+            c.gate.complete(null);
+        }
+
+        a.gate = new CompletableFuture<>();
+        b.gate = new CompletableFuture<>();
+        try (LoadBalancing loadBalancing = new LoadBalancing(List.of(a, b, c), WriteQuorum.ONE)) {
+            loadBalancing.uploadFileAsync("v2", "file", USER).join();
+            assertEquals("v2", c.files.get("file"));
+            a.gate.complete(null);
+            b.gate.complete(null);
+        }
+    }
+
+    @Test
+    void testFailsOnceTheQuorumIsUnreachable() throws Exception {
+        FakeServer a = new FakeServer("A");
+        FakeServer b = new FakeServer("B");
+        FakeServer c = new FakeServer("C");
+        a.failing = true;
+        b.failing = true;
+        c.gate = new CompletableFuture<>();
+
+        try (LoadBalancing loadBalancing = new LoadBalancing(List.of(a, b, c), WriteQuorum.QUORUM)) {
+            // Without waiting for C, which could make only one acknowledgement of two
+            CompletableFuture<Void> upload = loadBalancing.uploadFileAsync("v1", "file", USER);
+            CompletionException e = assertThrows(CompletionException.class, upload::join);
+            assertTrue(e.getCause().getMessage().startsWith("Write quorum not reached"), e.getCause().getMessage());
+            assertFalse(c.gate.isDone());
+            c.gate.complete(null);
+        }
+    }
+
+    @Test
+    void testDownloadsSeeTheAcknowledgedUpload() throws Exception {
+        FakeServer a = new FakeServer("A");
+        FakeServer b = new FakeServer("B");
+        FakeServer c = new FakeServer("C");
+        c.gate = new CompletableFuture<>();
+
+        try (LoadBalancing loadBalancing = new LoadBalancing(List.of(a, b, c), WriteQuorum.QUORUM)) {
+            loadBalancing.uploadFileAsync("v1", "file", USER).join();
+
+            // Round robin would send every third to C, which has not got the file yet
+            for (int i = 0; i < 9; i++) {
+                assertEquals("v1", loadBalancing.downloadFileAsync("file", USER).join());
+            }
+            c.gate.complete(null);
+        }
+    }
+
+    @Test
+    void testRepair() throws Exception {
+        FakeServer a = new FakeServer("A");
+        FakeServer b = new FakeServer("B");
+        b.failing = true;
+
+        try (LoadBalancing loadBalancing = new LoadBalancing(List.of(a, b), WriteQuorum.ONE)) {
+            loadBalancing.uploadFileAsync("v1", "file", USER).join();
+            waitFor(() -> metrics(loadBalancing, 1).getFailed() == 1);
+            assertEquals(1, metrics(loadBalancing, 1).getPendingRepairs());
+
+            b.failing = false;
+            waitFor(() -> metrics(loadBalancing, 1).getRepaired() == 1);
+            assertEquals("v1", b.files.get("file"));
+            assertEquals(0, metrics(loadBalancing, 1).getPendingRepairs());
+        }
+    }
+
+    @Test
+    void testRepairSupersededByANewerVersion() throws Exception {
+        FakeServer a = new FakeServer("A");
+        FakeServer b = new FakeServer("B");
+        b.failing = true;
+
+        try (LoadBalancing loadBalancing = new LoadBalancing(List.of(a, b), WriteQuorum.ONE)) {
+            loadBalancing.uploadFileAsync("v1", "file", USER).join();
+            waitFor(() -> metrics(loadBalancing, 1).getFailed() == 1);
+
+            // Before the repair is due, the next upload reaches B
+            b.failing = false;
+            loadBalancing.uploadFileAsync("v2", "file", USER).join();
+            waitFor(() -> "v2".equals(b.files.get("file")));
+
+            waitFor(() -> metrics(loadBalancing, 1).getPendingRepairs() == 0);
+            assertEquals("v2", b.files.get("file"));
+            assertEquals(0, metrics(loadBalancing, 1).getRepaired());
+            assertEquals(2, b.uploads.get());
+        }
+    }
+
+    @Test
+    void testFilesAreForgottenOnceEveryReplicaHasThem() throws Exception {
+        FakeServer a = new FakeServer("A");
+        FakeServer b = new FakeServer("B");
+        b.gate = new CompletableFuture<>();
+
+        try (LoadBalancing loadBalancing = new LoadBalancing(List.of(a, b), WriteQuorum.ONE)) {
+            for (int i = 0; i < 100; i++) {
+                loadBalancing.uploadFileAsync("content", "file " + i, USER).join();
+            }
+            assertEquals(100, loadBalancing.getTrackedFiles());
+
+            b.gate.complete(null);
+            waitFor(() -> loadBalancing.getTrackedFiles() == 0);
+
+            // Uploaded again after being forgotten, the new version still reaches every replica
+            loadBalancing.uploadFileAsync("new content", "file 0", USER).join();
+            waitFor(() -> "new content".equals(b.files.get("file 0")));
+            assertEquals("new content", a.files.get("file 0"));
+        }
+    }
+
+    @Test
+    void testUploadAfterClose() {
+        FakeServer a = new FakeServer("A");
+        LoadBalancing loadBalancing = new LoadBalancing(List.of(a));
+        loadBalancing.close();
+
+        CompletableFuture<Void> upload = loadBalancing.uploadFileAsync("v1", "file", USER);
+        assertTrue(upload.isCompletedExceptionally());
+        assertEquals(0, metrics(loadBalancing, 0).getInFlight());
+    }
+}